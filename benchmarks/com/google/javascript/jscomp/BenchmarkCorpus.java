@@ -0,0 +1,247 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static com.google.common.base.Preconditions.checkState;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.ImmutableList;
+import com.google.javascript.jscomp.CompilerOptions.LanguageMode;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * The inputs the benchmarks run over. A corpus is named by the {@code corpus} parameter of a
+ * benchmark:
+ *
+ * <ul>
+ *   <li>{@value #SYNTHETIC}: generated, type annotated ES5 code. It is the same on every run, so
+ *       results are comparable across compiler versions.
+ *   <li>{@value #EXTERNS}: the browser externs that ship with the compiler, which are real,
+ *       heavily annotated code and are always part of a real compile.
+ *   <li>anything else is taken as a directory, and every {@code .js} file below it is read. Use
+ *       this to benchmark an application, e.g. {@code -p corpus=/path/to/app/js}.
+ * </ul>
+ */
+public final class BenchmarkCorpus {
+  public static final String SYNTHETIC = "synthetic";
+  public static final String EXTERNS = "externs";
+
+  private static final int SYNTHETIC_FILES = 100;
+  private static final int SYNTHETIC_CLASSES_PER_FILE = 10;
+  private static final long SYNTHETIC_SEED = 42;
+
+  private BenchmarkCorpus() {}
+
+  /** Returns the inputs of the named corpus, in a stable order. */
+  public static List<SourceFile> load(String corpus) throws IOException {
+    switch (corpus) {
+      case SYNTHETIC:
+        return synthetic(SYNTHETIC_FILES, SYNTHETIC_CLASSES_PER_FILE, SYNTHETIC_SEED);
+      case EXTERNS:
+        return externs();
+      default:
+        return fromDirectory(Paths.get(corpus));
+    }
+  }
+
+  /** Returns the externs every benchmark that needs a full compiler is run against. */
+  public static List<SourceFile> externs() throws IOException {
+    List<SourceFile> externs =
+        AbstractCommandLineRunner.getBuiltinExterns(CompilerOptions.Environment.BROWSER);
+    // Read the files now, so that the first measured iteration does not pay for it.
+    for (SourceFile file : externs) {
+      file.getCode();
+    }
+    return externs;
+  }
+
+  /** Returns the options the typed benchmarks start from: ES5 input, no transpilation. */
+  static CompilerOptions defaultOptions() {
+    CompilerOptions options = new CompilerOptions();
+    options.setLanguageIn(LanguageMode.ECMASCRIPT5);
+    options.setLanguageOut(LanguageMode.ECMASCRIPT5);
+    return options;
+  }
+
+  /** Creates a compiler for {@code inputs} and parses them. Fails if there is a parse error. */
+  static Compiler parse(
+      CompilerOptions options, List<SourceFile> externs, List<SourceFile> inputs) {
+    Compiler compiler = new Compiler(new BlackHoleErrorManager());
+    compiler.init(externs, inputs, options);
+    compiler.parseInputs();
+    checkState(!compiler.hasErrors(), "Corpus does not parse: %s", compiler.getErrors());
+    return compiler;
+  }
+
+  private static List<SourceFile> fromDirectory(Path directory) throws IOException {
+    checkState(Files.isDirectory(directory), "No such corpus: %s", directory);
+    List<Path> paths;
+    try (Stream<Path> files = Files.walk(directory)) {
+      paths =
+          files
+              .filter(p -> p.toString().endsWith(".js") && Files.isRegularFile(p))
+              .sorted()
+              .collect(Collectors.toList());
+    }
+    ImmutableList.Builder<SourceFile> inputs = ImmutableList.builder();
+    for (Path path : paths) {
+      inputs.add(SourceFile.fromCode(path.toString(), new String(Files.readAllBytes(path), UTF_8)));
+    }
+    return inputs.build();
+  }
+
+  /**
+   * Generates {@code files} scripts of {@code classesPerFile} constructors each. Each class has a
+   * few typed methods drawn from a fixed set of shapes: loops, switches, closures, object literals,
+   * dead branches behind constants and constant expressions, so that every benchmarked pass has
+   * something to do. Classes refer to each other, across files too.
+   */
+  static List<SourceFile> synthetic(int files, int classesPerFile, long seed) {
+    Random random = new Random(seed);
+    List<SourceFile> inputs = new ArrayList<>(files);
+    for (int f = 0; f < files; f++) {
+      StringBuilder sb = new StringBuilder();
+      sb.append("/** @const */ var DEBUG_").append(f).append(" = false;\n\n");
+      for (int c = 0; c < classesPerFile; c++) {
+        String name = className(f, c);
+        // Refer to the previous class, and from each file to the last class of the first one.
+        // Longer chains of references make type resolution recurse deeper than the stack of a
+        // benchmark thread allows.
+        String other =
+            c > 0 ? className(f, c - 1) : f > 0 ? className(0, classesPerFile - 1) : name;
+        appendClass(sb, random, f, name, other);
+      }
+      inputs.add(SourceFile.fromCode("synthetic/file" + f + ".js", sb.toString()));
+    }
+    return Collections.unmodifiableList(inputs);
+  }
+
+  private static String className(int file, int index) {
+    return "Class" + file + "_" + index;
+  }
+
+  private static void appendClass(
+      StringBuilder sb, Random random, int file, String name, String other) {
+    sb.append("/**\n")
+        .append(" * @constructor\n")
+        .append(" * @param {number} seed\n")
+        .append(" */\n")
+        .append("function ").append(name).append("(seed) {\n")
+        .append("  /** @private {number} */\n")
+        .append("  this.value_ = seed * 2 + 1;\n")
+        .append("  /** @private {!Array<string>} */\n")
+        .append("  this.names_ = [];\n")
+        .append("  /** @private {?").append(other).append("} */\n")
+        .append("  this.other_ = null;\n")
+        .append("}\n\n");
+
+    sb.append("/** @return {number} */\n")
+        .append(name).append(".prototype.size = function() {\n")
+        .append("  return this.names_.length;\n")
+        .append("};\n\n");
+
+    int methods = 2 + random.nextInt(4);
+    for (int m = 0; m < methods; m++) {
+      String method = name + ".prototype.method" + m;
+      switch (random.nextInt(4)) {
+        case 0:
+          sb.append("/**\n")
+              .append(" * @param {string} name\n")
+              .append(" * @return {number}\n")
+              .append(" */\n")
+              .append(method).append(" = function(name) {\n")
+              .append("  var key = 'key' + name + ('_' + 1);\n")
+              .append("  if (DEBUG_").append(file).append(") {\n")
+              .append("    this.names_.push('debug:' + key);\n")
+              .append("  }\n")
+              .append("  for (var i = 0; i < this.names_.length; i++) {\n")
+              .append("    if (!(this.names_[i] != key)) {\n")
+              .append("      return i;\n")
+              .append("    }\n")
+              .append("  }\n")
+              .append("  this.names_.push(key);\n")
+              .append("  return this.names_.length - 1 + 0 * 2;\n")
+              .append("};\n\n");
+          break;
+        case 1:
+          sb.append("/**\n")
+              .append(" * @param {!").append(other).append("} other\n")
+              .append(" * @return {number}\n")
+              .append(" */\n")
+              .append(method).append(" = function(other) {\n")
+              .append("  var total = this.value_;\n")
+              .append("  var limit = 60 * 60 * 24;\n")
+              .append("  switch (total % 3) {\n")
+              .append("    case 0:\n")
+              .append("      total += other.size();\n")
+              .append("      break;\n")
+              .append("    case 1:\n")
+              .append("      total -= 1;\n")
+              .append("      break;\n")
+              .append("    default:\n")
+              .append("      total = total * 2;\n")
+              .append("  }\n")
+              .append("  this.other_ = other;\n")
+              .append("  return total > limit ? limit : total;\n")
+              .append("};\n\n");
+          break;
+        case 2:
+          sb.append("/**\n")
+              .append(" * @param {!Array<number>} values\n")
+              .append(" * @return {!Object<string, number>}\n")
+              .append(" */\n")
+              .append(method).append(" = function(values) {\n")
+              .append("  var result = {};\n")
+              .append("  var self = this;\n")
+              .append("  values.forEach(function(value, index) {\n")
+              .append("    var label = 'item' + index;\n")
+              .append("    result[label] = value + self.value_ + (1 + 2);\n")
+              .append("  });\n")
+              .append("  return result;\n")
+              .append("};\n\n");
+          break;
+        default:
+          sb.append("/**\n")
+              .append(" * @param {boolean} flag\n")
+              .append(" * @return {string}\n")
+              .append(" */\n")
+              .append(method).append(" = function(flag) {\n")
+              .append("  var parts = {first: 'a', second: 'b', count: this.value_};\n")
+              .append("  var text;\n")
+              .append("  if (flag) {\n")
+              .append("    text = parts.first + parts.second;\n")
+              .append("  } else if (!flag && this.value_ > 10) {\n")
+              .append("    text = parts.second + String(parts.count);\n")
+              .append("  } else {\n")
+              .append("    text = '' + void 0;\n")
+              .append("  }\n")
+              .append("  return text.length > 0 ? text : 'empty';\n")
+              .append("};\n\n");
+          break;
+      }
+    }
+  }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.CharStreams;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks {@link CodePrinter} through {@link Compiler#toSource()}, with and without a
+ * {@link SourceMap}. Printing does not change the AST, so the corpus is parsed once per trial.
+ * The externs corpus is not offered: the compiler does not print code annotated with
+ * {@code @externs}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Thread)
+public class CodePrinterBenchmark {
+  @Param({BenchmarkCorpus.SYNTHETIC})
+  public String corpus;
+
+  private Compiler compiler;
+  private Compiler compilerWithSourceMap;
+
+  @Setup
+  public void parse() throws IOException {
+    List<SourceFile> inputs = BenchmarkCorpus.load(corpus);
+    compiler = BenchmarkCorpus.parse(options(), ImmutableList.<SourceFile>of(), inputs);
+
+    CompilerOptions options = options();
+    options.setSourceMapOutputPath("benchmark.js.map");
+    compilerWithSourceMap = BenchmarkCorpus.parse(options, ImmutableList.<SourceFile>of(), inputs);
+  }
+
+  private static CompilerOptions options() {
+    CompilerOptions options = BenchmarkCorpus.defaultOptions();
+    CompilationLevel.SIMPLE_OPTIMIZATIONS.setOptionsForCompilationLevel(options);
+    return options;
+  }
+
+  @Benchmark
+  public String toSource() {
+    return compiler.toSource();
+  }
+
+  /** Prints the code straight to a writer, without building it in memory first. */
+  @Benchmark
+  public Compiler toSourceStreamed() throws IOException {
+    compiler.toSource(CharStreams.nullWriter());
+    return compiler;
+  }
+
+  /** Prints the code and serializes the source map, as the command line runner does. */
+  @Benchmark
+  public String toSourceWithSourceMap() throws IOException {
+    SourceMap sourceMap = compilerWithSourceMap.getSourceMap();
+    sourceMap.reset();
+    String code = compilerWithSourceMap.toSource();
+    StringBuilder map = new StringBuilder();
+    sourceMap.appendTo(map, "benchmark.js");
+    return code + map;
+  }
+}
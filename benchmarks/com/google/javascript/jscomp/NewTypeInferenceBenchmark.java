@@ -0,0 +1,81 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the new type inference: {@link GlobalTypeInfoCollector} on its own, and followed by
+ * {@link NewTypeInference}, as they run in a compile. Each invocation gets a freshly parsed
+ * compiler.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Thread)
+public class NewTypeInferenceBenchmark {
+  @Param({BenchmarkCorpus.SYNTHETIC})
+  public String corpus;
+
+  private List<SourceFile> externs;
+  private List<SourceFile> inputs;
+  private Compiler compiler;
+
+  @Setup(Level.Trial)
+  public void loadCorpus() throws IOException {
+    externs = BenchmarkCorpus.externs();
+    inputs = BenchmarkCorpus.load(corpus);
+  }
+
+  @Setup(Level.Invocation)
+  public void parse() {
+    CompilerOptions options = BenchmarkCorpus.defaultOptions();
+    options.setNewTypeInference(true);
+    compiler = BenchmarkCorpus.parse(options, externs, inputs);
+  }
+
+  @Benchmark
+  public Compiler globalTypeInfo() {
+    new GlobalTypeInfoCollector(compiler)
+        .process(compiler.getExternsRoot(), compiler.getJsRoot());
+    return compiler;
+  }
+
+  @Benchmark
+  public Compiler newTypeInference() {
+    new GlobalTypeInfoCollector(compiler)
+        .process(compiler.getExternsRoot(), compiler.getJsRoot());
+    new NewTypeInference(compiler).process(compiler.getExternsRoot(), compiler.getJsRoot());
+    return compiler;
+  }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import com.google.javascript.jscomp.parsing.ParserRunner;
+import com.google.javascript.rhino.Node;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks optimization passes over normalized code: the peephole optimizations run to their
+ * internal fixed point, as in the main optimization loop, {@link FlowSensitiveInlineVariables},
+ * which runs the reaching definition and use analyses on every function, and {@link RenameVars}.
+ * They rewrite the AST, so each invocation gets a freshly parsed and normalized compiler.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Thread)
+public class OptimizationsBenchmark {
+  @Param({BenchmarkCorpus.SYNTHETIC})
+  public String corpus;
+
+  private List<SourceFile> externs;
+  private List<SourceFile> inputs;
+  private Compiler compiler;
+
+  @Setup(Level.Trial)
+  public void loadCorpus() throws IOException {
+    externs = BenchmarkCorpus.externs();
+    inputs = BenchmarkCorpus.load(corpus);
+  }
+
+  @Setup(Level.Invocation)
+  public void parseAndNormalize() {
+    CompilerOptions options = BenchmarkCorpus.defaultOptions();
+    CompilationLevel.ADVANCED_OPTIMIZATIONS.setOptionsForCompilationLevel(options);
+    compiler = BenchmarkCorpus.parse(options, externs, inputs);
+    new Normalize(compiler, false).process(compiler.getExternsRoot(), compiler.getJsRoot());
+  }
+
+  @Benchmark
+  public Node peepholeOptimizations() {
+    DefaultPassConfig.createPeepholeOptimizationsPass(compiler, PassNames.PEEPHOLE_OPTIMIZATIONS)
+        .process(compiler.getExternsRoot(), compiler.getJsRoot());
+    return compiler.getJsRoot();
+  }
+
+  @Benchmark
+  public Node flowSensitiveInlineVariables() {
+    new FlowSensitiveInlineVariables(compiler)
+        .process(compiler.getExternsRoot(), compiler.getJsRoot());
+    return compiler.getJsRoot();
+  }
+
+  @Benchmark
+  public VariableMap renameVars() {
+    Set<String> reservedNames = new HashSet<>(ParserRunner.getReservedVars());
+    RenameVars pass =
+        new RenameVars(
+            compiler,
+            "",
+            false /* localRenamingOnly */,
+            false /* preserveFunctionExpressionNames */,
+            false /* generatePseudoNames */,
+            false /* shouldShadow */,
+            false /* preferStableNames */,
+            null /* prevUsedRenameMap */,
+            null /* reservedCharacters */,
+            reservedNames,
+            new DefaultNameGenerator());
+    pass.process(compiler.getExternsRoot(), compiler.getJsRoot());
+    return pass.getVariableMap();
+  }
+}
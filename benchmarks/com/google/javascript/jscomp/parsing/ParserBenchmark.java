@@ -0,0 +1,177 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp.parsing;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.javascript.jscomp.BenchmarkCorpus;
+import com.google.javascript.jscomp.parsing.Config.JsDocParsing;
+import com.google.javascript.jscomp.parsing.Config.LanguageMode;
+import com.google.javascript.jscomp.parsing.Config.RunMode;
+import com.google.javascript.jscomp.parsing.Config.StrictMode;
+import com.google.javascript.jscomp.parsing.parser.Parser;
+import com.google.javascript.jscomp.parsing.parser.Scanner;
+import com.google.javascript.jscomp.parsing.parser.SourceFile;
+import com.google.javascript.jscomp.parsing.parser.Token;
+import com.google.javascript.jscomp.parsing.parser.TokenType;
+import com.google.javascript.jscomp.parsing.parser.trees.Comment;
+import com.google.javascript.jscomp.parsing.parser.trees.ProgramTree;
+import com.google.javascript.jscomp.parsing.parser.util.SourcePosition;
+import com.google.javascript.jscomp.parsing.parser.util.SourceRange;
+import com.google.javascript.rhino.SimpleSourceFile;
+import com.google.javascript.rhino.StaticSourceFile;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks the front end: the ES6 {@link Scanner} and {@link Parser}, and {@link IRFactory},
+ * which turns their parse trees into the compiler's AST.
+ *
+ * <p>Much of the front end's cost is allocation. Run with JMH's {@code -prof gc} to see the bytes
+ * allocated per operation along with the time.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParserBenchmark {
+  @Param({BenchmarkCorpus.SYNTHETIC, BenchmarkCorpus.EXTERNS})
+  public String corpus;
+
+  private static final Parser.Config PARSER_CONFIG =
+      new Parser.Config(Parser.Config.Mode.ES8_OR_GREATER, /* isStrictMode */ false);
+
+  private Config config;
+  private SourceFile[] files;
+  private StaticSourceFile[] staticFiles;
+  private String[] sources;
+  private ProgramTree[] trees;
+
+  @Setup
+  public void setUp() throws IOException {
+    config =
+        ParserRunner.createConfig(
+            LanguageMode.ECMASCRIPT8,
+            JsDocParsing.TYPES_ONLY,
+            RunMode.STOP_AFTER_ERROR,
+            null,
+            true,
+            StrictMode.SLOPPY);
+    List<com.google.javascript.jscomp.SourceFile> inputs = BenchmarkCorpus.load(corpus);
+    int size = inputs.size();
+    files = new SourceFile[size];
+    staticFiles = new StaticSourceFile[size];
+    sources = new String[size];
+    trees = new ProgramTree[size];
+    for (int i = 0; i < size; i++) {
+      String name = inputs.get(i).getName();
+      sources[i] = inputs.get(i).getCode();
+      files[i] = new SourceFile(name, sources[i]);
+      staticFiles[i] = new SimpleSourceFile(name, false);
+      trees[i] = checkNotNull(new Parser(PARSER_CONFIG, FAILING_REPORTER, files[i]).parseProgram());
+    }
+  }
+
+  /**
+   * Tokenizes every input. Without the parser there is no regular expression context, so a
+   * {@code /} always starts an operator; the corpora are scanned the same way on every run.
+   */
+  @Benchmark
+  public void scan(Blackhole bh) {
+    for (SourceFile file : files) {
+      Scanner scanner = new Scanner(IGNORING_REPORTER, IGNORING_RECORDER, file);
+      Token token;
+      do {
+        token = scanner.nextToken();
+        bh.consume(token);
+      } while (token.type != TokenType.END_OF_FILE);
+    }
+  }
+
+  @Benchmark
+  public void parse(Blackhole bh) {
+    for (SourceFile file : files) {
+      bh.consume(new Parser(PARSER_CONFIG, FAILING_REPORTER, file).parseProgram());
+    }
+  }
+
+  /** Transforms parse trees that were built once, during setup. */
+  @Benchmark
+  public void irFactory(Blackhole bh) {
+    for (int i = 0; i < trees.length; i++) {
+      IRFactory factory =
+          IRFactory.transformTree(
+              trees[i], staticFiles[i], sources[i], config, IRFactory.NULL_REPORTER);
+      bh.consume(factory.getResultNode());
+    }
+  }
+
+  /**
+   * Parses the inputs the way the compiler does, through {@link ParserRunner}, which lets go of
+   * each top-level statement's parse tree once it has been transformed.
+   */
+  @Benchmark
+  public void parserRunner(Blackhole bh) {
+    for (int i = 0; i < sources.length; i++) {
+      bh.consume(
+          ParserRunner.parse(staticFiles[i], sources[i], config, IRFactory.NULL_REPORTER).ast);
+    }
+  }
+
+  private static final com.google.javascript.jscomp.parsing.parser.util.ErrorReporter
+      FAILING_REPORTER =
+          new com.google.javascript.jscomp.parsing.parser.util.ErrorReporter() {
+            @Override
+            protected void reportError(SourcePosition location, String message) {
+              throw new IllegalStateException(location + ": " + message);
+            }
+
+            @Override
+            protected void reportWarning(SourcePosition location, String message) {}
+          };
+
+  private static final com.google.javascript.jscomp.parsing.parser.util.ErrorReporter
+      IGNORING_REPORTER =
+          new com.google.javascript.jscomp.parsing.parser.util.ErrorReporter() {
+            @Override
+            protected void reportError(SourcePosition location, String message) {}
+
+            @Override
+            protected void reportWarning(SourcePosition location, String message) {}
+          };
+
+  private static final Scanner.CommentRecorder IGNORING_RECORDER =
+      new Scanner.CommentRecorder() {
+        @Override
+        public void recordComment(Comment.Type type, SourceRange range, String value) {}
+      };
+}
@@ -19,6 +19,8 @@ package com.google.javascript.jscomp;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.base.Throwables.throwIfInstanceOf;
+import static com.google.common.base.Throwables.throwIfUnchecked;
 import static java.nio.charset.StandardCharsets.US_ASCII;
 import static java.nio.charset.StandardCharsets.UTF_8;
 
@@ -70,6 +72,12 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.util.logging.Level;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
@@ -558,6 +566,13 @@ public abstract class AbstractCommandLineRunner<A extends Compiler,
     return jsonFiles;
   }
 
+  /** Returns a builder for the source files of the inputs named on the command line. */
+  private SourceFile.Builder newSourceFileBuilder() {
+    return SourceFile.builder()
+        .withCharset(inputCharset)
+        .withOffHeapCode(config.offHeapSources);
+  }
+
   /**
    * Creates inputs from a list of files.
    *
@@ -624,7 +639,7 @@ public abstract class AbstractCommandLineRunner<A extends Compiler,
       String filename = file.value;
       if (file.flag == JsSourceType.JS_ZIP) {
         if (!"-".equals(filename)) {
-          List<SourceFile> newFiles = SourceFile.fromZipFile(filename, inputCharset);
+          List<SourceFile> newFiles = SourceFile.fromZipFile(filename, newSourceFileBuilder());
           // Update the manifest maps for new zip entries.
           if (rootRelativePathsMap.containsKey(filename)) {
             String rootFilename = rootRelativePathsMap.get(filename);
@@ -642,7 +657,7 @@ public abstract class AbstractCommandLineRunner<A extends Compiler,
           }
         }
       } else if (!"-".equals(filename)) {
-        SourceFile newFile = SourceFile.fromFile(filename, inputCharset);
+        SourceFile newFile = newSourceFileBuilder().buildFromFile(filename);
         inputs.add(newFile);
       } else {
         if (!allowStdIn) {
@@ -870,7 +885,11 @@ public abstract class AbstractCommandLineRunner<A extends Compiler,
       List<SourceFile> moduleFiles =
           inputs.subList(numJsFilesLeft - numJsFiles, numJsFilesLeft);
       for (SourceFile input : moduleFiles) {
-        module.add(input);
+        if (compiler.getPersistentInputStore() != null) {
+          module.add(compiler.getPersistentInputStore().getCachedCompilerInput(input));
+        } else {
+          module.add(input);
+        }
       }
       numJsFilesLeft -= numJsFiles;
       moduleIndex++;
@@ -948,11 +967,13 @@ public abstract class AbstractCommandLineRunner<A extends Compiler,
               compiler.getDegenerateModuleGraph().getAllModules()));
     }
 
+    writeOutput(out, compiler, m, getModuleWrapper(m), "%s", null);
+  }
+
+  private String getModuleWrapper(JSModule m) {
     String fileName = getModuleOutputFileName(m);
     String baseName = new File(fileName).getName();
-    writeOutput(out, compiler, m,
-        parsedModuleWrappers.get(m.getName()).replace("%basename%", baseName),
-        "%s", null);
+    return parsedModuleWrappers.get(m.getName()).replace("%basename%", baseName);
   }
 
   /**
@@ -960,8 +981,8 @@ public abstract class AbstractCommandLineRunner<A extends Compiler,
    * wrapper that contains a placeholder where the code should be inserted.
    * @param module Which module to write. If this is null, write the entire AST.
    */
-  static void writeOutput(Appendable out, Compiler compiler, @Nullable JSModule module,
-      String wrapper, String codePlaceholder,
+  static void writeOutput(Appendable out, final Compiler compiler,
+      @Nullable final JSModule module, String wrapper, String codePlaceholder,
       @Nullable Function<String, String> escaper)
       throws IOException {
     if (compiler.getOptions().outputJs == OutputJs.SENTINEL) {
@@ -970,6 +991,22 @@ public abstract class AbstractCommandLineRunner<A extends Compiler,
     }
     checkState(compiler.getOptions().outputJs == OutputJs.NORMAL);
 
+    if (escaper == null) {
+      // Nothing to do to the code as a whole, so stream it out as it is printed.
+      writeWrapped(out, compiler.getSourceMap(), wrapper, codePlaceholder,
+          new CodeWriter() {
+            @Override
+            public void appendCode(Appendable out) throws IOException {
+              if (module == null) {
+                compiler.toSource(out);
+              } else {
+                compiler.toSource(module, out);
+              }
+            }
+          });
+      return;
+    }
+
     String code = module == null ? compiler.toSource() : compiler.toSource(module);
     writeOutput(out, compiler, code, wrapper, codePlaceholder, escaper);
   }
@@ -982,6 +1019,41 @@ public abstract class AbstractCommandLineRunner<A extends Compiler,
       String wrapper, String codePlaceholder,
       @Nullable Function<String, String> escaper)
       throws IOException {
+    writeOutput(out, compiler == null ? null : compiler.getSourceMap(), code,
+        wrapper, codePlaceholder, escaper);
+  }
+
+  /**
+   * Writes code to an output stream, optionally wrapping it in an arbitrary
+   * wrapper that contains a placeholder where the code should be inserted.
+   * The offsets of {@code sourceMap} are adjusted for the wrapper.
+   */
+  private static void writeOutput(Appendable out, @Nullable SourceMap sourceMap,
+      final String code, String wrapper, String codePlaceholder,
+      @Nullable final Function<String, String> escaper)
+      throws IOException {
+    writeWrapped(out, sourceMap, wrapper, codePlaceholder,
+        new CodeWriter() {
+          @Override
+          public void appendCode(Appendable out) throws IOException {
+            out.append(escaper == null ? code : escaper.apply(code));
+          }
+        });
+  }
+
+  /** Appends code to an output, either all at once or as it is printed. */
+  private interface CodeWriter {
+    void appendCode(Appendable out) throws IOException;
+  }
+
+  /**
+   * Writes the code of {@code codeWriter} to an output stream, optionally wrapping it in an
+   * arbitrary wrapper that contains a placeholder where the code should be inserted. The offsets
+   * of {@code sourceMap} are adjusted for the wrapper.
+   */
+  private static void writeWrapped(Appendable out, @Nullable SourceMap sourceMap,
+      String wrapper, String codePlaceholder, CodeWriter codeWriter)
+      throws IOException {
     int pos = wrapper.indexOf(codePlaceholder);
     if (pos != -1) {
       String prefix = "";
@@ -991,7 +1063,7 @@ public abstract class AbstractCommandLineRunner<A extends Compiler,
         out.append(prefix);
       }
 
-      out.append(escaper == null ? code : escaper.apply(code));
+      codeWriter.appendCode(out);
 
       int suffixStart = pos + codePlaceholder.length();
       if (suffixStart != wrapper.length()) {
@@ -1003,12 +1075,12 @@ public abstract class AbstractCommandLineRunner<A extends Compiler,
 
       // If we have a source map, adjust its offsets to match
       // the code WITHIN the wrapper.
-      if (compiler != null && compiler.getSourceMap() != null) {
-        compiler.getSourceMap().setWrapperPrefix(prefix);
+      if (sourceMap != null) {
+        sourceMap.setWrapperPrefix(prefix);
       }
 
     } else {
-      out.append(code);
+      codeWriter.appendCode(out);
       out.append('\n');
     }
   }
@@ -1441,6 +1513,11 @@ public abstract class AbstractCommandLineRunner<A extends Compiler,
       return INVALID_MODULE_SOURCEMAP_PATTERN;
     }
 
+    if (options.numParallelThreads > 1 && modules.size() > 1) {
+      outputModulesInParallel(modules, options);
+      return null;
+    }
+
     for (JSModule m : modules) {
       if (isOutputInJson()) {
         this.filesToStreamOut.add(createJsonFileFromModule(m));
@@ -1473,6 +1550,110 @@ public abstract class AbstractCommandLineRunner<A extends Compiler,
     return null;
   }
 
+  /**
+   * Prints the modules, and builds a source map for each of them, on a pool of threads. The
+   * results are written out in module order as they become available, so the output does not
+   * depend on which module finishes first. Only used when every module gets its own source map.
+   */
+  private void outputModulesInParallel(List<JSModule> modules, final B options)
+      throws IOException {
+    ThreadFactory threadFactory = new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+          Thread t = new Thread(null, r, "jscompiler-output", CompilerExecutor.COMPILER_STACK_SIZE);
+          t.setDaemon(true);  // Do not prevent the JVM from exiting.
+          return t;
+        }
+    };
+    ExecutorService executor =
+        Executors.newFixedThreadPool(options.numParallelThreads, threadFactory);
+    try {
+      List<Future<PrintedModule>> printedModules = new ArrayList<>(modules.size());
+      for (final JSModule m : modules) {
+        printedModules.add(executor.submit(new Callable<PrintedModule>() {
+          @Override
+          public PrintedModule call() throws IOException {
+            return printModule(m, options.sourceMapOutputPath != null);
+          }
+        }));
+      }
+
+      for (int i = 0; i < modules.size(); i++) {
+        JSModule m = modules.get(i);
+        PrintedModule printed = getPrintedModule(printedModules.get(i));
+        String moduleFilename = getModuleOutputFileName(m);
+        if (isOutputInJson()) {
+          JsonFileSpec jsonFile = new JsonFileSpec(printed.code, moduleFilename);
+          jsonFile.setSourceMap(printed.sourceMap);
+          this.filesToStreamOut.add(jsonFile);
+          continue;
+        }
+        try (Writer writer = fileNameToLegacyOutputWriter(moduleFilename)) {
+          writer.append(printed.code);
+        }
+        if (printed.sourceMap != null) {
+          try (Writer mapFileOut = fileNameToOutputWriter2(expandSourceMapPath(options, m))) {
+            mapFileOut.append(printed.sourceMap);
+          }
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /** Prints a module, wrapped as configured. Safe to call on several threads at once. */
+  private PrintedModule printModule(final JSModule m, boolean withSourceMap)
+      throws IOException {
+    final SourceMap sourceMap = withSourceMap ? compiler.newSourceMap() : null;
+    StringBuilder code = new StringBuilder();
+    if (compiler.getOptions().outputJs == OutputJs.SENTINEL) {
+      // Writes just the sentinel comment.
+      writeOutput(code, compiler, m, "", "%s", null);
+    } else {
+      writeWrapped(code, sourceMap, getModuleWrapper(m), "%s",
+          new CodeWriter() {
+            @Override
+            public void appendCode(Appendable out) throws IOException {
+              compiler.toSource(m, out, sourceMap);
+            }
+          });
+    }
+
+    String moduleSourceMap = null;
+    if (sourceMap != null) {
+      StringBuilder sb = new StringBuilder();
+      sourceMap.appendTo(sb, getModuleOutputFileName(m));
+      moduleSourceMap = sb.toString();
+    }
+    return new PrintedModule(code.toString(), moduleSourceMap);
+  }
+
+  private static PrintedModule getPrintedModule(Future<PrintedModule> future)
+      throws IOException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    } catch (ExecutionException e) {
+      throwIfInstanceOf(e.getCause(), IOException.class);
+      throwIfUnchecked(e.getCause());
+      throw new RuntimeException(e.getCause());
+    }
+  }
+
+  /** The wrapped code of a module and its serialized source map, if any. */
+  private static final class PrintedModule {
+    final String code;
+    @Nullable final String sourceMap;
+
+    PrintedModule(String code, @Nullable String sourceMap) {
+      this.code = code;
+      this.sourceMap = sourceMap;
+    }
+  }
+
   /** Given an output module, convert it to a JSONFileSpec with associated sourcemap */
   private JsonFileSpec createJsonFileFromModule(JSModule module) throws IOException {
     compiler.getSourceMap().reset();
@@ -2621,6 +2802,17 @@ public abstract class AbstractCommandLineRunner<A extends Compiler,
       return this;
     }
 
+    private boolean offHeapSources = false;
+
+    /**
+     * Sets whether the code of UTF-8 input files and zip entries is kept outside of the Java heap.
+     * See {@link SourceFile.Builder#withOffHeapCode}.
+     */
+    public CommandLineConfig setOffHeapSources(boolean offHeapSources) {
+      this.offHeapSources = offHeapSources;
+      return this;
+    }
+
     private List<String> manifestMaps = ImmutableList.of();
 
     /**
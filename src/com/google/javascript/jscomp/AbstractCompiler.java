@@ -623,4 +623,55 @@ public abstract class AbstractCompiler implements SourceExcerptProvider {
   PersistentInputStore getPersistentInputStore() {
     return persistentInputStore;
   }
+
+  private @Nullable ExternsSnapshot externsSnapshot;
+
+  /** Sets the prebuilt ASTs of the bundled externs, used instead of parsing them. */
+  void setExternsSnapshot(@Nullable ExternsSnapshot externsSnapshot) {
+    this.externsSnapshot = externsSnapshot;
+  }
+
+  @Nullable
+  ExternsSnapshot getExternsSnapshot() {
+    return externsSnapshot;
+  }
+
+  private @Nullable GlobalNamespace globalNamespaceForReuse;
+
+  // Whether globalNamespaceForReuse was kept by the pass that is running.
+  private boolean globalNamespaceKeptByCurrentPass;
+
+  /** Keeps a namespace for the next pass. See {@link GlobalNamespace#keepForNextPass}. */
+  void keepGlobalNamespaceForReuse(GlobalNamespace namespace) {
+    this.globalNamespaceForReuse = namespace;
+    this.globalNamespaceKeptByCurrentPass = true;
+  }
+
+  /**
+   * Called after each pass. Drops a namespace kept for reuse unless the pass that just finished
+   * kept it, so that a namespace nobody takes lives until the end of the next pass at most.
+   */
+  final void expireGlobalNamespaceForReuse() {
+    if (!globalNamespaceKeptByCurrentPass) {
+      globalNamespaceForReuse = null;
+    }
+    globalNamespaceKeptByCurrentPass = false;
+  }
+
+  /** Drops a namespace kept for reuse, if any. Called when a phase of passes is done. */
+  final void clearGlobalNamespaceForReuse() {
+    globalNamespaceForReuse = null;
+    globalNamespaceKeptByCurrentPass = false;
+  }
+
+  /**
+   * Returns the namespace kept for reuse, if any, and stops keeping it. See {@link
+   * GlobalNamespace#createOrReuse}.
+   */
+  @Nullable
+  GlobalNamespace takeGlobalNamespaceForReuse() {
+    GlobalNamespace namespace = globalNamespaceForReuse;
+    globalNamespaceForReuse = null;
+    return namespace;
+  }
 }
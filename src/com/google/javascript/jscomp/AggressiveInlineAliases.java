@@ -101,6 +101,7 @@ class AggressiveInlineAliases implements CompilerPass {
       target.replaceWith(newValue);
       compiler.reportChangeToEnclosingScope(newValue);
       prop.removeRef(ref);
+      namespaceChanged = true;
       // Rescan the expression root.
       newNodes.add(new AstChange(ref.module, ref.scope, ref.node));
       codeChanged = true;
@@ -109,6 +110,8 @@ class AggressiveInlineAliases implements CompilerPass {
 
   private final AbstractCompiler compiler;
   private boolean codeChanged;
+  // Whether inlineAliases changed the namespace, which it can do without changing the AST.
+  private boolean namespaceChanged;
 
   AggressiveInlineAliases(AbstractCompiler compiler) {
     this.compiler = compiler;
@@ -119,8 +122,14 @@ class AggressiveInlineAliases implements CompilerPass {
   public void process(Node externs, Node root) {
     while (this.codeChanged) {
       this.codeChanged = false;
-      GlobalNamespace namespace = new GlobalNamespace(compiler, root);
+      this.namespaceChanged = false;
+      GlobalNamespace namespace = GlobalNamespace.createOrReuse(compiler, null, root);
       inlineAliases(namespace);
+      if (!this.codeChanged && !this.namespaceChanged) {
+        // The namespace still matches the AST, so CollapseProperties, which usually runs next,
+        // can use it.
+        namespace.keepForNextPass();
+      }
     }
   }
 
@@ -173,12 +182,14 @@ class AggressiveInlineAliases implements CompilerPass {
             // inlines.
             if (inlineAliasIfPossible(name, ref, namespace)) {
               name.removeRef(ref);
+              namespaceChanged = true;
             }
           } else if (ref.type == Type.ALIASING_GET
               && hoistScope.isGlobal()
               && ref.getTwin() == null) { // ignore aliases in chained assignments
             if (inlineGlobalAliasIfPossible(name, ref, namespace)) {
               name.removeRef(ref);
+              namespaceChanged = true;
             }
           }
         }
@@ -267,6 +278,7 @@ class AggressiveInlineAliases implements CompilerPass {
 
       rewriteAliasProp(superclassNameNode, 0, newNodes, subclassPropNameObj);
       namespace.scanNewNodes(newNodes);
+      namespaceChanged = true;
     }
     return true;
   }
@@ -344,6 +356,7 @@ class AggressiveInlineAliases implements CompilerPass {
         // Inlining the variable may have introduced new references
         // to descendants of {@code name}. So those need to be collected now.
         namespace.scanNewNodes(newNodes);
+        namespaceChanged = true;
         return true;
       }
 
@@ -434,6 +447,7 @@ class AggressiveInlineAliases implements CompilerPass {
       // Inlining the variable may have introduced new references
       // to descendants of {@code name}. So those need to be collected now.
       namespace.scanNewNodes(newNodes);
+      namespaceChanged = true;
     }
     return !foundNonReplaceableAlias;
   }
@@ -453,6 +467,7 @@ class AggressiveInlineAliases implements CompilerPass {
     Node aliasParent = alias.node.getParent();
     aliasParent.replaceChild(alias.node, IR.nullNode());
     alias.name.removeRef(alias);
+    namespaceChanged = true;
     codeChanged = true;
     compiler.reportChangeToEnclosingScope(aliasParent);
   }
@@ -545,6 +560,7 @@ class AggressiveInlineAliases implements CompilerPass {
               compiler.reportChangeToEnclosingScope(newNode);
               newNodes.add(new AstChange(ref.module, ref.scope, newNode));
               name.removeRef(ref);
+              namespaceChanged = true;
               break;
             default:
               throw new IllegalStateException();
@@ -561,6 +577,7 @@ class AggressiveInlineAliases implements CompilerPass {
         // Inlining the variable may have introduced new references
         // to descendants of {@code name}. So those need to be collected now.
         namespace.scanNewNodes(newNodes);
+        namespaceChanged = true;
 
         return true;
       }
@@ -25,11 +25,11 @@ import com.google.common.collect.BiMap;
 import com.google.common.collect.HashBiMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.javascript.jscomp.NodeTraversal.AbstractPostOrderCallback;
-import com.google.javascript.jscomp.graph.AdjacencyGraph;
 import com.google.javascript.jscomp.graph.Annotation;
 import com.google.javascript.jscomp.graph.GraphColoring;
 import com.google.javascript.jscomp.graph.GraphColoring.GreedyGraphColoring;
 import com.google.javascript.jscomp.graph.GraphNode;
+import com.google.javascript.jscomp.graph.KeySetGraph;
 import com.google.javascript.jscomp.graph.SubGraph;
 import com.google.javascript.rhino.FunctionTypeI;
 import com.google.javascript.rhino.Node;
@@ -322,7 +322,11 @@ class AmbiguateProperties implements CompilerPass {
     related.or(relatedBitsets.get(instanceType));
   }
 
-  class PropertyGraph implements AdjacencyGraph<Property, Void> {
+  /**
+   * The graph of the properties to rename, in which properties are adjacent when they have
+   * related types, so that {@link GreedyGraphColoring} remembers the colors on each type.
+   */
+  class PropertyGraph implements KeySetGraph<Property, Void> {
     private final ArrayList<PropertyGraphNode> nodes;
 
     PropertyGraph(ArrayList<PropertyGraphNode> nodes) {
@@ -360,6 +364,11 @@ class AmbiguateProperties implements CompilerPass {
     public int getWeight(Property value) {
       return value.numOccurrences;
     }
+
+    @Override
+    public BitSet getKeys(Property value) {
+      return value.relatedTypes;
+    }
   }
 
   /**
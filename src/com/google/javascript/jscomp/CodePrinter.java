@@ -48,6 +48,9 @@ public final class CodePrinter {
   // version.
 
   private abstract static class MappedCodePrinter extends CodeConsumer {
+    /** When streaming, the buffered code is written out once it reaches this many chars. */
+    private static final int FLUSH_THRESHOLD = 1 << 16;
+
     private final Deque<Mapping> mappings;
     private final List<Mapping> allMappings;
     private final boolean createSrcMap;
@@ -57,6 +60,15 @@ public final class CodePrinter {
     protected int lineLength = 0;
     protected int lineIndex = 0;
 
+    /**
+     * Where the code is streamed to, or null if it is only built up in {@link #code}. When
+     * streaming, {@link #code} only holds the tail of the output that may still be rewritten.
+     */
+    private Appendable out;
+    private IOException outputException;
+    /** Lengths of the lines that have been written out, only kept for source maps. */
+    private final LineLengths flushedLineLengths = new LineLengths();
+
     MappedCodePrinter(
         int lineLengthThreshold,
         boolean createSrcMap,
@@ -137,10 +149,22 @@ public final class CodePrinter {
     void generateSourceMap(String code, SourceMap map) {
       if (createSrcMap) {
         List<Integer> lineLengths = computeLineLengths(code);
-        for (Mapping mapping : allMappings) {
-          map.addMapping(
-              mapping.node, mapping.start, adjustEndPosition(lineLengths, mapping.end));
-        }
+        addMappings(lineLengths, map);
+      }
+    }
+
+    /** Like {@link #generateSourceMap(String, SourceMap)}, for code that was streamed. */
+    void generateSourceMap(SourceMap map) {
+      if (createSrcMap) {
+        checkState(code.length() == 0, "Call finishOutput() first");
+        addMappings(flushedLineLengths.lengths, map);
+      }
+    }
+
+    private void addMappings(List<Integer> lineLengths, SourceMap map) {
+      for (Mapping mapping : allMappings) {
+        map.addMapping(
+            mapping.node, mapping.start, adjustEndPosition(lineLengths, mapping.end));
       }
     }
 
@@ -210,9 +234,59 @@ public final class CodePrinter {
     }
 
     public String getCode() {
+      checkState(out == null, "The code was streamed");
       return code.toString();
     }
 
+    /** Streams the code to {@code out} as it is printed, see {@link Builder#writeTo}. */
+    void setOutput(Appendable out) {
+      checkState(code.length() == 0);
+      this.out = out;
+    }
+
+    /**
+     * Returns how many chars at the start of {@link #code} are final, i.e. will not be changed
+     * by a later line cut, and are not needed to look back at the last printed char.
+     */
+    abstract int getFinalLength();
+
+    /** Called after the first {@code length} chars of {@link #code} were written out. */
+    void onFlushed(int length) {}
+
+    /** Writes out the final part of the buffered code, if there is enough of it. */
+    final void maybeFlush() {
+      if (out != null && code.length() >= FLUSH_THRESHOLD) {
+        flush(getFinalLength());
+      }
+    }
+
+    private void flush(int length) {
+      if (length <= 0) {
+        return;
+      }
+      if (createSrcMap) {
+        flushedLineLengths.add(code, 0, length);
+      }
+      if (outputException == null) {
+        try {
+          out.append(code, 0, length);
+        } catch (IOException e) {
+          // Rethrown by finishOutput(), once printing is done.
+          outputException = e;
+        }
+      }
+      code.delete(0, length);
+      onFlushed(length);
+    }
+
+    /** Writes out the rest of the code after {@link #endFile}. */
+    void finishOutput() throws IOException {
+      flush(code.length());
+      if (outputException != null) {
+        throw outputException;
+      }
+    }
+
     @Override
     char getLastChar() {
       return (code.length() > 0) ? code.charAt(code.length() - 1) : '\0';
@@ -226,6 +300,25 @@ public final class CodePrinter {
       return lineIndex;
     }
 
+    /** Accumulates the lengths of the lines of code that is written out in pieces. */
+    private static final class LineLengths {
+      final List<Integer> lengths = new ArrayList<>();
+      /** The length of the unfinished last line seen so far. */
+      int partialLineLength = 0;
+
+      void add(CharSequence code, int start, int end) {
+        int lineStartPos = start;
+        for (int i = start; i < end; i++) {
+          if (code.charAt(i) == '\n') {
+            lengths.add(partialLineLength + i - lineStartPos);
+            partialLineLength = 0;
+            lineStartPos = i + 1;
+          }
+        }
+        partialLineLength += end - lineStartPos;
+      }
+    }
+
     /** Calculates length of each line in compiled code. */
     private static ImmutableList<Integer> computeLineLengths(String code) {
       ImmutableList.Builder<Integer> builder = ImmutableList.<Integer>builder();
@@ -316,6 +409,7 @@ public final class CodePrinter {
         lineIndex += newlines;
         lineLength = str.length() - str.lastIndexOf('\n');
       }
+      maybeFlush();
     }
 
     /**
@@ -368,9 +462,16 @@ public final class CodePrinter {
         code.append('\n');
         lineIndex++;
         lineLength = 0;
+        maybeFlush();
       }
     }
 
+    @Override
+    int getFinalLength() {
+      // Printed code is never changed, only keep the last char.
+      return code.length() - 1;
+    }
+
     @Override
     void maybeLineBreak() {
       maybeCutLine();
@@ -526,25 +627,20 @@ public final class CodePrinter {
       }
       SourceFile src = (SourceFile) staticSrc;
 
-      String srcCode;
-      try {
-        srcCode = src.getCode();
-      } catch (IOException e) {
+      // Only look at the line of the number, since getting the whole code can mean decoding the
+      // whole file, once for every number.
+      int lineno = n.getLineno();
+      int charno = n.getCharno();
+      if (lineno < 1 || charno < 0) {
         return null;
       }
-
-      int offset;
-      try {
-        offset = n.getSourceOffset();
-      } catch (IllegalArgumentException e) {
-        return null;
-      }
-      int endOffset = offset + n.getLength();
-      if (offset < 0 || endOffset > srcCode.length()) {
+      String line = src.getLine(lineno);
+      int endCharno = charno + n.getLength();
+      if (line == null || endCharno > line.length()) {
         return null;
       }
 
-      return srcCode.substring(offset, endOffset);
+      return line.substring(charno, endCharno);
     }
   }
 
@@ -596,6 +692,7 @@ public final class CodePrinter {
         lineIndex += newlines;
         lineLength = str.length() - str.lastIndexOf('\n');
       }
+      maybeFlush();
     }
 
     /**
@@ -610,7 +707,27 @@ public final class CodePrinter {
         lineLength = 0;
         lineIndex++;
         lineStartPosition = code.length();
+        maybeFlush();
+      }
+    }
+
+    @Override
+    int getFinalLength() {
+      // A cut is only inserted on the current line, and only the last cut can be undone, which
+      // rewrites the end of the previous line. Also keep the last char.
+      int length = prevCutPosition > 0 ? prevLineStartPosition : lineStartPosition;
+      return Math.min(length, code.length() - 1);
+    }
+
+    @Override
+    void onFlushed(int length) {
+      lineStartPosition -= length;
+      prevLineStartPosition -= length;
+      // The positions below are also used as flags when 0, keep them that way.
+      if (prevCutPosition > 0) {
+        prevCutPosition -= length;
       }
+      preferredBreakPosition = Math.max(0, preferredBreakPosition - length);
     }
 
     @Override
@@ -817,6 +934,30 @@ public final class CodePrinter {
      * Generates the source code and returns it.
      */
     public String build() {
+      MappedCodePrinter mcp = print(null);
+      String code = mcp.getCode();
+      if (sourceMap != null) {
+        mcp.generateSourceMap(code, sourceMap);
+      }
+      return code;
+    }
+
+    /**
+     * Generates the source code and writes it to {@code out} while printing, instead of building
+     * it up in memory. The output is the same as that of {@link #build}, and so is the source map
+     * if one is set. Only the last lines, which a line break may still move, are buffered; the
+     * rest is written out in large chunks. To print to a {@link java.nio.channels.FileChannel},
+     * wrap it with {@link java.nio.channels.Channels#newWriter}.
+     */
+    public void writeTo(Appendable out) throws IOException {
+      MappedCodePrinter mcp = print(out);
+      mcp.finishOutput();
+      if (sourceMap != null) {
+        mcp.generateSourceMap(sourceMap);
+      }
+    }
+
+    private MappedCodePrinter print(Appendable out) {
       if (root == null) {
         throw new IllegalStateException(
             "Cannot build without root node being specified");
@@ -824,9 +965,10 @@ public final class CodePrinter {
 
       return toSource(
           root,
+          out,
           Format.fromOptions(options, outputTypes, prettyPrint),
           options,
-          sourceMap,
+          sourceMap != null,
           tagAsTypeSummary,
           tagAsExterns,
           tagAsStrict,
@@ -854,12 +996,16 @@ public final class CodePrinter {
     }
   }
 
-  /** Converts a tree to JS code */
-  private static String toSource(
+  /**
+   * Converts a tree to JS code. The code is kept in the returned printer, or if {@code out} is
+   * not null, mostly written to it already.
+   */
+  private static MappedCodePrinter toSource(
       Node root,
+      Appendable out,
       Format outputFormat,
       CompilerOptions options,
-      SourceMap sourceMap,
+      boolean createSourceMap,
       boolean tagAsTypeSummary,
       boolean tagAsExterns,
       boolean tagAsStrict,
@@ -867,7 +1013,6 @@ public final class CodePrinter {
       CodeGeneratorFactory codeGeneratorFactory) {
     checkState(options.sourceMapDetailLevel != null);
 
-    boolean createSourceMap = (sourceMap != null);
     MappedCodePrinter mcp =
         outputFormat == Format.COMPACT
         ? new CompactCodePrinter(
@@ -880,6 +1025,9 @@ public final class CodePrinter {
             options.lineLengthThreshold,
             createSourceMap,
             options.sourceMapDetailLevel);
+    if (out != null) {
+      mcp.setOutput(out);
+    }
     CodeGenerator cg = codeGeneratorFactory.getCodeGenerator(outputFormat, mcp);
 
     if (tagAsExterns) {
@@ -894,13 +1042,6 @@ public final class CodePrinter {
 
     cg.add(root);
     mcp.endFile();
-
-    String code = mcp.getCode();
-
-    if (createSourceMap) {
-      mcp.generateSourceMap(code, sourceMap);
-    }
-
-    return code;
+    return mcp;
   }
 }
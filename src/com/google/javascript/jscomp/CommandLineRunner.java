@@ -439,6 +439,16 @@ public class CommandLineRunner extends
         usage = "Don't generate output. Run checks, but no optimization passes.")
     private boolean checksOnly = false;
 
+    @Option(
+      name = "--off_heap_sources",
+      handler = BooleanOptionHandler.class,
+      usage =
+          "Keep the code of UTF-8 input files and zip entries outside of the Java heap, "
+              + "decoding it when it is needed. Uses less memory for many inputs, at some cost "
+              + "in time."
+    )
+    private boolean offHeapSources = false;
+
     @Option(
       name = "--incremental_check_mode",
       usage = "Generate or check externs-like .i.js files representing individual libraries."
@@ -898,6 +908,7 @@ public class CommandLineRunner extends
                     "define",
                     "flagfile",
                     "help",
+                    "off_heap_sources",
                     "third_party",
                     "use_types_for_optimization",
                     "version"))
@@ -1612,6 +1623,7 @@ public class CommandLineRunner extends
           .setOutputManifest(ImmutableList.of(flags.outputManifest))
           .setOutputBundle(bundleFiles)
           .setSkipNormalOutputs(skipNormalOutputs)
+          .setOffHeapSources(flags.offHeapSources)
           .setOutputModuleDependencies(flags.outputModuleDependencies)
           .setProcessCommonJSModules(flags.processCommonJsModules)
           .setModuleRoots(moduleRoots)
@@ -1849,12 +1861,22 @@ public class CommandLineRunner extends
     if (isInTestMode()) {
       return externs;
     } else {
-      List<SourceFile> builtinExterns = getBuiltinExterns(options.getEnvironment());
+      List<SourceFile> builtinExterns = loadBuiltinExterns(options.getEnvironment());
+      getCompiler().setExternsSnapshot(ExternsSnapshot.forEnvironment(options.getEnvironment()));
       builtinExterns.addAll(externs);
       return builtinExterns;
     }
   }
 
+  /**
+   * Returns a mutable list of the externs bundled with the compiler for {@code env}. Subclasses
+   * that run many compiles may cache them.
+   */
+  protected List<SourceFile> loadBuiltinExterns(CompilerOptions.Environment env)
+      throws IOException {
+    return getBuiltinExterns(env);
+  }
+
   private static ImmutableList<ConformanceConfig> loadConformanceConfigs(List<String> configPaths) {
     ImmutableList.Builder<ConformanceConfig> configs =
         ImmutableList.builder();
@@ -0,0 +1,375 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.base.Function;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.hash.Hashing;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * Runs {@link CommandLineRunner} compiles in a long-lived JVM, so that a build running many small
+ * compiles pays for starting the JVM, loading the bundled externs and warming up the JIT once.
+ *
+ * <p>The daemon reads requests from stdin, or from connections to a local port, and answers each
+ * with one line of JSON. A request is a JSON object on one line, such as (wrapped here)
+ *
+ * <pre>
+ * {"args": ["--js=a.js", "--externs=e.js"],
+ *  "inputs": [{"path": "a.js", "digest": "1f2e"}, {"path": "e.js", "digest": "77c0"}],
+ *  "stdin": ""}
+ * </pre>
+ *
+ * where {@code args} are the command line flags of the compile, {@code inputs} the digests of the
+ * files it reads, which must change whenever the files do, and the optional {@code stdin} the
+ * standard input of the compile. The response is {@code {"exitCode": 0, "stdout": "...",
+ * "stderr": "..."}}. A request that cannot be read, or whose compile throws, gets exit code -1 and
+ * the problem in {@code stderr}, and the daemon goes on with the next line.
+ *
+ * <p>The parsed ASTs of the inputs listed with a digest and of the bundled externs are kept in a
+ * {@link PersistentInputStore} for each parser configuration, and reused by later compiles until
+ * their digests change. Compiles run one at a time.
+ */
+public final class CompileDaemon {
+
+  private final Map<List<Object>, PersistentInputStore> inputStores = new HashMap<>();
+  private final Map<CompilerOptions.Environment, ImmutableList<SourceFile>> builtinExterns =
+      new EnumMap<>(CompilerOptions.Environment.class);
+  private final Map<CompilerOptions.Environment, ImmutableMap<String, String>>
+      builtinExternDigests = new EnumMap<>(CompilerOptions.Environment.class);
+  @Nullable private final Path astCacheDirectory;
+
+  public CompileDaemon() {
+    this(null);
+  }
+
+  /**
+   * @param astCacheDirectory A directory to also write the parsed ASTs to, so that they survive
+   *     restarts of the daemon, or {@code null}.
+   */
+  public CompileDaemon(@Nullable Path astCacheDirectory) {
+    this.astCacheDirectory = astCacheDirectory;
+  }
+
+  /** Reads request lines from {@code in} until it ends, and writes a response line for each. */
+  public void serve(Reader in, Writer out) throws IOException {
+    BufferedReader lines =
+        in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in);
+    for (String line = lines.readLine(); line != null; line = lines.readLine()) {
+      if (line.trim().isEmpty()) {
+        continue;
+      }
+      Response response = respond(line);
+      JsonWriter writer = new JsonWriter(out);
+      writer.beginObject();
+      writer.name("exitCode").value(response.exitCode);
+      writer.name("stdout").value(response.stdout);
+      writer.name("stderr").value(response.stderr);
+      writer.endObject();
+      out.write('\n');
+      out.flush();
+    }
+  }
+
+  /** Compiles the request on {@code line}. A bad request only fails itself. */
+  private Response respond(String line) throws UnsupportedEncodingException {
+    Request request;
+    try {
+      request = readRequest(line);
+    } catch (IOException | RuntimeException e) {
+      return new Response(-1, "", "Malformed request: " + e.getMessage() + "\n");
+    }
+    try {
+      return compile(request);
+    } catch (RuntimeException e) {
+      return new Response(-1, "", Throwables.getStackTraceAsString(e));
+    }
+  }
+
+  private static Request readRequest(String line) throws IOException {
+    JsonReader reader = new JsonReader(new StringReader(line));
+    Request request = new Request();
+    reader.beginObject();
+    while (reader.hasNext()) {
+      String name = reader.nextName();
+      switch (name) {
+        case "args":
+          reader.beginArray();
+          while (reader.hasNext()) {
+            request.args.add(reader.nextString());
+          }
+          reader.endArray();
+          break;
+        case "inputs":
+          reader.beginArray();
+          while (reader.hasNext()) {
+            readInput(reader, request.inputDigests);
+          }
+          reader.endArray();
+          break;
+        case "stdin":
+          request.stdin = reader.nextString();
+          break;
+        default:
+          throw new IOException("Unknown request field: " + name);
+      }
+    }
+    reader.endObject();
+    if (reader.peek() != JsonToken.END_DOCUMENT) {
+      throw new IOException("Unexpected data after the request");
+    }
+    return request;
+  }
+
+  private static void readInput(JsonReader reader, Map<String, String> inputDigests)
+      throws IOException {
+    String path = null;
+    String digest = null;
+    reader.beginObject();
+    while (reader.hasNext()) {
+      String name = reader.nextName();
+      switch (name) {
+        case "path":
+          path = reader.nextString();
+          break;
+        case "digest":
+          digest = reader.nextString();
+          break;
+        default:
+          throw new IOException("Unknown input field: " + name);
+      }
+    }
+    reader.endObject();
+    if (path == null || digest == null) {
+      throw new IOException("An input needs a path and a digest");
+    }
+    inputDigests.put(path, digest);
+  }
+
+  /** Runs one compile. */
+  Response compile(Request request) throws UnsupportedEncodingException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ByteArrayOutputStream err = new ByteArrayOutputStream();
+    PrintStream outStream = new PrintStream(out, true, UTF_8.name());
+    PrintStream errStream = new PrintStream(err, true, UTF_8.name());
+    InputStream in = new ByteArrayInputStream(request.stdin.getBytes(UTF_8));
+
+    DaemonRunner runner =
+        new DaemonRunner(
+            request.args.toArray(new String[0]),
+            in,
+            outStream,
+            errStream,
+            request.inputDigests);
+    int exitCode;
+    try {
+      if (runner.shouldRunCompiler()) {
+        runner.run();
+        exitCode = runner.exitCode;
+      } else {
+        exitCode = runner.hasErrors() ? -1 : 0;
+      }
+    } finally {
+      if (runner.inputStore != null) {
+        runner.inputStore.resetInputs();
+      }
+    }
+    outStream.flush();
+    errStream.flush();
+    return new Response(exitCode, out.toString(UTF_8.name()), err.toString(UTF_8.name()));
+  }
+
+  /**
+   * Returns the store for inputs parsed with the parser configuration of {@code options}. An AST
+   * parsed with any other parser {@link com.google.javascript.jscomp.parsing.Config} cannot be
+   * reused.
+   */
+  private PersistentInputStore getInputStore(CompilerOptions options) {
+    // The configs the compiler itself derives from the options, for code and for externs.
+    Compiler probe = new Compiler();
+    probe.options = options;
+    List<Object> key =
+        ImmutableList.<Object>of(
+            probe.getParserConfig(AbstractCompiler.ConfigContext.DEFAULT),
+            probe.getParserConfig(AbstractCompiler.ConfigContext.EXTERNS),
+            options.preservesDetailedSourceInfo());
+    PersistentInputStore inputStore = inputStores.get(key);
+    if (inputStore == null) {
+      inputStore = new PersistentInputStore();
+      if (astCacheDirectory != null) {
+        inputStore.setAstCacheDirectory(astCacheDirectory);
+      }
+      inputStores.put(key, inputStore);
+    }
+    return inputStore;
+  }
+
+  private ImmutableList<SourceFile> getCachedBuiltinExterns(CompilerOptions.Environment env)
+      throws IOException {
+    ImmutableList<SourceFile> externs = builtinExterns.get(env);
+    if (externs == null) {
+      externs = ImmutableList.copyOf(AbstractCommandLineRunner.getBuiltinExterns(env));
+      // Externs of different environments may share a path, so tell them apart by content.
+      Map<String, String> digests = new LinkedHashMap<>();
+      for (SourceFile extern : externs) {
+        digests.put(
+            extern.getOriginalPath(),
+            Hashing.sha256().hashString(extern.getCode(), UTF_8).toString());
+      }
+      builtinExterns.put(env, externs);
+      builtinExternDigests.put(env, ImmutableMap.copyOf(digests));
+    }
+    return externs;
+  }
+
+  /** A compile request. */
+  static final class Request {
+    final List<String> args = new ArrayList<>();
+    final Map<String, String> inputDigests = new LinkedHashMap<>();
+    String stdin = "";
+  }
+
+  /** The result of a compile. */
+  static final class Response {
+    final int exitCode;
+    final String stdout;
+    final String stderr;
+
+    Response(int exitCode, String stdout, String stderr) {
+      this.exitCode = exitCode;
+      this.stdout = stdout;
+      this.stderr = stderr;
+    }
+  }
+
+  /** A command line runner that keeps its inputs in the daemon's stores. */
+  private final class DaemonRunner extends CommandLineRunner {
+    private final Map<String, String> inputDigests;
+    private PersistentInputStore inputStore;
+    private int exitCode;
+
+    DaemonRunner(
+        String[] args,
+        InputStream in,
+        PrintStream out,
+        PrintStream err,
+        Map<String, String> inputDigests) {
+      super(args, in, out, err);
+      this.inputDigests = inputDigests;
+      setExitCodeReceiver(
+          new Function<Integer, Void>() {
+            @Override
+            public Void apply(Integer code) {
+              exitCode = code;
+              return null;
+            }
+          });
+    }
+
+    @Override
+    protected List<SourceFile> createExterns(CompilerOptions options) throws IOException {
+      // The options are known from here on, and the compiler creates its inputs after this.
+      inputStore = getInputStore(options);
+      for (Map.Entry<String, String> input : inputDigests.entrySet()) {
+        inputStore.addInput(input.getKey(), input.getValue());
+      }
+      getCompiler().setPersistentInputStore(inputStore);
+      return super.createExterns(options);
+    }
+
+    @Override
+    protected List<SourceFile> loadBuiltinExterns(CompilerOptions.Environment env)
+        throws IOException {
+      List<SourceFile> externs = new ArrayList<>(getCachedBuiltinExterns(env));
+      for (Map.Entry<String, String> extern : builtinExternDigests.get(env).entrySet()) {
+        inputStore.addInput(extern.getKey(), extern.getValue());
+      }
+      return externs;
+    }
+  }
+
+  /**
+   * Serves compile requests from stdin, or with {@code --port=<port>}, from connections to that
+   * port on the loopback address. {@code --ast_cache_dir=<dir>} also keeps the parsed ASTs on
+   * disk.
+   */
+  public static void main(String[] args) throws IOException {
+    int port = -1;
+    Path astCacheDirectory = null;
+    for (String arg : args) {
+      if (arg.startsWith("--port=")) {
+        port = Integer.parseInt(arg.substring("--port=".length()));
+      } else if (arg.startsWith("--ast_cache_dir=")) {
+        astCacheDirectory = Paths.get(arg.substring("--ast_cache_dir=".length()));
+      } else {
+        System.err.println("Usage: CompileDaemon [--port=<port>] [--ast_cache_dir=<dir>]");
+        System.exit(-1);
+      }
+    }
+
+    CompileDaemon daemon = new CompileDaemon(astCacheDirectory);
+    if (port < 0) {
+      daemon.serve(
+          new BufferedReader(new InputStreamReader(System.in, UTF_8)),
+          new BufferedWriter(new OutputStreamWriter(System.out, UTF_8)));
+      return;
+    }
+    try (ServerSocket serverSocket = new ServerSocket(port, 0, InetAddress.getLoopbackAddress())) {
+      while (true) {
+        try (Socket socket = serverSocket.accept()) {
+          daemon.serve(
+              new BufferedReader(new InputStreamReader(socket.getInputStream(), UTF_8)),
+              new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), UTF_8)));
+        } catch (IOException e) {
+          // Drop the connection, but keep serving others.
+          e.printStackTrace();
+        }
+      }
+    }
+  }
+}
@@ -487,6 +487,16 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
   /** Initializes the instance state needed for a compile job. */
   public final <T1 extends SourceFile, T2 extends SourceFile> void init(
       List<T1> externs, List<T2> sources, CompilerOptions options) {
+    initWithExternInputs(makeExternInputs(externs), sources, options);
+  }
+
+  /**
+   * Like {@link #init}, but takes extern inputs that were made by the caller. This lets the parsed
+   * externs be shared by several compiles, each getting its own copy through a {@link
+   * RecoverableJsAst}.
+   */
+  <T extends SourceFile> void initWithExternInputs(
+      List<CompilerInput> externs, List<T> sources, CompilerOptions options) {
     JSModule module = new JSModule(SINGLETON_MODULE_NAME);
     for (SourceFile source : sources) {
       if (this.getPersistentInputStore() != null) {
@@ -498,7 +508,7 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
 
     List<JSModule> modules = new ArrayList<>(1);
     modules.add(module);
-    initModules(externs, modules, options);
+    initModulesWithExternInputs(externs, modules, options);
     addFilesToSourceMap(sources);
   }
 
@@ -508,12 +518,17 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
    */
   public <T extends SourceFile> void initModules(
       List<T> externs, List<JSModule> modules, CompilerOptions options) {
+    initModulesWithExternInputs(makeExternInputs(externs), modules, options);
+  }
+
+  private void initModulesWithExternInputs(
+      List<CompilerInput> externs, List<JSModule> modules, CompilerOptions options) {
     initOptions(options);
 
     checkFirstModule(modules);
     fillEmptyModules(modules);
 
-    this.externs = makeExternInputs(externs);
+    this.externs = externs;
 
     // Generate the module graph, and report any errors in the module
     // specification as errors.
@@ -554,18 +569,32 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
     inputSourceMaps.putAll(options.inputSourceMaps);
     // Create the source map if necessary.
     if (options.sourceMapOutputPath != null) {
-      sourceMap = options.sourceMapFormat.getInstance();
-      sourceMap.setPrefixMappings(options.sourceMapLocationMappings);
-      if (options.applyInputSourceMaps) {
-        sourceMap.setSourceFileMapping(this);
-      }
+      sourceMap = newSourceMap();
     }
   }
 
+  /**
+   * Creates an empty source map that is set up like {@link #getSourceMap()}, for printing code
+   * with {@link #toSource(JSModule, Appendable, SourceMap)}.
+   */
+  SourceMap newSourceMap() {
+    SourceMap map = options.sourceMapFormat.getInstance();
+    map.setPrefixMappings(options.sourceMapLocationMappings);
+    if (options.applyInputSourceMaps) {
+      map.setSourceFileMapping(this);
+    }
+    return map;
+  }
+
   private <T extends SourceFile> List<CompilerInput> makeExternInputs(List<T> externSources) {
     List<CompilerInput> inputs = new ArrayList<>(externSources.size());
     for (SourceFile file : externSources) {
-      inputs.add(new CompilerInput(file, /* isExtern= */ true));
+      if (this.getPersistentInputStore() != null) {
+        file.setIsExtern(true);
+        inputs.add(this.getPersistentInputStore().getCachedCompilerInput(file));
+      } else {
+        inputs.add(new CompilerInput(file, /* isExtern= */ true));
+      }
     }
     return inputs;
   }
@@ -704,31 +733,53 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
 
     try {
       init(externs, inputs, options);
-      if (options.printConfig) {
-        printConfig(System.err);
-      }
-      if (!hasErrors()) {
-        parseForCompilation();
-      }
-      if (!hasErrors()) {
-        if (options.getInstrumentForCoverageOnly()) {
-          // TODO(bradfordcsmith): The option to instrument for coverage only should belong to the
-          //     runner, not the compiler.
-          instrumentForCoverage();
-        } else {
-          stage1Passes();
-          if (!hasErrors()) {
-            stage2Passes();
-          }
-        }
-        performPostCompilationTasks();
-      }
+      compileInitializedInputs();
+    } finally {
+      generateReport();
+    }
+    return getResult();
+  }
+
+  /**
+   * Like {@link #compile(List, List, CompilerOptions)}, but takes extern inputs that were made by
+   * the caller, as {@link #initWithExternInputs} does.
+   */
+  <T extends SourceFile> Result compileWithExternInputs(
+      List<CompilerInput> externs, List<T> inputs, CompilerOptions options) {
+    // The compile method should only be called once.
+    checkState(jsRoot == null);
+
+    try {
+      initWithExternInputs(externs, inputs, options);
+      compileInitializedInputs();
     } finally {
       generateReport();
     }
     return getResult();
   }
 
+  private void compileInitializedInputs() {
+    if (options.printConfig) {
+      printConfig(System.err);
+    }
+    if (!hasErrors()) {
+      parseForCompilation();
+    }
+    if (!hasErrors()) {
+      if (options.getInstrumentForCoverageOnly()) {
+        // TODO(bradfordcsmith): The option to instrument for coverage only should belong to the
+        //     runner, not the compiler.
+        instrumentForCoverage();
+      } else {
+        stage1Passes();
+        if (!hasErrors()) {
+          stage2Passes();
+        }
+      }
+      performPostCompilationTasks();
+    }
+  }
+
   /**
    * Generates a report of all warnings and errors found during compilation to stderr.
    *
@@ -907,6 +958,14 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
 
     if (tracker != null) {
       tracker.outputTracerReport();
+      if (options.getTracerEventsOutput() != null) {
+        try {
+          tracker.outputTraceEvents(options.getTracerEventsOutput());
+          options.getTracerEventsOutput().flush();
+        } catch (IOException e) {
+          throw new RuntimeException(e);
+        }
+      }
     }
   }
 
@@ -1166,6 +1225,7 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
 
   @Override
   final void afterPass(String passName) {
+    expireGlobalNamespaceForReuse();
     if (options.printSourceAfterEachPass) {
       String currentJsSource = getCurrentJsSource();
       if (!currentJsSource.equals(this.lastJsSource)) {
@@ -1710,7 +1770,9 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
     if (options.getTracerMode().isOn()) {
       PrintStream tracerOutput =
           options.getTracerOutput() == null ? this.outStream : options.getTracerOutput();
-      tracker = new PerformanceTracker(externsRoot, jsRoot, options.getTracerMode(), tracerOutput);
+      tracker =
+          new PerformanceTracker(
+              this, externsRoot, jsRoot, options.getTracerMode(), tracerOutput);
       addChangeHandler(tracker.getCodeChangeHandler());
     }
   }
@@ -2253,21 +2315,7 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
             Tracer tracer = newTracer("toSource");
             try {
               CodeBuilder cb = new CodeBuilder();
-              if (jsRoot != null) {
-                int i = 0;
-                if (options.shouldPrintExterns()) {
-                  for (Node scriptNode = externsRoot.getFirstChild();
-                      scriptNode != null;
-                      scriptNode = scriptNode.getNext()) {
-                    toSource(cb, i++, scriptNode);
-                  }
-                }
-                for (Node scriptNode = jsRoot.getFirstChild();
-                    scriptNode != null;
-                    scriptNode = scriptNode.getNext()) {
-                  toSource(cb, i++, scriptNode);
-                }
-              }
+              toSource(cb);
               return cb.toString();
             } finally {
               stopTracer(tracer, "toSource");
@@ -2276,6 +2324,46 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
         });
   }
 
+  /**
+   * Writes the JS code for the whole program to {@code out} while it is printed. The output is
+   * the same as that of {@link #toSource()}, but it is never held in memory as a whole.
+   */
+  public void toSource(Appendable out) throws IOException {
+    final CodeBuilder cb = new CodeBuilder(out);
+    runInCompilerThread(
+        new Callable<Void>() {
+          @Override
+          public Void call() throws Exception {
+            Tracer tracer = newTracer("toSource");
+            try {
+              toSource(cb);
+              return null;
+            } finally {
+              stopTracer(tracer, "toSource");
+            }
+          }
+        });
+    cb.checkOutput();
+  }
+
+  private void toSource(CodeBuilder cb) throws IOException {
+    if (jsRoot != null) {
+      int i = 0;
+      if (options.shouldPrintExterns()) {
+        for (Node scriptNode = externsRoot.getFirstChild();
+            scriptNode != null;
+            scriptNode = scriptNode.getNext()) {
+          toSource(cb, i++, scriptNode, sourceMap);
+        }
+      }
+      for (Node scriptNode = jsRoot.getFirstChild();
+          scriptNode != null;
+          scriptNode = scriptNode.getNext()) {
+        toSource(cb, i++, scriptNode, sourceMap);
+      }
+    }
+  }
+
   /**
    * Converts the parse tree for a module back to JS code.
    */
@@ -2283,25 +2371,59 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
     return runInCompilerThread(new Callable<String>() {
       @Override
       public String call() throws Exception {
-        List<CompilerInput> inputs = module.getInputs();
-        int numInputs = inputs.size();
-        if (numInputs == 0) {
-          return "";
-        }
         CodeBuilder cb = new CodeBuilder();
-        for (int i = 0; i < numInputs; i++) {
-          Node scriptNode = inputs.get(i).getAstRoot(Compiler.this);
-          if (scriptNode == null) {
-            throw new IllegalArgumentException(
-                "Bad module: " + module.getName());
-          }
-          toSource(cb, i, scriptNode);
-        }
+        toSource(cb, module, sourceMap);
         return cb.toString();
       }
     });
   }
 
+  /**
+   * Writes the JS code for a module to {@code out} while it is printed. The output is the same as
+   * that of {@link #toSource(JSModule)}, but it is never held in memory as a whole.
+   */
+  public void toSource(final JSModule module, Appendable out) throws IOException {
+    final CodeBuilder cb = new CodeBuilder(out);
+    runInCompilerThread(new Callable<Void>() {
+      @Override
+      public Void call() throws Exception {
+        toSource(cb, module, sourceMap);
+        return null;
+      }
+    });
+    cb.checkOutput();
+  }
+
+  /**
+   * Writes the JS code for a module to {@code out} while it is printed, and adds its mappings to
+   * {@code moduleSourceMap} rather than to {@link #getSourceMap()}.
+   *
+   * <p>Unlike the other {@code toSource} methods, this one runs on the calling thread, so once
+   * compilation is done several modules can be printed at the same time, each with its own
+   * output and source map. Printing recurses over the AST, so the calling thread needs a stack
+   * as large as the compiler thread's for deeply nested code.
+   */
+  public void toSource(JSModule module, Appendable out, @Nullable SourceMap moduleSourceMap)
+      throws IOException {
+    CodeBuilder cb = new CodeBuilder(out);
+    toSource(cb, module, moduleSourceMap);
+    cb.checkOutput();
+  }
+
+  private void toSource(CodeBuilder cb, JSModule module, @Nullable SourceMap sourceMap)
+      throws IOException {
+    List<CompilerInput> inputs = module.getInputs();
+    int numInputs = inputs.size();
+    for (int i = 0; i < numInputs; i++) {
+      Node scriptNode = inputs.get(i).getAstRoot(Compiler.this);
+      if (scriptNode == null) {
+        throw new IllegalArgumentException(
+            "Bad module: " + module.getName());
+      }
+      toSource(cb, i, scriptNode, sourceMap);
+    }
+  }
+
   /**
    * Writes out JS code from a root node. If printing input delimiters, this
    * method will attach a comment to the start of the text indicating which
@@ -2316,60 +2438,70 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
         new Callable<Void>() {
           @Override
           public Void call() throws Exception {
-            if (options.printInputDelimiter) {
-              if ((cb.getLength() > 0) && !cb.endsWith("\n")) {
-                cb.append("\n"); // Make sure that the label starts on a new line
-              }
-              checkState(root.isScript());
+            toSource(cb, inputSeqNum, root, sourceMap);
+            return null;
+          }
+        });
+  }
 
-              String delimiter = options.inputDelimiter;
+  private void toSource(
+      CodeBuilder cb, int inputSeqNum, Node root, @Nullable SourceMap sourceMap)
+      throws IOException {
+    if (options.printInputDelimiter) {
+      if ((cb.getLength() > 0) && !cb.endsWith("\n")) {
+        cb.append("\n"); // Make sure that the label starts on a new line
+      }
+      checkState(root.isScript());
 
-              String inputName = root.getInputId().getIdName();
-              String sourceName = root.getSourceFileName();
-              checkState(sourceName != null);
-              checkState(!sourceName.isEmpty());
+      String delimiter = options.inputDelimiter;
 
-              delimiter =
-                  delimiter
-                      .replace("%name%", Matcher.quoteReplacement(inputName))
-                      .replace("%num%", String.valueOf(inputSeqNum))
-                      .replace("%n%", "\n");
+      String inputName = root.getInputId().getIdName();
+      String sourceName = root.getSourceFileName();
+      checkState(sourceName != null);
+      checkState(!sourceName.isEmpty());
 
-              cb.append(delimiter).append("\n");
-            }
-            if (root.getJSDocInfo() != null) {
-              String license = root.getJSDocInfo().getLicense();
-              if (license != null && cb.addLicense(license)) {
-                cb.append("/*\n").append(license).append("*/\n");
-              }
-            }
+      delimiter =
+          delimiter
+              .replace("%name%", Matcher.quoteReplacement(inputName))
+              .replace("%num%", String.valueOf(inputSeqNum))
+              .replace("%n%", "\n");
 
-            // If there is a valid source map, then indicate to it that the current
-            // root node's mappings are offset by the given string builder buffer.
-            if (options.sourceMapOutputPath != null) {
-              sourceMap.setStartingPosition(cb.getLineIndex(), cb.getColumnIndex());
-            }
+      cb.append(delimiter).append("\n");
+    }
+    if (root.getJSDocInfo() != null) {
+      String license = root.getJSDocInfo().getLicense();
+      if (license != null && cb.addLicense(license)) {
+        cb.append("/*\n").append(license).append("*/\n");
+      }
+    }
 
-            // if LanguageMode is strict, only print 'use strict'
-            // for the first input file
-            String code = toSource(root, sourceMap, inputSeqNum == 0);
-            if (!code.isEmpty()) {
-              cb.append(code);
-
-              // In order to avoid parse ambiguity when files are concatenated
-              // together, all files should end in a semi-colon. Do a quick
-              // heuristic check if there's an obvious semi-colon already there.
-              int length = code.length();
-              char lastChar = code.charAt(length - 1);
-              char secondLastChar = length >= 2 ? code.charAt(length - 2) : '\0';
-              boolean hasSemiColon = lastChar == ';' || (lastChar == '\n' && secondLastChar == ';');
-              if (!hasSemiColon) {
-                cb.append(";");
-              }
-            }
-            return null;
-          }
-        });
+    // If there is a valid source map, then indicate to it that the current
+    // root node's mappings are offset by the given string builder buffer.
+    if (sourceMap != null) {
+      sourceMap.setStartingPosition(cb.getLineIndex(), cb.getColumnIndex());
+    }
+
+    // if LanguageMode is strict, only print 'use strict'
+    // for the first input file
+    CodePrinter.Builder builder = newCodePrinterBuilder(root, sourceMap, inputSeqNum == 0);
+    int start = cb.getLength();
+    if (cb.isStreaming()) {
+      builder.writeTo(cb);
+    } else {
+      cb.append(builder.build());
+    }
+    int length = cb.getLength() - start;
+    if (length > 0) {
+      // In order to avoid parse ambiguity when files are concatenated
+      // together, all files should end in a semi-colon. Do a quick
+      // heuristic check if there's an obvious semi-colon already there.
+      char lastChar = cb.getCharFromEnd(1);
+      char secondLastChar = length >= 2 ? cb.getCharFromEnd(2) : '\0';
+      boolean hasSemiColon = lastChar == ';' || (lastChar == '\n' && secondLastChar == ';');
+      if (!hasSemiColon) {
+        cb.append(";");
+      }
+    }
   }
 
   /**
@@ -2386,6 +2518,11 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
    * Generates JavaScript source code for an AST.
    */
   private String toSource(Node n, SourceMap sourceMap, boolean firstOutput) {
+    return newCodePrinterBuilder(n, sourceMap, firstOutput).build();
+  }
+
+  private CodePrinter.Builder newCodePrinterBuilder(
+      Node n, SourceMap sourceMap, boolean firstOutput) {
     CodePrinter.Builder builder = new CodePrinter.Builder(n);
     builder.setTypeRegistry(getTypeIRegistry());
     builder.setCompilerOptions(options);
@@ -2393,7 +2530,7 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
     builder.setTagAsExterns(n.isFromExterns());
     builder.setTagAsTypeSummary(!n.isFromExterns() && options.shouldGenerateTypedExterns());
     builder.setTagAsStrict(firstOutput && options.shouldEmitUseStrict());
-    return builder.build();
+    return builder;
   }
 
   /**
@@ -2457,48 +2594,98 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
    * Stores a buffer of text to which more can be appended.  This is just like a
    * StringBuilder except that we also track the number of lines.
    */
-  public static class CodeBuilder {
+  public static class CodeBuilder implements Appendable {
+    /** How much of the text a streaming builder keeps around for {@link #endsWith}. */
+    private static final int STREAMING_TAIL_LENGTH = 32;
+
     private final StringBuilder sb = new StringBuilder();
+    @Nullable private final Appendable out;
+    private IOException outputException;
+    private int length = 0;
     private int lineCount = 0;
     private int colCount = 0;
     private final Set<String> uniqueLicenses = new HashSet<>();
 
+    public CodeBuilder() {
+      this.out = null;
+    }
+
+    /**
+     * Creates a builder that passes all text on to {@code out} instead of keeping it. Only the
+     * end of the text is kept, so {@link #toString} and {@link #reset} are not supported.
+     */
+    CodeBuilder(Appendable out) {
+      this.out = checkNotNull(out);
+    }
+
     /** Removes all text, but leaves the line count unchanged. */
     void reset() {
+      checkState(out == null, "Streamed text cannot be reset");
       sb.setLength(0);
+      length = 0;
     }
 
     /** Appends the given string to the text buffer. */
     CodeBuilder append(String str) {
-      sb.append(str);
+      return append(str, 0, str.length());
+    }
+
+    @Override
+    public CodeBuilder append(CharSequence csq) {
+      return append(csq, 0, csq.length());
+    }
+
+    @Override
+    public CodeBuilder append(CharSequence csq, int start, int end) {
+      sb.append(csq, start, end);
+      length += end - start;
 
       // Adjust the line and column information for the new text.
-      int index = -1;
-      int lastIndex = index;
-      while ((index = str.indexOf('\n', index + 1)) >= 0) {
-        ++lineCount;
-        lastIndex = index;
+      int lastIndex = -1;
+      for (int i = start; i < end; i++) {
+        if (csq.charAt(i) == '\n') {
+          ++lineCount;
+          lastIndex = i;
+        }
       }
 
       if (lastIndex == -1) {
         // No new lines, append the new characters added.
-        colCount += str.length();
+        colCount += end - start;
       } else {
-        colCount = str.length() - (lastIndex + 1);
+        colCount = end - (lastIndex + 1);
       }
 
+      if (out != null) {
+        if (outputException == null) {
+          try {
+            out.append(csq, start, end);
+          } catch (IOException e) {
+            outputException = e;
+          }
+        }
+        if (sb.length() > 2 * STREAMING_TAIL_LENGTH) {
+          sb.delete(0, sb.length() - STREAMING_TAIL_LENGTH);
+        }
+      }
       return this;
     }
 
+    @Override
+    public CodeBuilder append(char c) {
+      return append(String.valueOf(c));
+    }
+
     /** Returns all text in the text buffer. */
     @Override
     public String toString() {
+      checkState(out == null, "The text was streamed");
       return sb.toString();
     }
 
     /** Returns the length of the text buffer. */
     public int getLength() {
-      return sb.length();
+      return length;
     }
 
     /** Returns the (zero-based) index of the last line in the text buffer. */
@@ -2513,10 +2700,29 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
 
     /** Determines whether the text ends with the given suffix. */
     boolean endsWith(String suffix) {
-      return (sb.length() > suffix.length())
+      checkState(suffix.length() <= STREAMING_TAIL_LENGTH);
+      return (length > suffix.length())
           && suffix.equals(sb.substring(sb.length() - suffix.length()));
     }
 
+    /** Returns the {@code n}th char from the end of the text, starting at 1. */
+    char getCharFromEnd(int n) {
+      checkState(n > 0 && n <= STREAMING_TAIL_LENGTH && n <= length);
+      return sb.charAt(sb.length() - n);
+    }
+
+    /** Whether the text is passed on to an output rather than kept. */
+    boolean isStreaming() {
+      return out != null;
+    }
+
+    /** Rethrows the first error from writing to the output, if any. */
+    void checkOutput() throws IOException {
+      if (outputException != null) {
+        throw outputException;
+      }
+    }
+
     /** Adds a license and returns whether it is unique (has yet to be encountered). */
     boolean addLicense(String license) {
       return uniqueLicenses.add(license);
@@ -2833,10 +3039,14 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
 
     if (level.isOn()) {
       initCompilerOptionsIfTesting();
-      if (getOptions().errorHandler != null) {
-        getOptions().errorHandler.report(level, error);
+      // Script-local checks may report from several threads at once (see
+      // ParallelScriptPassRunner), and the error handler need not be thread-safe.
+      synchronized (errorManager) {
+        if (getOptions().errorHandler != null) {
+          getOptions().errorHandler.report(level, error);
+        }
+        errorManager.report(level, error);
       }
-      errorManager.report(level, error);
     }
   }
 
@@ -110,6 +110,17 @@ public class CompilerInput implements SourceAst, DependencyInfo {
     return new CompilerInput(ast, file.isExtern());
   }
 
+  /**
+   * Like {@link #makePersistentInput(SourceFile)}, but first tries to load the AST from
+   * {@code astCache}, and stores it there after parsing. {@code digest} must change whenever
+   * the contents of the file change.
+   */
+  static CompilerInput makePersistentInput(
+      SourceFile file, PersistentAstCache astCache, String digest) {
+    SourceAst ast = new RecoverableJsAst(new JsAst(file, astCache, digest), true);
+    return new CompilerInput(ast, file.isExtern());
+  }
+
   /** Returns a name for this input. Must be unique across all inputs. */
   @Override
   public InputId getInputId() {
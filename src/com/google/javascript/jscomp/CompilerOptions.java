@@ -388,9 +388,9 @@ public class CompilerOptions implements Serializable {
   /**
    * Sets the level of parallelism for compilation passes that can exploit multi-threading.
    *
-   * <p>Some compiler passes may take advantage of multi-threading, for example, parsing inputs.
-   * This sets the level of parallelism. The compiler will not start more than this number of
-   * threads.
+   * <p>Some compiler passes may take advantage of multi-threading, for example, parsing inputs
+   * and checks that look at one script at a time. This sets the level of parallelism. The compiler
+   * will not start more than this number of threads.
    *
    * @param parallelism up to this number of parallel threads may be created.
    */
@@ -1030,6 +1030,20 @@ public class CompilerOptions implements Serializable {
     tracerOutput = out;
   }
 
+  private PrintStream tracerEventsOutput;
+
+  PrintStream getTracerEventsOutput() {
+    return tracerEventsOutput;
+  }
+
+  /**
+   * Where to write the stats of each pass in the Chrome trace event format, in addition to the
+   * tracer report. Only used when the tracer mode is on.
+   */
+  public void setTracerEventsOutput(PrintStream out) {
+    tracerEventsOutput = out;
+  }
+
   private boolean colorizeErrorOutput;
 
   public ErrorFormat errorFormat;
@@ -1078,7 +1078,7 @@ public final class DefaultPassConfig extends PassConfig {
 
   /** Checks for code that is probably wrong (such as stray expressions). */
   private final HotSwapPassFactory suspiciousCode =
-      new HotSwapPassFactory("suspiciousCode") {
+      new HotSwapPassFactory("suspiciousCode", true) {
         @Override
         protected HotSwapCompilerPass create(final AbstractCompiler compiler) {
           List<Callback> sharedCallbacks = new ArrayList<>();
@@ -1251,7 +1251,7 @@ public final class DefaultPassConfig extends PassConfig {
 
   /** Verifies JSDoc annotations are used properly and checks for ES6 modules. */
   private final HotSwapPassFactory checkJsDocAndEs6Modules =
-      new HotSwapPassFactory("checkJsDocAndEs6Modules") {
+      new HotSwapPassFactory("checkJsDocAndEs6Modules", true) {
         @Override
         protected HotSwapCompilerPass create(AbstractCompiler compiler) {
           ImmutableList.Builder<Callback> callbacks =
@@ -1727,7 +1727,7 @@ public final class DefaultPassConfig extends PassConfig {
   };
 
   /** Various peephole optimizations. */
-  private static CompilerPass createPeepholeOptimizationsPass(
+  static CompilerPass createPeepholeOptimizationsPass(
       AbstractCompiler compiler, String passName) {
     final boolean late = false;
     final boolean useTypesForOptimization = compiler.getOptions().useTypesForLocalOptimization;
@@ -2045,7 +2045,7 @@ public final class DefaultPassConfig extends PassConfig {
    * statements and dead code.
    */
   private final HotSwapPassFactory checkControlFlow =
-      new HotSwapPassFactory("checkControlFlow") {
+      new HotSwapPassFactory("checkControlFlow", true) {
     @Override
     protected HotSwapCompilerPass create(AbstractCompiler compiler) {
       List<Callback> callbacks = new ArrayList<>();
@@ -2080,7 +2080,7 @@ public final class DefaultPassConfig extends PassConfig {
   };
 
   private final HotSwapPassFactory lintChecks =
-      new HotSwapPassFactory(PassNames.LINT_CHECKS) {
+      new HotSwapPassFactory(PassNames.LINT_CHECKS, true) {
         @Override
         protected HotSwapCompilerPass create(AbstractCompiler compiler) {
           ImmutableList.Builder<Callback> callbacks =
@@ -28,6 +28,7 @@ import com.google.common.collect.LinkedHashMultimap;
 import com.google.common.collect.Multimap;
 import com.google.javascript.jscomp.AbstractCompiler.LifeCycleStage;
 import com.google.javascript.jscomp.NodeTraversal.AbstractScopedCallback;
+import com.google.javascript.jscomp.graph.ConcurrentUnionFind;
 import com.google.javascript.jscomp.graph.StandardUnionFind;
 import com.google.javascript.jscomp.graph.UnionFind;
 import com.google.javascript.rhino.FunctionTypeI;
@@ -46,6 +47,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Pattern;
@@ -83,6 +86,13 @@ import java.util.regex.Pattern;
  * revisit this pass and rewrite it in a way that does not compute the same
  * thing over and over.
  *
+ * <p>With {@link CompilerOptions#setNumParallelThreads} and the new type
+ * inference, the properties of the scripts are collected on several threads.
+ * Each thread runs its own copy of this pass over a range of scripts, with its
+ * own caches. The copies share one {@link ConcurrentUnionFind} per property
+ * name, and the rest of what they collect is merged in script order. The old
+ * type registry fills shared tables lazily as types are queried, so with it
+ * the properties are always collected on one thread.
  */
 class DisambiguateProperties implements CompilerPass {
   // To prevent the logs from filling up, we cap the number of warnings
@@ -141,6 +151,16 @@ class DisambiguateProperties implements CompilerPass {
   // Cache calls to getTypeWithProperty.
   private Map<String, IdentityHashMap<TypeI, ObjectTypeI>> gtwpCache;
 
+  // The types of each property when they are collected in parallel. Null otherwise.
+  private ConcurrentMap<String, UnionFind<TypeI>> sharedTypes;
+
+  // The errors found by a copy of this pass, which are reported once all copies are done. Null
+  // in the pass itself, which reports errors right away.
+  private final List<JSError> deferredErrors;
+
+  // The properties found in the externs, for the copies of this pass. Null in the pass itself.
+  private final Map<String, Property> externProperties;
+
   private ObjectTypeI gtwpCacheGet(String field, TypeI type) {
     IdentityHashMap<TypeI, ObjectTypeI> m = gtwpCache.get(field);
     return m == null ? null : m.get(type);
@@ -198,7 +218,7 @@ class DisambiguateProperties implements CompilerPass {
     /** Returns the types on which this field is referenced. */
     UnionFind<TypeI> getTypes() {
       if (types == null) {
-        types = new StandardUnionFind<>();
+        types = sharedTypes == null ? new StandardUnionFind<TypeI>() : getSharedTypes(name);
       }
       return types;
     }
@@ -322,6 +342,22 @@ class DisambiguateProperties implements CompilerPass {
       }
       return true;
     }
+
+    /**
+     * Adds what a copy of this pass collected for this property. The types
+     * themselves were already added to the shared union-find.
+     */
+    void merge(Property other) {
+      if (other.skipRenaming) {
+        invalidate();
+      } else if (!skipRenaming) {
+        if (other.types != null) {
+          checkState(getTypes() == other.types);
+        }
+        typesToSkip.addAll(other.typesToSkip);
+        rootTypesByNode.putAll(other.rootTypesByNode);
+      }
+    }
   }
 
   private final Map<String, Property> properties = new LinkedHashMap<>();
@@ -346,6 +382,23 @@ class DisambiguateProperties implements CompilerPass {
         .addAllTypeMismatches(compiler.getImplicitInterfaceUses())
         .allowEnumsAndScalars()
         .build();
+    this.deferredErrors = null;
+    this.externProperties = null;
+  }
+
+  /** Creates a copy of the pass that collects the properties of some of the scripts. */
+  private DisambiguateProperties(DisambiguateProperties pass) {
+    this.compiler = pass.compiler;
+    this.registry = pass.registry;
+    this.BOTTOM_OBJECT = pass.BOTTOM_OBJECT;
+    this.propertiesToErrorFor = pass.propertiesToErrorFor;
+    this.invalidationMap = pass.invalidationMap;
+    this.invalidatingTypes = pass.invalidatingTypes;
+    this.ancestorInterfaces = new HashMap<>();
+    this.gtwpCache = new HashMap<>();
+    this.sharedTypes = pass.sharedTypes;
+    this.deferredErrors = new ArrayList<>();
+    this.externProperties = pass.properties;
   }
 
   @Override
@@ -353,23 +406,109 @@ class DisambiguateProperties implements CompilerPass {
     checkState(compiler.getLifeCycleStage() == LifeCycleStage.NORMALIZED);
     this.ancestorInterfaces = new HashMap<>();
     this.gtwpCache = new HashMap<>();
+    int numThreads = compiler.getOptions().numParallelThreads;
+    // The warnings for propertiesToErrorFor are reported where a property is
+    // first invalidated, which every copy of the pass would do again.
+    boolean collectInParallel =
+        numThreads > 1
+            && compiler.getOptions().getNewTypeInference()
+            && propertiesToErrorFor.isEmpty();
+    this.sharedTypes =
+        collectInParallel ? new ConcurrentHashMap<String, UnionFind<TypeI>>() : null;
     // Gather names of properties in externs; these properties can't be renamed.
     NodeTraversal.traverseEs6(compiler, externs, new FindExternProperties());
     // Look at each unquoted property access and decide if that property will
     // be renamed.
-    NodeTraversal.traverseEs6(compiler, root, new FindRenameableProperties());
+    if (collectInParallel) {
+      ParallelTaskRunner runner = new ParallelTaskRunner("DisambiguateProperties", numThreads);
+      try {
+        collectInParallel(root, runner);
+      } finally {
+        runner.shutdown();
+      }
+    } else {
+      NodeTraversal.traverseEs6(compiler, root, new FindRenameableProperties());
+    }
     // Do the actual renaming.
     renameProperties();
   }
 
+  /**
+   * Collects the properties of the scripts under {@code root} with a copy of
+   * this pass for each thread, each over a range of consecutive scripts, and
+   * merges the results in script order.
+   */
+  private void collectInParallel(Node root, ParallelTaskRunner runner) {
+    final List<Node> scripts = new ArrayList<>(root.getChildCount());
+    for (Node script = root.getFirstChild(); script != null; script = script.getNext()) {
+      scripts.add(script);
+    }
+    int numTasks = Math.min(runner.getNumThreads(), scripts.size());
+    List<DisambiguateProperties> copies = new ArrayList<>(numTasks);
+    List<Runnable> tasks = new ArrayList<>(numTasks);
+    for (int task = 0; task < numTasks; task++) {
+      final int start = (int) ((long) scripts.size() * task / numTasks);
+      final int end = (int) ((long) scripts.size() * (task + 1) / numTasks);
+      final DisambiguateProperties copy = new DisambiguateProperties(this);
+      copies.add(copy);
+      tasks.add(
+          new Runnable() {
+            @Override
+            public void run() {
+              for (Node script : scripts.subList(start, end)) {
+                NodeTraversal.traverseEs6(compiler, script, copy.new FindRenameableProperties());
+              }
+            }
+          });
+    }
+    runner.runAll(tasks);
+
+    for (DisambiguateProperties copy : copies) {
+      for (JSError error : copy.deferredErrors) {
+        compiler.report(error);
+      }
+      for (Property prop : copy.properties.values()) {
+        getProperty(prop.name).merge(prop);
+      }
+    }
+  }
+
   /** Returns the property for the given name, creating it if necessary. */
   protected Property getProperty(String name) {
     if (!properties.containsKey(name)) {
-      properties.put(name, new Property(name));
+      Property prop = new Property(name);
+      if (externProperties != null
+          && externProperties.containsKey(name)
+          && externProperties.get(name).skipRenaming) {
+        // No need to look at the types of a property the externs invalidated.
+        prop.invalidate();
+      }
+      properties.put(name, prop);
     }
     return properties.get(name);
   }
 
+  /** Returns the union-find that all copies of this pass use for the types of the property. */
+  private UnionFind<TypeI> getSharedTypes(String name) {
+    UnionFind<TypeI> types = sharedTypes.get(name);
+    if (types == null) {
+      UnionFind<TypeI> created = new ConcurrentUnionFind<>();
+      types = sharedTypes.putIfAbsent(name, created);
+      if (types == null) {
+        types = created;
+      }
+    }
+    return types;
+  }
+
+  private void report(JSError error) {
+    if (deferredErrors != null) {
+      deferredErrors.add(error);
+    } else {
+      compiler.report(error);
+    }
+  }
+
   /**
    * Finds all properties defined in the externs file and sets them as
    * ineligible for renaming from the type on which they are defined.
@@ -444,7 +583,7 @@ class DisambiguateProperties implements CompilerPass {
             suggestion += Joiner.on("\n").join(errors);
           }
         }
-        compiler.report(JSError.make(n, propertiesToErrorFor.get(name),
+        report(JSError.make(n, propertiesToErrorFor.get(name),
                 Warnings.INVALIDATION, name, String.valueOf(type), n.toString(),
                 suggestion));
       }
@@ -472,7 +611,7 @@ class DisambiguateProperties implements CompilerPass {
           // TODO(user): It doesn't look like the user can do much in this
           // case right now.
           if (propertiesToErrorFor.containsKey(name)) {
-            compiler.report(JSError.make(child, propertiesToErrorFor.get(name),
+            report(JSError.make(child, propertiesToErrorFor.get(name),
                 Warnings.INVALIDATION, name, String.valueOf(objlitType), n.toString(), ""));
           }
         }
@@ -498,7 +637,7 @@ class DisambiguateProperties implements CompilerPass {
         NodeTraversal t, Node call, String renameFunctionName) {
       int childCount = call.getChildCount();
       if (childCount != 2 && childCount != 3) {
-        compiler.report(
+        report(
             JSError.make(
                 call,
                 Warnings.INVALID_RENAME_FUNCTION,
@@ -508,7 +647,7 @@ class DisambiguateProperties implements CompilerPass {
       }
 
       if (!call.getSecondChild().isString()) {
-        compiler.report(
+        report(
             JSError.make(
                 call,
                 Warnings.INVALID_RENAME_FUNCTION,
@@ -520,7 +659,7 @@ class DisambiguateProperties implements CompilerPass {
       String propName = call.getSecondChild().getString();
 
       if (propName.contains(".")) {
-        compiler.report(
+        report(
             JSError.make(
                 call,
                 Warnings.INVALID_RENAME_FUNCTION,
@@ -551,7 +690,7 @@ class DisambiguateProperties implements CompilerPass {
           }
         }
 
-        compiler.report(
+        report(
             JSError.make(
                 call,
                 propertiesToErrorFor.get(propName),
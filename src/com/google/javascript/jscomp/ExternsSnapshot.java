@@ -0,0 +1,250 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.hash.Hashing;
+import com.google.javascript.jscomp.parsing.Config;
+import com.google.javascript.jscomp.parsing.ParserRunner;
+import com.google.javascript.rhino.ErrorReporter;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * The externs bundled with the compiler for an {@link CompilerOptions.Environment}, parsed at
+ * build time. {@link CommandLineRunner} hands the snapshot to the compiler, which then reads the
+ * ASTs of the bundled externs from it instead of running the parser over them.
+ *
+ * <p>The snapshot only holds externs that parse without errors or warnings, to the same AST, in
+ * both ES5 strict mode and the newest language mode, so it serves any language mode the externs
+ * can be parsed with. It is only used with the default JSDoc parsing, and is loaded when the
+ * compiler first asks for an extern. An extern whose contents differ from those the snapshot was
+ * built from is parsed as usual.
+ *
+ * <p>The snapshots are written by running this class with the directory to write them to. The
+ * build does this when it packages the compiler.
+ */
+public final class ExternsSnapshot {
+  private static final int FORMAT_VERSION = 1;
+
+  private static final Config.JsDocParsing JS_DOC_PARSING = Config.JsDocParsing.TYPES_ONLY;
+
+  @Nullable private final String resourceName;
+
+  // The serialized parse of every extern by name, and the digest of the contents it was parsed
+  // from. Read from the resource on first use.
+  private ImmutableMap<String, Entry> entries;
+
+  private ExternsSnapshot(String resourceName) {
+    this.resourceName = resourceName;
+  }
+
+  private ExternsSnapshot(ImmutableMap<String, Entry> entries) {
+    this.resourceName = null;
+    this.entries = entries;
+  }
+
+  private static final class Entry {
+    final String digest;
+    final byte[] parse;
+
+    Entry(String digest, byte[] parse) {
+      this.digest = digest;
+      this.parse = parse;
+    }
+  }
+
+  /** Returns the snapshot of the externs for {@code env}, or null if the build did not make one. */
+  @Nullable
+  public static ExternsSnapshot forEnvironment(CompilerOptions.Environment env) {
+    String resourceName = getResourceName(env);
+    if (ExternsSnapshot.class.getResource(resourceName) == null) {
+      return null;
+    }
+    return new ExternsSnapshot(resourceName);
+  }
+
+  /** Reads a snapshot written by {@link #write}. */
+  @VisibleForTesting
+  static ExternsSnapshot read(InputStream in) throws IOException {
+    return new ExternsSnapshot(readEntries(new DataInputStream(in)));
+  }
+
+  private static String getResourceName(CompilerOptions.Environment env) {
+    return "/externs-" + env.toString().toLowerCase() + ".snapshot";
+  }
+
+  /**
+   * Returns the parse of {@code file} if it is in the snapshot and {@code options} parse externs
+   * the way the snapshot did, and null otherwise.
+   */
+  @Nullable
+  ParserRunner.ParseResult load(SourceFile file, CompilerOptions options) {
+    if (options.isParseJsDocDocumentation() != JS_DOC_PARSING
+        || (options.extraAnnotationNames != null && !options.extraAnnotationNames.isEmpty())) {
+      return null;
+    }
+    Entry entry = getEntries().get(file.getName());
+    if (entry == null) {
+      return null;
+    }
+    try {
+      if (!entry.digest.equals(digest(file.getCode()))) {
+        return null;
+      }
+      return PersistentAstCache.read(new ByteArrayInputStream(entry.parse), file);
+    } catch (IOException | ClassNotFoundException | RuntimeException e) {
+      // Parse the extern instead.
+      return null;
+    }
+  }
+
+  private synchronized ImmutableMap<String, Entry> getEntries() {
+    if (entries == null) {
+      try (InputStream in = ExternsSnapshot.class.getResourceAsStream(resourceName)) {
+        entries = readEntries(new DataInputStream(new BufferedInputStream(in)));
+      } catch (IOException | RuntimeException e) {
+        // A snapshot that cannot be read is empty.
+        entries = ImmutableMap.of();
+      }
+    }
+    return entries;
+  }
+
+  private static ImmutableMap<String, Entry> readEntries(DataInputStream in) throws IOException {
+    if (in.readInt() != FORMAT_VERSION) {
+      return ImmutableMap.of();
+    }
+    ImmutableMap.Builder<String, Entry> entries = ImmutableMap.builder();
+    int numEntries = in.readInt();
+    for (int i = 0; i < numEntries; i++) {
+      String name = in.readUTF();
+      String digest = in.readUTF();
+      byte[] parse = new byte[in.readInt()];
+      in.readFully(parse);
+      entries.put(name, new Entry(digest, parse));
+    }
+    return entries.build();
+  }
+
+  private static String digest(String code) {
+    return Hashing.sha256().hashString(code, UTF_8).toString();
+  }
+
+  /**
+   * Parses {@code externs} and writes the ones that can be part of a snapshot to {@code out}.
+   *
+   * @return The number of externs written.
+   */
+  @VisibleForTesting
+  static int write(List<SourceFile> externs, OutputStream out) throws IOException {
+    Map<String, byte[]> parses = new LinkedHashMap<>();
+    Map<String, String> digests = new LinkedHashMap<>();
+    for (SourceFile extern : externs) {
+      extern.setIsExtern(true);
+      String code = extern.getCode();
+      ParserRunner.ParseResult result = parse(extern, code, Config.LanguageMode.ECMASCRIPT5,
+          Config.StrictMode.STRICT);
+      ParserRunner.ParseResult latest = parse(extern, code, Config.LanguageMode.ES_NEXT,
+          Config.StrictMode.SLOPPY);
+      if (result == null || latest == null || !result.ast.isEquivalentTo(latest.ast)) {
+        continue;
+      }
+      ByteArrayOutputStream parse = new ByteArrayOutputStream();
+      PersistentAstCache.write(parse, extern, result);
+      parses.put(extern.getName(), parse.toByteArray());
+      digests.put(extern.getName(), digest(code));
+    }
+
+    DataOutputStream dataOut = new DataOutputStream(new BufferedOutputStream(out));
+    dataOut.writeInt(FORMAT_VERSION);
+    dataOut.writeInt(parses.size());
+    for (Map.Entry<String, byte[]> parse : parses.entrySet()) {
+      dataOut.writeUTF(parse.getKey());
+      dataOut.writeUTF(digests.get(parse.getKey()));
+      dataOut.writeInt(parse.getValue().length);
+      dataOut.write(parse.getValue());
+    }
+    dataOut.flush();
+    return parses.size();
+  }
+
+  /** Returns a clean parse of {@code extern}, or null if the parser reported anything. */
+  @Nullable
+  private static ParserRunner.ParseResult parse(
+      SourceFile extern, String code, Config.LanguageMode mode, Config.StrictMode strictMode) {
+    Config config =
+        ParserRunner.createConfig(
+            mode,
+            JS_DOC_PARSING,
+            Config.RunMode.STOP_AFTER_ERROR,
+            null /* extraAnnotationNames */,
+            true /* parseInlineSourceMaps */,
+            strictMode);
+    final boolean[] clean = {true};
+    ErrorReporter reporter =
+        new ErrorReporter() {
+          @Override
+          public void warning(String message, String sourceName, int line, int lineOffset) {
+            clean[0] = false;
+          }
+
+          @Override
+          public void error(String message, String sourceName, int line, int lineOffset) {
+            clean[0] = false;
+          }
+        };
+    ParserRunner.ParseResult result = ParserRunner.parse(extern, code, config, reporter);
+    return clean[0] && result.ast != null && result.sourceMapURL == null ? result : null;
+  }
+
+  /** Writes the snapshots of all environments to the directory given as the only argument. */
+  public static void main(String[] args) throws IOException {
+    if (args.length != 1) {
+      System.err.println("Usage: ExternsSnapshot <output directory>");
+      System.exit(-1);
+    }
+    Path directory = Paths.get(args[0]);
+    for (CompilerOptions.Environment env : CompilerOptions.Environment.values()) {
+      List<SourceFile> externs = AbstractCommandLineRunner.getBuiltinExterns(env);
+      // The resource name starts with a slash.
+      Path path = directory.resolve(getResourceName(env).substring(1));
+      try (OutputStream out = Files.newOutputStream(path)) {
+        int written = write(externs, out);
+        System.out.println(
+            "Wrote " + written + " of " + externs.size() + " " + env + " externs to " + path);
+      }
+    }
+  }
+}
@@ -0,0 +1,319 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.javascript.jscomp.ControlFlowGraph.Branch;
+import com.google.javascript.jscomp.DataFlowAnalysis.MaxIterationsExceededException;
+import com.google.javascript.jscomp.graph.DiGraph.DiGraphNode;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A data flow analysis for gen/kill problems, where the state at every point of the program is
+ * a set of facts numbered from 0 and every node maps its input to {@code gen ∪ (input - kill)}.
+ *
+ * <p>Unlike {@link DataFlowAnalysis}, which works on arbitrary {@code LatticeElement}s, this keeps
+ * a dense {@link BitSet} for the input and output of each node. Those sets are allocated once and
+ * joined in place, and the gen and kill sets are computed once per node rather than on every
+ * visit. The work list holds node indices in reverse postorder of the flow direction, so most
+ * nodes see all of their inputs before they are visited.
+ *
+ * <p>A subclass numbers its facts, implements {@link #computeGenKill} and {@link
+ * #getNumFacts()}, and reads the results with {@link #getIn} and {@link #getOut} after {@link
+ * #analyze()}. The control flow graph's annotations are left alone.
+ *
+ * @param <N> The control flow graph's node value type.
+ */
+abstract class GenKillDataFlowAnalysis<N> {
+
+  private final ControlFlowGraph<N> cfg;
+
+  // The graph nodes in the order they are visited, and the position of every node in it.
+  private List<DiGraphNode<N, Branch>> orderedNodes;
+  private Map<DiGraphNode<N, Branch>, Integer> nodeIndices;
+  private int entryIndex;
+  private int implicitReturnIndex;
+
+  // For every node, the nodes whose output flows into it, and the nodes its output flows into.
+  private int[][] sources;
+  private int[][] targets;
+
+  private BitSet[] in;
+  private BitSet[] out;
+  private BitSet[] gen;
+  private BitSet[] kill;
+  private BitSet scratch;
+
+  GenKillDataFlowAnalysis(ControlFlowGraph<N> cfg) {
+    this.cfg = cfg;
+  }
+
+  /** Numbers the nodes of the graph in the order they are visited, and links them up. */
+  private void indexNodes() {
+    orderedNodes = orderNodes(cfg, isForward());
+    nodeIndices = new HashMap<>();
+    for (int i = 0; i < orderedNodes.size(); i++) {
+      nodeIndices.put(orderedNodes.get(i), i);
+    }
+    entryIndex = nodeIndices.get(cfg.getEntry());
+    implicitReturnIndex = nodeIndices.get(cfg.getImplicitReturn());
+
+    int numNodes = orderedNodes.size();
+    int[][] preds = new int[numNodes][];
+    int[][] succs = new int[numNodes][];
+    for (int i = 0; i < numNodes; i++) {
+      DiGraphNode<N, Branch> node = orderedNodes.get(i);
+      preds[i] = indicesOf(cfg.getDirectedPredNodes(node));
+      succs[i] = indicesOf(cfg.getDirectedSuccNodes(node));
+    }
+    sources = isForward() ? preds : succs;
+    targets = isForward() ? succs : preds;
+  }
+
+  /**
+   * Orders the nodes of the graph in reverse postorder of a depth first search from the entry,
+   * or in postorder for a backward analysis. Nodes that cannot be reached from the entry come
+   * last.
+   */
+  private static <N> List<DiGraphNode<N, Branch>> orderNodes(
+      ControlFlowGraph<N> cfg, boolean isForward) {
+    List<DiGraphNode<N, Branch>> postorder = new ArrayList<>();
+    Set<DiGraphNode<N, Branch>> visited = new HashSet<>();
+    Deque<DiGraphNode<N, Branch>> stack = new ArrayDeque<>();
+    Deque<Iterator<DiGraphNode<N, Branch>>> succIterators = new ArrayDeque<>();
+    stack.push(cfg.getEntry());
+    succIterators.push(cfg.getDirectedSuccNodes(cfg.getEntry()).iterator());
+    visited.add(cfg.getEntry());
+    while (!stack.isEmpty()) {
+      Iterator<DiGraphNode<N, Branch>> succs = succIterators.peek();
+      if (succs.hasNext()) {
+        DiGraphNode<N, Branch> succ = succs.next();
+        if (visited.add(succ)) {
+          stack.push(succ);
+          succIterators.push(cfg.getDirectedSuccNodes(succ).iterator());
+        }
+      } else {
+        postorder.add(stack.pop());
+        succIterators.pop();
+      }
+    }
+    if (isForward) {
+      Collections.reverse(postorder);
+    }
+    for (DiGraphNode<N, Branch> node : cfg.getDirectedGraphNodes()) {
+      if (!visited.contains(node)) {
+        postorder.add(node);
+      }
+    }
+    return postorder;
+  }
+
+  private int[] indicesOf(List<DiGraphNode<N, Branch>> nodes) {
+    int[] indices = new int[nodes.size()];
+    for (int i = 0; i < indices.length; i++) {
+      indices[i] = nodeIndices.get(nodes.get(i));
+    }
+    return indices;
+  }
+
+  /**
+   * Returns the control flow graph that this analysis was performed on.
+   */
+  final ControlFlowGraph<N> getCfg() {
+    return cfg;
+  }
+
+  /**
+   * Checks whether the analysis is a forward flow analysis or backward flow
+   * analysis.
+   *
+   * @return {@code true} if it is a forward analysis.
+   */
+  abstract boolean isForward();
+
+  /**
+   * Whether a fact holds where control flow paths meet if it holds on any of them, rather than
+   * on all of them. The initial estimate is the empty set for the former and the set of all
+   * facts for the latter.
+   */
+  abstract boolean isMayAnalysis();
+
+  /** Returns the number of facts. Called when the analysis starts. */
+  abstract int getNumFacts();
+
+  /**
+   * Computes the facts that {@code node} adds to and removes from its input. Called once for
+   * every node but the implicit return each time the analysis runs.
+   */
+  abstract void computeGenKill(N node, BitSet gen, BitSet kill);
+
+  /**
+   * Adds the facts that hold where the flow starts: at the entry of a forward analysis, or at
+   * the implicit return of a backward one.
+   */
+  void addEntryFacts(BitSet facts) {}
+
+  /**
+   * Finds a fixed-point solution using at most {@link DataFlowAnalysis#MAX_STEPS}
+   * iterations.
+   */
+  final void analyze() {
+    analyze(DataFlowAnalysis.MAX_STEPS);
+  }
+
+  /**
+   * Finds a fixed-point solution.
+   *
+   * @param maxSteps Max number of iterations before the method stops and throw
+   *        a {@link MaxIterationsExceededException}.
+   */
+  final void analyze(int maxSteps) {
+    initialize();
+    int numNodes = orderedNodes.size();
+    BitSet workList = new BitSet(numNodes);
+    workList.set(0, numNodes);
+    workList.clear(implicitReturnIndex);
+    int step = 0;
+    for (int i = workList.nextSetBit(0); i >= 0; i = workList.nextSetBit(0)) {
+      if (step > maxSteps) {
+        throw new MaxIterationsExceededException(
+            "Analysis did not terminate after " + maxSteps + " iterations");
+      }
+      workList.clear(i);
+      joinInputs(i);
+      if (flow(i)) {
+        for (int target : targets[i]) {
+          if (target != implicitReturnIndex) {
+            workList.set(target);
+          }
+        }
+      }
+      step++;
+    }
+    if (isForward()) {
+      joinInputs(implicitReturnIndex);
+    }
+  }
+
+  private void initialize() {
+    if (orderedNodes == null) {
+      indexNodes();
+    }
+    int numNodes = orderedNodes.size();
+    int numFacts = getNumFacts();
+    in = new BitSet[numNodes];
+    out = new BitSet[numNodes];
+    gen = new BitSet[numNodes];
+    kill = new BitSet[numNodes];
+    scratch = new BitSet(numFacts);
+    for (int i = 0; i < numNodes; i++) {
+      in[i] = createInitialEstimate(numFacts);
+      out[i] = createInitialEstimate(numFacts);
+      gen[i] = new BitSet(numFacts);
+      kill[i] = new BitSet(numFacts);
+      if (i != implicitReturnIndex) {
+        computeGenKill(orderedNodes.get(i).getValue(), gen[i], kill[i]);
+      }
+    }
+    if (!isForward()) {
+      in[implicitReturnIndex].clear();
+      addEntryFacts(in[implicitReturnIndex]);
+    }
+  }
+
+  private BitSet createInitialEstimate(int numFacts) {
+    BitSet facts = new BitSet(numFacts);
+    if (!isMayAnalysis()) {
+      facts.set(0, numFacts);
+    }
+    return facts;
+  }
+
+  /**
+   * Computes the output of a node from its input.
+   *
+   * @return {@code true} if the output changed.
+   */
+  private boolean flow(int i) {
+    BitSet[] results = isForward() ? out : in;
+    scratch.clear();
+    scratch.or(isForward() ? in[i] : out[i]);
+    scratch.andNot(kill[i]);
+    scratch.or(gen[i]);
+    if (scratch.equals(results[i])) {
+      return false;
+    }
+    BitSet previous = results[i];
+    results[i] = scratch;
+    scratch = previous;
+    return true;
+  }
+
+  /**
+   * Computes the input of a node by joining, in place, the outputs of the nodes that flow into it.
+   */
+  private void joinInputs(int i) {
+    BitSet input = isForward() ? in[i] : out[i];
+    BitSet[] results = isForward() ? out : in;
+    if (isForward() && i == entryIndex) {
+      input.clear();
+      addEntryFacts(input);
+      return;
+    }
+    int[] inputSources = sources[i];
+    if (inputSources.length == 0) {
+      return;
+    }
+    input.clear();
+    input.or(results[inputSources[0]]);
+    for (int j = 1; j < inputSources.length; j++) {
+      if (isMayAnalysis()) {
+        input.or(results[inputSources[j]]);
+      } else {
+        input.and(results[inputSources[j]]);
+      }
+    }
+  }
+
+  /** Returns the facts that hold before {@code node}. Must not be modified. */
+  final BitSet getIn(N node) {
+    return in[getIndex(node)];
+  }
+
+  /** Returns the facts that hold after {@code node}. Must not be modified. */
+  final BitSet getOut(N node) {
+    return out[getIndex(node)];
+  }
+
+  private int getIndex(N node) {
+    checkNotNull(in, "The analysis has not run");
+    DiGraphNode<N, Branch> graphNode = cfg.getDirectedGraphNode(node);
+    checkNotNull(graphNode, node);
+    return nodeIndices.get(graphNode);
+  }
+}
@@ -58,6 +58,9 @@ class GlobalNamespace
   private Scope externsScope;
   private boolean generated = false;
 
+  // The compiler's change stamp when the namespace was generated.
+  private int generatedAtChangeStamp;
+
   /**
    * Each reference has an index in post-order.
    * Notice that some nodes are represented by 2 Ref objects, so
@@ -98,6 +101,37 @@ class GlobalNamespace
     this.root = root;
   }
 
+  /**
+   * Returns the namespace that the previous pass left for reuse with {@link #keepForNextPass}, if
+   * it was built over the same roots and no change has been reported to the AST since. Otherwise
+   * creates a new namespace, as the constructor does.
+   *
+   * <p>Building a namespace traverses the whole program, and several passes in a row need one, so
+   * this saves a rebuild whenever a pass that leaves its namespace is followed by one that uses
+   * the same namespace without changes in between.
+   */
+  static GlobalNamespace createOrReuse(
+      AbstractCompiler compiler, @Nullable Node externsRoot, Node root) {
+    GlobalNamespace kept = compiler.takeGlobalNamespaceForReuse();
+    if (kept != null
+        && kept.externsRoot == externsRoot
+        && kept.root == root
+        && (!kept.generated || kept.generatedAtChangeStamp == compiler.getChangeStamp())) {
+      return kept;
+    }
+    return new GlobalNamespace(compiler, externsRoot, root);
+  }
+
+  /**
+   * Lets the next pass that calls {@link #createOrReuse} have this namespace, provided the AST
+   * does not change first. The caller must not change the namespace afterwards, since it is not
+   * copied. Only one namespace is kept, and only until a pass takes it or the pass after the one
+   * that kept it ends.
+   */
+  void keepForNextPass() {
+    compiler.keepGlobalNamespaceForReuse(this);
+  }
+
   boolean hasExternsRoot() {
     return externsRoot != null;
   }
@@ -236,6 +270,7 @@ class GlobalNamespace
 
     NodeTraversal.traverseEs6(compiler, root, new BuildGlobalNamespace());
     generated = true;
+    generatedAtChangeStamp = compiler.getChangeStamp();
     externsScope = null;
   }
 
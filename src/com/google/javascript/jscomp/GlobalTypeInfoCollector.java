@@ -419,6 +419,7 @@ public class GlobalTypeInfoCollector implements CompilerPass {
       s.freezeScope();
     }
     this.simpleInference.setScopesAreFrozen();
+    getCommonTypes().startCachingObjectSubtypes(compiler.getOptions().getTracerMode().isOn());
 
     // Traverse the externs and annotate them with types.
     // Only works for the top level, not inside function bodies.
@@ -39,6 +39,8 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.BitSet;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.IdentityHashMap;
@@ -254,6 +256,85 @@ public final class JSModuleGraph implements Serializable {
     return modules;
   }
 
+  /**
+   * Splits the graph into at most {@code maxShards} shards that can be compiled apart from each
+   * other, such as groups of leaf modules that only share a common base.
+   *
+   * <p>Each shard is returned as the set of the indices of its modules, in dependency order. A
+   * shard holds some leaf modules (modules nothing depends on) and everything they depend on,
+   * so it is a complete program by itself. Modules needed by the leaves of several shards, like
+   * the base, are in each of those shards. The leaves are spread over the shards so that the
+   * inputs only one leaf needs are split about evenly.
+   */
+  List<BitSet> getShards(int maxShards) {
+    checkState(maxShards > 0, "maxShards must be positive: %s", maxShards);
+    List<Integer> leaves = new ArrayList<>();
+    BitSet hasDependents = new BitSet(modules.length);
+    for (JSModule module : modules) {
+      for (JSModule dep : module.getDependencies()) {
+        hasDependents.set(dep.getIndex());
+      }
+    }
+    for (int i = hasDependents.nextClearBit(0); i < modules.length;
+        i = hasDependents.nextClearBit(i + 1)) {
+      leaves.add(i);
+    }
+
+    int numShards = Math.min(maxShards, leaves.size());
+    List<BitSet> shards = new ArrayList<>(numShards);
+    if (numShards <= 1) {
+      BitSet all = new BitSet(modules.length);
+      all.set(0, modules.length);
+      shards.add(all);
+      return shards;
+    }
+
+    // The number of leaves that need each module.
+    int[] leafCount = new int[modules.length];
+    for (int leaf : leaves) {
+      BitSet deps = selfPlusTransitiveDeps[leaf];
+      for (int i = deps.nextSetBit(0); i >= 0; i = deps.nextSetBit(i + 1)) {
+        leafCount[i]++;
+      }
+    }
+    // The size of each leaf is the number of inputs needed by that leaf alone.
+    final int[] leafSize = new int[modules.length];
+    for (int leaf : leaves) {
+      BitSet deps = selfPlusTransitiveDeps[leaf];
+      for (int i = deps.nextSetBit(0); i >= 0; i = deps.nextSetBit(i + 1)) {
+        if (leafCount[i] == 1) {
+          leafSize[leaf] += 1 + modules[i].getInputs().size();
+        }
+      }
+    }
+
+    // Give each leaf, largest first, to the shard that is smallest so far.
+    List<Integer> bySize = new ArrayList<>(leaves);
+    Collections.sort(
+        bySize,
+        new Comparator<Integer>() {
+          @Override
+          public int compare(Integer a, Integer b) {
+            return leafSize[b] != leafSize[a] ? leafSize[b] - leafSize[a] : a - b;
+          }
+        });
+    int[] shardSize = new int[numShards];
+    for (int i = 0; i < numShards; i++) {
+      shards.add(new BitSet(modules.length));
+    }
+    for (int leaf : bySize) {
+      int smallest = 0;
+      for (int i = 1; i < numShards; i++) {
+        if (shardSize[i] < shardSize[smallest]) {
+          smallest = i;
+        }
+      }
+      shards.get(smallest).or(selfPlusTransitiveDeps[leaf]);
+      shardSize[smallest] += leafSize[leaf];
+    }
+    return shards;
+  }
+
   /**
    * Determines whether this module depends on a given module. Note that a
    * module never depends on itself, as that dependency would be cyclic.
@@ -16,10 +16,12 @@
 
 package com.google.javascript.jscomp;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 
 import com.google.common.annotations.GwtIncompatible;
 import com.google.common.collect.ImmutableList;
+import com.google.javascript.jscomp.parsing.Config;
 import com.google.javascript.jscomp.parsing.ParserRunner;
 import com.google.javascript.jscomp.parsing.parser.FeatureSet;
 import com.google.javascript.rhino.ErrorReporter;
@@ -29,6 +31,7 @@ import com.google.javascript.rhino.Node;
 import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
+import javax.annotation.Nullable;
 
 /**
  * Generates an AST for a JavaScript source file.
@@ -43,10 +46,21 @@ public class JsAst implements SourceAst {
   private Node root;
   private FeatureSet features;
 
+  // Optional on-disk cache of clean parses, and the content digest to key it by.
+  private final transient PersistentAstCache astCache;
+  private final String digest;
+
   public JsAst(SourceFile sourceFile) {
+    this(sourceFile, null, null);
+  }
+
+  JsAst(SourceFile sourceFile, @Nullable PersistentAstCache astCache, @Nullable String digest) {
+    checkArgument((astCache == null) == (digest == null));
     this.inputId = new InputId(sourceFile.getName());
     this.sourceFile = sourceFile;
     this.fileName = sourceFile.getName();
+    this.astCache = astCache;
+    this.digest = digest;
   }
 
   @Override
@@ -149,13 +163,29 @@ public class JsAst implements SourceAst {
         compiler.getDefaultErrorReporter());
 
     try {
-      ParserRunner.ParseResult result = ParserRunner.parse(
-          sourceFile,
-          sourceFile.getCode(),
-          compiler.getParserConfig(sourceFile.isExtern()
-              ? AbstractCompiler.ConfigContext.EXTERNS
-              : AbstractCompiler.ConfigContext.DEFAULT),
-          reporter);
+      Config config = compiler.getParserConfig(sourceFile.isExtern()
+          ? AbstractCompiler.ConfigContext.EXTERNS
+          : AbstractCompiler.ConfigContext.DEFAULT);
+      // Comments are not cached, so don't use the cache when they are needed.
+      boolean useCache = astCache != null && !compiler.getOptions().preservesDetailedSourceInfo();
+      ParserRunner.ParseResult result =
+          useCache ? astCache.load(digest, sourceFile, config) : null;
+      if (result == null
+          && sourceFile.isExtern()
+          && compiler.getExternsSnapshot() != null
+          && !compiler.getOptions().preservesDetailedSourceInfo()) {
+        result = compiler.getExternsSnapshot().load(sourceFile, compiler.getOptions());
+      }
+      if (result == null) {
+        result = ParserRunner.parse(sourceFile, sourceFile.getCode(), config, reporter);
+        if (useCache
+            && result.ast != null
+            && result.sourceMapURL == null
+            && reporter.errors.isEmpty()
+            && reporter.warnings.isEmpty()) {
+          astCache.store(digest, sourceFile, config, result);
+        }
+      }
       root = result.ast;
       features = result.features;
 
@@ -24,7 +24,9 @@ import java.lang.management.GarbageCollectorMXBean;
 import java.lang.management.ManagementFactory;
 import java.lang.management.MemoryMXBean;
 import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
 import java.lang.management.MemoryUsage;
+import java.lang.management.ThreadMXBean;
 import java.util.List;
 import java.util.StringTokenizer;
 
@@ -79,6 +81,63 @@ class JvmMetrics {
     }
   }
 
+  /**
+   * Returns the CPU time used by the current thread, in nanoseconds, or -1 if the JVM does not
+   * measure it.
+   */
+  static long getCurrentThreadCpuTime() {
+    ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+    return threadBean.isCurrentThreadCpuTimeSupported() && threadBean.isThreadCpuTimeEnabled()
+        ? threadBean.getCurrentThreadCpuTime()
+        : -1;
+  }
+
+  /**
+   * Returns the number of bytes allocated by the current thread so far, or -1 if the JVM does not
+   * measure it. Only HotSpot-based JVMs do.
+   */
+  static long getCurrentThreadAllocatedBytes() {
+    ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+    if (threadBean instanceof com.sun.management.ThreadMXBean) {
+      com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) threadBean;
+      if (sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled()) {
+        return sunBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Returns the total time, in milliseconds, that all collectors have spent collecting garbage, or
+   * -1 if no collector reports it.
+   */
+  static long getGarbageCollectionTime() {
+    long total = -1;
+    for (GarbageCollectorMXBean gcBean : ManagementFactory.getGarbageCollectorMXBeans()) {
+      long time = gcBean.getCollectionTime();
+      if (time >= 0) {
+        total = Math.max(total, 0) + time;
+      }
+    }
+    return total;
+  }
+
+  /**
+   * Returns the heap in use just after the most recent garbage collection of each heap pool, in
+   * bytes, or -1 if no pool reports it. Unlike the current heap usage, this does not count garbage
+   * that has not been collected yet.
+   */
+  static long getRetainedHeap() {
+    long total = -1;
+    for (MemoryPoolMXBean mpBean : ManagementFactory.getMemoryPoolMXBeans()) {
+      MemoryUsage usage = mpBean.getCollectionUsage();
+      if (mpBean.getType() == MemoryType.HEAP && usage != null) {
+        total = Math.max(total, 0) + usage.getUsed();
+      }
+    }
+    return total;
+  }
+
   private static void writeMetrics(
       PrintStream out, String type, boolean verbose, boolean pretty) {
 
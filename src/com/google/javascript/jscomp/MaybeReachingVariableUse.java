@@ -18,19 +18,21 @@ package com.google.javascript.jscomp;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
+import static com.google.javascript.jscomp.DataFlowAnalysis.computeEscaped;
 
-import com.google.common.collect.HashMultimap;
-import com.google.common.collect.Multimap;
-import com.google.common.collect.MultimapBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.primitives.Ints;
 import com.google.javascript.jscomp.ControlFlowGraph.Branch;
 import com.google.javascript.jscomp.graph.DiGraph.DiGraphEdge;
+import com.google.javascript.jscomp.graph.DiGraph.DiGraphNode;
 import com.google.javascript.jscomp.graph.GraphNode;
-import com.google.javascript.jscomp.graph.LatticeElement;
 import com.google.javascript.rhino.Node;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -44,20 +46,49 @@ import java.util.Set;
  * the use on that path.
  *
  */
-class MaybeReachingVariableUse extends
-    DataFlowAnalysis<Node, MaybeReachingVariableUse.ReachingUses> {
+class MaybeReachingVariableUse extends GenKillDataFlowAnalysis<Node> {
 
   // The scope of the function that we are analyzing.
   private final Set<Var> escaped;
   private final Map<String, Var> allVarsInFn;
   private final List<Var> orderedVars;
 
+  /*
+   * The facts of the analysis are the uses of the local (non-escaped) variables, that is, a
+   * variable together with a CFG node that reads it. A fact holds at a point of the program if
+   * the use is "upward exposed" there. This is better explained with an example:
+   *
+   * A = 1;
+   * ...
+   * N_3:
+   * N_4: print(A);
+   * N_5: y = A;
+   * N_6: A = 1;
+   * N_7: print(A);
+   *
+   * At N_3, reads of A in {N_4, N_5} are said to be upward exposed.
+   *
+   * The join is a simple union because of the "may be" nature of the analysis.
+   *
+   * Consider: A = 1; if (x) { A = 2 }; alert(A);
+   *
+   * The read of A "may be" exposed to A = 1 in the beginning.
+   */
+  private final List<Node> useNodes = new ArrayList<>();
+  private final Map<Var, Map<Node, Integer>> usesByVar = new HashMap<>();
+  private final Map<Var, BitSet> useMasks = new HashMap<>();
+  // The uses of variables and the definitions that kill all uses of a variable in each CFG node,
+  // in the order in which the node applies them to the uses after it. A non-negative entry is a
+  // use, a negative entry {@code ~i} a definition of the ith variable of {@code definedVars}.
+  private final Map<Node, int[]> effects = new HashMap<>();
+  private final List<Var> definedVars = new ArrayList<>();
+
   MaybeReachingVariableUse(
       ControlFlowGraph<Node> cfg,
       Scope jsScope,
       AbstractCompiler compiler,
       Es6SyntacticScopeCreator scopeCreator) {
-    super(cfg, new ReachingUsesJoinOp());
+    super(cfg);
     this.escaped = new HashSet<>();
     this.allVarsInFn = new HashMap<>();
     this.orderedVars = new ArrayList<>();
@@ -67,74 +98,31 @@ class MaybeReachingVariableUse extends
     computeEscaped(jsScope.getParent(), escaped, compiler, scopeCreator);
     NodeUtil.getAllVarsDeclaredInFunction(
         allVarsInFn, orderedVars, compiler, scopeCreator, jsScope.getParent());
+    computeEffects();
   }
 
-  /**
-   * May use definition lattice representation. It captures a product
-   * lattice for each local (non-escaped) variable. The sub-lattice is
-   * a n + 2 power set element lattice with all the Nodes in the program,
-   * TOP and BOTTOM. This is better explained with an example:
-   *
-   * Consider: A sub-lattice element representing the variable A represented
-   * by { N_4, N_5} where N_x is a Node in the program. This implies at
-   * that particular point in the program the content of A is "upward exposed"
-   * at point N_4 and N_5.
-   *
-   * Example:
-   *
-   * A = 1;
-   * ...
-   * N_3:
-   * N_4: print(A);
-   * N_5: y = A;
-   * N_6: A = 1;
-   * N_7: print(A);
-   *
-   * At N_3, reads of A in {N_4, N_5} are said to be upward exposed.
-   */
-  static final class ReachingUses implements LatticeElement {
-    final Multimap<Var, Node> mayUseMap;
-
-    public ReachingUses() {
-      mayUseMap = HashMultimap.create();
-    }
-
-    /**
-     * Copy constructor.
-     *
-     * @param other The constructed object is a replicated copy of this element.
-     */
-    public ReachingUses(ReachingUses other) {
-      mayUseMap = MultimapBuilder.hashKeys().hashSetValues().build(other.mayUseMap);
-    }
-
-    @Override
-    public boolean equals(Object other) {
-      return (other instanceof ReachingUses)
-          && ((ReachingUses) other).mayUseMap.equals(this.mayUseMap);
-    }
-
-    @Override
-    public int hashCode() {
-      return mayUseMap.hashCode();
+  private void computeEffects() {
+    List<Integer> nodeEffects = new ArrayList<>();
+    for (DiGraphNode<Node, Branch> graphNode : getCfg().getDirectedGraphNodes()) {
+      Node n = graphNode.getValue();
+      if (n == null) {
+        // The implicit return.
+        continue;
+      }
+      // If there's an ON_EX edge, this cfgNode may or may not get executed.
+      // We can express this concisely by just pretending this happens in
+      // a conditional.
+      boolean conditional = hasExceptionHandler(n);
+      nodeEffects.clear();
+      computeMayUse(n, n, nodeEffects, conditional);
+      effects.put(n, Ints.toArray(nodeEffects));
     }
-  }
-
-  /**
-   * The join is a simple union because of the "may be" nature of the analysis.
-   *
-   * Consider: A = 1; if (x) { A = 2 }; alert(A);
-   *
-   * The read of A "may be" exposed to A = 1 in the beginning.
-   */
-  private static class ReachingUsesJoinOp implements JoinOp<ReachingUses> {
-    @Override
-    public ReachingUses apply(List<ReachingUses> from) {
-      ReachingUses result = new ReachingUses();
-      for (ReachingUses uses : from) {
-        result.mayUseMap.putAll(uses.mayUseMap);
+    for (Map.Entry<Var, Map<Node, Integer>> entry : usesByVar.entrySet()) {
+      BitSet mask = new BitSet();
+      for (int use : entry.getValue().values()) {
+        mask.set(use);
       }
-      return result;
+      useMasks.put(entry.getKey(), mask);
     }
   }
 
@@ -144,26 +132,28 @@ class MaybeReachingVariableUse extends
   }
 
   @Override
-  ReachingUses createEntryLattice() {
-    return new ReachingUses();
+  boolean isMayAnalysis() {
+    return true;
   }
 
   @Override
-  ReachingUses createInitialEstimateLattice() {
-    return new ReachingUses();
+  int getNumFacts() {
+    return useNodes.size();
   }
 
   @Override
-  ReachingUses flowThrough(Node n, ReachingUses input) {
-    ReachingUses output = new ReachingUses(input);
-
-    // If there's an ON_EX edge, this cfgNode may or may not get executed.
-    // We can express this concisely by just pretending this happens in
-    // a conditional.
-    boolean conditional = hasExceptionHandler(n);
-    computeMayUse(n, n, output, conditional);
-
-    return output;
+  void computeGenKill(Node n, BitSet gen, BitSet kill) {
+    for (int effect : effects.get(n)) {
+      if (effect >= 0) {
+        gen.set(effect);
+      } else {
+        BitSet uses = useMasks.get(definedVars.get(~effect));
+        if (uses != null) {
+          gen.andNot(uses);
+          kill.or(uses);
+        }
+      }
+    }
   }
 
   private boolean hasExceptionHandler(Node cfgNode) {
@@ -177,7 +167,7 @@ class MaybeReachingVariableUse extends
   }
 
   private void computeMayUse(
-      Node n, Node cfgNode, ReachingUses output, boolean conditional) {
+      Node n, Node cfgNode, List<Integer> output, boolean conditional) {
     switch (n.getToken()) {
 
       case BLOCK:
@@ -286,13 +276,24 @@ class MaybeReachingVariableUse extends
    * exposed lattice. Do nothing if the variable name is one of the escaped
    * variable.
    */
-  private void addToUseIfLocal(String name, Node node, ReachingUses use) {
+  private void addToUseIfLocal(String name, Node node, List<Integer> effects) {
     Var var = allVarsInFn.get(name);
     if (var == null) {
       return;
     }
     if (!escaped.contains(var)) {
-      use.mayUseMap.put(var, node);
+      Map<Node, Integer> uses = usesByVar.get(var);
+      if (uses == null) {
+        uses = new LinkedHashMap<>();
+        usesByVar.put(var, uses);
+      }
+      Integer use = uses.get(node);
+      if (use == null) {
+        use = useNodes.size();
+        useNodes.add(node);
+        uses.put(node, use);
+      }
+      effects.add(use);
     }
   }
 
@@ -301,13 +302,14 @@ class MaybeReachingVariableUse extends
    * exposed lattice. Do nothing if the variable name is one of the escaped
    * variable.
    */
-  private void removeFromUseIfLocal(String name, ReachingUses use) {
+  private void removeFromUseIfLocal(String name, List<Integer> effects) {
     Var var = allVarsInFn.get(name);
     if (var == null) {
       return;
     }
     if (!escaped.contains(var)) {
-      use.mayUseMap.removeAll(var);
+      effects.add(~definedVars.size());
+      definedVars.add(var);
     }
   }
 
@@ -324,7 +326,17 @@ class MaybeReachingVariableUse extends
   Collection<Node> getUses(String name, Node defNode) {
     GraphNode<Node, Branch> n = getCfg().getNode(defNode);
     checkNotNull(n);
-    FlowState<ReachingUses> state = n.getAnnotation();
-    return state.getOut().mayUseMap.get(allVarsInFn.get(name));
+    BitSet exposedUses = getOut(defNode);
+    Map<Node, Integer> uses = usesByVar.get(allVarsInFn.get(name));
+    if (uses == null) {
+      return ImmutableList.of();
+    }
+    List<Node> result = new ArrayList<>();
+    for (Map.Entry<Node, Integer> use : uses.entrySet()) {
+      if (exposedUses.get(use.getValue())) {
+        result.add(use.getKey());
+      }
+    }
+    return result;
   }
 }
@@ -18,19 +18,19 @@ package com.google.javascript.jscomp;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
+import static com.google.javascript.jscomp.DataFlowAnalysis.computeEscaped;
 
+import com.google.common.primitives.Ints;
 import com.google.javascript.jscomp.ControlFlowGraph.AbstractCfgNodeTraversalCallback;
 import com.google.javascript.jscomp.ControlFlowGraph.Branch;
-import com.google.javascript.jscomp.graph.GraphNode;
-import com.google.javascript.jscomp.graph.LatticeElement;
+import com.google.javascript.jscomp.graph.DiGraph.DiGraphNode;
 import com.google.javascript.rhino.Node;
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Set;
 import javax.annotation.Nullable;
 
@@ -42,21 +42,56 @@ import javax.annotation.Nullable;
  * reaches that definition and it is the last definition before the use.
  *
  */
-final class MustBeReachingVariableDef extends
-    DataFlowAnalysis<Node, MustBeReachingVariableDef.MustDef> {
+final class MustBeReachingVariableDef extends GenKillDataFlowAnalysis<Node> {
+
+  // Redefines all the parameters, see escapeParameters.
+  private static final int ESCAPE_PARAMETERS = Integer.MIN_VALUE;
 
   // The scope of the function that we are analyzing.
   private final AbstractCompiler compiler;
   private final Set<Var> escaped;
   private final Map<String, Var> allVarsInFn;
   private final List<Var> orderedVars;
+  private final Map<Var, Integer> varIndices;
+
+  /*
+   * The facts of the analysis are the definitions of the variables, and a variable's reaching
+   * definition at a point of the program is read from the facts of its definitions that hold
+   * there. This captures a product lattice for each local (non-escaped) variable. The sub-lattice
+   * is a n + 2 element lattice with all the {@link Definition} in the program, TOP and BOTTOM.
+   *
+   * <p>Since this is a Must-Define analysis, BOTTOM represents the case where
+   * there might be more than one reaching definition for the variable.
+   *
+   *
+   *           (TOP)
+   *       /   |   |      \
+   *     N1    N2  N3 ....Nn
+   *      \    |   |      /
+   *          (BOTTOM)
+   *
+   * A variable is BOTTOM when none of its definitions hold, N when only N holds, and TOP when
+   * more than one does. Every variable has a fact that no node generates, so that TOP survives
+   * the removal of any one definition, and one for its value at the entry of the function. The
+   * join, intersection, then takes two different definitions to BOTTOM and leaves the other one
+   * of TOP and N.
+   */
+  private final List<Definition> definitions = new ArrayList<>();
+  private final List<Var> definedVars = new ArrayList<>();
+  // For every variable, its definitions, and the definitions that depend on its value.
+  private final BitSet[] definitionsOf;
+  private final BitSet[] dependingOn;
+  private final BitSet dependingOnParameters = new BitSet();
+  // The definitions made by each CFG node, in order. A non-negative entry is a definition, a
+  // negative entry {@code ~i} an unknown definition of the ith variable or ESCAPE_PARAMETERS.
+  private final Map<Node, int[]> effects = new HashMap<>();
 
   MustBeReachingVariableDef(
       ControlFlowGraph<Node> cfg,
       Scope jsScope,
       AbstractCompiler compiler,
       Es6SyntacticScopeCreator scopeCreator) {
-    super(cfg, new MustDefJoin());
+    super(cfg);
     this.compiler = compiler;
     this.escaped = new HashSet<>();
     this.allVarsInFn = new HashMap<>();
@@ -64,6 +99,58 @@ final class MustBeReachingVariableDef extends
     computeEscaped(jsScope.getParent(), escaped, compiler, scopeCreator);
     NodeUtil.getAllVarsDeclaredInFunction(
         allVarsInFn, orderedVars, compiler, scopeCreator, jsScope.getParent());
+
+    int numVars = orderedVars.size();
+    this.varIndices = new HashMap<>();
+    this.definitionsOf = new BitSet[numVars];
+    this.dependingOn = new BitSet[numVars];
+    for (int i = 0; i < numVars; i++) {
+      varIndices.put(orderedVars.get(i), i);
+      definitionsOf[i] = new BitSet();
+      dependingOn[i] = new BitSet();
+      addDefinition(orderedVars.get(i), null);
+    }
+    for (Var var : orderedVars) {
+      addDefinition(var, new Definition(var.scope.getRootNode()));
+    }
+    computeEffects();
+  }
+
+  private int addDefinition(Var var, @Nullable Definition definition) {
+    int fact = definitions.size();
+    definitions.add(definition);
+    definedVars.add(var);
+    definitionsOf[varIndices.get(var)].set(fact);
+    return fact;
+  }
+
+  private void computeEffects() {
+    List<Integer> nodeEffects = new ArrayList<>();
+    for (DiGraphNode<Node, Branch> graphNode : getCfg().getDirectedGraphNodes()) {
+      Node n = graphNode.getValue();
+      if (n == null) {
+        // The implicit return.
+        continue;
+      }
+      nodeEffects.clear();
+      // TODO(user): This must know about ON_EX edges but it should handle
+      // it better than what we did in liveness. Because we are in a forward mode,
+      // we can used the branched forward analysis.
+      computeMustDef(n, n, nodeEffects, false);
+      effects.put(n, Ints.toArray(nodeEffects));
+    }
+    for (int fact = 0; fact < definitions.size(); fact++) {
+      Definition definition = definitions.get(fact);
+      if (definition == null) {
+        continue;
+      }
+      for (Var dep : definition.depends) {
+        dependingOn[varIndices.get(dep)].set(fact);
+        if (isParameter(dep)) {
+          dependingOnParameters.set(fact);
+        }
+      }
+    }
   }
 
   /**
@@ -103,133 +190,57 @@ final class MustBeReachingVariableDef extends
     }
   }
 
-  /**
-   * Must reaching definition lattice representation. It captures a product
-   * lattice for each local (non-escaped) variable. The sub-lattice is
-   * a n + 2 element lattice with all the {@link Definition} in the program,
-   * TOP and BOTTOM.
-   *
-   * <p>Since this is a Must-Define analysis, BOTTOM represents the case where
-   * there might be more than one reaching definition for the variable.
-   *
-   *
-   *           (TOP)
-   *       /   |   |      \
-   *     N1    N2  N3 ....Nn
-   *      \    |   |      /
-   *          (BOTTOM)
-   *
-   */
-  static final class MustDef implements LatticeElement {
-
-    // TODO(user): Use bit vector instead of maps might get better
-    // performance. Change it after this is tested to be fully functional.
-
-    // When a Var "A" = "TOP", "A" does not exist in reachingDef's keySet.
-    // When a Var "A" = Node N, "A" maps to that node.
-    // When a Var "A" = "BOTTOM", "A" maps to null.
-    final Map<Var, Definition> reachingDef;
-
-    public MustDef() {
-      reachingDef = new HashMap<>();
-    }
-
-    public MustDef(Collection<Var> vars) {
-      this();
-      for (Var var : vars) {
-        reachingDef.put(var, new Definition(var.scope.getRootNode()));
-      }
-    }
-
-    /**
-     * Copy constructor.
-     *
-     * @param other The constructed object is a replicated copy of this element.
-     */
-    public MustDef(MustDef other) {
-      reachingDef = new HashMap<>(other.reachingDef);
-    }
-
-    @Override
-    public boolean equals(Object other) {
-      return (other instanceof MustDef) && ((MustDef) other).reachingDef.equals(this.reachingDef);
-    }
-
-    @Override
-    public int hashCode() {
-      return reachingDef.hashCode();
-    }
+  @Override
+  boolean isForward() {
+    return true;
   }
 
-  private static class MustDefJoin extends JoinOp.BinaryJoinOp<MustDef> {
-    @Override
-    public MustDef apply(MustDef a, MustDef b) {
-      MustDef result = new MustDef();
-      Map<Var, Definition> resultMap = result.reachingDef;
-
-      // Take the join of all variables that are not TOP in this.
-      for (Map.Entry<Var, Definition> varEntry : a.reachingDef.entrySet()) {
-        Var var = varEntry.getKey();
-        Definition aDef = varEntry.getValue();
-
-        if (aDef == null) {
-          // "a" is BOTTOM implies that the variable has more than one possible
-          // definition. We set the join of this to be BOTTOM regardless of what
-          // "b" might be.
-          resultMap.put(var, null);
-          continue;
-        }
-
-        if (b.reachingDef.containsKey(var)) {
-          Definition bDef = b.reachingDef.get(var);
-
-          if (aDef.equals(bDef)) {
-            resultMap.put(var, aDef);
-          } else {
-            resultMap.put(var, null);
-          }
-        } else {
-          resultMap.put(var, aDef);
-        }
-      }
-
-      // Take the join of all variables that are not TOP in other but it is TOP
-      // in this.
-      for (Map.Entry<Var, Definition> entry : b.reachingDef.entrySet()) {
-        Var var = entry.getKey();
-        if (!a.reachingDef.containsKey(var)) {
-          resultMap.put(var, entry.getValue());
-        }
-      }
-      return result;
-    }
+  @Override
+  boolean isMayAnalysis() {
+    return false;
   }
 
   @Override
-  boolean isForward() {
-    return true;
+  int getNumFacts() {
+    return definitions.size();
   }
 
   @Override
-  MustDef createEntryLattice() {
-    return new MustDef(allVarsInFn.values());
+  void addEntryFacts(BitSet facts) {
+    int numVars = orderedVars.size();
+    facts.set(numVars, 2 * numVars);
   }
 
   @Override
-  MustDef createInitialEstimateLattice() {
-    return new MustDef();
+  void computeGenKill(Node n, BitSet gen, BitSet kill) {
+    for (int effect : effects.get(n)) {
+      if (effect == ESCAPE_PARAMETERS) {
+        for (Var v : orderedVars) {
+          if (isParameter(v)) {
+            // Assume we no longer know where the parameter comes from
+            // anymore.
+            remove(definitionsOf[varIndices.get(v)], gen, kill);
+          }
+        }
+        // Also, assume we no longer know anything that depends on a parameter.
+        remove(dependingOnParameters, gen, kill);
+        continue;
+      }
+      Var var = definedVars.get(effect >= 0 ? effect : ~effect);
+      int varIndex = varIndices.get(var);
+      remove(dependingOn[varIndex], gen, kill);
+      if (!escaped.contains(var)) {
+        remove(definitionsOf[varIndex], gen, kill);
+        if (effect >= 0) {
+          gen.set(effect);
+        }
+      }
+    }
   }
 
-  @Override
-  MustDef flowThrough(Node n, MustDef input) {
-    // TODO(user): We are doing a straight copy from input to output. There
-    // might be some opportunities to cut down overhead.
-    MustDef output = new MustDef(input);
-    // TODO(user): This must know about ON_EX edges but it should handle
-    // it better than what we did in liveness. Because we are in a forward mode,
-    // we can used the branched forward analysis.
-    computeMustDef(n, n, output, false);
-    return output;
+  private static void remove(BitSet facts, BitSet gen, BitSet kill) {
+    gen.andNot(facts);
+    kill.or(facts);
   }
 
   /**
@@ -238,7 +249,7 @@ final class MustBeReachingVariableDef extends
    * @param conditional true if the definition is not always executed.
    */
   private void computeMustDef(
-      Node n, Node cfgNode, MustDef output, boolean conditional) {
+      Node n, Node cfgNode, List<Integer> output, boolean conditional) {
     switch (n.getToken()) {
 
       case BLOCK:
@@ -348,7 +359,7 @@ final class MustBeReachingVariableDef extends
    *     {@code null} if this is a conditional define.
    */
   private void addToDefIfLocal(String name, @Nullable Node node,
-      @Nullable Node rValue, MustDef def) {
+      @Nullable Node rValue, List<Integer> effects) {
     Var var = allVarsInFn.get(name);
 
     // var might be null because the variable might be defined in the extern
@@ -357,50 +368,21 @@ final class MustBeReachingVariableDef extends
       return;
     }
 
-    for (Var other : def.reachingDef.keySet()) {
-      Definition otherDef = def.reachingDef.get(other);
-      if (otherDef == null) {
-        continue;
-      }
-      if (otherDef.depends.contains(var)) {
-        def.reachingDef.put(other, null);
-      }
-    }
-
-    if (!escaped.contains(var)) {
-      if (node == null) {
-        def.reachingDef.put(var, null);
-      } else {
-        Definition definition = new Definition(node);
-        if (rValue != null) {
-          computeDependence(definition, rValue);
-        }
-        def.reachingDef.put(var, definition);
+    if (node == null || escaped.contains(var)) {
+      // The definitions that depend on the variable no longer reach, and neither does any
+      // definition of it if it is local.
+      effects.add(~varIndices.get(var));
+    } else {
+      Definition definition = new Definition(node);
+      if (rValue != null) {
+        computeDependence(definition, rValue);
       }
+      effects.add(addDefinition(var, definition));
     }
   }
 
-  private void escapeParameters(MustDef output) {
-    for (Var v : allVarsInFn.values()) {
-      if (isParameter(v)) {
-        // Assume we no longer know where the parameter comes from
-        // anymore.
-        output.reachingDef.put(v, null);
-      }
-    }
-
-    // Also, assume we no longer know anything that depends on a parameter.
-    for (Entry<Var, Definition> pair : output.reachingDef.entrySet()) {
-      Definition value = pair.getValue();
-      if (value == null) {
-        continue;
-      }
-      for (Var dep : value.depends) {
-        if (isParameter(dep)) {
-          output.reachingDef.put(pair.getKey(), null);
-        }
-      }
-    }
+  private void escapeParameters(List<Integer> effects) {
+    effects.add(ESCAPE_PARAMETERS);
   }
 
   private static boolean isParameter(Var v) {
@@ -440,9 +422,14 @@ final class MustBeReachingVariableDef extends
    */
   Definition getDef(String name, Node useNode) {
     checkArgument(getCfg().hasNode(useNode));
-    GraphNode<Node, Branch> n = getCfg().getNode(useNode);
-    FlowState<MustDef> state = n.getAnnotation();
-    return state.getIn().reachingDef.get(allVarsInFn.get(name));
+    Var var = allVarsInFn.get(name);
+    if (var == null) {
+      return null;
+    }
+    BitSet reaching = (BitSet) getIn(useNode).clone();
+    reaching.and(definitionsOf[varIndices.get(var)]);
+    // No reaching definition is BOTTOM, and more than one TOP.
+    return reaching.cardinality() == 1 ? definitions.get(reaching.nextSetBit(0)) : null;
   }
 
   Node getDefNode(String name, Node useNode) {
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableListMultimap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Runs the analysis of each scope of {@link NewTypeInference} on a pool of threads.
+ *
+ * <p>A scope reads the summaries of the functions defined directly in it, so it is analyzed after
+ * them. Unannotated callbacks take their declared types from the analyzed call sites around them,
+ * so they are analyzed after all other scopes, and an inner callback after the callback that
+ * contains it. This is the order in which {@link GlobalTypeInfoCollector} lists the scopes for the
+ * sequential analysis; scopes that do not depend on each other run at the same time.
+ *
+ * <p>The dependencies follow the nesting of functions, so they form a forest and there are no
+ * cycles to break.
+ */
+final class NTIScopeScheduler {
+
+  /** Analyzes one scope. Called from the threads of the pool. */
+  interface ScopeAnalyzer {
+    void analyze(NTIScope scope);
+  }
+
+  /** Thrown when the analysis of a scope fails. */
+  static final class ScopeAnalysisException extends RuntimeException {
+    final NTIScope scope;
+
+    ScopeAnalysisException(NTIScope scope, Throwable cause) {
+      super(cause);
+      this.scope = scope;
+    }
+  }
+
+  private final int numParallelThreads;
+
+  NTIScopeScheduler(int numParallelThreads) {
+    checkArgument(numParallelThreads > 1);
+    this.numParallelThreads = numParallelThreads;
+  }
+
+  /**
+   * Analyzes {@code scopes}, which are in the order in which they are analyzed sequentially.
+   *
+   * @throws ScopeAnalysisException for the first scope in that order whose analysis failed.
+   */
+  void run(List<NTIScope> scopes, ScopeAnalyzer analyzer) {
+    List<NTIScope> functions = new ArrayList<>();
+    List<NTIScope> callbacks = new ArrayList<>();
+    for (NTIScope scope : scopes) {
+      if (isCallback(scope)) {
+        callbacks.add(scope);
+      } else {
+        functions.add(scope);
+      }
+    }
+    ThreadFactory threadFactory = new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+          Thread t = new Thread(
+              null, r, "jscompiler-NewTypeInference", CompilerExecutor.COMPILER_STACK_SIZE);
+          t.setDaemon(true);  // Do not prevent the JVM from exiting.
+          return t;
+        }
+    };
+    ExecutorService executor = new ThreadPoolExecutor(
+        numParallelThreads,
+        numParallelThreads,
+        Integer.MAX_VALUE,
+        TimeUnit.SECONDS,
+        new LinkedBlockingQueue<Runnable>(),
+        threadFactory);
+    try {
+      runPhase(executor, functions, analyzer);
+      runPhase(executor, callbacks, analyzer);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  /**
+   * Returns the scopes that each of {@code scopes} waits for, besides unannotated callbacks
+   * waiting for all other scopes.
+   */
+  @VisibleForTesting
+  static ImmutableListMultimap<NTIScope, NTIScope> getDependencies(List<NTIScope> scopes) {
+    Set<NTIScope> scopeSet = new HashSet<>(scopes);
+    ImmutableListMultimap.Builder<NTIScope, NTIScope> dependencies =
+        ImmutableListMultimap.builder();
+    for (NTIScope scope : scopes) {
+      NTIScope parent = scope.getParent();
+      if (!scopeSet.contains(parent) || isCallback(parent) != isCallback(scope)) {
+        // The phases order these scopes.
+        continue;
+      }
+      if (isCallback(scope)) {
+        dependencies.put(scope, parent);
+      } else {
+        dependencies.put(parent, scope);
+      }
+    }
+    return dependencies.build();
+  }
+
+  private static boolean isCallback(NTIScope scope) {
+    return NodeUtil.isUnannotatedCallback(scope.getRoot());
+  }
+
+  private static void runPhase(
+      final ExecutorService executor, final List<NTIScope> scopes, final ScopeAnalyzer analyzer) {
+    if (scopes.isEmpty()) {
+      return;
+    }
+    final Map<NTIScope, Integer> indices = new HashMap<>();
+    for (int i = 0; i < scopes.size(); i++) {
+      indices.put(scopes.get(i), i);
+    }
+    final List<List<Integer>> dependents = new ArrayList<>(scopes.size());
+    final AtomicIntegerArray numDependencies = new AtomicIntegerArray(scopes.size());
+    for (int i = 0; i < scopes.size(); i++) {
+      dependents.add(new ArrayList<Integer>());
+    }
+    for (Map.Entry<NTIScope, NTIScope> dependency : getDependencies(scopes).entries()) {
+      int scope = indices.get(dependency.getKey());
+      dependents.get(indices.get(dependency.getValue())).add(scope);
+      numDependencies.incrementAndGet(scope);
+    }
+
+    final CountDownLatch done = new CountDownLatch(scopes.size());
+    final AtomicReferenceArray<Throwable> failures = new AtomicReferenceArray<>(scopes.size());
+    class ScopeTask implements Runnable {
+      private final int index;
+
+      ScopeTask(int index) {
+        this.index = index;
+      }
+
+      @Override
+      public void run() {
+        try {
+          analyzer.analyze(scopes.get(index));
+        } catch (Throwable t) {
+          // Keep going, so that the failure reported does not depend on timing.
+          failures.set(index, t);
+        }
+        for (int dependent : dependents.get(index)) {
+          if (numDependencies.decrementAndGet(dependent) == 0) {
+            executor.execute(new ScopeTask(dependent));
+          }
+        }
+        done.countDown();
+      }
+    }
+    // Find the scopes to start with before starting any, since the running ones count down.
+    List<ScopeTask> initialTasks = new ArrayList<>();
+    for (int i = 0; i < scopes.size(); i++) {
+      if (numDependencies.get(i) == 0) {
+        initialTasks.add(new ScopeTask(i));
+      }
+    }
+    for (ScopeTask task : initialTasks) {
+      executor.execute(task);
+    }
+
+    try {
+      done.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    }
+    for (int i = 0; i < scopes.size(); i++) {
+      if (failures.get(i) != null) {
+        throw new ScopeAnalysisException(scopes.get(i), failures.get(i));
+      }
+    }
+  }
+}
@@ -20,6 +20,7 @@ import static com.google.common.base.MoreObjects.firstNonNull;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.base.Throwables.throwIfUnchecked;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
@@ -56,6 +57,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * New type inference algorithm.
@@ -427,6 +429,20 @@ final class NewTypeInference implements CompilerPass {
     }
   }
 
+  /** Keeps the warnings about one scope until all scopes are analyzed in parallel. */
+  private static final class BufferingWarningReporter extends WarningReporter {
+    final List<JSError> warnings = new ArrayList<>();
+
+    BufferingWarningReporter(AbstractCompiler compiler) {
+      super(compiler);
+    }
+
+    @Override
+    void add(JSError warning) {
+      warnings.add(warning);
+    }
+  }
+
   private final WarningReporter warnings;
   private List<TypeMismatch> mismatches;
   private List<TypeMismatch> implicitInterfaceUses;
@@ -503,7 +519,11 @@ final class NewTypeInference implements CompilerPass {
     this.compiler = compiler;
     this.convention = compiler.getCodingConvention();
     this.envs = new LinkedHashMap<>();
-    this.summaries = new LinkedHashMap<>();
+    // When the scopes are analyzed in parallel, they all add their summaries here.
+    this.summaries =
+        compiler.getOptions().numParallelThreads > 1
+            ? new ConcurrentHashMap<NTIScope, JSType>()
+            : new LinkedHashMap<NTIScope, JSType>();
     this.deferredChecks = new LinkedHashMap<>();
     this.ABSTRACT_METHOD_NAME = convention.getAbstractMethodName();
     this.reportUnknownTypes =
@@ -523,6 +543,26 @@ final class NewTypeInference implements CompilerPass {
     this.areTypeVariablesUnknown = inCompatibilityMode;
   }
 
+  /** Creates an analysis of a single scope that shares the function summaries of {@code nti}. */
+  private NewTypeInference(NewTypeInference nti) {
+    this.warnings = new BufferingWarningReporter(nti.compiler);
+    this.mismatches = new ArrayList<>();
+    this.implicitInterfaceUses = new ArrayList<>();
+    this.compiler = nti.compiler;
+    this.convention = nti.convention;
+    this.envs = new LinkedHashMap<>();
+    this.summaries = nti.summaries;
+    this.deferredChecks = new LinkedHashMap<>();
+    this.ABSTRACT_METHOD_NAME = nti.ABSTRACT_METHOD_NAME;
+    this.assertionFunctionsMap = nti.assertionFunctionsMap;
+    this.reportUnknownTypes = nti.reportUnknownTypes;
+    this.reportNullDeref = nti.reportNullDeref;
+    this.joinTypesWhenInstantiatingGenerics = nti.joinTypesWhenInstantiatingGenerics;
+    this.allowPropertyOnSubtypes = nti.allowPropertyOnSubtypes;
+    this.areTypeVariablesUnknown = nti.areTypeVariablesUnknown;
+    initSymbolTable(nti.symbolTable);
+  }
+
   @VisibleForTesting // Only used from tests
   public NTIScope processForTesting(Node externs, Node root) {
     process(externs, root);
@@ -532,33 +572,21 @@ final class NewTypeInference implements CompilerPass {
   @Override
   public void process(Node externs, Node root) {
     try {
-      this.symbolTable = (GlobalTypeInfo) compiler.getGlobalTypeInfo();
-      this.commonTypes = this.symbolTable.getCommonTypes();
-      this.ttlObj = new TypeTransformation(compiler, this.symbolTable.getGlobalScope());
+      initSymbolTable((GlobalTypeInfo) compiler.getGlobalTypeInfo());
       this.mismatches = symbolTable.getMismatches();
       this.implicitInterfaceUses = symbolTable.getImplicitInterfaceUses();
 
-      this.BOOLEAN = this.commonTypes.BOOLEAN;
-      this.BOTTOM = this.commonTypes.BOTTOM;
-      this.FALSE_TYPE = this.commonTypes.FALSE_TYPE;
-      this.FALSY = this.commonTypes.FALSY;
-      this.NULL = this.commonTypes.NULL;
-      this.NULL_OR_UNDEFINED = this.commonTypes.NULL_OR_UNDEFINED;
-      this.NUMBER = this.commonTypes.NUMBER;
-      this.NUMBER_OR_STRING = this.commonTypes.NUMBER_OR_STRING;
-      this.STRING = this.commonTypes.STRING;
-      this.TOP_OBJECT = this.commonTypes.getTopObject();
-      this.TRUE_TYPE = this.commonTypes.TRUE_TYPE;
-      this.TRUTHY = this.commonTypes.TRUTHY;
-      this.UNDEFINED = this.commonTypes.UNDEFINED;
-      this.UNKNOWN = this.commonTypes.UNKNOWN;
-
-      for (NTIScope scope : symbolTable.getScopes()) {
-        analyzeFunction(scope);
-        envs.clear();
+      int numParallelThreads = compiler.getOptions().numParallelThreads;
+      if (numParallelThreads > 1) {
+        analyzeScopesInParallel(numParallelThreads);
+      } else {
+        for (NTIScope scope : symbolTable.getScopes()) {
+          analyzeFunction(scope);
+          envs.clear();
+        }
       }
       for (DeferredCheck check : deferredChecks.values()) {
-        check.runCheck(summaries, warnings);
+        runDeferredCheck(check);
       }
       if (measureMem) {
         System.out.println("Peak mem: " + peakMem + "MB");
@@ -572,6 +600,65 @@ final class NewTypeInference implements CompilerPass {
     }
   }
 
+  private void initSymbolTable(GlobalTypeInfo symbolTable) {
+    this.symbolTable = symbolTable;
+    this.commonTypes = this.symbolTable.getCommonTypes();
+    this.ttlObj = new TypeTransformation(compiler, this.symbolTable.getGlobalScope());
+
+    this.BOOLEAN = this.commonTypes.BOOLEAN;
+    this.BOTTOM = this.commonTypes.BOTTOM;
+    this.FALSE_TYPE = this.commonTypes.FALSE_TYPE;
+    this.FALSY = this.commonTypes.FALSY;
+    this.NULL = this.commonTypes.NULL;
+    this.NULL_OR_UNDEFINED = this.commonTypes.NULL_OR_UNDEFINED;
+    this.NUMBER = this.commonTypes.NUMBER;
+    this.NUMBER_OR_STRING = this.commonTypes.NUMBER_OR_STRING;
+    this.STRING = this.commonTypes.STRING;
+    this.TOP_OBJECT = this.commonTypes.getTopObject();
+    this.TRUE_TYPE = this.commonTypes.TRUE_TYPE;
+    this.TRUTHY = this.commonTypes.TRUTHY;
+    this.UNDEFINED = this.commonTypes.UNDEFINED;
+    this.UNKNOWN = this.commonTypes.UNKNOWN;
+  }
+
+  /**
+   * Analyzes every scope with its own instance of this pass, which keeps its warnings, type
+   * mismatches and deferred checks. They are collected in the order of the sequential analysis,
+   * so the results do not depend on the order in which the scopes finish.
+   */
+  private void analyzeScopesInParallel(int numParallelThreads) {
+    List<NTIScope> scopes = symbolTable.getScopes();
+    final Map<NTIScope, NewTypeInference> scopeAnalyses = new ConcurrentHashMap<>();
+    try {
+      new NTIScopeScheduler(numParallelThreads).run(
+          scopes,
+          new NTIScopeScheduler.ScopeAnalyzer() {
+            @Override
+            public void analyze(NTIScope scope) {
+              NewTypeInference scopeAnalysis = new NewTypeInference(NewTypeInference.this);
+              scopeAnalysis.analyzeFunction(scope);
+              scopeAnalysis.envs.clear();
+              scopeAnalysis.cfg = null;
+              scopeAnalysis.exitEnvs = null;
+              scopeAnalyses.put(scope, scopeAnalysis);
+            }
+          });
+    } catch (NTIScopeScheduler.ScopeAnalysisException e) {
+      currentScope = e.scope;
+      throwIfUnchecked(e.getCause());
+      throw e;
+    }
+    for (NTIScope scope : scopes) {
+      NewTypeInference scopeAnalysis = scopeAnalyses.get(scope);
+      for (JSError warning : ((BufferingWarningReporter) scopeAnalysis.warnings).warnings) {
+        warnings.add(warning);
+      }
+      mismatches.addAll(scopeAnalysis.mismatches);
+      implicitInterfaceUses.addAll(scopeAnalysis.implicitInterfaceUses);
+      deferredChecks.putAll(scopeAnalysis.deferredChecks);
+    }
+  }
+
   static void updatePeakMem() {
     Runtime rt = Runtime.getRuntime();
     long currentUsedMem = (rt.totalMemory() - rt.freeMemory()) / (1024 * 1024);
@@ -4973,7 +5060,48 @@ final class NewTypeInference implements CompilerPass {
     return t1;
   }
 
-  private class DeferredCheck {
+  private void runDeferredCheck(DeferredCheck check) {
+    FunctionType fnSummary = summaries.get(check.calleeScope).getFunType();
+    println(
+        "Running deferred check of function: ", check.calleeScope.getReadableName(),
+        " with FunctionSummary of: ", fnSummary, " and callsite ret: ",
+        check.expectedRetType, " args: ", check.argTypes);
+    if (check.expectedRetType != null
+        && !fnSummary.getReturnType().isSubtypeOf(check.expectedRetType)) {
+      warnings.add(JSError.make(
+          check.callSite, INVALID_INFERRED_RETURN_TYPE,
+          errorMsgWithTypeDiff(
+              check.expectedRetType, fnSummary.getReturnType())));
+    }
+    int i = 0;
+    Iterable<Node> args = NodeUtil.getInvocationArgsAsIterable(check.callSite);
+    // argTypes can be null if in the fwd direction the analysis of the
+    // call returned prematurely, e.g., because of a WRONG_ARGUMENT_COUNT.
+    if (check.argTypes == null) {
+      return;
+    }
+    int offset = check.callSite.isTaggedTemplateLit() ? 1 : 0;
+    for (Node argNode : args) {
+      JSType argType = check.argTypes.get(i);
+      JSType formalType = fnSummary.getFormalType(i + offset);
+      if (argNode.isName() && check.callerScope.isKnownFunction(argNode.getString())) {
+        argType = summaries.get(check.callerScope.getScope(argNode.getString()));
+      }
+      if (argType != null) {
+        if (argType.isSubtypeOf(formalType)) {
+          registerImplicitUses(argNode, argType, formalType);
+        } else {
+          JSError error = JSError.make(argNode, INVALID_ARGUMENT_TYPE,
+              Integer.toString(i + offset + 1), check.calleeScope.getReadableName(),
+              errorMsgWithTypeDiff(formalType, argType));
+          registerMismatchAndWarn(error, argType, formalType);
+        }
+      }
+      i++;
+    }
+  }
+
+  private static class DeferredCheck {
     final Node callSite;
     final NTIScope callerScope;
     final NTIScope calleeScope;
@@ -5002,47 +5130,6 @@ final class NewTypeInference implements CompilerPass {
       this.argTypes = argTypes;
     }
 
-    private void runCheck(Map<NTIScope, JSType> summaries, WarningReporter warnings) {
-      FunctionType fnSummary = summaries.get(this.calleeScope).getFunType();
-      println(
-          "Running deferred check of function: ", calleeScope.getReadableName(),
-          " with FunctionSummary of: ", fnSummary, " and callsite ret: ",
-          expectedRetType, " args: ", argTypes);
-      if (this.expectedRetType != null
-          && !fnSummary.getReturnType().isSubtypeOf(this.expectedRetType)) {
-        warnings.add(JSError.make(
-            this.callSite, INVALID_INFERRED_RETURN_TYPE,
-            errorMsgWithTypeDiff(
-                this.expectedRetType, fnSummary.getReturnType())));
-      }
-      int i = 0;
-      Iterable<Node> args = NodeUtil.getInvocationArgsAsIterable(callSite);
-      // this.argTypes can be null if in the fwd direction the analysis of the
-      // call returned prematurely, e.g., because of a WRONG_ARGUMENT_COUNT.
-      if (this.argTypes == null) {
-        return;
-      }
-      int offset = this.callSite.isTaggedTemplateLit() ? 1 : 0;
-      for (Node argNode : args) {
-        JSType argType = this.argTypes.get(i);
-        JSType formalType = fnSummary.getFormalType(i + offset);
-        if (argNode.isName() && callerScope.isKnownFunction(argNode.getString())) {
-          argType = summaries.get(callerScope.getScope(argNode.getString()));
-        }
-        if (argType != null) {
-          if (argType.isSubtypeOf(formalType)) {
-            registerImplicitUses(argNode, argType, formalType);
-          } else {
-            JSError error = JSError.make(argNode, INVALID_ARGUMENT_TYPE,
-                Integer.toString(i + offset + 1), calleeScope.getReadableName(),
-                errorMsgWithTypeDiff(formalType, argType));
-            registerMismatchAndWarn(error, argType, formalType);
-          }
-        }
-        i++;
-      }
-    }
-
     @Override
     public boolean equals(Object o) {
       checkArgument(o instanceof DeferredCheck);
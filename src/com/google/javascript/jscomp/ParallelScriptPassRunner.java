@@ -0,0 +1,98 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.base.Throwables.throwIfUnchecked;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.javascript.rhino.Node;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs a script-local check (see {@link PassFactory#isScriptLocal}) over each SCRIPT of the
+ * program on a pool of threads. Every script gets its own instance of the hot-swap version of the
+ * pass, so callbacks never share state. Errors are reported through the compiler's
+ * {@link ThreadSafeDelegatingErrorManager}, which sorts them, so the output does not depend on
+ * the order in which the scripts finish.
+ */
+class ParallelScriptPassRunner {
+  private final AbstractCompiler compiler;
+  private final int numParallelThreads;
+
+  ParallelScriptPassRunner(AbstractCompiler compiler, int numParallelThreads) {
+    checkArgument(numParallelThreads > 1);
+    this.compiler = compiler;
+    this.numParallelThreads = numParallelThreads;
+  }
+
+  void process(final PassFactory factory, Node root) {
+    checkState(factory.isScriptLocal(), "Pass %s is not script-local", factory.getName());
+    ThreadFactory threadFactory = new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+          Thread t = new Thread(
+              null, r, "jscompiler-" + factory.getName(), CompilerExecutor.COMPILER_STACK_SIZE);
+          t.setDaemon(true);  // Do not prevent the JVM from exiting.
+          return t;
+        }
+    };
+    ThreadPoolExecutor poolExecutor = new ThreadPoolExecutor(
+        numParallelThreads,
+        numParallelThreads,
+        Integer.MAX_VALUE,
+        TimeUnit.SECONDS,
+        new LinkedBlockingQueue<Runnable>(),
+        threadFactory);
+    ListeningExecutorService executorService = MoreExecutors.listeningDecorator(poolExecutor);
+    List<ListenableFuture<?>> futureList = new ArrayList<>(root.getChildCount());
+    for (Node n = root.getFirstChild(); n != null; n = n.getNext()) {
+      checkState(n.isScript(), n);
+      final Node script = n;
+      futureList.add(executorService.submit(new Runnable() {
+        @Override
+        public void run() {
+          if (!compiler.hasHaltingErrors()) {
+            factory.getHotSwapPass(compiler).hotSwapScript(script, null);
+          }
+        }
+      }));
+    }
+
+    poolExecutor.shutdown();
+    try {
+      Futures.allAsList(futureList).get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    } catch (ExecutionException e) {
+      // Surface crashes in a pass the same way as when it runs on the compiler thread.
+      throwIfUnchecked(e.getCause());
+      throw new RuntimeException(e.getCause());
+    }
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Throwables.throwIfUnchecked;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Runs batches of independent tasks of a pass on a pool of threads. Each batch finishes before
+ * {@link #runAll} returns, so the next batch sees everything the previous one wrote.
+ */
+class ParallelTaskRunner {
+  private final int numThreads;
+  private final ExecutorService executor;
+
+  ParallelTaskRunner(final String name, int numThreads) {
+    checkArgument(numThreads > 1);
+    this.numThreads = numThreads;
+    this.executor =
+        Executors.newFixedThreadPool(
+            numThreads,
+            new ThreadFactory() {
+              @Override
+              public Thread newThread(Runnable r) {
+                // Tasks may traverse the AST, so they need as much stack as the compiler thread.
+                Thread t =
+                    new Thread(
+                        null, r, "jscompiler-" + name, CompilerExecutor.COMPILER_STACK_SIZE);
+                t.setDaemon(true); // Do not prevent the JVM from exiting.
+                return t;
+              }
+            });
+  }
+
+  int getNumThreads() {
+    return numThreads;
+  }
+
+  /** Runs the tasks and returns once all of them have finished. */
+  void runAll(List<Runnable> tasks) {
+    List<Callable<Object>> callables = new ArrayList<>(tasks.size());
+    for (Runnable task : tasks) {
+      callables.add(Executors.callable(task));
+    }
+    try {
+      for (Future<Object> future : executor.invokeAll(callables)) {
+        future.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    } catch (ExecutionException e) {
+      // Surface crashes in a task the same way as when it runs on the compiler thread.
+      throwIfUnchecked(e.getCause());
+      throw new RuntimeException(e.getCause());
+    }
+  }
+
+  /** Stops the threads. */
+  void shutdown() {
+    executor.shutdown();
+  }
+}
@@ -86,6 +86,14 @@ public abstract class PassFactory {
     return null;
   }
 
+  /**
+   * Whether the pass only reads the AST and reports on one SCRIPT at a time. When
+   * {@link CompilerOptions#setNumParallelThreads} is above one, {@link PhaseOptimizer} runs the
+   * hot-swap version of such passes on several scripts in parallel.
+   */
+  boolean isScriptLocal() {
+    return false;
+  }
 
   /**
    * Create a no-op pass that can only run once. Used to break up loops.
@@ -112,9 +120,24 @@ public abstract class PassFactory {
    * Every hotswap pass is expected to be a one-time pass.
    */
   public abstract static class HotSwapPassFactory extends PassFactory {
+    private final boolean isScriptLocal;
 
     HotSwapPassFactory(String name) {
+      this(name, false);
+    }
+
+    /**
+     * @param isScriptLocal If true, the hot-swap pass only reads the script it is given, and
+     *     may be run on different scripts concurrently.
+     */
+    HotSwapPassFactory(String name, boolean isScriptLocal) {
       super(name, true);
+      this.isScriptLocal = isScriptLocal;
+    }
+
+    @Override
+    boolean isScriptLocal() {
+      return isScriptLocal;
     }
 
     @Override
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableList;
+import com.google.javascript.rhino.InputId;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compiles inputs one at a time, for compiles in which each file is handled on its own, such as
+ * WHITESPACE_ONLY and SIMPLE mode without cross-file checks. Each input is parsed, compiled,
+ * printed and then dropped before the next one is read, so peak memory is bounded by the largest
+ * file rather than by the whole program.
+ *
+ * <p>The code printed for an input is the code a compile of that input alone would produce. Code
+ * the compiler injects, such as the runtime libraries needed by transpiled code, is therefore
+ * printed with every input that needs it; turn injection off and ship the runtime separately, as
+ * {@link com.google.javascript.jscomp.transpile.Transpiler#runtime} does.
+ *
+ * <p>The externs are parsed once, by the first compile, and each later compile gets its own copy
+ * of the parsed ASTs.
+ */
+public final class PerFileCompiler {
+
+  /** Receives the code compiled from each input. */
+  public interface Output {
+    /** Returns where to print the code compiled from {@code input}. */
+    Appendable codeFor(SourceFile input) throws IOException;
+
+    /**
+     * Called after {@code input} has been compiled, and after its code was printed if the compile
+     * succeeded. The source map in {@code result}, if any, covers that code.
+     */
+    void done(SourceFile input, Result result) throws IOException;
+  }
+
+  private final Supplier<? extends Compiler> compilers;
+  private final CompilerOptions options;
+  private final List<CompilerInput> externs;
+
+  /**
+   * @param compilers makes a new compiler for each input. The compilers must not have a {@link
+   *     PersistentInputStore}, which would keep every input alive.
+   * @param options the options for every compile
+   * @param externs the externs for every compile
+   */
+  public PerFileCompiler(
+      Supplier<? extends Compiler> compilers,
+      CompilerOptions options,
+      List<? extends SourceFile> externs) {
+    this.compilers = checkNotNull(compilers);
+    this.options = checkNotNull(options);
+    this.externs = new ArrayList<>(externs.size());
+    for (SourceFile extern : externs) {
+      extern.setIsExtern(true);
+      this.externs.add(CompilerInput.makePersistentInput(extern));
+    }
+  }
+
+  /**
+   * Compiles each input in turn, handing its code and result to {@code output}. The inputs are
+   * taken from {@code inputs} one at a time, so they may be produced lazily.
+   *
+   * @return whether every input compiled without errors
+   */
+  public boolean compile(Iterable<? extends SourceFile> inputs, Output output) throws IOException {
+    boolean success = true;
+    for (SourceFile input : inputs) {
+      success &= compile(input, output);
+    }
+    return success;
+  }
+
+  /** Compiles a single input, handing its code and result to {@code output}. */
+  public boolean compile(SourceFile input, Output output) throws IOException {
+    Compiler compiler = compilers.get();
+    checkState(
+        compiler.getPersistentInputStore() == null,
+        "Per-file compiles must not use a persistent input store");
+    Result result;
+    try {
+      result = compiler.compileWithExternInputs(externs, ImmutableList.of(input), options);
+      if (result.success) {
+        compiler.toSource(output.codeFor(input));
+      }
+    } finally {
+      // Drop this compile's ASTs and the cached source text, so that nothing of the input
+      // outlives its compile. The externs keep their first parse for the next compile.
+      CompilerInput compiled = compiler.getInput(new InputId(input.getName()));
+      if (compiled != null) {
+        compiled.clearAst();
+      }
+      for (CompilerInput extern : externs) {
+        extern.reset();
+      }
+    }
+    output.done(input, result);
+    return result.success;
+  }
+}
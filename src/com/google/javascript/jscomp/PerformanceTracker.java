@@ -22,6 +22,7 @@ import static com.google.common.base.Preconditions.checkState;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Sets;
 import com.google.javascript.jscomp.CompilerOptions.TracerMode;
 import com.google.javascript.jscomp.parsing.parser.util.format.SimpleFormat;
 import com.google.javascript.rhino.Node;
@@ -35,23 +36,43 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.Deque;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
+import javax.annotation.Nullable;
 
 /**
  * A PerformanceTracker collects statistics about the runtime of each pass, and
  * how much a pass impacts the size of the compiled output, before and after
  * gzip.
+ *
+ * <p>Where the JVM supports it, each pass also records the CPU time it used and
+ * the bytes it allocated on the compiler thread, the time spent collecting
+ * garbage while it ran, and the heap retained after the last collection. The
+ * log can be written in the Chrome trace event format with
+ * {@link #outputTraceEvents}.
  */
 public final class PerformanceTracker {
   private static final int DEFAULT_WHEN_SIZE_UNTRACKED = -1;
 
+  // The name under which the compiler keeps the changes since the last measure.
+  private static final String CHANGE_MARK = "PerformanceTracker";
+
   private final PrintStream output;
 
   private final Node externsRoot;
 
   private final TracerMode mode;
 
+  // Reports the change scopes changed since the sizes were last measured, or
+  // null if every script must be measured after every pass.
+  @Nullable private final AbstractCompiler compiler;
+
+  // The sizes of each script of jsRoot, as last measured.
+  private Map<Node, Sizes> scriptSizes = new IdentityHashMap<>();
+
   // Keeps track of AST changes and computes code size estimation
   // if there is any.
   private final RecentChange codeChange = new RecentChange();
@@ -96,8 +117,22 @@ public final class PerformanceTracker {
   private final List<Stats> log = new ArrayList<>();
 
   PerformanceTracker(Node externsRoot, Node jsRoot, TracerMode mode, PrintStream printStream) {
+    this(null, externsRoot, jsRoot, mode, printStream);
+  }
+
+  /**
+   * Creates a tracker that only measures the size of the scripts that the
+   * compiler reports as changed, rather than the whole program, after each pass.
+   */
+  PerformanceTracker(
+      @Nullable AbstractCompiler compiler,
+      Node externsRoot,
+      Node jsRoot,
+      TracerMode mode,
+      PrintStream printStream) {
     checkArgument(mode != TracerMode.OFF, "PerformanceTracker can't work without tracer data.");
     this.startTime = System.currentTimeMillis();
+    this.compiler = compiler;
     this.externsRoot = externsRoot;
     this.jsRoot = jsRoot;
     this.output = printStream == null ? System.out : printStream;
@@ -109,7 +144,12 @@ public final class PerformanceTracker {
   }
 
   void recordPassStart(String passName, boolean isOneTime) {
-    this.currentPass.push(new Stats(passName, isOneTime));
+    Stats stats = new Stats(passName, isOneTime);
+    stats.startTime = System.currentTimeMillis() - this.startTime;
+    stats.startCpuTime = JvmMetrics.getCurrentThreadCpuTime();
+    stats.startAllocBytes = JvmMetrics.getCurrentThreadAllocatedBytes();
+    stats.startGcTime = JvmMetrics.getGarbageCollectionTime();
+    this.currentPass.push(stats);
     // In Compiler, toSource may be called after every pass X. We don't want it
     // to reset the handler, because recordPassStop for pass X has not been
     // called, so we are falsely logging that pass X didn't make changes.
@@ -125,18 +165,18 @@ public final class PerformanceTracker {
   void updateAfterDeserialize(Node jsRoot) {
     // TODO(bradfordcsmith): Restore line counts for inputs and externs.
     this.jsRoot = jsRoot;
+    this.scriptSizes.clear();
     if (!tracksAstSize()) {
       return;
     }
-    this.initAstSize = this.astSize = NodeUtil.countAstSize(this.jsRoot);
+    Sizes sizes = measureJsRoot();
+    this.initAstSize = this.astSize = sizes.astSize;
     if (!tracksSize()) {
       return;
     }
-    PerformanceTrackerCodeSizeEstimator estimator =
-        PerformanceTrackerCodeSizeEstimator.estimate(this.jsRoot, tracksGzSize());
-    this.initCodeSize = this.codeSize = estimator.getCodeSize();
+    this.initCodeSize = this.codeSize = sizes.size;
     if (tracksGzSize()) {
-      this.initGzCodeSize = this.gzCodeSize = estimator.getZippedCodeSize();
+      this.initGzCodeSize = this.gzCodeSize = sizes.gzSize;
     }
   }
 
@@ -149,6 +189,9 @@ public final class PerformanceTracker {
    */
   void recordPassStop(String passName, long runtime) {
     int allocMem = getAllocatedMegabytes();
+    long cpuTime = JvmMetrics.getCurrentThreadCpuTime();
+    long allocBytes = JvmMetrics.getCurrentThreadAllocatedBytes();
+    long gcTime = JvmMetrics.getGarbageCollectionTime();
     Stats logStats = this.currentPass.pop();
     checkState(passName.equals(logStats.pass));
     this.log.add(logStats);
@@ -156,6 +199,11 @@ public final class PerformanceTracker {
     // Update fields that aren't related to code size
     logStats.runtime = runtime;
     logStats.allocMem = allocMem;
+    long cpuNanos = measuredDiff(logStats.startCpuTime, cpuTime);
+    logStats.cpuTime = cpuNanos < 0 ? -1 : cpuNanos / 1000000;
+    logStats.allocBytes = measuredDiff(logStats.startAllocBytes, allocBytes);
+    logStats.gcTime = measuredDiff(logStats.startGcTime, gcTime);
+    logStats.retainedHeap = JvmMetrics.getRetainedHeap();
     logStats.runs = 1;
     if (this.codeChange.hasCodeChanged()) {
       logStats.changes = 1;
@@ -172,37 +220,101 @@ public final class PerformanceTracker {
     if (!tracksAstSize()) {
       return;
     }
-    logStats.astSize = this.initAstSize = this.astSize = NodeUtil.countAstSize(jsRoot);
+    Sizes sizes = measureJsRoot();
+    logStats.astSize = this.initAstSize = this.astSize = sizes.astSize;
     if (!tracksSize()) {
       return;
     }
-    PerformanceTrackerCodeSizeEstimator estimator =
-        PerformanceTrackerCodeSizeEstimator.estimate(this.jsRoot, tracksGzSize());
-    logStats.size = this.initCodeSize = this.codeSize = estimator.getCodeSize();
+    logStats.size = this.initCodeSize = this.codeSize = sizes.size;
     if (tracksGzSize()) {
-      logStats.gzSize = this.initGzCodeSize = this.gzCodeSize = estimator.getZippedCodeSize();
+      logStats.gzSize = this.initGzCodeSize = this.gzCodeSize = sizes.gzSize;
     }
   }
 
   private void recordOtherPassStop(Stats logStats) {
-    int newSize = NodeUtil.countAstSize(this.jsRoot);
+    Sizes sizes = measureJsRoot();
+    int newSize = sizes.astSize;
     logStats.astDiff = this.astSize - newSize;
     this.astSize = logStats.astSize = newSize;
     if (!tracksSize()) {
       return;
     }
-    PerformanceTrackerCodeSizeEstimator estimator =
-        PerformanceTrackerCodeSizeEstimator.estimate(this.jsRoot, tracksGzSize());
-    newSize = estimator.getCodeSize();
+    newSize = sizes.size;
     logStats.diff = this.codeSize - newSize;
     this.codeSize = logStats.size = newSize;
     if (tracksGzSize()) {
-      newSize = estimator.getZippedCodeSize();
+      newSize = sizes.gzSize;
       logStats.gzDiff = this.gzCodeSize - newSize;
       this.gzCodeSize = logStats.gzSize = newSize;
     }
   }
 
+  /**
+   * Returns the sizes of jsRoot, as the sum of the sizes of its scripts.
+   *
+   * <p>Printing and zipping the whole program after every pass made tracing
+   * much slower than compiling, so the sizes of each script are kept, and only
+   * the scripts that contain a change scope reported as changed since the last
+   * call are measured again. The zipped size is the sum of the zipped sizes of
+   * the scripts, which is a little more than the zipped size of the whole
+   * program, but changes by the same amount when a script shrinks.
+   */
+  private Sizes measureJsRoot() {
+    Set<Node> changedScripts = getChangedScripts();
+    Map<Node, Sizes> newScriptSizes = new IdentityHashMap<>();
+    // countAstSize counts the root as well.
+    Sizes total = new Sizes(1, 0, 0);
+    for (Node script : this.jsRoot.children()) {
+      Sizes sizes = this.scriptSizes.get(script);
+      if (sizes == null || changedScripts == null || changedScripts.contains(script)) {
+        sizes = measureScript(script);
+      }
+      newScriptSizes.put(script, sizes);
+      total.astSize += sizes.astSize;
+      total.size += sizes.size;
+      total.gzSize += sizes.gzSize;
+    }
+    // Scripts that were removed from jsRoot are dropped.
+    this.scriptSizes = newScriptSizes;
+    return total;
+  }
+
+  private Sizes measureScript(Node script) {
+    int astSize = NodeUtil.countAstSize(script);
+    if (!tracksSize()) {
+      return new Sizes(astSize, 0, 0);
+    }
+    PerformanceTrackerCodeSizeEstimator estimator =
+        PerformanceTrackerCodeSizeEstimator.estimate(script, tracksGzSize());
+    return new Sizes(
+        astSize, estimator.getCodeSize(), tracksGzSize() ? estimator.getZippedCodeSize() : 0);
+  }
+
+  /**
+   * Returns the scripts that contain a change scope reported as changed since
+   * the last call, or null if every script must be measured.
+   */
+  @Nullable
+  private Set<Node> getChangedScripts() {
+    if (this.compiler == null) {
+      return null;
+    }
+    List<Node> changedScopeNodes = this.compiler.getChangedScopeNodesForPass(CHANGE_MARK);
+    if (changedScopeNodes == null) {
+      // The first call, so nothing has been measured yet.
+      return null;
+    }
+    Set<Node> changedScripts = Sets.newIdentityHashSet();
+    for (Node n : changedScopeNodes) {
+      Node script = NodeUtil.getEnclosingScript(n);
+      // A scope that was removed from the AST was reported on its old parent too.
+      if (script != null) {
+        changedScripts.add(script);
+      }
+    }
+    return changedScripts;
+  }
+
   private void recordInputCount() {
     for (Node n : this.externsRoot.children()) {
       this.externSources += 1;
@@ -224,6 +336,16 @@ public final class PerformanceTracker {
     return 0;
   }
 
+  /** The difference of two readings of a JVM counter, or -1 if the JVM does not measure it. */
+  private static long measuredDiff(long start, long stop) {
+    return start < 0 || stop < 0 ? -1 : stop - start;
+  }
+
+  /** The sum of two measurements, or -1 if either was not measured. */
+  private static long measuredSum(long a, long b) {
+    return a < 0 || b < 0 ? -1 : a + b;
+  }
+
   private int bytesToMB(long bytes) {
     return (int) (bytes / (1024 * 1024));
   }
@@ -339,6 +461,12 @@ public final class PerformanceTracker {
       entry.astDiff += logStat.astDiff;
       entry.diff += logStat.diff;
       entry.gzDiff += logStat.gzDiff;
+      entry.cpuTime = measuredSum(entry.cpuTime, logStat.cpuTime);
+      entry.allocBytes = measuredSum(entry.allocBytes, logStat.allocBytes);
+      entry.gcTime = measuredSum(entry.gcTime, logStat.gcTime);
+      entry.retainedHeap = entry.runs == 1
+          ? logStat.retainedHeap
+          : Math.max(entry.retainedHeap, logStat.retainedHeap);
       // We don't populate the size fields in the summary stats.
       // We used to put the size after the last time a pass was run, but that is
       // a pretty meaningless thing to measure.
@@ -421,6 +549,97 @@ public final class PerformanceTracker {
     }
   }
 
+  /**
+   * Writes the log of pass runs in the Chrome trace event format, which
+   * chrome://tracing and Perfetto can display as a timeline. Each run is a
+   * complete ("X") event, so passes that run inside other passes, such as
+   * toSource, nest under them. The heap in use and the heap retained after each
+   * run are written as counter ("C") events, to show which pass made memory use
+   * jump. A "summary" object holds the cumulative stats for each pass, for
+   * comparing two builds.
+   *
+   * <p>Times are in microseconds, as the format requires, and sizes in bytes. A
+   * value of -1 means the JVM does not measure it. CPU time and allocation are
+   * only measured on the thread that ran the pass, so work a pass hands off to
+   * other threads is not counted.
+   */
+  public void outputTraceEvents(Appendable out) throws IOException {
+    calcTotalStats();
+
+    out.append("{\"traceEvents\":[");
+    boolean first = true;
+    for (Stats stats : this.log) {
+      if (!first) {
+        out.append(',');
+      }
+      first = false;
+      out.append("\n{\"name\":");
+      appendJsonString(out, stats.pass);
+      out.append(",\"cat\":\"").append(stats.isOneTime ? "pass" : "loopablePass");
+      out.append("\",\"ph\":\"X\",\"pid\":1,\"tid\":1,\"ts\":");
+      out.append(String.valueOf(stats.startTime * 1000));
+      out.append(",\"dur\":").append(String.valueOf(stats.runtime * 1000));
+      out.append(",\"args\":");
+      appendStats(out, stats);
+      out.append("},\n{\"name\":\"heap\",\"ph\":\"C\",\"pid\":1,\"tid\":1,\"ts\":");
+      out.append(String.valueOf((stats.startTime + stats.runtime) * 1000));
+      out.append(",\"args\":{\"used\":");
+      out.append(String.valueOf((long) stats.allocMem * 1024 * 1024));
+      out.append(",\"retained\":").append(String.valueOf(stats.retainedHeap));
+      out.append("}}");
+    }
+    out.append("],\n\"displayTimeUnit\":\"ms\",\n\"summary\":{");
+    first = true;
+    for (Stats stats : this.summary.values()) {
+      if (!first) {
+        out.append(',');
+      }
+      first = false;
+      out.append('\n');
+      appendJsonString(out, stats.pass);
+      out.append(':');
+      appendStats(out, stats);
+    }
+    out.append("}}\n");
+  }
+
+  private static void appendStats(Appendable out, Stats stats) throws IOException {
+    out.append(SimpleFormat.format(
+        "{\"runtime\":%d,\"cpuTime\":%d,\"allocBytes\":%d,\"gcTime\":%d,"
+            + "\"retainedHeap\":%d,\"allocMem\":%d,\"runs\":%d,\"changes\":%d,"
+            + "\"astReduction\":%d,\"reduction\":%d,\"gzReduction\":%d}",
+        stats.runtime, stats.cpuTime, stats.allocBytes, stats.gcTime, stats.retainedHeap,
+        stats.allocMem, stats.runs, stats.changes, stats.astDiff, stats.diff, stats.gzDiff));
+  }
+
+  private static void appendJsonString(Appendable out, String s) throws IOException {
+    out.append('"');
+    for (int i = 0; i < s.length(); i++) {
+      char c = s.charAt(i);
+      if (c == '"' || c == '\\') {
+        out.append('\\').append(c);
+      } else if (c < 0x20) {
+        out.append("\\u").append(Integer.toHexString(c | 0x10000).substring(1));
+      } else {
+        out.append(c);
+      }
+    }
+    out.append('"');
+  }
+
+  /** The AST size, code size and zipped code size of some code. */
+  private static final class Sizes {
+    int astSize;
+    int size;
+    int gzSize;
+
+    Sizes(int astSize, int size, int gzSize) {
+      this.astSize = astSize;
+      this.size = size;
+      this.gzSize = gzSize;
+    }
+  }
+
   /**
    * A Stats object contains statistics about a pass run, such as running time,
    * size changes, etc
@@ -442,5 +661,20 @@ public final class PerformanceTracker {
     public int gzSize = 0;
     public int astDiff = 0;
     public int astSize = 0;
+    /** The time the pass started, in milliseconds since the tracker was created. */
+    public long startTime = 0;
+    /** CPU time of the compiler thread, in milliseconds. */
+    public long cpuTime = 0;
+    /** Bytes allocated by the compiler thread. */
+    public long allocBytes = 0;
+    /** Time spent collecting garbage while the pass ran, in milliseconds. */
+    public long gcTime = 0;
+    /** Heap in use just after the most recent garbage collection, in bytes. */
+    public long retainedHeap = 0;
+
+    // JVM counters when the pass started.
+    private long startCpuTime;
+    private long startAllocBytes;
+    private long startGcTime;
   }
 }
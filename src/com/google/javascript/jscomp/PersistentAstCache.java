@@ -0,0 +1,170 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.javascript.jscomp;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.Hashing;
+import com.google.javascript.jscomp.parsing.Config;
+import com.google.javascript.jscomp.parsing.ParserRunner;
+import com.google.javascript.jscomp.parsing.parser.FeatureSet;
+import com.google.javascript.jscomp.parsing.parser.trees.Comment;
+import com.google.javascript.rhino.Node;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import javax.annotation.Nullable;
+
+/**
+ * An on-disk cache of parsed ASTs, used by {@link PersistentInputStore} so that a fresh JVM can
+ * skip running the parser over inputs whose content has not changed.
+ *
+ * <p>Entries are keyed by the content digest of the input, the parser {@link Config} and the
+ * compiler build. Only clean parses are stored: the caller must not store results that produced
+ * errors or warnings, comments or source map annotations, since none of those are replayed on a
+ * cache hit. The cache is best effort; any failure to read or write an entry is treated as a miss.
+ */
+public final class PersistentAstCache {
+  private static final String FILE_SUFFIX = ".ast";
+
+  private final Path directory;
+
+  public PersistentAstCache(Path directory) {
+    this.directory = checkNotNull(directory);
+  }
+
+  /** Returns the cached parse of {@code file}, or null if there is no usable entry. */
+  @Nullable
+  ParserRunner.ParseResult load(String digest, SourceFile file, Config config) {
+    Path path = pathFor(digest, file, config);
+    if (!Files.exists(path)) {
+      return null;
+    }
+    try (InputStream in = new BufferedInputStream(Files.newInputStream(path))) {
+      return read(in, file);
+    } catch (IOException | ClassNotFoundException | RuntimeException e) {
+      // A truncated or stale entry is just a miss. It is rewritten after the next parse.
+      return null;
+    }
+  }
+
+  /** Stores a clean parse of {@code file}. Must be called before the AST is mutated. */
+  void store(String digest, SourceFile file, Config config, ParserRunner.ParseResult result) {
+    Path path = pathFor(digest, file, config);
+    Path tmp = null;
+    try {
+      Files.createDirectories(directory);
+      tmp = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+      try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmp))) {
+        write(out, file, result);
+      }
+      // Other workers may be populating the same directory, so never expose a partial entry.
+      Files.move(tmp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      tmp = null;
+    } catch (IOException e) {
+      // Leave the entry missing; the input is simply parsed again next time.
+    } finally {
+      if (tmp != null) {
+        try {
+          Files.deleteIfExists(tmp);
+        } catch (IOException e) {
+          // Ignore, a stray temp file does not affect correctness.
+        }
+      }
+    }
+  }
+
+  private Path pathFor(String digest, SourceFile file, Config config) {
+    String key =
+        Hashing.sha256()
+            .newHasher()
+            .putString(Compiler.getReleaseVersion(), UTF_8)
+            .putString(Compiler.getReleaseDate(), UTF_8)
+            .putString(digest, UTF_8)
+            .putBoolean(file.isExtern())
+            .putString(config.toString(), UTF_8)
+            .hash()
+            .toString();
+    return directory.resolve(key + FILE_SUFFIX);
+  }
+
+  /**
+   * Writes a clean parse of {@code file} to {@code out}, leaving out the file itself.
+   */
+  static void write(OutputStream out, SourceFile file, ParserRunner.ParseResult result)
+      throws IOException {
+    ObjectOutputStream objectOut = new SourceFileReplacingOutputStream(out, file);
+    objectOut.writeObject(result.features);
+    objectOut.writeObject(result.ast);
+    objectOut.flush();
+  }
+
+  /** Reads a parse written by {@link #write}, attaching it to {@code file}. */
+  static ParserRunner.ParseResult read(InputStream in, SourceFile file)
+      throws IOException, ClassNotFoundException {
+    ObjectInputStream objectIn = new SourceFileResolvingInputStream(in, file);
+    FeatureSet features = (FeatureSet) objectIn.readObject();
+    Node root = (Node) objectIn.readObject();
+    return new ParserRunner.ParseResult(root, ImmutableList.<Comment>of(), features, null);
+  }
+
+  /**
+   * Stands in for the {@link SourceFile} referenced from every node, so that source text and
+   * paths are never written to the cache and the live file is attached again on load.
+   */
+  private enum SourceFilePlaceholder {
+    INSTANCE
+  }
+
+  private static final class SourceFileReplacingOutputStream extends ObjectOutputStream {
+    private final SourceFile file;
+
+    SourceFileReplacingOutputStream(OutputStream out, SourceFile file) throws IOException {
+      super(out);
+      this.file = file;
+      enableReplaceObject(true);
+    }
+
+    @Override
+    protected Object replaceObject(Object obj) {
+      return obj == file ? SourceFilePlaceholder.INSTANCE : obj;
+    }
+  }
+
+  private static final class SourceFileResolvingInputStream extends ObjectInputStream {
+    private final SourceFile file;
+
+    SourceFileResolvingInputStream(InputStream in, SourceFile file) throws IOException {
+      super(in);
+      this.file = file;
+      enableResolveObject(true);
+    }
+
+    @Override
+    protected Object resolveObject(Object obj) {
+      return obj == SourceFilePlaceholder.INSTANCE ? file : obj;
+    }
+  }
+}
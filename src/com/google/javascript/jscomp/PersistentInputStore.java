@@ -17,8 +17,10 @@ package com.google.javascript.jscomp;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableMap;
+import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.Map;
+import javax.annotation.Nullable;
 
 /**
  * A persistent store that keeps around dependency information between compiles. See
@@ -34,12 +36,31 @@ import java.util.Map;
  * <p>This class assumes that there may not be perfect mappings from blaze inputs to compiler inputs
  * and tries to gracefully fallback to correct behavior if something doesn't match up.
  *
+ * <p>If {@link #setAstCacheDirectory(Path)} is called, parsed ASTs are also written to disk keyed
+ * by their digest, so that a new worker process does not need to parse unchanged inputs again.
+ *
  * @author tdeegan@google.com
  */
 public class PersistentInputStore {
   Map<String, CacheEntry> store = new HashMap<>();
 
-  private static class CacheEntry {
+  @Nullable private PersistentAstCache astCache;
+
+  /**
+   * Enables writing parsed ASTs to {@code directory}, and reading them back in later compiles or
+   * other processes sharing the directory.
+   */
+  public void setAstCacheDirectory(Path directory) {
+    this.astCache = new PersistentAstCache(directory);
+  }
+
+  private CompilerInput makePersistentInput(SourceFile source, String digest) {
+    return astCache == null
+        ? CompilerInput.makePersistentInput(source)
+        : CompilerInput.makePersistentInput(source, astCache, digest);
+  }
+
+  private class CacheEntry {
     String digest;
     CompilerInput input;
 
@@ -56,7 +77,9 @@ public class PersistentInputStore {
         zipEntries = new HashMap<>();
       }
       if (!zipEntries.containsKey(originalPath)) {
-        zipEntries.put(originalPath, CompilerInput.makePersistentInput(zipEntry));
+        // The digest covers the whole zip, so qualify it with the entry.
+        zipEntries.put(
+            originalPath, makePersistentInput(zipEntry, digest + "!" + originalPath));
       }
       return zipEntries.get(originalPath);
     }
@@ -102,13 +125,28 @@ public class PersistentInputStore {
     // For regular files.
     if (store.containsKey(originalPath)) {
       CacheEntry cacheEntry = store.get(originalPath);
-      if (cacheEntry.input == null) {
-        cacheEntry.input = CompilerInput.makePersistentInput(source);
+      if (cacheEntry.input == null || cacheEntry.input.isExtern() != source.isExtern()) {
+        cacheEntry.input = makePersistentInput(source, cacheEntry.digest);
       }
       return cacheEntry.input;
     }
     // SourceFile was not identified as a blaze input. Pay the cost of recomputing it.
     // We may want to make this an error in the future if we want to be more strict.
-    return new CompilerInput(source);
+    return new CompilerInput(source, source.isExtern());
+  }
+
+  /**
+   * Resets the cached inputs after a compile, so that the next compile gets fresh copies of the
+   * parsed ASTs and can add the inputs to its own modules.
+   */
+  public void resetInputs() {
+    for (CacheEntry cacheEntry : store.values()) {
+      if (cacheEntry.input != null) {
+        cacheEntry.input.reset();
+      }
+      for (CompilerInput zipEntry : cacheEntry.zipEntries.values()) {
+        zipEntry.reset();
+      }
+    }
   }
 }
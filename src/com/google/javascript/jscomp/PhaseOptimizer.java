@@ -67,6 +67,9 @@ class PhaseOptimizer implements CompilerPass {
   // Checks that passes have reported code changes correctly.
   private ChangeVerifier changeVerifier;
 
+  // Runs script-local checks on several threads. Null if the compile is single-threaded.
+  private final ParallelScriptPassRunner parallelScriptPassRunner;
+
   /**
    * When processing loopable passes in order, the PhaseOptimizer can be in one
    * of these two states.
@@ -130,6 +133,9 @@ class PhaseOptimizer implements CompilerPass {
     } else {
       this.optimizationLoopMaxIterations = MAX_LOOPS;
     }
+    int numParallelThreads = comp.getOptions().numParallelThreads;
+    this.parallelScriptPassRunner =
+        numParallelThreads > 1 ? new ParallelScriptPassRunner(comp, numParallelThreads) : null;
   }
 
   PhaseOptimizer withProgress(ProgressRange range) {
@@ -223,14 +229,19 @@ class PhaseOptimizer implements CompilerPass {
     // NamedPass#process, the actual pass is created and immediately executed, and no
     // reference to it is retained in PhaseOptimizer:
     //   factory.create(compiler).process(externs, root);
-    for (CompilerPass pass : passes) {
-      if (Thread.interrupted()) {
-        throw new RuntimeException(new InterruptedException());
-      }
-      pass.process(externs, root);
-      if (hasHaltingErrors()) {
-        return;
+    // The same goes for a GlobalNamespace that a pass kept for the next one.
+    try {
+      for (CompilerPass pass : passes) {
+        if (Thread.interrupted()) {
+          throw new RuntimeException(new InterruptedException());
+        }
+        pass.process(externs, root);
+        if (hasHaltingErrors()) {
+          return;
+        }
       }
+    } finally {
+      compiler.clearGlobalNamespaceForReuse();
     }
   }
 
@@ -300,7 +311,11 @@ class PhaseOptimizer implements CompilerPass {
       // Delay the creation of the actual pass until *after* all previous passes
       // have been processed.
       // Some precondition checks rely on this, eg, in CoalesceVariableNames.
-      factory.create(compiler).process(externs, root);
+      if (parallelScriptPassRunner != null && factory.isScriptLocal()) {
+        parallelScriptPassRunner.process(factory, root);
+      } else {
+        factory.create(compiler).process(externs, root);
+      }
 
       compiler.afterPass(name);
 
@@ -33,10 +33,7 @@ import com.google.errorprone.annotations.Immutable;
 import com.google.javascript.jscomp.CodingConvention.Cache;
 import com.google.javascript.jscomp.DefinitionsRemover.Definition;
 import com.google.javascript.jscomp.NodeTraversal.ScopedCallback;
-import com.google.javascript.jscomp.graph.DiGraph.DiGraphNode;
-import com.google.javascript.jscomp.graph.FixedPointGraphTraversal;
-import com.google.javascript.jscomp.graph.FixedPointGraphTraversal.EdgeCallback;
-import com.google.javascript.jscomp.graph.LinkedDirectedGraph;
+import com.google.javascript.jscomp.graph.StronglyConnectedComponents;
 import com.google.javascript.rhino.FunctionTypeI;
 import com.google.javascript.rhino.JSDocInfo;
 import com.google.javascript.rhino.Node;
@@ -46,6 +43,7 @@ import com.google.javascript.rhino.jstype.JSTypeNative;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -97,8 +95,7 @@ class PureFunctionIdentifier implements CompilerPass {
   // List of all function call sites; used to iterate in markPureFunctionCalls.
   private final List<Node> allFunctionCalls;
 
-  private final LinkedDirectedGraph<FunctionInformation, CallSitePropagationInfo> sideEffectGraph =
-      LinkedDirectedGraph.createWithoutAnnotations();
+  private final CallGraph callGraph = new CallGraph();
 
   // Externs and ast tree root, for use in getDebugReport.  These two
   // fields are null until process is called.
@@ -300,7 +297,7 @@ class PureFunctionIdentifier implements CompilerPass {
     unknownDefinitionFunction.setTaintsGlobalState();
     unknownDefinitionFunction.setFunctionThrows();
     unknownDefinitionFunction.setTaintsReturn();
-    unknownDefinitionFunction.graphNode = sideEffectGraph.createNode(unknownDefinitionFunction);
+    callGraph.add(unknownDefinitionFunction);
     for (DefinitionSite site : definitionProvider.getDefinitionSites()) {
       Definition definition = site.definition;
       if (definition.getLValue() != null) {
@@ -327,7 +324,7 @@ class PureFunctionIdentifier implements CompilerPass {
   }
 
   /**
-   * Add the definition to the {@link PureFunctionIdentifier#sideEffectGraph} as a
+   * Add the definition to the {@link PureFunctionIdentifier#callGraph} as a
    * FunctionInformation node or link it to the existing functionInformation node if there is
    * already a function with the same definition name.
    */
@@ -339,7 +336,7 @@ class PureFunctionIdentifier implements CompilerPass {
       if (functionInfo == null) {
         // Need to create a function info node.
         functionInfo = new FunctionInformation();
-        functionInfo.graphNode = sideEffectGraph.createNode(functionInfo);
+        callGraph.add(functionInfo);
         // Keep track of this so that later functions of the same name can point to the same
         // FunctionInformation.
         functionInfoByName.put(name, functionInfo);
@@ -353,23 +350,22 @@ class PureFunctionIdentifier implements CompilerPass {
   }
 
   /**
-   * Propagate side effect information by building a graph based on call site information stored in
-   * FunctionInformation and the NameBasedDefinitionProvider and then running GraphReachability to
-   * determine the set of functions that have side effects.
+   * Propagate side effect information from every function to the functions that call it, using
+   * the call graph built from the call sites found by FunctionAnalyzer and the definitions of the
+   * NameBasedDefinitionProvider. With {@link CompilerOptions#setNumParallelThreads}, independent
+   * parts of the call graph are propagated at the same time.
    */
   private void propagateSideEffects() {
-    // Propagate side effect information to a fixed point.
-    FixedPointGraphTraversal.newTraversal(
-            new EdgeCallback<FunctionInformation, CallSitePropagationInfo>() {
-              @Override
-              public boolean traverseEdge(
-                  FunctionInformation source,
-                  CallSitePropagationInfo edge,
-                  FunctionInformation destination) {
-                return edge.propagate(source, destination);
-              }
-            })
-        .computeFixedPoint(sideEffectGraph);
+    int numThreads = compiler.getOptions().numParallelThreads;
+    ParallelTaskRunner runner =
+        numThreads > 1 ? new ParallelTaskRunner("PureFunctionIdentifier", numThreads) : null;
+    try {
+      callGraph.propagateSideEffects(runner);
+    } finally {
+      if (runner != null) {
+        runner.shutdown();
+      }
+    }
   }
 
   /** Set no side effect property at pure-function call sites. */
@@ -459,7 +455,7 @@ class PureFunctionIdentifier implements CompilerPass {
         // {@link buildGraph}. For example, an anonymous function.
         FunctionInformation functionInfo = new FunctionInformation();
         functionSideEffectMap.put(node, functionInfo);
-        functionInfo.graphNode = sideEffectGraph.createNode(functionInfo);
+        callGraph.add(functionInfo);
       }
       return true;
     }
@@ -678,9 +674,9 @@ class PureFunctionIdentifier implements CompilerPass {
         return;
       }
 
+      CallSitePropagationInfo edge = CallSitePropagationInfo.computePropagationType(node);
       for (FunctionInformation sideEffectNode : possibleSideEffects) {
-        CallSitePropagationInfo edge = CallSitePropagationInfo.computePropagationType(node);
-        sideEffectGraph.connect(sideEffectNode.graphNode, edge, sideEffectInfo.graphNode);
+        callGraph.connect(sideEffectInfo, edge, sideEffectNode);
       }
     }
   }
@@ -795,12 +791,198 @@ class PureFunctionIdentifier implements CompilerPass {
     }
   }
 
+  /**
+   * The call graph, with an edge for every call site from the function containing the call to
+   * each function it may call. The functions are numbered in the order they are added, and the
+   * edges are kept in arrays of those numbers, which is much smaller than a graph of linked nodes.
+   *
+   * <p>Side effects are propagated bottom-up: the graph is condensed into its strongly connected
+   * components (the sets of mutually recursive functions), and each component is propagated to a
+   * fixed point once every component it calls is done. This visits each edge once, or a few times
+   * within a cycle, instead of until nothing changes anywhere. Components that do not call each
+   * other, directly or not, are independent, so each level of the condensed graph can be
+   * propagated on several threads.
+   */
+  private static final class CallGraph {
+    // The fewest components in a level for which it is worth using other threads.
+    private static final int MIN_PARALLEL_COMPONENTS = 512;
+
+    private final List<FunctionInformation> functions = new ArrayList<>();
+    private final List<CallSitePropagationInfo> callSites = new ArrayList<>();
+    // The caller and callee of each call site.
+    private int[] callers = new int[64];
+    private int[] callees = new int[64];
+
+    // The edges, sorted by caller: the callees of function f are
+    // edgeCallees[edgeOffsets[f]] to edgeCallees[edgeOffsets[f + 1] - 1].
+    private int[] edgeOffsets;
+    private int[] edgeCallees;
+    private CallSitePropagationInfo[] edgeCallSites;
+    // The functions of each component, in the same form.
+    private int[] memberOffsets;
+    private int[] members;
+
+    void add(FunctionInformation function) {
+      checkState(function.id == -1, "Function already added");
+      function.id = functions.size();
+      functions.add(function);
+    }
+
+    void connect(
+        FunctionInformation caller, CallSitePropagationInfo callSite, FunctionInformation callee) {
+      int edge = callSites.size();
+      if (edge == callers.length) {
+        callers = Arrays.copyOf(callers, edge * 2);
+        callees = Arrays.copyOf(callees, edge * 2);
+      }
+      callers[edge] = caller.id;
+      callees[edge] = callee.id;
+      callSites.add(callSite);
+    }
+
+    /**
+     * Propagates the side effects of every function to its callers.
+     *
+     * @param runner runs the components of a level on several threads, or null to run everything
+     *     on this thread
+     */
+    void propagateSideEffects(@Nullable ParallelTaskRunner runner) {
+      int numFunctions = functions.size();
+      int numEdges = callSites.size();
+
+      edgeOffsets = new int[numFunctions + 1];
+      for (int edge = 0; edge < numEdges; edge++) {
+        edgeOffsets[callers[edge] + 1]++;
+      }
+      for (int f = 0; f < numFunctions; f++) {
+        edgeOffsets[f + 1] += edgeOffsets[f];
+      }
+      edgeCallees = new int[numEdges];
+      edgeCallSites = new CallSitePropagationInfo[numEdges];
+      int[] next = Arrays.copyOf(edgeOffsets, numFunctions);
+      for (int edge = 0; edge < numEdges; edge++) {
+        int position = next[callers[edge]]++;
+        edgeCallees[position] = callees[edge];
+        edgeCallSites[position] = callSites.get(edge);
+      }
+      // The unsorted edges are no longer needed.
+      callers = callees = null;
+      callSites.clear();
+
+      // Callees are in lower components than their callers, outside of cycles.
+      StronglyConnectedComponents components =
+          new StronglyConnectedComponents(edgeOffsets, edgeCallees);
+      int numComponents = components.getComponentCount();
+      int[] componentOf = new int[numFunctions];
+      for (int f = 0; f < numFunctions; f++) {
+        componentOf[f] = components.getComponent(f);
+      }
+      memberOffsets = new int[numComponents + 1];
+      members = new int[numFunctions];
+      sortByKey(componentOf, numComponents, memberOffsets, members);
+
+      // A component's level is one more than the highest level of the components it calls, so the
+      // components of a level only call components of lower levels.
+      int[] levelOf = new int[numComponents];
+      int numLevels = 0;
+      for (int component = 0; component < numComponents; component++) {
+        int level = 0;
+        for (int m = memberOffsets[component]; m < memberOffsets[component + 1]; m++) {
+          int f = members[m];
+          for (int edge = edgeOffsets[f]; edge < edgeOffsets[f + 1]; edge++) {
+            int callee = componentOf[edgeCallees[edge]];
+            if (callee != component) {
+              level = Math.max(level, levelOf[callee] + 1);
+            }
+          }
+        }
+        levelOf[component] = level;
+        numLevels = Math.max(numLevels, level + 1);
+      }
+      int[] levelOffsets = new int[numLevels + 1];
+      int[] componentsByLevel = new int[numComponents];
+      sortByKey(levelOf, numLevels, levelOffsets, componentsByLevel);
+
+      for (int level = 0; level < numLevels; level++) {
+        int start = levelOffsets[level];
+        int end = levelOffsets[level + 1];
+        if (runner == null || end - start < MIN_PARALLEL_COMPONENTS) {
+          propagateComponents(componentsByLevel, start, end);
+        } else {
+          runInParallel(runner, componentsByLevel, start, end);
+        }
+      }
+    }
+
+    private void runInParallel(
+        ParallelTaskRunner runner, final int[] components, int start, int end) {
+      int numTasks = runner.getNumThreads();
+      List<Runnable> tasks = new ArrayList<>(numTasks);
+      for (int task = 0; task < numTasks; task++) {
+        final int taskStart = start + (int) ((long) (end - start) * task / numTasks);
+        final int taskEnd = start + (int) ((long) (end - start) * (task + 1) / numTasks);
+        tasks.add(
+            new Runnable() {
+              @Override
+              public void run() {
+                propagateComponents(components, taskStart, taskEnd);
+              }
+            });
+      }
+      runner.runAll(tasks);
+    }
+
+    /**
+     * Propagates side effects into the given components from the functions they call. Every
+     * component that they call, other than themselves, must already be done.
+     */
+    private void propagateComponents(int[] components, int start, int end) {
+      for (int i = start; i < end; i++) {
+        int component = components[i];
+        boolean cyclic = memberOffsets[component + 1] - memberOffsets[component] > 1;
+        boolean changed;
+        do {
+          changed = false;
+          for (int m = memberOffsets[component]; m < memberOffsets[component + 1]; m++) {
+            int caller = members[m];
+            FunctionInformation callerInfo = functions.get(caller);
+            for (int edge = edgeOffsets[caller]; edge < edgeOffsets[caller + 1]; edge++) {
+              int callee = edgeCallees[edge];
+              cyclic |= callee == caller;
+              changed |= edgeCallSites[edge].propagate(functions.get(callee), callerInfo);
+            }
+          }
+          // Side effects only need to go around a cycle again if they changed.
+        } while (changed && cyclic);
+      }
+    }
+
+    /**
+     * Counting sort of the numbers {@code 0} to {@code keys.length - 1} by their key, each key
+     * being less than {@code numKeys}. The numbers with key k are written to {@code sorted} from
+     * {@code offsets[k]} up to {@code offsets[k + 1]}.
+     */
+    private static void sortByKey(int[] keys, int numKeys, int[] offsets, int[] sorted) {
+      for (int key : keys) {
+        offsets[key + 1]++;
+      }
+      for (int k = 0; k < numKeys; k++) {
+        offsets[k + 1] += offsets[k];
+      }
+      int[] next = Arrays.copyOf(offsets, numKeys);
+      for (int i = 0; i < keys.length; i++) {
+        sorted[next[keys[i]]++] = i;
+      }
+    }
+  }
+
   /**
    * Keeps track of a function's known side effects by type and the list of calls that appear in a
    * function's body.
    */
   private static class FunctionInformation {
-    DiGraphNode<FunctionInformation, CallSitePropagationInfo> graphNode;
+    // The number of this function in the call graph.
+    int id = -1;
     private int bitmask = 0;
 
     // Side effect types:
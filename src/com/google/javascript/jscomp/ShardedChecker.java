@@ -0,0 +1,170 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Throwables.throwIfUnchecked;
+
+import com.google.common.annotations.GwtIncompatible;
+import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Gives early, advisory results for a program with many modules by splitting its module graph
+ * into shards and checking the shards at the same time, each on its own {@link Compiler}. See
+ * {@link JSModuleGraph#getShards}. It does not replace a check of the whole program.
+ *
+ * <p>This suits large graphs of leaf modules that only share a common base. Every shard holds the
+ * modules its leaves depend on, so the base is checked once per shard. A diagnostic that more
+ * than one shard reports, such as one in the base, is reported once.
+ *
+ * <p>The shards are compiled with {@link CompilerOptions#setChecksOnly}. Compilers cannot share
+ * ASTs, so the optimizations, and global passes such as {@link CrossModuleCodeMotion}, are left
+ * to a regular compile of the whole program.
+ *
+ * <p>Leaves in different shards are never checked together. So that a shard does not report a
+ * property as missing because it is defined in another shard's leaf, the {@link
+ * DiagnosticGroups#MISSING_PROPERTIES} and {@link DiagnosticGroups#STRICT_MISSING_PROPERTIES}
+ * checks are turned off in every shard. Other diagnostics can still be missed: besides missing
+ * properties, conflicts between leaves in different shards are not reported, for example a
+ * global variable declared in two of them, or a namespace that two of them {@code goog.provide}.
+ * A build that must catch these still needs a checks-only compile of the whole program.
+ */
+@GwtIncompatible("java.util.concurrent")
+public final class ShardedChecker {
+
+  private final Supplier<? extends Compiler> compilers;
+  private final Supplier<CompilerOptions> options;
+  private final int numShards;
+
+  /**
+   * @param compilers makes the compiler for each shard
+   * @param options makes the options for each shard. Each compiler needs its own options, since
+   *     compiling changes them.
+   * @param numShards the most shards, and so compilers, to run at the same time
+   */
+  public ShardedChecker(
+      Supplier<? extends Compiler> compilers, Supplier<CompilerOptions> options, int numShards) {
+    checkArgument(numShards > 0, "numShards must be positive: %s", numShards);
+    this.compilers = checkNotNull(compilers);
+    this.options = checkNotNull(options);
+    this.numShards = numShards;
+  }
+
+  /**
+   * Checks the given modules, which must be in dependency order. The modules themselves are not
+   * changed, and can be compiled afterwards.
+   *
+   * @return the errors and warnings of all shards
+   */
+  public Result check(List<? extends SourceFile> externs, List<JSModule> modules)
+      throws IOException {
+    BitSet all = new BitSet(modules.size());
+    all.set(0, modules.size());
+    // The graph sets the index of each of its modules, so it is built from copies.
+    List<BitSet> shards = new JSModuleGraph(copyModules(modules, all)).getShards(numShards);
+
+    // Read each file once here, rather than in every shard that includes it.
+    for (JSModule module : modules) {
+      for (CompilerInput input : module.getInputs()) {
+        input.getSourceFile().getCode();
+      }
+    }
+
+    final ImmutableList<SourceFile> externFiles = ImmutableList.copyOf(externs);
+    List<Callable<Result>> tasks = new ArrayList<>(shards.size());
+    for (final BitSet shard : shards) {
+      final List<JSModule> shardModules = copyModules(modules, shard);
+      tasks.add(
+          new Callable<Result>() {
+            @Override
+            public Result call() {
+              CompilerOptions shardOptions = options.get();
+              shardOptions.setChecksOnly(true);
+              // Another shard's leaves may define the properties this shard reads.
+              shardOptions.setWarningLevel(DiagnosticGroups.MISSING_PROPERTIES, CheckLevel.OFF);
+              shardOptions.setWarningLevel(
+                  DiagnosticGroups.STRICT_MISSING_PROPERTIES, CheckLevel.OFF);
+              return compilers.get().compileModules(externFiles, shardModules, shardOptions);
+            }
+          });
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(shards.size());
+    try {
+      Set<JSError> errors = new LinkedHashSet<>();
+      Set<JSError> warnings = new LinkedHashSet<>();
+      for (Future<Result> future : executor.invokeAll(tasks)) {
+        Result result = future.get();
+        errors.addAll(Arrays.asList(result.errors));
+        warnings.addAll(Arrays.asList(result.warnings));
+      }
+      return new Result(
+          errors.toArray(new JSError[0]),
+          warnings.toArray(new JSError[0]),
+          null, null, null, null, null, null, null, null, null,
+          ImmutableSet.<SourceFile>of());
+    } catch (ExecutionException e) {
+      throwIfUnchecked(e.getCause());
+      throw new RuntimeException(e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Returns new modules, in dependency order, with the names, inputs and dependencies of the
+   * given modules at the indices set in {@code which}. The set must include every dependency of
+   * the modules in it.
+   */
+  private static List<JSModule> copyModules(List<JSModule> modules, BitSet which) {
+    Map<JSModule, JSModule> copies = new IdentityHashMap<>();
+    List<JSModule> result = new ArrayList<>(which.cardinality());
+    for (int i = which.nextSetBit(0); i >= 0; i = which.nextSetBit(i + 1)) {
+      JSModule module = modules.get(i);
+      JSModule copy = new JSModule(module.getName());
+      for (CompilerInput input : module.getInputs()) {
+        copy.add(input.getSourceFile());
+      }
+      for (JSModule dep : module.getDependencies()) {
+        copy.addDependency(checkNotNull(copies.get(dep), "Missing dependency %s", dep));
+      }
+      copies.put(module, copy);
+      result.add(copy);
+    }
+    return result;
+  }
+}
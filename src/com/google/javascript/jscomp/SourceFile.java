@@ -22,8 +22,10 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 
 import com.google.common.annotations.GwtIncompatible;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.io.ByteStreams;
 import com.google.common.io.CharStreams;
 import com.google.common.io.Resources;
+import com.google.common.primitives.Ints;
 import com.google.javascript.rhino.StaticSourceFile;
 import java.io.File;
 import java.io.IOException;
@@ -36,11 +38,18 @@ import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.CharacterCodingException;
 import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Enumeration;
@@ -48,6 +57,7 @@ import java.util.List;
 import java.util.Objects;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
+import javax.annotation.Nullable;
 
 /**
  * An abstract representation of a source file that provides access to language-neutral features.
@@ -135,18 +145,23 @@ public class SourceFile implements StaticSourceFile, Serializable {
       return;
     }
     try {
-      String[] sourceLines = getCode().split("\n", -1);
-      lineOffsets = new int[sourceLines.length];
-      for (int ii = 1; ii < sourceLines.length; ++ii) {
-        lineOffsets[ii] =
-            lineOffsets[ii - 1] + sourceLines[ii - 1].length() + 1;
-      }
+      lineOffsets = computeLineOffsets();
     } catch (IOException e) {
       lineOffsets = new int[1];
       lineOffsets[0] = 0;
     }
   }
 
+  /** Returns the offsets at which the lines of the code start. */
+  int[] computeLineOffsets() throws IOException {
+    String[] sourceLines = getCode().split("\n", -1);
+    int[] offsets = new int[sourceLines.length];
+    for (int ii = 1; ii < sourceLines.length; ++ii) {
+      offsets[ii] = offsets[ii - 1] + sourceLines[ii - 1].length() + 1;
+    }
+    return offsets;
+  }
+
   private void resetLineOffsets() {
     lineOffsets = null;
   }
@@ -304,10 +319,22 @@ public class SourceFile implements StaticSourceFile, Serializable {
     } catch (IOException e) {
       return null;
     }
+    return getRegion(js, 1, lineNumber);
+  }
+
+  /** Returns the first line of the region around {@code lineNumber}. */
+  private static int getRegionStartLine(int lineNumber) {
+    return Math.max(1, lineNumber - (SOURCE_EXCERPT_REGION_LENGTH + 1) / 2 + 1);
+  }
+
+  /**
+   * Gets the region around {@code lineNumber} from {@code js}, which holds the code from the
+   * start of line {@code firstLine} on.
+   */
+  private static Region getRegion(String js, int firstLine, int lineNumber) {
     int pos = 0;
-    int startLine = Math.max(1,
-        lineNumber - (SOURCE_EXCERPT_REGION_LENGTH + 1) / 2 + 1);
-    for (int n = 1; n < startLine; n++) {
+    int startLine = getRegionStartLine(lineNumber);
+    for (int n = firstLine; n < startLine; n++) {
       int nextpos = js.indexOf('\n', pos);
       if (nextpos == -1) {
         break;
@@ -347,6 +374,13 @@ public class SourceFile implements StaticSourceFile, Serializable {
   @GwtIncompatible("java.util.zip.ZipFile")
   public static List<SourceFile> fromZipFile(String zipName, Charset inputCharset)
       throws IOException {
+    return fromZipFile(zipName, builder().withCharset(inputCharset));
+  }
+
+  /** Returns a source file for each JS file in the zip, built by {@code builder}. */
+  @GwtIncompatible("java.util.zip.ZipFile")
+  public static List<SourceFile> fromZipFile(String zipName, Builder builder)
+      throws IOException {
     final String absoluteZipPath = new File(zipName).getAbsolutePath();
     List<SourceFile> sourceFiles = new ArrayList<>();
 
@@ -359,7 +393,7 @@ public class SourceFile implements StaticSourceFile, Serializable {
         if (!entryName.endsWith(".js")) { // Only accept js files
           continue;
         }
-        sourceFiles.add(fromZipEntry(zipName, absoluteZipPath, entryName, inputCharset));
+        sourceFiles.add(fromZipEntry(zipName, absoluteZipPath, entryName, builder));
       }
     }
     return sourceFiles;
@@ -373,13 +407,13 @@ public class SourceFile implements StaticSourceFile, Serializable {
   }
 
   @GwtIncompatible("java.io.File")
-  private static SourceFile fromZipEntry(String zipURL, Charset inputCharset) {
+  private static SourceFile fromZipEntry(String zipURL, Builder builder) {
     checkArgument(isZipEntry(zipURL));
     String[] components = zipURL.split(BANG_SLASH);
     try {
       String zipPath = components[0];
       String relativePath = components[1];
-      return fromZipEntry(zipPath, zipPath, relativePath, inputCharset);
+      return fromZipEntry(zipPath, zipPath, relativePath, builder);
     } catch (MalformedURLException e) {
       throw new RuntimeException(e);
     }
@@ -389,11 +423,18 @@ public class SourceFile implements StaticSourceFile, Serializable {
   public static SourceFile fromZipEntry(
       String originalZipPath, String absoluteZipPath, String entryPath, Charset inputCharset)
       throws MalformedURLException {
+    return fromZipEntry(
+        originalZipPath, absoluteZipPath, entryPath, builder().withCharset(inputCharset));
+  }
+
+  @GwtIncompatible("java.net.URL")
+  private static SourceFile fromZipEntry(
+      String originalZipPath, String absoluteZipPath, String entryPath, Builder builder)
+      throws MalformedURLException {
     String zipEntryPath = JAR_URL_PREFIX + absoluteZipPath + BANG_SLASH + entryPath;
     URL zipEntryUrl = new URL(zipEntryPath);
 
-    return builder()
-        .withCharset(inputCharset)
+    return builder
         .withOriginalPath(originalZipPath + BANG_SLASH + entryPath)
         .buildFromUrl(zipEntryUrl);
   }
@@ -472,6 +513,7 @@ public class SourceFile implements StaticSourceFile, Serializable {
   public static class Builder {
     private Charset charset = UTF_8;
     private String originalPath = null;
+    private boolean offHeap = false;
 
     public Builder() {}
 
@@ -481,6 +523,17 @@ public class SourceFile implements StaticSourceFile, Serializable {
       return this;
     }
 
+    /**
+     * Keep the code of UTF-8 files and zip entries outside of the Java heap. Files are
+     * memory-mapped and zip entries are inflated into direct buffers. The code is decoded each
+     * time it is asked for, so this trades some CPU for a much smaller heap when compiling many
+     * inputs. Has no effect on other charsets or other kinds of source files.
+     */
+    public Builder withOffHeapCode(boolean offHeap) {
+      this.offHeap = offHeap;
+      return this;
+    }
+
     public Builder withOriginalPath(String originalPath) {
       this.originalPath = originalPath;
       return this;
@@ -503,13 +556,19 @@ public class SourceFile implements StaticSourceFile, Serializable {
     @GwtIncompatible("java.io.File")
     public SourceFile buildFromPath(Path path) {
       if (isZipEntry(path.toString())) {
-        return fromZipEntry(path.toString(), charset);
+        return fromZipEntry(path.toString(), this);
+      }
+      if (offHeap && UTF_8.equals(charset)) {
+        return new OffHeap(path.toString(), originalPath, path, null);
       }
       return new OnDisk(path, originalPath, charset);
     }
 
     @GwtIncompatible("java.net.URL")
     public SourceFile buildFromUrl(URL url) {
+      if (offHeap && UTF_8.equals(charset)) {
+        return new OffHeap(originalPath, originalPath, null, url);
+      }
       return new AtUrl(url, originalPath, charset);
     }
 
@@ -785,6 +844,219 @@ public class SourceFile implements StaticSourceFile, Serializable {
     }
   }
 
+  /**
+   * A UTF-8 source file whose code is kept outside of the Java heap: files are memory-mapped, and
+   * zip entries are inflated into a direct buffer. The code is decoded each time it is asked for
+   * and is not cached. Line offsets are computed from the encoded bytes, and lines and regions
+   * for error messages are decoded on their own, so the text does not pile up on the heap over a
+   * long compile.
+   */
+  @GwtIncompatible("java.nio.MappedByteBuffer")
+  static class OffHeap extends SourceFile {
+    private static final long serialVersionUID = 1L;
+    private static final int UTF8_BOM_LENGTH = 3;
+
+    private transient Path path;
+    @Nullable private final URL url;
+
+    // The code after the byte order mark, if any. Only accessed with absolute gets and through
+    // duplicates, so it can be shared between threads.
+    private transient ByteBuffer bytes = null;
+    // The offsets in bytes at which the lines start.
+    private transient int[] lineByteOffsets = null;
+
+    OffHeap(String fileName, String originalPath, @Nullable Path path, @Nullable URL url) {
+      super(fileName);
+      checkArgument((path == null) != (url == null));
+      setOriginalPath(originalPath);
+      this.path = path;
+      this.url = url;
+    }
+
+    private synchronized ByteBuffer getBytes() throws IOException {
+      if (bytes == null) {
+        ByteBuffer buffer = path != null ? map(path) : inflate(url);
+        if (buffer.remaining() >= UTF8_BOM_LENGTH
+            && buffer.get(0) == (byte) 0xEF
+            && buffer.get(1) == (byte) 0xBB
+            && buffer.get(2) == (byte) 0xBF) {
+          buffer.position(UTF8_BOM_LENGTH);
+        }
+        bytes = buffer.slice();
+      }
+      return bytes;
+    }
+
+    private static ByteBuffer map(Path path) throws IOException {
+      try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+        return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      }
+    }
+
+    private static ByteBuffer inflate(URL url) throws IOException {
+      URLConnection urlConnection = url.openConnection();
+      // Do not let the connection cache the contents on the heap.
+      urlConnection.setUseCaches(false);
+      try (InputStream inputStream = urlConnection.getInputStream()) {
+        long length = urlConnection.getContentLengthLong();
+        if (length < 0) {
+          byte[] contents = ByteStreams.toByteArray(inputStream);
+          ByteBuffer buffer = ByteBuffer.allocateDirect(contents.length);
+          buffer.put(contents).flip();
+          return buffer;
+        }
+        ByteBuffer buffer = ByteBuffer.allocateDirect(Ints.checkedCast(length));
+        try (ReadableByteChannel channel = Channels.newChannel(inputStream)) {
+          while (buffer.hasRemaining() && channel.read(buffer) != -1) {}
+        }
+        buffer.flip();
+        return buffer;
+      }
+    }
+
+    /** Decodes the bytes in {@code [start, end)}. */
+    private String decode(int start, int end) throws IOException {
+      ByteBuffer range = getBytes().duplicate();
+      range.limit(end).position(start);
+      try {
+        return UTF_8
+            .newDecoder()
+            .onMalformedInput(CodingErrorAction.REPORT)
+            .onUnmappableCharacter(CodingErrorAction.REPORT)
+            .decode(range)
+            .toString();
+      } catch (CharacterCodingException e) {
+        throw new IOException(
+            "Failed to read: " + getName() + ", is this input UTF-8 encoded?", e);
+      }
+    }
+
+    /** Returns the code set with {@link #setCode}, if any, and otherwise decodes the file. */
+    @Override
+    public String getCode() throws IOException {
+      String code = super.getCode();
+      return code != null ? code : decode(0, getBytes().limit());
+    }
+
+    /**
+     * Counts the chars of every line without decoding it. In UTF-8, every byte that does not
+     * continue a sequence starts a char, and four byte sequences are decoded into a surrogate
+     * pair. A newline byte never occurs inside a sequence.
+     */
+    @Override
+    synchronized int[] computeLineOffsets() throws IOException {
+      if (hasSourceInMemory()) {
+        return super.computeLineOffsets();
+      }
+      ByteBuffer buffer = getBytes();
+      int limit = buffer.limit();
+      int numLines = 1;
+      for (int i = 0; i < limit; i++) {
+        if (buffer.get(i) == '\n') {
+          numLines++;
+        }
+      }
+      int[] offsets = new int[numLines];
+      int[] byteOffsets = new int[numLines];
+      int line = 0;
+      int chars = 0;
+      for (int i = 0; i < limit; i++) {
+        byte b = buffer.get(i);
+        if ((b & 0xC0) != 0x80) {
+          chars++;
+        }
+        if ((b & 0xF8) == 0xF0) {
+          chars++;
+        }
+        if (b == '\n') {
+          line++;
+          offsets[line] = chars;
+          byteOffsets[line] = i + 1;
+        }
+      }
+      lineByteOffsets = byteOffsets;
+      return offsets;
+    }
+
+    private synchronized int[] getLineByteOffsets() throws IOException {
+      if (lineByteOffsets == null) {
+        computeLineOffsets();
+      }
+      return lineByteOffsets;
+    }
+
+    @Override
+    public String getLine(int lineNumber) {
+      if (hasSourceInMemory()) {
+        return super.getLine(lineNumber);
+      }
+      try {
+        int[] byteOffsets = getLineByteOffsets();
+        if (lineNumber > byteOffsets.length) {
+          return null;
+        }
+        if (lineNumber < 1) {
+          lineNumber = 1;
+        }
+        int start = byteOffsets[lineNumber - 1];
+        if (lineNumber < byteOffsets.length) {
+          return decode(start, byteOffsets[lineNumber] - 1);
+        }
+        int limit = getBytes().limit();
+        return start >= limit ? null : decode(start, limit);
+      } catch (IOException e) {
+        return null;
+      }
+    }
+
+    @Override
+    public Region getRegion(int lineNumber) {
+      if (hasSourceInMemory()) {
+        return super.getRegion(lineNumber);
+      }
+      try {
+        int[] byteOffsets = getLineByteOffsets();
+        int firstLine = Math.min(getRegionStartLine(lineNumber), byteOffsets.length);
+        int lastLine = firstLine + SOURCE_EXCERPT_REGION_LENGTH;
+        int start = byteOffsets[firstLine - 1];
+        int end = lastLine <= byteOffsets.length
+            ? byteOffsets[lastLine - 1] : getBytes().limit();
+        return SourceFile.getRegion(decode(start, end), firstLine, lineNumber);
+      } catch (IOException e) {
+        return null;
+      }
+    }
+
+    @Override
+    public Reader getCodeReader() throws IOException {
+      return new StringReader(getCode());
+    }
+
+    // Drop the buffer after the compile; the code is read again if it is needed.
+    @Override
+    public synchronized void clearCachedSource() {
+      super.clearCachedSource();
+      super.setCode(null);
+      bytes = null;
+      lineByteOffsets = null;
+    }
+
+    @GwtIncompatible("ObjectOutputStream")
+    private void writeObject(java.io.ObjectOutputStream out) throws Exception {
+      out.defaultWriteObject();
+      out.writeObject(path != null ? path.toUri() : null);
+    }
+
+    @GwtIncompatible("ObjectInputStream")
+    private void readObject(java.io.ObjectInputStream in) throws Exception {
+      in.defaultReadObject();
+      URI uri = (URI) in.readObject();
+      path = uri != null ? Paths.get(uri) : null;
+      // The default readObject of SourceFile put a placeholder there.
+      super.setCode(null);
+    }
+  }
+
   public void restoreFrom(SourceFile sourceFile) {
     this.code = sourceFile.code;
   }
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp.deps;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.annotations.GwtIncompatible;
+import com.google.common.collect.ImmutableList;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Remembers the dependency information that {@link DepsGenerator} found in each source file, so
+ * that a file whose modification time and size have not changed since is not read again.
+ *
+ * <p>The cache is kept in a file between runs. {@link #save} writes the entries of the files
+ * looked up since the cache was loaded, so files that are no longer sources drop out of it.
+ * Only sources read from the file they are named after can be cached.
+ *
+ * <p>The dependencies of ES6 and CommonJS modules depend on how the {@link ModuleLoader} resolves
+ * paths. The file records the configuration of the loader they were found with, and its entries
+ * are dropped when the cache is used with a loader configured differently.
+ */
+@GwtIncompatible("java.nio.file")
+public final class DependencyInfoCache {
+
+  private static final Logger logger = Logger.getLogger(DependencyInfoCache.class.getName());
+
+  /** Changes whenever the format of the file does. */
+  private static final int VERSION = 2;
+
+  /** What is known about one file, as of the given modification time and size. */
+  static final class Entry implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    final long lastModified;
+    final long size;
+    /** The goog.addDependency calls in the file, or null if it was not scanned for them. */
+    final ImmutableList<DependencyInfo> addedDependencies;
+    /** The dependencies of the file itself, or null if it was not parsed. */
+    final DependencyInfo info;
+
+    private Entry(
+        long lastModified,
+        long size,
+        ImmutableList<DependencyInfo> addedDependencies,
+        DependencyInfo info) {
+      this.lastModified = lastModified;
+      this.size = size;
+      this.addedDependencies = addedDependencies;
+      this.info = info;
+    }
+
+    Entry withAddedDependencies(ImmutableList<DependencyInfo> addedDependencies) {
+      return new Entry(lastModified, size, checkNotNull(addedDependencies), info);
+    }
+
+    Entry withInfo(DependencyInfo info) {
+      return new Entry(lastModified, size, addedDependencies, checkNotNull(info));
+    }
+  }
+
+  private final Path cacheFile;
+  private final Map<String, Entry> loaded;
+  private final Map<String, Entry> used = new ConcurrentHashMap<>();
+  /** The configuration of the module loader that the entries were found with. */
+  private String loaderFingerprint;
+
+  private DependencyInfoCache(Path cacheFile, Map<String, Entry> loaded, String loaderFingerprint) {
+    this.cacheFile = cacheFile;
+    this.loaded = loaded;
+    this.loaderFingerprint = loaderFingerprint;
+  }
+
+  /**
+   * Loads the cache kept in the given file. Starts with an empty cache if the file does not exist
+   * or cannot be read.
+   */
+  public static DependencyInfoCache load(Path cacheFile) {
+    Map<String, Entry> loaded = new HashMap<>();
+    String loaderFingerprint = null;
+    if (Files.exists(cacheFile)) {
+      try (ObjectInputStream in = new ObjectInputStream(Files.newInputStream(cacheFile))) {
+        if (in.readInt() == VERSION) {
+          loaderFingerprint = in.readUTF();
+          @SuppressWarnings("unchecked")
+          Map<String, Entry> entries = (Map<String, Entry>) in.readObject();
+          loaded.putAll(entries);
+        }
+      } catch (IOException | ClassNotFoundException | ClassCastException e) {
+        logger.log(Level.WARNING, "Ignoring unreadable dependency cache " + cacheFile, e);
+        loaded.clear();
+        loaderFingerprint = null;
+      }
+    }
+    return new DependencyInfoCache(cacheFile, loaded, loaderFingerprint);
+  }
+
+  /**
+   * Records the configuration of the module loader that the cache is used with. Drops the loaded
+   * entries if they were found with a loader configured differently.
+   */
+  void useWithLoader(ModuleLoader loader) {
+    String fingerprint = loader.getConfigurationFingerprint();
+    if (!fingerprint.equals(loaderFingerprint)) {
+      if (!loaded.isEmpty()) {
+        logger.info("Module loader configuration changed, dropping dependency cache " + cacheFile);
+      }
+      loaded.clear();
+      used.clear();
+      loaderFingerprint = fingerprint;
+    }
+  }
+
+  /**
+   * Writes the entries of the files looked up since the cache was loaded to the file it was
+   * loaded from. The file is replaced as a whole, so a failed write leaves the old cache.
+   */
+  public void save() throws IOException {
+    Path absoluteFile = cacheFile.toAbsolutePath();
+    Files.createDirectories(absoluteFile.getParent());
+    Path tempFile = Files.createTempFile(absoluteFile.getParent(), "deps-cache", ".tmp");
+    try {
+      try (ObjectOutputStream out = new ObjectOutputStream(Files.newOutputStream(tempFile))) {
+        out.writeInt(VERSION);
+        out.writeUTF(loaderFingerprint != null ? loaderFingerprint : "");
+        out.writeObject(new HashMap<>(used));
+      }
+      Files.move(tempFile, absoluteFile, StandardCopyOption.REPLACE_EXISTING);
+    } finally {
+      Files.deleteIfExists(tempFile);
+    }
+  }
+
+  /** Returns the number of files looked up since the cache was loaded. */
+  public int size() {
+    return used.size();
+  }
+
+  /**
+   * Returns the entry of the file. If the file changed since it was cached, or was not cached,
+   * returns an entry with nothing in it yet. Returns null if there is no such file on disk.
+   *
+   * <p>The modification time and size are read before the caller reads the file, so a change
+   * while it is read makes the next lookup miss.
+   */
+  Entry lookUp(String fileName) throws IOException {
+    Path path = Paths.get(fileName);
+    if (!Files.isRegularFile(path)) {
+      return null;
+    }
+    BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+    long lastModified = attributes.lastModifiedTime().toMillis();
+    long size = attributes.size();
+    Entry entry = used.get(fileName);
+    if (entry == null) {
+      entry = loaded.get(fileName);
+    }
+    if (entry == null || entry.lastModified != lastModified || entry.size != size) {
+      entry = new Entry(lastModified, size, null, null);
+    }
+    used.put(fileName, entry);
+    return entry;
+  }
+
+  /** Stores the entry of the file, which was returned by {@link #lookUp} and then filled. */
+  void put(String fileName, Entry entry) {
+    used.put(fileName, entry);
+  }
+}
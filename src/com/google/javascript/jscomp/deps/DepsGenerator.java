@@ -16,9 +16,11 @@
 
 package com.google.javascript.jscomp.deps;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static java.nio.charset.StandardCharsets.UTF_8;
 
 import com.google.common.base.Function;
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Multimaps;
@@ -31,9 +33,11 @@ import com.google.javascript.jscomp.JSError;
 import com.google.javascript.jscomp.JsAst;
 import com.google.javascript.jscomp.LazyParsedDependencyInfo;
 import com.google.javascript.jscomp.SourceFile;
+import com.google.javascript.jscomp.ThreadSafeDelegatingErrorManager;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.io.Reader;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -42,6 +46,14 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -61,6 +73,9 @@ public class DepsGenerator {
 
   private static final Logger logger = Logger.getLogger(DepsGenerator.class.getName());
 
+  /** The stack size of the threads that scan sources, which parse them. */
+  private static final long THREAD_STACK_SIZE = 1 << 25;
+
   // See the Flags in MakeJsDeps for descriptions of these.
   private final Collection<SourceFile> srcs;
   private final Collection<SourceFile> deps;
@@ -68,6 +83,8 @@ public class DepsGenerator {
   private final InclusionStrategy mergeStrategy;
   private final ModuleLoader loader;
   final ErrorManager errorManager;
+  private int numParallelThreads = 1;
+  private DependencyInfoCache cache = null;
 
   static final DiagnosticType SAME_FILE_WARNING = DiagnosticType.warning(
       "DEPS_SAME_FILE",
@@ -107,10 +124,35 @@ public class DepsGenerator {
     this.srcs = srcs;
     this.mergeStrategy = mergeStrategy;
     this.closurePathAbs = closurePathAbs;
-    this.errorManager = errorManager;
+    // Sources may be scanned on several threads, which all report to it.
+    this.errorManager = new ThreadSafeDelegatingErrorManager(errorManager);
     this.loader = loader;
   }
 
+  /**
+   * Sets the number of threads that scan the sources. The output does not depend on it.
+   *
+   * @return this for easy chaining.
+   */
+  public DepsGenerator setNumParallelThreads(int numParallelThreads) {
+    checkArgument(numParallelThreads > 0);
+    this.numParallelThreads = numParallelThreads;
+    return this;
+  }
+
+  /**
+   * Sets the cache to take the dependencies of unchanged sources from, and to put those of the
+   * other sources into. The caller saves it. The sources must be read from the files they are
+   * named after, as those of {@link #createSourceFilesFromPaths} are.
+   *
+   * @return this for easy chaining.
+   */
+  public DepsGenerator setCache(DependencyInfoCache cache) {
+    cache.useWithLoader(loader);
+    this.cache = cache;
+    return this;
+  }
+
   /**
    * Performs the parsing inputs and writing of outputs.
    * @throws IOException Occurs upon an IO error.
@@ -118,13 +160,22 @@ public class DepsGenerator {
    *     the dependency graph. Returns null if there was an error.
    */
   public String computeDependencyCalls() throws IOException {
-    // Build a map of closure-relative path -> DepInfo.
-    Map<String, DependencyInfo> depsFiles = parseDepsFiles();
-    if (logger.isLoggable(Level.FINE)) {
-      logger.fine("preparsedFiles: " + depsFiles);
+    ExecutorService executor = numParallelThreads > 1 ? createExecutor() : null;
+    Map<String, DependencyInfo> depsFiles;
+    Map<String, DependencyInfo> jsFiles;
+    try {
+      // Build a map of closure-relative path -> DepInfo.
+      depsFiles = parseDepsFiles(executor);
+      if (logger.isLoggable(Level.FINE)) {
+        logger.fine("preparsedFiles: " + depsFiles);
+      }
+      // Find all goog.provides & goog.requires in src files
+      jsFiles = parseSources(depsFiles.keySet(), executor);
+    } finally {
+      if (executor != null) {
+        executor.shutdown();
+      }
     }
-    // Find all goog.provides & goog.requires in src files
-    Map<String, DependencyInfo> jsFiles = parseSources(depsFiles.keySet());
 
     // Check if there were any parse errors.
     if (errorManager.getErrorCount() > 0) {
@@ -279,7 +330,8 @@ public class DepsGenerator {
    * Parses all deps.js files in the deps list and creates a map of
    * closure-relative path -> DependencyInfo.
    */
-  private Map<String, DependencyInfo> parseDepsFiles() throws IOException {
+  private Map<String, DependencyInfo> parseDepsFiles(ExecutorService executor)
+      throws IOException {
     DepsFileParser depsParser = createDepsFileParser();
     Map<String, DependencyInfo> depsFiles = new LinkedHashMap<>();
     for (SourceFile file : deps) {
@@ -300,19 +352,58 @@ public class DepsGenerator {
     // If a deps file also appears in srcs, our build tools will move it
     // into srcs.  So we need to scan all the src files for addDependency
     // calls as well.
+    List<SourceFile> srcsToScan = new ArrayList<>();
     for (SourceFile src : srcs) {
       if (!shouldSkipDepsFile(src)) {
-        List<DependencyInfo> srcInfos =
-            depsParser.parseFileReader(src.getName(), src.getCodeReader());
-        for (DependencyInfo info : srcInfos) {
-          depsFiles.put(info.getPathRelativeToClosureBase(), info);
-        }
+        srcsToScan.add(src);
+      }
+    }
+    final ThreadLocal<DepsFileParser> depsParsers =
+        new ThreadLocal<DepsFileParser>() {
+          @Override
+          protected DepsFileParser initialValue() {
+            return createDepsFileParser();
+          }
+        };
+    List<List<DependencyInfo>> srcInfoLists =
+        scanSources(
+            executor,
+            srcsToScan,
+            new SourceScanner<List<DependencyInfo>>() {
+              @Override
+              public List<DependencyInfo> scan(SourceFile src) throws IOException {
+                return scanForAddedDependencies(src, depsParsers.get());
+              }
+            });
+    for (List<DependencyInfo> srcInfos : srcInfoLists) {
+      for (DependencyInfo info : srcInfos) {
+        depsFiles.put(info.getPathRelativeToClosureBase(), info);
       }
     }
 
     return depsFiles;
   }
 
+  /**
+   * Returns the goog.addDependency calls in the given source. The parser stops at the first line
+   * of code, so only the start of the file is read.
+   */
+  private List<DependencyInfo> scanForAddedDependencies(SourceFile src, DepsFileParser depsParser)
+      throws IOException {
+    DependencyInfoCache.Entry entry = cache != null ? cache.lookUp(src.getName()) : null;
+    if (entry != null && entry.addedDependencies != null) {
+      return entry.addedDependencies;
+    }
+    List<DependencyInfo> srcInfos;
+    try (Reader reader = src.getCodeReader()) {
+      srcInfos = depsParser.parseFileReader(src.getName(), reader);
+    }
+    if (entry != null && depsParser.didParseSucceed()) {
+      cache.put(src.getName(), entry.withAddedDependencies(ImmutableList.copyOf(srcInfos)));
+    }
+    return srcInfos;
+  }
+
   /**
    * Parses all source files for dependency information.
    * @param preparsedFiles A set of closure-relative paths.
@@ -322,13 +413,9 @@ public class DepsGenerator {
    * @throws IOException Occurs upon an IO error.
    */
   private Map<String, DependencyInfo> parseSources(
-      Set<String> preparsedFiles) throws IOException {
+      Set<String> preparsedFiles, ExecutorService executor) throws IOException {
     Map<String, DependencyInfo> parsedFiles = new LinkedHashMap<>();
-    JsFileParser jsParser = new JsFileParser(errorManager).setModuleLoader(loader);
-    Compiler compiler = new Compiler();
-    compiler.init(
-        ImmutableList.<SourceFile>of(), ImmutableList.<SourceFile>of(), new CompilerOptions());
-
+    final Map<SourceFile, String> closureRelativePaths = new LinkedHashMap<>();
     for (SourceFile file : srcs) {
       String closureRelativePath =
           PathUtil.makeRelative(
@@ -338,21 +425,163 @@ public class DepsGenerator {
       }
       if (InclusionStrategy.WHEN_IN_SRCS == mergeStrategy ||
           !preparsedFiles.contains(closureRelativePath)) {
-        DependencyInfo depInfo =
-            jsParser.parseFile(
-                file.getName(), closureRelativePath,
-                file.getCode());
-        depInfo = new LazyParsedDependencyInfo(depInfo, new JsAst(file), compiler);
-
-        // Kick the source out of memory.
-        file.clearCachedSource();
-        parsedFiles.put(closureRelativePath, depInfo);
+        closureRelativePaths.put(file, closureRelativePath);
       }
     }
 
+    final ThreadLocal<SourceParser> parsers =
+        new ThreadLocal<SourceParser>() {
+          @Override
+          protected SourceParser initialValue() {
+            return new SourceParser();
+          }
+        };
+    List<DependencyInfo> depInfos =
+        scanSources(
+            executor,
+            new ArrayList<>(closureRelativePaths.keySet()),
+            new SourceScanner<DependencyInfo>() {
+              @Override
+              public DependencyInfo scan(SourceFile file) throws IOException {
+                return parsers.get().parse(file, closureRelativePaths.get(file));
+              }
+            });
+    for (DependencyInfo depInfo : depInfos) {
+      parsedFiles.put(depInfo.getPathRelativeToClosureBase(), depInfo);
+    }
+
     return parsedFiles;
   }
 
+  /** Parses sources for dependency information. Used by one thread at a time. */
+  private final class SourceParser {
+    private final CountingErrorManager parserErrorManager =
+        new CountingErrorManager(errorManager);
+    private final JsFileParser jsParser =
+        new JsFileParser(parserErrorManager).setModuleLoader(loader);
+    private final Compiler compiler = new Compiler();
+
+    SourceParser() {
+      compiler.init(
+          ImmutableList.<SourceFile>of(), ImmutableList.<SourceFile>of(), new CompilerOptions());
+    }
+
+    DependencyInfo parse(SourceFile file, String closureRelativePath) throws IOException {
+      DependencyInfoCache.Entry entry = cache != null ? cache.lookUp(file.getName()) : null;
+      if (entry != null
+          && entry.info != null
+          && entry.info.getPathRelativeToClosureBase().equals(closureRelativePath)) {
+        return entry.info;
+      }
+      int reportCount = parserErrorManager.reportCount;
+      DependencyInfo depInfo =
+          jsParser.parseFile(
+              file.getName(), closureRelativePath,
+              file.getCode());
+      // Files with problems are parsed again next time, so that the problems are reported again.
+      boolean cacheable = parserErrorManager.reportCount == reportCount;
+      // Find the load flags while the code is still in memory, so that the file is read once
+      // and its AST is not kept.
+      DependencyInfo lazyDepInfo =
+          new LazyParsedDependencyInfo(depInfo, new JsAst(file), compiler);
+      depInfo =
+          SimpleDependencyInfo.builder(closureRelativePath, file.getName())
+              .setProvides(depInfo.getProvides())
+              .setRequires(depInfo.getRequires())
+              .setWeakRequires(depInfo.getWeakRequires())
+              .setLoadFlags(lazyDepInfo.getLoadFlags())
+              .build();
+
+      // Kick the source out of memory.
+      file.clearCachedSource();
+      if (entry != null && cacheable) {
+        cache.put(file.getName(), entry.withInfo(depInfo));
+      }
+      return depInfo;
+    }
+  }
+
+  /** Counts the problems reported through it. */
+  private static final class CountingErrorManager extends ThreadSafeDelegatingErrorManager {
+    int reportCount = 0;
+
+    CountingErrorManager(ErrorManager delegated) {
+      super(delegated);
+    }
+
+    @Override
+    public void report(CheckLevel level, JSError error) {
+      reportCount++;
+      super.report(level, error);
+    }
+  }
+
+  /** Scans one source. Called from the threads of the pool when scanning in parallel. */
+  private interface SourceScanner<T> {
+    T scan(SourceFile file) throws IOException;
+  }
+
+  /**
+   * Scans the given sources, on the threads of the executor if there is one, and returns the
+   * results in the order of the sources.
+   */
+  private static <T> List<T> scanSources(
+      ExecutorService executor, List<SourceFile> files, final SourceScanner<T> scanner)
+      throws IOException {
+    List<T> results = new ArrayList<>(files.size());
+    if (executor == null) {
+      for (SourceFile file : files) {
+        results.add(scanner.scan(file));
+      }
+      return results;
+    }
+    List<Future<T>> futures = new ArrayList<>(files.size());
+    for (final SourceFile file : files) {
+      futures.add(
+          executor.submit(
+              new Callable<T>() {
+                @Override
+                public T call() throws IOException {
+                  return scanner.scan(file);
+                }
+              }));
+    }
+    try {
+      for (Future<T> future : futures) {
+        results.add(future.get());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    } catch (ExecutionException e) {
+      Throwables.propagateIfPossible(e.getCause(), IOException.class);
+      throw new RuntimeException(e.getCause());
+    } finally {
+      for (Future<T> future : futures) {
+        future.cancel(false);
+      }
+    }
+    return results;
+  }
+
+  private ExecutorService createExecutor() {
+    ThreadFactory threadFactory = new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+          Thread t = new Thread(null, r, "jscompiler-DepsGenerator", THREAD_STACK_SIZE);
+          t.setDaemon(true);  // Do not prevent the JVM from exiting.
+          return t;
+        }
+    };
+    return new ThreadPoolExecutor(
+        numParallelThreads,
+        numParallelThreads,
+        Integer.MAX_VALUE,
+        TimeUnit.SECONDS,
+        new LinkedBlockingQueue<Runnable>(),
+        threadFactory);
+  }
+
   /**
    * Creates the content to put into the output deps.js file. If mergeDeps is
    * true, then all of the dependency information in the providedDeps will be
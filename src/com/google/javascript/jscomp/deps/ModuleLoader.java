@@ -34,6 +34,7 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.TreeMap;
 import javax.annotation.Nullable;
 
 /**
@@ -74,6 +75,9 @@ public final class ModuleLoader {
 
   private final ModuleResolver moduleResolver;
 
+  /** Describes the settings that decide how paths resolve. */
+  private final String configurationFingerprint;
+
   /**
    * Creates an instance of the module loader which can be used to locate ES6 and CommonJS modules.
    *
@@ -96,6 +100,11 @@ public final class ModuleLoader {
         resolvePaths(
             Iterables.transform(Iterables.transform(inputs, UNWRAP_DEPENDENCY_INFO), pathResolver),
             moduleRootPaths);
+    this.configurationFingerprint =
+        resolutionMode
+            + " " + pathResolver
+            + " " + moduleRootPaths
+            + " " + (lookupMap == null ? "{}" : new TreeMap<>(lookupMap));
 
     switch (resolutionMode) {
       case BROWSER:
@@ -143,6 +152,15 @@ public final class ModuleLoader {
     this(errorHandler, moduleRoots, inputs, pathResolver, resolutionMode, null);
   }
 
+  /**
+   * Returns a string that differs between loaders that can resolve the same path differently:
+   * loaders with other module roots, path resolvers, resolution modes or lookup maps. The set of
+   * inputs is not part of it.
+   */
+  String getConfigurationFingerprint() {
+    return configurationFingerprint;
+  }
+
   @VisibleForTesting
   public Map<String, String> getPackageJsonMainEntries() {
     return this.moduleResolver.getPackageJsonMainEntries();
@@ -0,0 +1,226 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp.graph;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.Iterators.filter;
+
+import com.google.common.annotations.GwtCompatible;
+import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.errorprone.annotations.CanIgnoreReturnValue;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A {@link UnionFind} that many threads can add to and union in at the same time, without locks.
+ *
+ * <p>Each element has a node that points towards the representative of its class. A union links
+ * one root under the other with a compare-and-set, and tries again if another thread linked
+ * either root first. The root created later is always linked under the one created earlier, so
+ * parent pointers only lead to older nodes and can never form a cycle. Finds halve the paths they
+ * walk, again with compare-and-set, so a lost race only leaves a path longer than it could be.
+ *
+ * <p>As in {@link StandardUnionFind}, the representative of a class is the element of the class
+ * that was added first, if all elements are added by one thread. Methods that look at whole
+ * classes, such as {@link #allEquivalenceClasses}, are only exact while no other thread is
+ * changing the structure. Elements must not be null.
+ *
+ * @param <E> element type
+ */
+@GwtCompatible
+public final class ConcurrentUnionFind<E> implements UnionFind<E> {
+
+  /** All values with the same root node are in the same equivalence set. */
+  private final ConcurrentMap<E, Node<E>> elmap = new ConcurrentHashMap<>();
+
+  /** The creation order of the next node. */
+  private final AtomicLong nextOrder = new AtomicLong();
+
+  /** Creates an empty UnionFind structure. */
+  public ConcurrentUnionFind() {
+  }
+
+  @Override
+  public void add(E e) {
+    findOrCreateNode(e);
+  }
+
+  @CanIgnoreReturnValue
+  @Override
+  public E union(E a, E b) {
+    Node<E> nodeA = findOrCreateNode(a);
+    Node<E> nodeB = findOrCreateNode(b);
+    while (true) {
+      Node<E> rootA = findRoot(nodeA);
+      Node<E> rootB = findRoot(nodeB);
+      if (rootA == rootB) {
+        return rootA.element;
+      }
+      Node<E> older = rootA.order < rootB.order ? rootA : rootB;
+      Node<E> newer = older == rootA ? rootB : rootA;
+      if (newer.parent.compareAndSet(newer, older)) {
+        return older.element;
+      }
+    }
+  }
+
+  @Override
+  public E find(E e) {
+    Node<E> node = elmap.get(checkNotNull(e));
+    checkArgument(node != null, "Element does not exist: %s", e);
+    return findRoot(node).element;
+  }
+
+  @Override
+  public boolean areEquivalent(E a, E b) {
+    Node<E> nodeA = elmap.get(checkNotNull(a));
+    Node<E> nodeB = elmap.get(checkNotNull(b));
+    checkArgument(nodeA != null, "Element does not exist: %s", a);
+    checkArgument(nodeB != null, "Element does not exist: %s", b);
+    while (true) {
+      Node<E> rootA = findRoot(nodeA);
+      if (rootA == findRoot(nodeB)) {
+        return true;
+      }
+      // If rootA is still a root, the classes were different when rootB was found.
+      if (rootA.parent.get() == rootA) {
+        return false;
+      }
+    }
+  }
+
+  @Override
+  public Set<E> elements() {
+    return Collections.unmodifiableSet(elmap.keySet());
+  }
+
+  @Override
+  public Collection<Set<E>> allEquivalenceClasses() {
+    Map<Node<E>, ImmutableSet.Builder<E>> groupsTmp = new LinkedHashMap<>();
+    for (Node<E> elem : elmap.values()) {
+      Node<E> root = findRoot(elem);
+      ImmutableSet.Builder<E> builder = groupsTmp.get(root);
+      if (builder == null) {
+        builder = ImmutableSet.builder();
+        groupsTmp.put(root, builder);
+      }
+      builder.add(elem.element);
+    }
+    ImmutableList.Builder<Set<E>> result = ImmutableList.builder();
+    for (ImmutableSet.Builder<E> group : groupsTmp.values()) {
+      result.add(group.build());
+    }
+    return result.build();
+  }
+
+  @Override
+  public Set<E> findAll(final E value) {
+    final Node<E> nodeForValue = elmap.get(checkNotNull(value));
+    checkArgument(nodeForValue != null, "Element does not exist: %s", value);
+
+    final Predicate<Object> isSameRoot =
+        new Predicate<Object>() {
+          @Override
+          public boolean apply(Object b) {
+            Node<E> nodeForB = b == null ? null : elmap.get(b);
+            return nodeForB != null && findRoot(nodeForB) == findRoot(nodeForValue);
+          }
+        };
+
+    return new AbstractSet<E>() {
+      @Override
+      public boolean contains(Object o) {
+        return isSameRoot.apply(o);
+      }
+
+      @Override
+      public Iterator<E> iterator() {
+        return filter(elmap.keySet().iterator(), isSameRoot);
+      }
+
+      @Override
+      public int size() {
+        int size = 0;
+        for (Node<E> node : elmap.values()) {
+          if (findRoot(node) == findRoot(nodeForValue)) {
+            size++;
+          }
+        }
+        return size;
+      }
+    };
+  }
+
+  /** Returns the node of {@code e}, creating it in a class of its own if there is none. */
+  private Node<E> findOrCreateNode(E e) {
+    Node<E> node = elmap.get(checkNotNull(e));
+    if (node != null) {
+      return node;
+    }
+    Node<E> created = new Node<>(e, nextOrder.getAndIncrement());
+    node = elmap.putIfAbsent(e, created);
+    return node != null ? node : created;
+  }
+
+  /**
+   * Walks the parent pointers from {@code node} to the root of its tree, pointing each node on
+   * the way at its grandparent.
+   */
+  private static <E> Node<E> findRoot(Node<E> node) {
+    while (true) {
+      Node<E> parent = node.parent.get();
+      if (parent == node) {
+        return node;
+      }
+      Node<E> grandparent = parent.parent.get();
+      if (grandparent != parent) {
+        node.parent.compareAndSet(parent, grandparent);
+      }
+      node = grandparent;
+    }
+  }
+
+  /** The internal node representation. */
+  private static final class Node<E> {
+    /** The parent node of this element, or the node itself if it is a root. */
+    final AtomicReference<Node<E>> parent;
+
+    /** The element represented by this node. */
+    final E element;
+
+    /** When this node was created, relative to the other nodes. */
+    final long order;
+
+    Node(E element, long order) {
+      this.parent = new AtomicReference<>(this);
+      this.element = element;
+      this.order = order;
+    }
+  }
+}
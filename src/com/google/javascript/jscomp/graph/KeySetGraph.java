@@ -0,0 +1,35 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp.graph;
+
+import java.util.BitSet;
+
+/**
+ * An {@link AdjacencyGraph} in which two nodes are adjacent when they share a key, such as two
+ * properties that are on related types. A {@link SubGraph} of it is independent of a node when
+ * none of its nodes shares a key with the node.
+ *
+ * <p>{@link GraphColoring.GreedyGraphColoring} colors such a graph by remembering which colors
+ * each key is used by, instead of comparing the node with every color in turn.
+ *
+ * @param <N> Value type that the graph node stores.
+ * @param <E> Value type that the graph edge stores.
+ */
+public interface KeySetGraph<N, E> extends AdjacencyGraph<N, E> {
+  /** Returns the keys of the node. The caller does not modify them. */
+  BitSet getKeys(N value);
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp.graph;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Computes the strongly connected components of a directed graph whose nodes are the integers
+ * {@code 0} to {@code n - 1}. The edges are given in compressed sparse row form: the successors
+ * of node {@code u} are {@code targets[offsets[u]]} to {@code targets[offsets[u + 1] - 1]}.
+ *
+ * <p>This is Tarjan's algorithm, written without recursion so that long paths in the graph do
+ * not overflow the stack. The components are numbered in reverse topological order: if there is
+ * an edge from {@code u} to {@code v} and they are in different components, then the component
+ * of {@code v} has a smaller number than the component of {@code u}. Visiting the components in
+ * increasing order therefore visits every component after all the components it can reach.
+ */
+public final class StronglyConnectedComponents {
+
+  private final int[] components;
+  private final int componentCount;
+
+  /**
+   * @param offsets the start of the successors of each node in {@code targets}, followed by the
+   *     number of edges, so it has one more element than there are nodes
+   * @param targets the successors of all nodes, in node order
+   */
+  public StronglyConnectedComponents(int[] offsets, int[] targets) {
+    checkArgument(offsets.length > 0, "offsets must end with the number of edges");
+    int numNodes = offsets.length - 1;
+    checkArgument(offsets[numNodes] <= targets.length, "offsets run past the targets");
+
+    this.components = new int[numNodes];
+    // The order in which each node was first visited, counting from 1; 0 means unvisited.
+    int[] index = new int[numNodes];
+    int[] lowLink = new int[numNodes];
+    boolean[] onStack = new boolean[numNodes];
+    // The nodes whose component is not known yet.
+    int[] stack = new int[numNodes];
+    int stackSize = 0;
+    // The depth-first path, and the next edge to follow from each node on it.
+    int[] path = new int[numNodes];
+    int[] nextEdge = new int[numNodes];
+    int pathSize = 0;
+    int visited = 0;
+    int count = 0;
+
+    for (int root = 0; root < numNodes; root++) {
+      if (index[root] != 0) {
+        continue;
+      }
+      index[root] = lowLink[root] = ++visited;
+      stack[stackSize++] = root;
+      onStack[root] = true;
+      path[pathSize] = root;
+      nextEdge[pathSize++] = offsets[root];
+
+      while (pathSize > 0) {
+        int node = path[pathSize - 1];
+        if (nextEdge[pathSize - 1] < offsets[node + 1]) {
+          int successor = targets[nextEdge[pathSize - 1]++];
+          if (index[successor] == 0) {
+            index[successor] = lowLink[successor] = ++visited;
+            stack[stackSize++] = successor;
+            onStack[successor] = true;
+            path[pathSize] = successor;
+            nextEdge[pathSize++] = offsets[successor];
+          } else if (onStack[successor]) {
+            lowLink[node] = Math.min(lowLink[node], index[successor]);
+          }
+          continue;
+        }
+
+        // Every successor of node has been visited.
+        pathSize--;
+        if (lowLink[node] == index[node]) {
+          // Node is the first node visited in its component, so the component is the part of the
+          // stack from node up.
+          int member;
+          do {
+            member = stack[--stackSize];
+            onStack[member] = false;
+            components[member] = count;
+          } while (member != node);
+          count++;
+        }
+        if (pathSize > 0) {
+          int parent = path[pathSize - 1];
+          lowLink[parent] = Math.min(lowLink[parent], lowLink[node]);
+        }
+      }
+    }
+    this.componentCount = count;
+  }
+
+  /** Returns the number of the component that contains {@code node}. */
+  public int getComponent(int node) {
+    return components[node];
+  }
+
+  /** Returns the number of components. They are numbered from 0. */
+  public int getComponentCount() {
+    return componentCount;
+  }
+}
@@ -22,4 +22,20 @@ import java.io.PrintStream;
 class JvmMetrics {
   public static void maybeWriteJvmMetrics(PrintStream out, String options) {
   }
+
+  static long getCurrentThreadCpuTime() {
+    return -1;
+  }
+
+  static long getCurrentThreadAllocatedBytes() {
+    return -1;
+  }
+
+  static long getGarbageCollectionTime() {
+    return -1;
+  }
+
+  static long getRetainedHeap() {
+    return -1;
+  }
 }
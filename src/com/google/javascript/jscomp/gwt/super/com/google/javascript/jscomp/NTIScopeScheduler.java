@@ -0,0 +1,48 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import java.util.List;
+
+/** GWT compatible, single-threaded version of {@code NTIScopeScheduler}. */
+final class NTIScopeScheduler {
+
+  interface ScopeAnalyzer {
+    void analyze(NTIScope scope);
+  }
+
+  static final class ScopeAnalysisException extends RuntimeException {
+    final NTIScope scope;
+
+    ScopeAnalysisException(NTIScope scope, Throwable cause) {
+      super(cause);
+      this.scope = scope;
+    }
+  }
+
+  NTIScopeScheduler(int numParallelThreads) {}
+
+  void run(List<NTIScope> scopes, ScopeAnalyzer analyzer) {
+    for (NTIScope scope : scopes) {
+      try {
+        analyzer.analyze(scope);
+      } catch (RuntimeException e) {
+        throw new ScopeAnalysisException(scope, e);
+      }
+    }
+  }
+}
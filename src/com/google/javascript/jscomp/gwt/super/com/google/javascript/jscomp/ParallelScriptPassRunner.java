@@ -0,0 +1,34 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import com.google.javascript.rhino.Node;
+
+/** GWT compatible, single-threaded version of {@code ParallelScriptPassRunner}. */
+class ParallelScriptPassRunner {
+  private final AbstractCompiler compiler;
+
+  ParallelScriptPassRunner(AbstractCompiler compiler, int numParallelThreads) {
+    this.compiler = compiler;
+  }
+
+  void process(PassFactory factory, Node root) {
+    for (Node script = root.getFirstChild(); script != null; script = script.getNext()) {
+      factory.getHotSwapPass(compiler).hotSwapScript(script, null);
+    }
+  }
+}
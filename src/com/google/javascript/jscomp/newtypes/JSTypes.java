@@ -175,6 +175,9 @@ public final class JSTypes implements Serializable {
   final boolean looseSubtypingForLooseObjects;
   final boolean bivariantArrayGenerics;
 
+  // Null until the types are final. Not serialized.
+  private transient ObjectSubtypeCache objectSubtypeCache;
+
   private JSTypes(boolean inCompatibilityMode) {
     Map<String, JSType> types = JSType.createScalars(this);
     this.BOOLEAN = checkNotNull(types.get("BOOLEAN"));
@@ -582,6 +585,23 @@ public final class JSTypes implements Serializable {
     this.regexpInstance = regexpInstance;
   }
 
+  /**
+   * Starts caching the results of subtype checks between object types. Called once the nominal
+   * types and namespaces are final, since adding properties to them changes the results.
+   *
+   * @param recordStats whether the cache counts its hits and misses
+   */
+  public void startCachingObjectSubtypes(boolean recordStats) {
+    if (this.objectSubtypeCache == null) {
+      this.objectSubtypeCache = new ObjectSubtypeCache(recordStats);
+    }
+  }
+
+  /** Returns the cache of subtype checks between object types, or null if there is none. */
+  public ObjectSubtypeCache getObjectSubtypeCache() {
+    return this.objectSubtypeCache;
+  }
+
   public void setGlobalThis(JSType globalThis) {
     Preconditions.checkState(this.globalThis == null,
         "Tried to reassign globalThis from %s to %s", this.globalThis, globalThis);
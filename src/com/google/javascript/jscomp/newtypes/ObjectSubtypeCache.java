@@ -0,0 +1,109 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp.newtypes;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Remembers whether an object type is a subtype of another, so that checking the same pair of
+ * types again does not compare their properties again. Only used for checks that do not depend on
+ * the assumptions of an enclosing check (see {@link SubtypeCache}), and only once the nominal
+ * types and namespaces can no longer change.
+ *
+ * <p>Types are compared by identity. The table has a fixed number of slots, and a slot holds the
+ * result of the last check whose types map to it, so the cache never grows. A slot holds an
+ * immutable entry that is replaced as a whole, so threads can share the cache without locking;
+ * a thread sees either the old or the new entry of a slot, and at worst misses.
+ *
+ * <p>Hits and misses are only counted when asked for, since every subtype check would otherwise
+ * update the same counters from all threads.
+ */
+public final class ObjectSubtypeCache {
+  private static final int NUM_SLOTS = 1 << 14;
+
+  private static final class Entry {
+    final ObjectType subtype;
+    final ObjectType supertype;
+    final boolean keepLoosenessOfSubtype;
+    final boolean isSubtype;
+
+    Entry(
+        ObjectType subtype,
+        ObjectType supertype,
+        boolean keepLoosenessOfSubtype,
+        boolean isSubtype) {
+      this.subtype = subtype;
+      this.supertype = supertype;
+      this.keepLoosenessOfSubtype = keepLoosenessOfSubtype;
+      this.isSubtype = isSubtype;
+    }
+  }
+
+  private final Entry[] slots = new Entry[NUM_SLOTS];
+  private final boolean recordStats;
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+
+  /** @param recordStats whether to count hits and misses */
+  ObjectSubtypeCache(boolean recordStats) {
+    this.recordStats = recordStats;
+  }
+
+  /** Returns whether subtype is a subtype of supertype, or null if the cache does not know. */
+  Boolean get(ObjectType subtype, ObjectType supertype, boolean keepLoosenessOfSubtype) {
+    Entry entry = slots[getSlot(subtype, supertype)];
+    if (entry != null
+        && entry.subtype == subtype
+        && entry.supertype == supertype
+        && entry.keepLoosenessOfSubtype == keepLoosenessOfSubtype) {
+      if (recordStats) {
+        hits.incrementAndGet();
+      }
+      return entry.isSubtype;
+    }
+    if (recordStats) {
+      misses.incrementAndGet();
+    }
+    return null;
+  }
+
+  void put(
+      ObjectType subtype, ObjectType supertype, boolean keepLoosenessOfSubtype, boolean isSubtype) {
+    slots[getSlot(subtype, supertype)] =
+        new Entry(subtype, supertype, keepLoosenessOfSubtype, isSubtype);
+  }
+
+  private static int getSlot(ObjectType subtype, ObjectType supertype) {
+    int hash = 31 * System.identityHashCode(subtype) + System.identityHashCode(supertype);
+    return (hash ^ (hash >>> 16)) & (NUM_SLOTS - 1);
+  }
+
+  /** Returns the number of checks answered from the cache, or 0 if stats are not recorded. */
+  public long getHitCount() {
+    return hits.get();
+  }
+
+  /** Returns the number of checks the cache could not answer, or 0 if stats are not recorded. */
+  public long getMissCount() {
+    return misses.get();
+  }
+
+  @Override
+  public String toString() {
+    return "ObjectSubtypeCache{hits=" + getHitCount() + ", misses=" + getMissCount() + "}";
+  }
+}
@@ -713,6 +713,22 @@ final class ObjectType implements TypeWithProperties {
    */
   private boolean isSubtypeOfHelper(boolean keepLoosenessOfThis,
       ObjectType other, SubtypeCache subSuperMap, MismatchInfo[] boxedInfo) {
+    // A check that relies on the assumptions in subSuperMap can only be trusted by the
+    // enclosing check that made them.
+    ObjectSubtypeCache cache = this.commonTypes.getObjectSubtypeCache();
+    if (cache == null || boxedInfo != null || !subSuperMap.isEmpty()) {
+      return isSubtypeOfHelperUncached(keepLoosenessOfThis, other, subSuperMap, boxedInfo);
+    }
+    Boolean isSubtype = cache.get(this, other, keepLoosenessOfThis);
+    if (isSubtype == null) {
+      isSubtype = isSubtypeOfHelperUncached(keepLoosenessOfThis, other, subSuperMap, null);
+      cache.put(this, other, keepLoosenessOfThis, isSubtype);
+    }
+    return isSubtype;
+  }
+
+  private boolean isSubtypeOfHelperUncached(boolean keepLoosenessOfThis,
+      ObjectType other, SubtypeCache subSuperMap, MismatchInfo[] boxedInfo) {
     if (other.isTopObject()) {
       return true;
     }
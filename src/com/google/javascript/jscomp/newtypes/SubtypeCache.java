@@ -35,6 +35,10 @@ final class SubtypeCache {
     return new SubtypeCache(PersistentMap.<NominalType, NominalType>create());
   }
 
+  boolean isEmpty() {
+    return this.m.isEmpty();
+  }
+
   NominalType get(NominalType key) {
     return this.m.get(key);
   }
@@ -153,7 +153,6 @@ import com.google.javascript.rhino.Token;
 import com.google.javascript.rhino.TokenStream;
 import com.google.javascript.rhino.dtoa.DToA;
 import java.util.ArrayDeque;
-import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
@@ -220,7 +219,6 @@ class IRFactory {
   static final String UNDEFINED_LABEL = "undefined label \"%s\"";
 
   private final String sourceString;
-  private final List<Integer> newlines;
   private final StaticSourceFile sourceFile;
   private final String sourceName;
   private final Config config;
@@ -269,6 +267,9 @@ class IRFactory {
   private boolean currentFileIsExterns = false;
   private boolean hasJsDocTypeAnnotations = false;
 
+  /** Whether to drop each top-level statement's parse tree once it has been converted. */
+  private boolean releaseParseTrees = false;
+
   private FeatureSet features = FeatureSet.BARE_MINIMUM;
   private Node resultNode;
 
@@ -280,7 +281,6 @@ class IRFactory {
     this.sourceString = sourceString;
     this.nextCommentIter = comments.iterator();
     this.currentComment = skipNonJsDoc(nextCommentIter);
-    this.newlines = new ArrayList<>();
     this.sourceFile = sourceFile;
     // The template node properties are applied to all nodes in this transform.
     this.templateNode = createTemplateNode();
@@ -288,15 +288,6 @@ class IRFactory {
     this.fileLevelJsDocBuilder =
         new JSDocInfoBuilder(config.jsDocParsingMode().shouldParseDescriptions());
 
-    // Pre-generate all the newlines in the file.
-    for (int charNo = 0; true; charNo++) {
-      charNo = sourceString.indexOf('\n', charNo);
-      if (charNo == -1) {
-        break;
-      }
-      newlines.add(charNo);
-    }
-
     // Sometimes this will be null in tests.
     this.sourceName = sourceFile == null ? null : sourceFile.getName();
 
@@ -338,8 +329,26 @@ class IRFactory {
                                         String sourceString,
                                         Config config,
                                         ErrorReporter errorReporter) {
+    return transformTree(
+        tree, sourceFile, sourceString, config, errorReporter, /* releaseParseTrees= */ false);
+  }
+
+  /**
+   * Like {@link #transformTree(ProgramTree, StaticSourceFile, String, Config, ErrorReporter)}.
+   * If {@code releaseParseTrees} is true, the tree's top-level statements are taken from it and
+   * each one is dropped as soon as it has been converted, so that the whole parse tree and the
+   * whole AST are never live at the same time. The tree is left without source elements.
+   */
+  static IRFactory transformTree(
+      ProgramTree tree,
+      StaticSourceFile sourceFile,
+      String sourceString,
+      Config config,
+      ErrorReporter errorReporter,
+      boolean releaseParseTrees) {
     IRFactory irFactory = new IRFactory(sourceString, sourceFile,
         config, errorReporter, tree.sourceComments);
+    irFactory.releaseParseTrees = releaseParseTrees;
 
     // don't call transform as we don't want standard jsdoc handling.
     Node n = irFactory.transformDispatcher.process(tree);
@@ -1093,8 +1102,16 @@ class IRFactory {
 
     Node processAstRoot(ProgramTree rootNode) {
       Node scriptNode = newNode(Token.SCRIPT);
-      for (ParseTree child : rootNode.sourceElements) {
-        scriptNode.addChildToBack(transform(child));
+      if (releaseParseTrees) {
+        ParseTree[] children = rootNode.releaseSourceElements().toArray(new ParseTree[0]);
+        for (int i = 0; i < children.length; i++) {
+          scriptNode.addChildToBack(transform(children[i]));
+          children[i] = null;
+        }
+      } else {
+        for (ParseTree child : rootNode.sourceElements) {
+          scriptNode.addChildToBack(transform(child));
+        }
       }
       parseDirectives(scriptNode);
       boolean isGoogModule = isGoogModuleFile(scriptNode);
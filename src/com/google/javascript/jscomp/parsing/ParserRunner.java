@@ -131,8 +131,15 @@ public final class ParserRunner {
       List<Comment> comments = ImmutableList.of();
       FeatureSet features = p.getFeatures();
       if (tree != null && (!es6ErrorReporter.hadError() || keepGoing)) {
+        // Nothing looks at the parse tree again, so let it go while the AST is being built.
         IRFactory factory =
-            IRFactory.transformTree(tree, sourceFile, sourceString, config, errorReporter);
+            IRFactory.transformTree(
+                tree,
+                sourceFile,
+                sourceString,
+                config,
+                errorReporter,
+                /* releaseParseTrees= */ true);
         root = factory.getResultNode();
         features = features.union(factory.getFeatures());
         root.putProp(Node.FEATURE_SET, features);
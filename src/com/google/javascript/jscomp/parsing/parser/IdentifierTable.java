@@ -0,0 +1,101 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp.parsing.parser;
+
+/**
+ * Canonical strings for identifier and keyword text, looked up by the range of source characters
+ * they were scanned from.
+ *
+ * <p>The same names occur over and over, within a file and across files. A name that is already
+ * in the table costs no {@code StringBuilder}, no substring and no {@link String#intern} call.
+ * The strings in the table are interned, so the scanner produces the same instances it always did.
+ *
+ * <p>Not thread safe. {@link IdentifierTables} hands out one table per thread.
+ */
+final class IdentifierTable {
+  private static final int INITIAL_CAPACITY = 1 << 10;
+
+  /** Once it holds this many names the table starts over, so that it stays small. */
+  private static final int MAX_SIZE = 1 << 16;
+
+  private String[] names = new String[INITIAL_CAPACITY];
+  private int[] hashes = new int[INITIAL_CAPACITY];
+  private int size;
+
+  /** Returns the interned string equal to {@code contents.substring(start, end)}. */
+  String get(String contents, int start, int end) {
+    int length = end - start;
+    int hash = 0;
+    for (int i = start; i < end; i++) {
+      hash = 31 * hash + contents.charAt(i);
+    }
+    int mask = names.length - 1;
+    int slot = spread(hash) & mask;
+    for (String name = names[slot]; name != null; name = names[slot]) {
+      if (hashes[slot] == hash
+          && name.length() == length
+          && name.regionMatches(0, contents, start, length)) {
+        return name;
+      }
+      slot = (slot + 1) & mask;
+    }
+
+    String name = contents.substring(start, end).intern();
+    if (size >= MAX_SIZE) {
+      names = new String[INITIAL_CAPACITY];
+      hashes = new int[INITIAL_CAPACITY];
+      size = 0;
+    } else if (2 * (size + 1) > names.length) {
+      resize();
+    }
+    insert(name, hash);
+    return name;
+  }
+
+  int size() {
+    return size;
+  }
+
+  private void insert(String name, int hash) {
+    int mask = names.length - 1;
+    int slot = spread(hash) & mask;
+    while (names[slot] != null) {
+      slot = (slot + 1) & mask;
+    }
+    names[slot] = name;
+    hashes[slot] = hash;
+    size++;
+  }
+
+  private void resize() {
+    String[] oldNames = names;
+    int[] oldHashes = hashes;
+    names = new String[2 * oldNames.length];
+    hashes = new int[2 * oldNames.length];
+    size = 0;
+    for (int i = 0; i < oldNames.length; i++) {
+      if (oldNames[i] != null) {
+        insert(oldNames[i], oldHashes[i]);
+      }
+    }
+  }
+
+  /** Mixes the high bits of a string hash into the low bits that select the slot. */
+  private static int spread(int hash) {
+    return hash ^ (hash >>> 16);
+  }
+}
@@ -38,6 +38,8 @@ public class Scanner {
   private int index;
   private final CommentRecorder commentRecorder;
   private int typeParameterLevel;
+  /** Canonical identifier and keyword strings, shared by the scanners that run on a thread. */
+  private final IdentifierTable identifierTable;
 
   public Scanner(ErrorReporter errorReporter, CommentRecorder commentRecorder,
       SourceFile source) {
@@ -51,6 +53,7 @@ public class Scanner {
     this.source = file;
     this.index = offset;
     this.typeParameterLevel = 0;
+    this.identifierTable = IdentifierTables.forCurrentThread();
   }
 
   public interface CommentRecorder {
@@ -666,9 +669,6 @@ public class Scanner {
   }
 
   private Token scanIdentifierOrKeyword(int beginToken, char ch) {
-    StringBuilder valueBuilder = new StringBuilder();
-    valueBuilder.append(ch);
-
     boolean containsUnicodeEscape = ch == '\\';
     boolean bracedUnicodeEscape = false;
     int unicodeEscapeLen = containsUnicodeEscape ? 1 : 0;
@@ -695,22 +695,25 @@ public class Scanner {
         unicodeEscapeLen = 0;
       }
 
-      // Add character to token
-      valueBuilder.append(nextChar());
+      // Consume character of token
+      nextChar();
       ch = peekChar();
     }
 
-    String value = valueBuilder.toString();
-
-    // Process unicode escapes.
+    // Without escapes the value is the source text itself, which is looked up in place instead of
+    // being copied. Either way the value is interned, to avoid lots of copies of the same string.
+    String value;
     if (containsUnicodeEscape) {
-      value = processUnicodeEscapes(value);
+      value = processUnicodeEscapes(getTokenString(beginToken));
       if (value == null) {
         reportError(
             getPosition(index),
             "Invalid escape sequence");
         return createToken(TokenType.ERROR, beginToken);
       }
+      value = value.intern();
+    } else {
+      value = identifierTable.get(source.contents, beginToken, index);
     }
 
     // Check to make sure the first character (or the unicode escape at the
@@ -729,8 +732,7 @@ public class Scanner {
       return new Token(k.type, getTokenRange(beginToken));
     }
 
-    // Intern the value to avoid creating lots of copies of the same string.
-    return new IdentifierToken(getTokenRange(beginToken), value.intern());
+    return new IdentifierToken(getTokenRange(beginToken), value);
   }
 
   /**
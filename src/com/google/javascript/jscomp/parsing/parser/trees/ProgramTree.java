@@ -21,7 +21,12 @@ import com.google.javascript.jscomp.parsing.parser.util.SourceRange;
 
 public class ProgramTree extends ParseTree {
 
-  public final ImmutableList<ParseTree> sourceElements;
+  /**
+   * Unlike the fields of the other trees this one is not final, so that {@link
+   * #releaseSourceElements} can let go of the statements while the tree itself is still
+   * referenced. Nothing else assigns it.
+   */
+  public ImmutableList<ParseTree> sourceElements;
   public final ImmutableList<Comment> sourceComments;
 
   public ProgramTree(
@@ -33,4 +38,14 @@ public class ProgramTree extends ParseTree {
     this.sourceElements = sourceElements;
     this.sourceComments = sourceComments;
   }
+
+  /**
+   * Returns the source elements and drops this tree's reference to them, so that each one can be
+   * collected as soon as the caller is done with it. Afterwards the tree has no source elements.
+   */
+  public ImmutableList<ParseTree> releaseSourceElements() {
+    ImmutableList<ParseTree> elements = sourceElements;
+    sourceElements = ImmutableList.of();
+    return elements;
+  }
 }
@@ -109,7 +109,12 @@ public final class BaseTranspiler implements Transpiler {
     }
 
     protected Compiler compiler() {
-      return new Compiler();
+      Compiler compiler = new Compiler();
+      if (BatchTranspiler.isWorkerThread()) {
+        // The thread already has a large stack, and the compiler stays on it.
+        compiler.disableThreads();
+      }
+      return compiler;
     }
 
     protected CompilerOptions options() {
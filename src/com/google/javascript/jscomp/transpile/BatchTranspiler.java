@@ -0,0 +1,129 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp.transpile;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Throwables.throwIfUnchecked;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import java.io.Closeable;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Transpiles many files at once, on a pool of threads.
+ *
+ * <p>Each file is transpiled by the wrapped {@link Transpiler}, which must be safe to call from
+ * several threads. {@link BaseTranspiler} and {@link CachingTranspiler} are. A {@code Compiler}
+ * compiles only once, so each file still gets its own compiler, but that compiler is confined to
+ * the pool thread that made it. The pool threads have a stack as large as the compiler's own
+ * thread, so {@link BaseTranspiler} runs the compiler on them directly instead of starting new
+ * threads for every stage of every file.
+ */
+public final class BatchTranspiler implements Closeable {
+
+  /** The stack size of the compiler's own threads. */
+  private static final long STACK_SIZE = 1L << 25;
+
+  private final Transpiler transpiler;
+  private final ExecutorService executor;
+
+  /**
+   * @param transpiler transpiles each file; usually a {@link CachingTranspiler}
+   * @param numThreads the number of files transpiled at the same time
+   */
+  public BatchTranspiler(Transpiler transpiler, int numThreads) {
+    checkArgument(numThreads > 0, "numThreads must be positive: %s", numThreads);
+    this.transpiler = checkNotNull(transpiler);
+    this.executor = Executors.newFixedThreadPool(numThreads, new WorkerThreadFactory());
+  }
+
+  /**
+   * Starts transpiling every file in {@code sources}, a map from path to code, and returns the
+   * results in the map's iteration order. The stream waits for each result as it is reached, so
+   * it can be consumed while later files are still being transpiled. A file that fails to
+   * transpile throws its {@link com.google.javascript.jscomp.bundle.TranspilationException} when
+   * its result is reached.
+   */
+  public Stream<TranspileResult> transpile(Map<Path, String> sources) {
+    List<Future<TranspileResult>> results = new ArrayList<>(sources.size());
+    for (final Map.Entry<Path, String> source : sources.entrySet()) {
+      results.add(
+          executor.submit(
+              new Callable<TranspileResult>() {
+                @Override
+                public TranspileResult call() {
+                  return transpiler.transpile(source.getKey(), source.getValue());
+                }
+              }));
+    }
+    return results.stream().map(BatchTranspiler::await);
+  }
+
+  /** Returns the runtime of the wrapped transpiler. */
+  public String runtime() {
+    return transpiler.runtime();
+  }
+
+  /** Stops the pool threads once the files already submitted have been transpiled. */
+  @Override
+  public void close() {
+    executor.shutdown();
+  }
+
+  private static TranspileResult await(Future<TranspileResult> result) {
+    try {
+      return Futures.getUnchecked(result);
+    } catch (UncheckedExecutionException e) {
+      // Rethrow the transpiler's own exception, as a direct call would.
+      throwIfUnchecked(e.getCause());
+      throw e;
+    }
+  }
+
+  /** Whether the current thread is one of the threads of a {@link BatchTranspiler}. */
+  static boolean isWorkerThread() {
+    return Thread.currentThread() instanceof WorkerThread;
+  }
+
+  private static final class WorkerThread extends Thread {
+    WorkerThread(Runnable runnable, String name) {
+      super(null, runnable, name, STACK_SIZE);
+      setDaemon(true); // Do not prevent the JVM from exiting.
+    }
+  }
+
+  private static final class WorkerThreadFactory implements ThreadFactory {
+    private final AtomicInteger count = new AtomicInteger();
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+      return new WorkerThread(runnable, "jscomp-transpile-" + count.incrementAndGet());
+    }
+  }
+}
@@ -22,7 +22,9 @@ import com.google.common.base.Supplier;
 import com.google.common.base.Suppliers;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
 import com.google.common.cache.LoadingCache;
+import com.google.common.cache.Weigher;
 import com.google.common.util.concurrent.UncheckedExecutionException;
 import com.google.javascript.jscomp.bundle.TranspilationException;
 import java.nio.file.Path;
@@ -40,13 +42,13 @@ public final class CachingTranspiler implements Transpiler {
 
   public CachingTranspiler(
       final Transpiler delegate, CacheBuilder<Object, ? super TranspileResult> builder) {
+    this(delegate, builder.build(loader(delegate)));
+  }
+
+  private CachingTranspiler(
+      final Transpiler delegate, LoadingCache<Key, TranspileResult> cache) {
     checkNotNull(delegate);
-    this.cache = builder.build(new CacheLoader<Key, TranspileResult>() {
-      @Override
-      public TranspileResult load(Key key) {
-        return delegate.transpile(key.path, key.code);
-      }
-    });
+    this.cache = cache;
     this.runtime = Suppliers.memoize(new Supplier<String>() {
       @Override
       public String get() {
@@ -55,6 +57,50 @@ public final class CachingTranspiler implements Transpiler {
     });
   }
 
+  /**
+   * Returns a transpiler whose cache holds at most about {@code maximumChars} chars, counting the
+   * original code, the transpiled code and the source map of each entry. It records {@link
+   * #stats}.
+   */
+  public static CachingTranspiler weighted(Transpiler delegate, long maximumChars) {
+    return new CachingTranspiler(
+        delegate,
+        CacheBuilder.newBuilder()
+            .maximumWeight(maximumChars)
+            .weigher(CHARS)
+            .recordStats()
+            .build(loader(delegate)));
+  }
+
+  private static CacheLoader<Key, TranspileResult> loader(final Transpiler delegate) {
+    checkNotNull(delegate);
+    return new CacheLoader<Key, TranspileResult>() {
+      @Override
+      public TranspileResult load(Key key) {
+        return delegate.transpile(key.path, key.code);
+      }
+    };
+  }
+
+  /**
+   * Returns the cache's hit and miss counts. They are only recorded if the cache was built with
+   * {@link CacheBuilder#recordStats}, as {@link #weighted} does.
+   */
+  public CacheStats stats() {
+    return cache.stats();
+  }
+
+  private static final Weigher<Key, TranspileResult> CHARS =
+      new Weigher<Key, TranspileResult>() {
+        @Override
+        public int weigh(Key key, TranspileResult result) {
+          // An untranspiled result shares its code with the key, so this overestimates it.
+          long chars =
+              (long) key.code.length() + result.transpiled().length() + result.sourceMap().length();
+          return (int) Math.min(chars, Integer.MAX_VALUE);
+        }
+      };
+
   @Override
   public TranspileResult transpile(Path path, String code) {
     try {
@@ -42,13 +42,23 @@ public final class TranspilerBuilder {
   }
 
   /**
-   * Returns a TranspilerBuilder with cached transpilations, using the default
-   * cache settings (maximum size of 10,000).  Note that the builder itself is
-   * not changed.
+   * Returns a TranspilerBuilder with cached transpilations, using the default cache settings:
+   * at most 64M chars of code and source maps, with hit and miss counts recorded. Note that the
+   * builder itself is not changed.
    */
   @CheckReturnValue
   public TranspilerBuilder caching() {
-    return caching(DEFAULT_CACHE_SPEC);
+    return caching(DEFAULT_CACHE_CHARS);
+  }
+
+  /**
+   * Returns a TranspilerBuilder with cached transpilations, holding at most about {@code
+   * maximumChars} chars of code and source maps. See {@link CachingTranspiler#weighted}. Note that
+   * the builder itself is not changed.
+   */
+  @CheckReturnValue
+  public TranspilerBuilder caching(long maximumChars) {
+    return new TranspilerBuilder(CachingTranspiler.weighted(transpiler, maximumChars));
   }
 
   /**
@@ -69,7 +79,7 @@ public final class TranspilerBuilder {
     return new TranspilerBuilder(new CachingTranspiler(transpiler, builder));
   }
 
-  private static final String DEFAULT_CACHE_SPEC = "maximumSize=10000";
+  private static final long DEFAULT_CACHE_CHARS = 64L << 20;
 
   /**
    * Returns the built Transpiler.
@@ -67,7 +67,7 @@ import javax.annotation.Nullable;
 
 public class Node implements Serializable {
 
-  private static final long serialVersionUID = 1L;
+  private static final long serialVersionUID = 2L;
 
   public static final byte JSDOC_INFO_PROP = 29, // contains a JSDocInfo object
       VAR_ARGS_NAME = 30, // the name node is a variable length
@@ -164,6 +164,33 @@ public class Node implements Serializable {
       // can act on it.
       IS_SHORTHAND_PROPERTY = 98; // Indicates that a property {x:x} was originally parsed as {x}.
 
+  /**
+   * Props that are only ever set to true or false. These are kept in the {@link #booleanProps} bit
+   * set instead of the property list, so that setting a flag does not allocate and does not copy
+   * the list items in front of it.
+   */
+  private static final byte[] BOOLEAN_PROPS = {
+      VAR_ARGS_NAME, INCRDECR_PROP, QUOTED_PROP, OPT_ARG_NAME, SYNTHETIC_BLOCK_PROP, ADDED_BLOCK,
+      IS_CONSTANT_NAME, IS_NAMESPACE, DIRECT_EVAL, FREE_CALL, SLASH_V, REFLECTED_OBJECT,
+      STATIC_MEMBER, GENERATOR_FN, ARROW_FN, ASYNC_FN, YIELD_ALL, EXPORT_DEFAULT, EXPORT_ALL_FROM,
+      IS_CONSTANT_VAR, GENERATOR_MARKER, GENERATOR_SAFE, COMPUTED_PROP_METHOD,
+      COMPUTED_PROP_GETTER, COMPUTED_PROP_SETTER, COMPUTED_PROP_VARIABLE, ANALYZED_DURING_GTI,
+      CONSTANT_PROPERTY_DEF, OPT_ES6_TYPED, CONSTRUCT_SIGNATURE, NON_INDEXABLE, GOOG_MODULE,
+      GOOG_MODULE_REQUIRE, IS_MODULE_NAME, WAS_PREVIOUSLY_PROVIDED, IS_ES6_CLASS, TRANSPILED,
+      DELETED, GOOG_MODULE_ALIAS, IS_UNUSED_PARAMETER, MODULE_EXPORT, IS_SHORTHAND_PROPERTY};
+
+  /** Maps a prop type to its bit in {@link #booleanProps}, or -1 if it is not a boolean prop. */
+  private static final byte[] BOOLEAN_PROP_BITS = new byte[Byte.MAX_VALUE + 1];
+
+  static {
+    checkState(BOOLEAN_PROPS.length <= Long.SIZE);
+    Arrays.fill(BOOLEAN_PROP_BITS, (byte) -1);
+    for (byte i = 0; i < BOOLEAN_PROPS.length; i++) {
+      checkState(BOOLEAN_PROP_BITS[BOOLEAN_PROPS[i]] == -1);
+      BOOLEAN_PROP_BITS[BOOLEAN_PROPS[i]] = i;
+    }
+  }
+
   private static final String propToString(byte propType) {
       switch (propType) {
         case VAR_ARGS_NAME:      return "var_args_name";
@@ -938,6 +965,10 @@ public class Node implements Serializable {
     replaceChild(target, newChild);
   }
 
+  /**
+   * Looks up a property in the property list. Props that are set in {@link #booleanProps} are not
+   * in the list.
+   */
   @VisibleForTesting
   @Nullable
   final PropListItem lookupProperty(byte propType) {
@@ -948,6 +979,11 @@ public class Node implements Serializable {
     return x;
   }
 
+  private static long booleanPropMask(byte propType) {
+    int bit = BOOLEAN_PROP_BITS[propType];
+    return bit < 0 ? 0L : 1L << bit;
+  }
+
   /**
    * Clone the properties from the provided node without copying
    * the property object.  The receiving node may not have any
@@ -956,16 +992,21 @@ public class Node implements Serializable {
    * @return this node.
    */
   public final Node clonePropsFrom(Node other) {
-    checkState(this.propListHead == null, "Node has existing properties.");
+    checkState(!this.hasProps(), "Node has existing properties.");
     this.propListHead = other.propListHead;
+    this.booleanProps = other.booleanProps;
     return this;
   }
 
   public final boolean hasProps() {
-    return propListHead != null;
+    return propListHead != null || booleanProps != 0;
   }
 
   public final void removeProp(byte propType) {
+    booleanProps &= ~booleanPropMask(propType);
+    if (propListHead == null) {
+      return;
+    }
     PropListItem result = removeProp(propListHead, propType);
     if (result != propListHead) {
       propListHead = result;
@@ -1003,7 +1044,12 @@ public class Node implements Serializable {
   }
 
   public final boolean getBooleanProp(byte propType) {
-    return getIntProp(propType) != 0;
+    if ((booleanProps & booleanPropMask(propType)) != 0) {
+      return true;
+    }
+    // Boolean props given an int value other than 1 are still kept in the list.
+    PropListItem item = lookupProperty(propType);
+    return item != null && item.getIntValue() != 0;
   }
 
   /**
@@ -1011,6 +1057,9 @@ public class Node implements Serializable {
    * is not defined.
    */
   public final int getIntProp(byte propType) {
+    if ((booleanProps & booleanPropMask(propType)) != 0) {
+      return 1;
+    }
     PropListItem item = lookupProperty(propType);
     if (item == null) {
       return 0;
@@ -1019,6 +1068,9 @@ public class Node implements Serializable {
   }
 
   public final int getExistingIntProp(byte propType) {
+    if ((booleanProps & booleanPropMask(propType)) != 0) {
+      return 1;
+    }
     PropListItem item = lookupProperty(propType);
     if (item == null) {
       throw new IllegalStateException("missing prop: " + propType);
@@ -1039,7 +1091,9 @@ public class Node implements Serializable {
 
   public final void putIntProp(byte propType, int value) {
     removeProp(propType);
-    if (value != 0) {
+    if (value == 1 && BOOLEAN_PROP_BITS[propType] >= 0) {
+      booleanProps |= booleanPropMask(propType);
+    } else if (value != 0) {
       propListHead = createProp(propType, value, propListHead);
     }
   }
@@ -1089,12 +1143,23 @@ public class Node implements Serializable {
     for (PropListItem x = propListHead; x != null; x = x.next) {
       count++;
     }
+    for (byte propType : BOOLEAN_PROPS) {
+      if ((booleanProps & booleanPropMask(propType)) != 0) {
+        count++;
+      }
+    }
 
     byte[] keys = new byte[count];
     for (PropListItem x = propListHead; x != null; x = x.next) {
       count--;
       keys[count] = x.propType;
     }
+    for (byte propType : BOOLEAN_PROPS) {
+      if ((booleanProps & booleanPropMask(propType)) != 0) {
+        count--;
+        keys[count] = propType;
+      }
+    }
 
     Arrays.sort(keys);
     return keys;
@@ -1206,7 +1271,7 @@ public class Node implements Serializable {
         sb.append(" [");
         sb.append(propToString(type));
         sb.append(": ");
-        sb.append(x);
+        sb.append(x != null ? x : getIntProp(type));
         sb.append(']');
       }
     }
@@ -1261,9 +1326,15 @@ public class Node implements Serializable {
    * Linked list of properties. Since vast majority of nodes would have no more than 2 properties,
    * linked list saves memory and provides fast lookup. If this does not holds, propListHead can be
    * replaced by UintMap.
+   *
+   * <p>The list is immutable, so nodes can share it (or its tail, as is done for the
+   * STATIC_SOURCE_FILE prop). Flags are not stored here but in {@link #booleanProps}.
    */
   @Nullable private transient PropListItem propListHead;
 
+  /** Bit set of the {@link #BOOLEAN_PROPS} that are true, indexed by {@link #BOOLEAN_PROP_BITS}. */
+  private transient long booleanProps;
+
   /**
    * COLUMN_BITS represents how many of the lower-order bits of
    * sourcePosition are reserved for storing the column number.
@@ -2251,6 +2322,7 @@ public class Node implements Serializable {
     dst.setLength(this.getLength());
     dst.setTypeI(this.typei);
     dst.setPropListHead(this.propListHead);
+    ((Node) dst).booleanProps = this.booleanProps;
 
     // TODO(johnlenz): Remove this once JSTypeExpression are immutable
     if (cloneTypeExprs) {
@@ -3303,6 +3375,7 @@ public class Node implements Serializable {
     out.writeObject(null);
     out.writeObject(typei);
     out.writeObject(propListHead);
+    out.writeLong(booleanProps);
   }
 
   @GwtIncompatible("ObjectInputStream")
@@ -3339,6 +3412,7 @@ public class Node implements Serializable {
     }
     typei = (TypeI) in.readObject();
     propListHead = (PropListItem) in.readObject();
+    booleanProps = in.readLong();
   }
 
   /**
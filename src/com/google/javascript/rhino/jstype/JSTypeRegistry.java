@@ -79,6 +79,7 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Objects;
 import java.util.Set;
 
 /**
@@ -206,6 +207,14 @@ public class JSTypeRegistry implements TypeIRegistry {
   // there are no template types.
   private final TemplateTypeMap emptyTemplateTypeMap;
 
+  // Canonical instances of the union and templatized types created so far, keyed by what they
+  // were created from. The registry hands out the same instance for the same key, so equivalence
+  // checks between them end at the identity check. The keys use identity hash codes, so they are
+  // not serialized. Record types are not shared: the JSDoc and nodes of their properties are set
+  // per declaration.
+  private transient Map<TypeKey, UnionType> canonicalUnionTypes = new HashMap<>();
+  private transient Map<TypeKey, TemplatizedType> canonicalTemplatizedTypes = new HashMap<>();
+
   public JSTypeRegistry(ErrorReporter reporter) {
     this(reporter, ImmutableSet.<String>of());
   }
@@ -280,6 +289,8 @@ public class JSTypeRegistry implements TypeIRegistry {
    * Reset to run the TypeCheck pass.
    */
   public void resetForTypeCheck() {
+    canonicalUnionTypes.clear();
+    canonicalTemplatizedTypes.clear();
     typesIndexedByProperty.clear();
     eachRefTypeIndexedByProperty.clear();
     initializeBuiltInTypes();
@@ -1367,6 +1378,24 @@ public class JSTypeRegistry implements TypeIRegistry {
     return builder.build();
   }
 
+  /**
+   * Returns the union of {@code alternates}, which {@link UnionTypeBuilder} has already reduced.
+   */
+  UnionType createUnionTypeFromAlternates(ImmutableList<JSType> alternates) {
+    // The builder drops alternates that are subtypes of others, and unresolved named types can
+    // change how types relate. So only unions created once all named types are resolved are shared.
+    if (!unresolvedNamedTypes.isEmpty()) {
+      return new UnionType(this, alternates);
+    }
+    TypeKey key = new TypeKey(alternates.toArray());
+    UnionType union = canonicalUnionTypes.get(key);
+    if (union == null) {
+      union = new UnionType(this, alternates);
+      canonicalUnionTypes.put(key, union);
+    }
+    return union;
+  }
+
   /**
    * Creates an enum type.
    */
@@ -1716,7 +1745,22 @@ public class JSTypeRegistry implements TypeIRegistry {
       ObjectType baseType, ImmutableList<JSType> templatizedTypes) {
     // Only ObjectTypes can currently be templatized; extend this logic when
     // more types can be templatized.
-    return new TemplatizedType(this, baseType, templatizedTypes);
+    if (baseType instanceof NamedType && !baseType.isResolved()) {
+      // The template keys of the base type are not known yet.
+      return new TemplatizedType(this, baseType, templatizedTypes);
+    }
+    Object[] parts = new Object[1 + templatizedTypes.size()];
+    parts[0] = baseType;
+    for (int i = 0; i < templatizedTypes.size(); i++) {
+      parts[i + 1] = templatizedTypes.get(i);
+    }
+    TypeKey key = new TypeKey(parts);
+    TemplatizedType type = canonicalTemplatizedTypes.get(key);
+    if (type == null) {
+      type = new TemplatizedType(this, baseType, templatizedTypes);
+      canonicalTemplatizedTypes.put(key, type);
+    }
+    return type;
   }
 
   /**
@@ -2072,6 +2116,51 @@ public class JSTypeRegistry implements TypeIRegistry {
     templateTypes.clear();
   }
 
+  /**
+   * What a canonical type is created from: types, compared by identity, and any other values,
+   * compared with equals. The hash codes of types can change as named types are
+   * resolved, so the key hashes the identities of types, once.
+   */
+  private static final class TypeKey {
+    private final Object[] parts;
+    private final int hashCode;
+
+    TypeKey(Object[] parts) {
+      this.parts = parts;
+      int hash = 1;
+      for (Object part : parts) {
+        hash = 31 * hash
+            + (part instanceof JSType ? System.identityHashCode(part) : Objects.hashCode(part));
+      }
+      this.hashCode = hash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof TypeKey)) {
+        return false;
+      }
+      TypeKey that = (TypeKey) o;
+      if (this.hashCode != that.hashCode || this.parts.length != that.parts.length) {
+        return false;
+      }
+      for (int i = 0; i < parts.length; i++) {
+        Object part = this.parts[i];
+        if (part instanceof JSType
+            ? part != that.parts[i]
+            : !Objects.equals(part, that.parts[i])) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+
   /**
    * Saves the derived state.
    *
@@ -2096,5 +2185,7 @@ public class JSTypeRegistry implements TypeIRegistry {
   public void restoreContents(ObjectInputStream in) throws IOException, ClassNotFoundException {
     eachRefTypeIndexedByProperty = (Map<String, Map<String, ObjectType>>) in.readObject();
     interfaceToImplementors = (Multimap<String, FunctionTypeI>) in.readObject();
+    canonicalUnionTypes = new HashMap<>();
+    canonicalTemplatizedTypes = new HashMap<>();
   }
 }
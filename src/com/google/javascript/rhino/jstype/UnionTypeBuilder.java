@@ -372,7 +372,7 @@ public class UnionTypeBuilder implements Serializable {
     if (result == null) {
       result = reduceAlternatesWithoutUnion();
       if (result == null) {
-        result = new UnionType(registry, ImmutableList.copyOf(getAlternates()));
+        result = registry.createUnionTypeFromAlternates(ImmutableList.copyOf(getAlternates()));
       }
     }
     return result;
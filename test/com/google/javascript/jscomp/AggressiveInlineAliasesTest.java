@@ -16,6 +16,9 @@
 
 package com.google.javascript.jscomp;
 
+import com.google.javascript.jscomp.CompilerOptions.PropertyCollapseLevel;
+import com.google.javascript.rhino.Node;
+
 /** Tests for {@link AggressiveInlineAliases}. */
 public class AggressiveInlineAliasesTest extends CompilerTestCase {
 
@@ -26,6 +29,8 @@ public class AggressiveInlineAliasesTest extends CompilerTestCase {
           + "function String() {};"
           + "var arguments";
 
+  private boolean collapsePropertiesAfterwards = false;
+
   public AggressiveInlineAliasesTest() {
     super(EXTERNS);
   }
@@ -36,8 +41,17 @@ public class AggressiveInlineAliasesTest extends CompilerTestCase {
   }
 
   @Override
-  protected CompilerPass getProcessor(Compiler compiler) {
-    return new AggressiveInlineAliases(compiler);
+  protected CompilerPass getProcessor(final Compiler compiler) {
+    if (!collapsePropertiesAfterwards) {
+      return new AggressiveInlineAliases(compiler);
+    }
+    return new CompilerPass() {
+      @Override
+      public void process(Node externs, Node root) {
+        new AggressiveInlineAliases(compiler).process(externs, root);
+        new CollapseProperties(compiler, PropertyCollapseLevel.ALL).process(externs, root);
+      }
+    };
   }
 
   @Override
@@ -46,6 +60,27 @@ public class AggressiveInlineAliasesTest extends CompilerTestCase {
     enableNormalize();
   }
 
+  @Override
+  protected void tearDown() throws Exception {
+    super.tearDown();
+    collapsePropertiesAfterwards = false;
+  }
+
+  public void testUnreadAliasInUsedAssignmentStillBlocksCollapsing() {
+    collapsePropertiesAfterwards = true;
+    // The alias is never read, so it is dropped from the namespace, but the assignment stays
+    // because its value is used. ns still escapes, so ns.x must not be collapsed.
+    testSame(
+        lines(
+            "var ns = {};",
+            "ns.x = 1;",
+            "function f() {",
+            "  var alias;",
+            "  alert(alias = ns);",
+            "}",
+            "alert(ns.x);"));
+  }
+
   public void test_b19179602() {
     test(
         lines(
@@ -25,6 +25,7 @@ import com.google.javascript.jscomp.TypeICompilerTestCase.TypeInferenceMode;
 import com.google.javascript.rhino.IR;
 import com.google.javascript.rhino.Node;
 import com.google.javascript.rhino.Token;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -2911,6 +2912,56 @@ public final class CodePrinterTest extends CodePrinterTestBase {
         .build());
   }
 
+  public void testWriteToSmallCode() throws IOException {
+    checkWriteTo("var x = 1; function f(a) { return a + x; }", false, false);
+    checkWriteTo("var x = 1; function f(a) { return a + x; }", true, false);
+  }
+
+  public void testWriteToFlushesLargeCode() throws IOException {
+    StringBuilder js = new StringBuilder();
+    for (int i = 0; i < 3000; i++) {
+      js.append("var a").append(i).append(" = 'x';\n");
+      js.append("function f").append(i).append("(p) { if (p) { return a").append(i)
+          .append(" + p; } return [1, 2, 3]; }\n");
+    }
+    checkWriteTo(js.toString(), false, false);
+    checkWriteTo(js.toString(), false, true);
+    checkWriteTo(js.toString(), true, false);
+  }
+
+  /** Checks that streaming the code out gives the same code and source map as building it. */
+  private void checkWriteTo(String js, boolean prettyPrint, boolean lineBreak)
+      throws IOException {
+    Node root = parse(js);
+    CompilerOptions options = new CompilerOptions();
+    options.setLineLengthThreshold(40);
+
+    SourceMap builtMap = SourceMap.Format.DEFAULT.getInstance();
+    String built =
+        new CodePrinter.Builder(root)
+            .setCompilerOptions(options)
+            .setPrettyPrint(prettyPrint)
+            .setLineBreak(lineBreak)
+            .setSourceMap(builtMap)
+            .build();
+
+    SourceMap streamedMap = SourceMap.Format.DEFAULT.getInstance();
+    StringBuilder streamed = new StringBuilder();
+    new CodePrinter.Builder(root)
+        .setCompilerOptions(options)
+        .setPrettyPrint(prettyPrint)
+        .setLineBreak(lineBreak)
+        .setSourceMap(streamedMap)
+        .writeTo(streamed);
+
+    assertEquals(built, streamed.toString());
+    StringBuilder builtMapText = new StringBuilder();
+    builtMap.appendTo(builtMapText, "out.js");
+    StringBuilder streamedMapText = new StringBuilder();
+    streamedMap.appendTo(streamedMapText, "out.js");
+    assertEquals(builtMapText.toString(), streamedMapText.toString());
+  }
+
   private void checkWithOriginalName(
       String code, String expectedCode, CompilerOptions compilerOptions) {
     compilerOptions.setCheckSymbols(true);
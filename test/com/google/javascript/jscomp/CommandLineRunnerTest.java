@@ -2120,6 +2120,47 @@ public final class CommandLineRunnerTest extends TestCase {
         + "\\n\\\"names\\\":[\\\"alert\\\"]\\n}\\n\"}]");
   }
 
+  public void testParallelModuleOutputMatchesSerialOutput() throws IOException {
+    String inputString =
+        LINE_JOINER.join(
+            "[",
+            "  {\"src\": \"var a = 1; alert(a);\", \"path\":\"a.js\"},",
+            "  {\"src\": \"var b = a + 1;\", \"path\":\"b.js\"},",
+            "  {\"src\": \"alert(a, b);\", \"path\":\"c.js\"}",
+            "]");
+    args.add("--json_streams=BOTH");
+    args.add("--module=m1:1");
+    args.add("--module=m2:1:m1");
+    args.add("--module=m3:1:m2");
+    args.add("--module_wrapper=m2:(function(){%s})();");
+
+    String serialOutput = runJsonStreams(inputString, 1);
+    String parallelOutput = runJsonStreams(inputString, 3);
+    assertThat(serialOutput).contains("\"path\":\"./m3.js\"");
+    assertThat(parallelOutput).isEqualTo(serialOutput);
+  }
+
+  private String runJsonStreams(String inputString, final int numParallelThreads)
+      throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    CommandLineRunner runner =
+        new CommandLineRunner(
+            args.toArray(new String[] {}),
+            new ByteArrayInputStream(inputString.getBytes(UTF_8)),
+            new PrintStream(out),
+            new PrintStream(errReader)) {
+          @Override
+          protected CompilerOptions createOptions() {
+            CompilerOptions options = super.createOptions();
+            options.setNumParallelThreads(numParallelThreads);
+            return options;
+          }
+        };
+    lastCompiler = runner.getCompiler();
+    runner.doRun();
+    return new String(out.toByteArray(), UTF_8);
+  }
+
   public void testAssumeFunctionWrapper() {
     args.add("--compilation_level=SIMPLE_OPTIMIZATIONS");
     args.add("--assume_function_wrapper");
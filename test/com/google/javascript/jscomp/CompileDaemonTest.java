@@ -0,0 +1,171 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.base.Splitter;
+import com.google.common.io.Files;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.List;
+import junit.framework.TestCase;
+
+/** Tests for {@link CompileDaemon}. */
+public final class CompileDaemonTest extends TestCase {
+
+  private File input;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    input = File.createTempFile("input", ".js");
+    input.deleteOnExit();
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    input.delete();
+    super.tearDown();
+  }
+
+  public void testCompilesRequestsInOrder() throws IOException {
+    // Also exercises the cached builtin externs.
+    Files.asCharSink(input, UTF_8).write("var x = 1 + 2; alert(x);");
+    String request = request(input, "1", "BROWSER") + "\n" + request(input, "1", "BROWSER");
+
+    List<String> responses = serve(new CompileDaemon(), request);
+
+    assertThat(responses).hasSize(2);
+    for (String response : responses) {
+      JsonObject json = new JsonParser().parse(response).getAsJsonObject();
+      assertThat(json.get("exitCode").getAsInt()).isEqualTo(0);
+      assertThat(json.get("stdout").getAsString()).isEqualTo("var x=3;alert(x);\n");
+      assertThat(json.get("stderr").getAsString()).isEmpty();
+    }
+  }
+
+  public void testReparsesInputWhenDigestChanges() throws IOException {
+    CompileDaemon daemon = new CompileDaemon();
+    Files.asCharSink(input, UTF_8).write("alert(1);");
+    assertThat(stdout(serve(daemon, request(input, "1")))).isEqualTo("alert(1);\n");
+
+    // The daemon keeps the parsed input as long as the digest stays the same.
+    Files.asCharSink(input, UTF_8).write("alert(2);");
+    assertThat(stdout(serve(daemon, request(input, "1")))).isEqualTo("alert(1);\n");
+    assertThat(stdout(serve(daemon, request(input, "2")))).isEqualTo("alert(2);\n");
+  }
+
+  public void testReportsErrors() throws IOException {
+    Files.asCharSink(input, UTF_8).write("var x = ;");
+
+    List<String> responses = serve(new CompileDaemon(), request(input, "1"));
+
+    JsonObject json = new JsonParser().parse(responses.get(0)).getAsJsonObject();
+    assertThat(json.get("exitCode").getAsInt()).isNotEqualTo(0);
+    assertThat(json.get("stderr").getAsString()).contains("ERROR - Parse error");
+  }
+
+  public void testReportsFlagErrors() throws IOException {
+    List<String> responses =
+        serve(new CompileDaemon(), "{\"args\": [\"--no_such_flag\"]}");
+
+    JsonObject json = new JsonParser().parse(responses.get(0)).getAsJsonObject();
+    assertThat(json.get("exitCode").getAsInt()).isEqualTo(-1);
+    assertThat(json.get("stderr").getAsString()).contains("no_such_flag");
+  }
+
+  public void testReadsStdin() throws IOException {
+    String request =
+        "{\"args\": [\"--compilation_level=WHITESPACE_ONLY\"], \"stdin\": \"var  y = 1;\"}";
+
+    assertThat(stdout(serve(new CompileDaemon(), request))).isEqualTo("var y=1;\n");
+  }
+
+  public void testKeepsServingAfterMalformedRequests() throws IOException {
+    Files.asCharSink(input, UTF_8).write("alert(1);");
+    String requests =
+        "{\"args\": [\n"
+            + "{\"args\": [], \"unknown\": 1}\n"
+            + "{\"args\": 1}\n"
+            + request(input, "1");
+
+    List<String> responses = serve(new CompileDaemon(), requests);
+
+    assertThat(responses).hasSize(4);
+    for (String response : responses.subList(0, 3)) {
+      JsonObject json = new JsonParser().parse(response).getAsJsonObject();
+      assertThat(json.get("exitCode").getAsInt()).isEqualTo(-1);
+      assertThat(json.get("stderr").getAsString()).startsWith("Malformed request: ");
+    }
+    assertThat(stdout(responses.subList(3, 4))).isEqualTo("alert(1);\n");
+  }
+
+  public void testDoesNotShareAstsBetweenParserConfigs() throws IOException {
+    CompileDaemon daemon = new CompileDaemon();
+    Files.asCharSink(input, UTF_8).write("/** @unknownTag */ function f() {}");
+    String path = input.getPath().replace("\\", "\\\\");
+    String inputs = " \"inputs\": [{\"path\": \"" + path + "\", \"digest\": \"1\"}]}";
+
+    List<String> responses =
+        serve(
+            daemon,
+            "{\"args\": [\"--js=" + path + "\", \"--env=CUSTOM\", \"--warning_level=VERBOSE\","
+                + " \"--extra_annotation_name=unknownTag\"]," + inputs);
+    JsonObject json = new JsonParser().parse(responses.get(0)).getAsJsonObject();
+    assertThat(json.get("stderr").getAsString()).doesNotContain("unknownTag");
+
+    // Without the extra annotation name the file is parsed again, and the tag is reported.
+    responses =
+        serve(
+            daemon,
+            "{\"args\": [\"--js=" + path + "\", \"--env=CUSTOM\", \"--warning_level=VERBOSE\"],"
+                + inputs);
+    json = new JsonParser().parse(responses.get(0)).getAsJsonObject();
+    assertThat(json.get("stderr").getAsString()).contains("unknownTag");
+  }
+
+  private static String request(File input, String digest) {
+    return request(input, digest, "CUSTOM");
+  }
+
+  private static String request(File input, String digest, String env) {
+    String path = input.getPath().replace("\\", "\\\\");
+    return "{\"args\": [\"--js=" + path + "\", \"--env=" + env + "\"],"
+        + " \"inputs\": [{\"path\": \"" + path + "\", \"digest\": \"" + digest + "\"}]}";
+  }
+
+  private static List<String> serve(CompileDaemon daemon, String requests) throws IOException {
+    StringWriter out = new StringWriter();
+    daemon.serve(new StringReader(requests), out);
+    String responses = out.toString();
+    assertThat(responses).endsWith("\n");
+    return Splitter.on('\n').omitEmptyStrings().splitToList(responses);
+  }
+
+  private static String stdout(List<String> responses) {
+    assertThat(responses).hasSize(1);
+    JsonObject json = new JsonParser().parse(responses.get(0)).getAsJsonObject();
+    assertThat(json.get("exitCode").getAsInt()).isEqualTo(0);
+    return json.get("stdout").getAsString();
+  }
+}
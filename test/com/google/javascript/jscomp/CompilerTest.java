@@ -88,6 +88,60 @@ public final class CompilerTest extends TestCase {
     assertEquals(6, cb.getColumnIndex());
   }
 
+  public void testCodeBuilderStreaming() throws IOException {
+    StringBuilder out = new StringBuilder();
+    Compiler.CodeBuilder cb = new Compiler.CodeBuilder(out);
+    cb.append("foo();\n");
+    cb.append("goo();");
+
+    assertEquals("foo();\ngoo();", out.toString());
+    assertEquals(13, cb.getLength());
+    assertEquals(1, cb.getLineIndex());
+    assertEquals(6, cb.getColumnIndex());
+    assertTrue(cb.endsWith(";"));
+    assertEquals(')', cb.getCharFromEnd(2));
+  }
+
+  public void testToSourceModuleToAppendable() throws IOException {
+    JSModule m1 = new JSModule("m1");
+    m1.add(SourceFile.fromCode("a.js", "var a = 1;"));
+    m1.add(SourceFile.fromCode("b.js", "var b = a"));
+    JSModule m2 = new JSModule("m2");
+    m2.add(SourceFile.fromCode("c.js", "var c = b;"));
+    m2.addDependency(m1);
+
+    CompilerOptions options = new CompilerOptions();
+    options.setSourceMapOutputPath("out.map");
+    Compiler compiler = new Compiler();
+    compiler.compileModules(
+        ImmutableList.<SourceFile>of(), ImmutableList.of(m1, m2), options);
+
+    for (JSModule module : ImmutableList.of(m1, m2)) {
+      compiler.getSourceMap().reset();
+      String expected = compiler.toSource(module);
+      StringBuilder expectedMap = new StringBuilder();
+      compiler.getSourceMap().appendTo(expectedMap, "out.js");
+
+      compiler.getSourceMap().reset();
+      StringBuilder out = new StringBuilder();
+      compiler.toSource(module, out);
+      StringBuilder map = new StringBuilder();
+      compiler.getSourceMap().appendTo(map, "out.js");
+      assertEquals(expected, out.toString());
+      assertEquals(expectedMap.toString(), map.toString());
+
+      SourceMap moduleMap = options.sourceMapFormat.getInstance();
+      out = new StringBuilder();
+      compiler.toSource(module, out, moduleMap);
+      map = new StringBuilder();
+      moduleMap.appendTo(map, "out.js");
+      assertEquals(expected, out.toString());
+      assertEquals(expectedMap.toString(), map.toString());
+    }
+    compiler.getSourceMap().reset();
+    assertEquals("'use strict';var a=1;var b=a;", compiler.toSource(m1));
+  }
+
   public void testCyclicalDependencyInInputs() {
     List<SourceFile> inputs = ImmutableList.of(
         SourceFile.fromCode(
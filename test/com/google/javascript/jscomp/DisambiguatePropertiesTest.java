@@ -31,6 +31,7 @@ import java.util.TreeSet;
 
 public final class DisambiguatePropertiesTest extends TypeICompilerTestCase {
   private DisambiguateProperties lastPass;
+  private int numParallelThreads = 1;
   private static final String RENAME_FUNCTION_DEFINITION =
       "/** @const */ var goog = {};\n"
           + "/** @const */ goog.reflect = {};\n"
@@ -49,6 +50,12 @@ public final class DisambiguatePropertiesTest extends TypeICompilerTestCase {
     ignoreWarnings(DiagnosticGroups.NEW_CHECK_TYPES_EXTRA_CHECKS);
   }
 
+  @Override
+  protected void tearDown() throws Exception {
+    super.tearDown();
+    numParallelThreads = 1;
+  }
+
   @Override
   protected CompilerPass getProcessor(final Compiler compiler) {
 
@@ -56,7 +63,10 @@ public final class DisambiguatePropertiesTest extends TypeICompilerTestCase {
       @Override
       public void process(Node externs, Node root) {
         Map<String, CheckLevel> propertiesToErrorFor = new HashMap<>();
-        propertiesToErrorFor.put("foobar", CheckLevel.ERROR);
+        if (numParallelThreads == 1) {
+          propertiesToErrorFor.put("foobar", CheckLevel.ERROR);
+        }
+        compiler.getOptions().setNumParallelThreads(numParallelThreads);
 
         // This must be created after type checking is run as it depends on
         // any mismatches found during checking.
@@ -449,6 +459,42 @@ public final class DisambiguatePropertiesTest extends TypeICompilerTestCase {
     testSets(js, "{a=[[Bar.prototype, Foo.prototype], [Baz.prototype]]}");
   }
 
+  public void testParallelCollection() {
+    this.mode = TypeInferenceMode.NTI_ONLY;
+    numParallelThreads = 4;
+    String[] js = {
+      lines(
+          "/** @constructor */ function Foo() {}",
+          "Foo.prototype.a = 0;",
+          "/** @constructor */ function Bar() {}",
+          "Bar.prototype.a = 0;",
+          "/** @constructor */ function Baz() {}",
+          "Baz.prototype.a = 0;"),
+      "/** @param {Foo} f */ function useFoo(f) { f.a = 1; }",
+      // The union in this script relates types that the other scripts use apart.
+      "/** @param {Bar|Foo} x */ function useBarOrFoo(x) { x.a = 2; }",
+      "/** @param {Baz} z */ function useBaz(z) { z.a = 3; }",
+      "/** @param {?} u */ function useUnknown(u) { u.b = 4; }",
+    };
+    String[] output = {
+      lines(
+          "/** @constructor */ function Foo() {}",
+          "Foo.prototype.Bar_prototype$a = 0;",
+          "/** @constructor */ function Bar() {}",
+          "Bar.prototype.Bar_prototype$a = 0;",
+          "/** @constructor */ function Baz() {}",
+          "Baz.prototype.Baz_prototype$a = 0;"),
+      "/** @param {Foo} f */ function useFoo(f) { f.Bar_prototype$a = 1; }",
+      "/** @param {Bar|Foo} x */ function useBarOrFoo(x) { x.Bar_prototype$a = 2; }",
+      "/** @param {Baz} z */ function useBaz(z) { z.Baz_prototype$a = 3; }",
+      "/** @param {?} u */ function useUnknown(u) { u.b = 4; }",
+    };
+    test(srcs(js), expected(output));
+    assertEquals(
+        "{a=[[Bar.prototype, Foo.prototype], [Baz.prototype]]}",
+        mapToString(lastPass.getRenamedTypesForTesting()));
+  }
+
   public void testIgnoreUnknownType() {
     String js = ""
         + "/** @constructor */\n"
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.javascript.jscomp.parsing.Config;
+import com.google.javascript.jscomp.parsing.ParserRunner;
+import com.google.javascript.rhino.Node;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import junit.framework.TestCase;
+
+/** Tests for {@link ExternsSnapshot}. */
+public final class ExternsSnapshotTest extends TestCase {
+
+  private static final String EXTERN = "/** @constructor */ function Foo() {}\nvar bar;";
+
+  public void testLoadsWrittenExtern() throws IOException {
+    ExternsSnapshot snapshot = snapshot(SourceFile.fromCode("foo.js", EXTERN));
+
+    SourceFile file = SourceFile.fromCode("foo.js", EXTERN);
+    ParserRunner.ParseResult result = snapshot.load(file, new CompilerOptions());
+
+    assertThat(result).isNotNull();
+    Node expected = parse(EXTERN);
+    assertTrue(result.ast.isEquivalentTo(expected));
+    assertThat(result.ast.getStaticSourceFile()).isSameAs(file);
+    assertThat(result.ast.getFirstChild().getJSDocInfo().isConstructor()).isTrue();
+  }
+
+  public void testIgnoresChangedExtern() throws IOException {
+    ExternsSnapshot snapshot = snapshot(SourceFile.fromCode("foo.js", EXTERN));
+
+    assertThat(snapshot.load(SourceFile.fromCode("foo.js", "var baz;"), new CompilerOptions()))
+        .isNull();
+    assertThat(snapshot.load(SourceFile.fromCode("other.js", EXTERN), new CompilerOptions()))
+        .isNull();
+  }
+
+  public void testIgnoresOtherJsDocParsing() throws IOException {
+    ExternsSnapshot snapshot = snapshot(SourceFile.fromCode("foo.js", EXTERN));
+    SourceFile file = SourceFile.fromCode("foo.js", EXTERN);
+
+    CompilerOptions options = new CompilerOptions();
+    options.setParseJsDocDocumentation(Config.JsDocParsing.INCLUDE_DESCRIPTIONS_NO_WHITESPACE);
+    assertThat(snapshot.load(file, options)).isNull();
+
+    options = new CompilerOptions();
+    options.setExtraAnnotationNames(ImmutableSet.of("foo"));
+    assertThat(snapshot.load(file, options)).isNull();
+  }
+
+  public void testLeavesOutExternsThatDoNotParseCleanly() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    List<SourceFile> externs =
+        ImmutableList.of(
+            SourceFile.fromCode("foo.js", EXTERN),
+            // Needs a newer language mode than ES5.
+            SourceFile.fromCode("let.js", "let x;"),
+            SourceFile.fromCode("error.js", "var = ;"));
+
+    assertThat(ExternsSnapshot.write(externs, out)).isEqualTo(1);
+  }
+
+  public void testCompilerUsesSnapshot() throws IOException {
+    ExternsSnapshot snapshot = snapshot(SourceFile.fromCode("foo.js", EXTERN));
+    Compiler compiler = new Compiler();
+    compiler.setExternsSnapshot(snapshot);
+    compiler.compile(
+        ImmutableList.of(SourceFile.fromCode("foo.js", EXTERN)),
+        ImmutableList.of(SourceFile.fromCode("input.js", "new Foo(bar);")),
+        new CompilerOptions());
+
+    assertThat(compiler.getErrors()).isEmpty();
+    assertThat(compiler.toSource()).isEqualTo("'use strict';new Foo(bar);");
+  }
+
+  public void testBuiltinExternsMatchParse() throws IOException {
+    ExternsSnapshot snapshot = ExternsSnapshot.forEnvironment(CompilerOptions.Environment.BROWSER);
+    // The build writes the snapshots when it compiles the classes.
+    assertThat(snapshot).isNotNull();
+
+    Compiler compiler = new Compiler();
+    compiler.initOptions(new CompilerOptions());
+    for (SourceFile extern :
+        AbstractCommandLineRunner.getBuiltinExterns(CompilerOptions.Environment.BROWSER)) {
+      extern.setIsExtern(true);
+      ParserRunner.ParseResult result = snapshot.load(extern, compiler.getOptions());
+      assertThat(result).isNotNull();
+      Node parsed = new JsAst(extern).getAstRoot(compiler);
+      assertTrue(extern.getName(), result.ast.isEquivalentTo(parsed));
+    }
+  }
+
+  private static ExternsSnapshot snapshot(SourceFile... externs) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    assertThat(ExternsSnapshot.write(ImmutableList.copyOf(externs), out))
+        .isEqualTo(externs.length);
+    return ExternsSnapshot.read(new ByteArrayInputStream(out.toByteArray()));
+  }
+
+  private static Node parse(String code) {
+    Compiler compiler = new Compiler();
+    compiler.initOptions(new CompilerOptions());
+    SourceFile file = SourceFile.fromCode("foo.js", code);
+    file.setIsExtern(true);
+    return new JsAst(file).getAstRoot(compiler);
+  }
+}
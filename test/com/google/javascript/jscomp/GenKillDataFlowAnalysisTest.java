@@ -0,0 +1,178 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.javascript.jscomp.ControlFlowGraph.Branch;
+import com.google.javascript.jscomp.DataFlowAnalysis.MaxIterationsExceededException;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import junit.framework.TestCase;
+
+/**
+ * Tests for {@link GenKillDataFlowAnalysis}. The nodes of the control flow graphs are strings,
+ * each generating and killing the facts it is given.
+ */
+public final class GenKillDataFlowAnalysisTest extends TestCase {
+
+  private ControlFlowGraph<String> cfg;
+  private final Map<String, BitSet> gens = new HashMap<>();
+  private final Map<String, BitSet> kills = new HashMap<>();
+
+  public void testForwardMayAnalysisLoop() {
+    // a: fact 0 = 1; do { b: fact 1 = 1; fact 0 = 0 } while (c); d:
+    createCfg("a", "b", "c", "d");
+    gen("a", 0);
+    gen("b", 1);
+    kill("b", 0);
+    cfg.connect("a", Branch.UNCOND, "b");
+    cfg.connect("b", Branch.UNCOND, "c");
+    cfg.connect("c", Branch.ON_TRUE, "b");
+    cfg.connect("c", Branch.ON_FALSE, "d");
+
+    TestAnalysis analysis = new TestAnalysis(true, true, 2);
+    analysis.analyze();
+
+    assertThat(analysis.getIn("a")).isEqualTo(facts());
+    assertThat(analysis.getIn("b")).isEqualTo(facts(0, 1));
+    assertThat(analysis.getOut("b")).isEqualTo(facts(1));
+    assertThat(analysis.getIn("d")).isEqualTo(facts(1));
+  }
+
+  public void testForwardMustAnalysis() {
+    // a: if (x) { b: gen 1 } else { c: gen 1, kill 0 } d:
+    createCfg("a", "b", "c", "d");
+    gen("b", 1);
+    gen("c", 1);
+    kill("c", 0);
+    cfg.connect("a", Branch.ON_TRUE, "b");
+    cfg.connect("a", Branch.ON_FALSE, "c");
+    cfg.connect("b", Branch.UNCOND, "d");
+    cfg.connect("c", Branch.UNCOND, "d");
+    cfg.connect("d", Branch.UNCOND, null);
+
+    TestAnalysis analysis = new TestAnalysis(true, false, 3);
+    analysis.entryFacts.set(0);
+    analysis.entryFacts.set(2);
+    analysis.analyze();
+
+    assertThat(analysis.getIn("a")).isEqualTo(facts(0, 2));
+    assertThat(analysis.getIn("d")).isEqualTo(facts(1, 2));
+    assertThat(analysis.getIn(null)).isEqualTo(facts(1, 2));
+  }
+
+  public void testBackwardAnalysisStartsAtImplicitReturn() {
+    // a: kill 0; b: gen 1; <return>
+    createCfg("a", "b");
+    kill("a", 0);
+    gen("b", 1);
+    cfg.connect("a", Branch.UNCOND, "b");
+    cfg.connect("b", Branch.UNCOND, null);
+
+    TestAnalysis analysis = new TestAnalysis(false, true, 2);
+    analysis.entryFacts.set(0);
+    analysis.analyze();
+
+    assertThat(analysis.getOut("b")).isEqualTo(facts(0));
+    assertThat(analysis.getIn("b")).isEqualTo(facts(0, 1));
+    assertThat(analysis.getIn("a")).isEqualTo(facts(1));
+  }
+
+  public void testMaxIterationsExceededException() {
+    createCfg("a", "b");
+    gen("a", 0);
+    cfg.connect("a", Branch.UNCOND, "b");
+    cfg.connect("b", Branch.UNCOND, "a");
+
+    TestAnalysis analysis = new TestAnalysis(true, true, 1);
+    try {
+      analysis.analyze(1);
+      fail("Expected MaxIterationsExceededException to be thrown.");
+    } catch (MaxIterationsExceededException e) {
+      assertThat(e).hasMessageThat().isEqualTo("Analysis did not terminate after 1 iterations");
+    }
+  }
+
+  private void createCfg(String entry, String... nodes) {
+    cfg = new ControlFlowGraph<>(entry, false, false);
+    gens.put(entry, new BitSet());
+    kills.put(entry, new BitSet());
+    for (String node : nodes) {
+      cfg.createNode(node);
+      gens.put(node, new BitSet());
+      kills.put(node, new BitSet());
+    }
+  }
+
+  private void gen(String node, int fact) {
+    gens.get(node).set(fact);
+  }
+
+  private void kill(String node, int fact) {
+    kills.get(node).set(fact);
+  }
+
+  private static BitSet facts(int... facts) {
+    BitSet result = new BitSet();
+    for (int fact : facts) {
+      result.set(fact);
+    }
+    return result;
+  }
+
+  private final class TestAnalysis extends GenKillDataFlowAnalysis<String> {
+    private final boolean isForward;
+    private final boolean isMayAnalysis;
+    private final int numFacts;
+    private final BitSet entryFacts = new BitSet();
+
+    TestAnalysis(boolean isForward, boolean isMayAnalysis, int numFacts) {
+      super(cfg);
+      this.isForward = isForward;
+      this.isMayAnalysis = isMayAnalysis;
+      this.numFacts = numFacts;
+    }
+
+    @Override
+    boolean isForward() {
+      return isForward;
+    }
+
+    @Override
+    boolean isMayAnalysis() {
+      return isMayAnalysis;
+    }
+
+    @Override
+    int getNumFacts() {
+      return numFacts;
+    }
+
+    @Override
+    void computeGenKill(String node, BitSet gen, BitSet kill) {
+      gen.or(gens.get(node));
+      kill.or(kills.get(node));
+    }
+
+    @Override
+    void addEntryFacts(BitSet facts) {
+      facts.or(entryFacts);
+    }
+  }
+}
@@ -18,9 +18,10 @@ package com.google.javascript.jscomp;
 
 import static com.google.common.truth.Truth.assertThat;
 
+import com.google.common.collect.ImmutableList;
 import com.google.javascript.jscomp.GlobalNamespace.Name;
 import com.google.javascript.jscomp.GlobalNamespace.Ref;
-
+import com.google.javascript.rhino.Node;
 import junit.framework.TestCase;
 
 /**
@@ -68,6 +69,49 @@ public final class GlobalNamespaceTest extends TestCase {
     assertEquals(0, n.globalSets);
   }
 
+  public void testReuseWhileUnchanged() {
+    Compiler compiler = new Compiler();
+    Node root = parse(compiler, "var a = {}; a.b = 1;");
+    GlobalNamespace namespace = new GlobalNamespace(compiler, root);
+    assertNotNull(namespace.getSlot("a.b"));
+
+    namespace.keepForNextPass();
+    assertSame(namespace, GlobalNamespace.createOrReuse(compiler, null, root));
+    // The namespace is handed to one pass only.
+    assertNotSame(namespace, GlobalNamespace.createOrReuse(compiler, null, root));
+  }
+
+  public void testNoReuseAfterChange() {
+    Compiler compiler = new Compiler();
+    Node root = parse(compiler, "var a = {}; a.b = 1;");
+    GlobalNamespace namespace = new GlobalNamespace(compiler, root);
+    assertNotNull(namespace.getSlot("a.b"));
+
+    namespace.keepForNextPass();
+    compiler.reportChangeToChangeScope(root.getFirstChild());
+    assertNotSame(namespace, GlobalNamespace.createOrReuse(compiler, null, root));
+  }
+
+  public void testNoReuseForOtherRoots() {
+    Compiler compiler = new Compiler();
+    Node root = parse(compiler, "var a = {}; a.b = 1;");
+    GlobalNamespace namespace = new GlobalNamespace(compiler, root);
+
+    namespace.keepForNextPass();
+    assertNotSame(
+        namespace,
+        GlobalNamespace.createOrReuse(compiler, compiler.getRoot().getFirstChild(), root));
+  }
+
+  private static Node parse(Compiler compiler, String js) {
+    compiler.init(
+        ImmutableList.of(SourceFile.fromCode("externs.js", "")),
+        ImmutableList.of(SourceFile.fromCode("test.js", js)),
+        new CompilerOptions());
+    compiler.parse();
+    return compiler.getRoot().getLastChild();
+  }
+
   private Ref createNodelessRef(Ref.Type type) {
     return Ref.createRefForTesting(type);
   }
@@ -111,6 +111,48 @@ public final class JSModuleGraphTest extends TestCase {
     assertEquals("F should have depth 3", 3, F.getDepth());
   }
 
+  public void testGetShards() {
+    // D and F are the leaves. Only A and B are needed by both.
+    assertThat(graph.getShards(1)).containsExactly(modules(A, B, C, D, E, F));
+    assertThat(graph.getShards(2))
+        .containsExactly(modules(A, B, C, E, F), modules(A, B, D))
+        .inOrder();
+    // There are no more shards than leaves.
+    assertThat(graph.getShards(5)).hasSize(2);
+  }
+
+  public void testGetShardsBalancesLeaves() {
+    JSModule base = new JSModule("base");
+    List<JSModule> all = new ArrayList<>();
+    all.add(base);
+    for (int i = 0; i < 4; i++) {
+      JSModule leaf = new JSModule("leaf" + i);
+      leaf.addDependency(base);
+      // leaf0 has 5 inputs, the others 1.
+      for (int j = 0; j < (i == 0 ? 5 : 1); j++) {
+        leaf.add(SourceFile.fromCode(leaf.getName() + "_" + j + ".js", ""));
+      }
+      all.add(leaf);
+    }
+    JSModuleGraph graph = new JSModuleGraph(all);
+
+    List<BitSet> shards = graph.getShards(2);
+
+    assertThat(shards).hasSize(2);
+    // leaf0 alone weighs as much as the other three together.
+    assertThat(shards.get(0)).isEqualTo(modules(base, all.get(1)));
+    assertThat(shards.get(1))
+        .isEqualTo(modules(base, all.get(2), all.get(3), all.get(4)));
+  }
+
+  private static BitSet modules(JSModule... modules) {
+    BitSet bits = new BitSet();
+    for (JSModule m : modules) {
+      bits.set(m.getIndex());
+    }
+    return bits;
+  }
+
   public void testDeepestCommonDep() {
     assertDeepestCommonDep(null, A, A);
     assertDeepestCommonDep(null, A, B);
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.javascript.jscomp.CompilerOptions.LanguageMode;
+import com.google.javascript.rhino.Node;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import junit.framework.TestCase;
+
+/** Tests for {@link NTIScopeScheduler}. */
+public final class NTIScopeSchedulerTest extends TestCase {
+
+  private static final String CODE =
+      Joiner.on('\n').join(
+          "/** @constructor */",
+          "function Foo() { this.x = 1; }",
+          "function outer(a) {",
+          "  function inner(b) { return b + 1; }",
+          "  function other() { return inner(a); }",
+          "  return other();",
+          "}",
+          "/** @param {function(number)} f */",
+          "function takesCallback(f) {}",
+          "takesCallback(function(n) {",
+          "  takesCallback(function(m) { var s = m - n; });",
+          "});",
+          "/** @param {string} s */",
+          "function takesString(s) {}",
+          "function returnsNumber() { return 1; }",
+          "takesString(returnsNumber());",
+          "takesString(outer(1));",
+          "function subtractOne(x) { return x - 1; }",
+          "function callsSubtractOne() { subtractOne('a'); }");
+
+  private Compiler compiler;
+
+  public void testDependencies() {
+    List<NTIScope> scopes = collectScopes(1);
+    Map<String, NTIScope> scopesByName = new HashMap<>();
+    for (NTIScope scope : scopes) {
+      scopesByName.put(scope.getReadableName(), scope);
+    }
+    NTIScope global = scopes.get(scopes.size() - 3);
+    assertThat(global.isTopLevel()).isTrue();
+    NTIScope outerCallback = scopes.get(scopes.size() - 2);
+    NTIScope innerCallback = scopes.get(scopes.size() - 1);
+
+    ImmutableListMultimap<NTIScope, NTIScope> dependencies =
+        NTIScopeScheduler.getDependencies(scopes);
+
+    assertThat(dependencies.get(scopesByName.get("outer")))
+        .containsExactly(scopesByName.get("inner"), scopesByName.get("other"));
+    assertThat(dependencies.get(global))
+        .containsExactly(
+            scopesByName.get("Foo"),
+            scopesByName.get("outer"),
+            scopesByName.get("takesCallback"),
+            scopesByName.get("takesString"),
+            scopesByName.get("returnsNumber"),
+            scopesByName.get("subtractOne"),
+            scopesByName.get("callsSubtractOne"));
+    assertThat(dependencies.get(scopesByName.get("outer.inner"))).isEmpty();
+    // The callbacks run after all other scopes, so the outer one only waits for that.
+    assertThat(dependencies.get(outerCallback)).isEmpty();
+    assertThat(dependencies.get(innerCallback)).containsExactly(outerCallback);
+  }
+
+  public void testRunsScopesAfterTheirDependencies() {
+    final List<NTIScope> scopes = collectScopes(1);
+    final List<NTIScope> analyzed = Collections.synchronizedList(new ArrayList<NTIScope>());
+    final ImmutableListMultimap<NTIScope, NTIScope> dependencies =
+        NTIScopeScheduler.getDependencies(scopes);
+
+    new NTIScopeScheduler(4).run(
+        scopes,
+        new NTIScopeScheduler.ScopeAnalyzer() {
+          @Override
+          public void analyze(NTIScope scope) {
+            assertThat(analyzed).containsAllIn(dependencies.get(scope));
+            if (NodeUtil.isUnannotatedCallback(scope.getRoot())) {
+              // The global scope is the last one that is not a callback.
+              assertThat(analyzed).contains(scopes.get(scopes.size() - 3));
+            }
+            analyzed.add(scope);
+          }
+        });
+
+    assertThat(analyzed).containsExactlyElementsIn(scopes);
+  }
+
+  public void testReportsFirstFailingScope() {
+    final List<NTIScope> scopes = collectScopes(1);
+    try {
+      new NTIScopeScheduler(4).run(
+          scopes,
+          new NTIScopeScheduler.ScopeAnalyzer() {
+            @Override
+            public void analyze(NTIScope scope) {
+              if (scope != scopes.get(0)) {
+                throw new IllegalStateException(scope.getReadableName());
+              }
+            }
+          });
+      fail("Expected ScopeAnalysisException");
+    } catch (NTIScopeScheduler.ScopeAnalysisException e) {
+      assertThat(e.scope).isSameAs(scopes.get(1));
+    }
+  }
+
+  public void testParallelAnalysisMatchesSequentialAnalysis() {
+    List<String> sequentialTypes = typeCheck(1);
+    String sequentialWarnings = Arrays.toString(compiler.getWarnings());
+    // One of them comes from a deferred check.
+    assertThat(compiler.getWarnings()).hasLength(2);
+
+    List<String> parallelTypes = typeCheck(4);
+
+    assertThat(parallelTypes).containsExactlyElementsIn(sequentialTypes).inOrder();
+    assertThat(Arrays.toString(compiler.getWarnings())).isEqualTo(sequentialWarnings);
+    assertThat(compiler.getErrors()).isEmpty();
+  }
+
+  private List<NTIScope> collectScopes(int numParallelThreads) {
+    parse(numParallelThreads);
+    new GlobalTypeInfoCollector(compiler)
+        .process(compiler.getExternsRoot(), compiler.getJsRoot());
+    return ((GlobalTypeInfo) compiler.getGlobalTypeInfo()).getScopes();
+  }
+
+  /** Returns the types NTI assigns to the nodes of the code, in AST order. */
+  private List<String> typeCheck(int numParallelThreads) {
+    collectScopes(numParallelThreads);
+    new NewTypeInference(compiler).process(compiler.getExternsRoot(), compiler.getJsRoot());
+    final List<String> types = new ArrayList<>();
+    NodeUtil.visitPreOrder(
+        compiler.getJsRoot(),
+        new NodeUtil.Visitor() {
+          @Override
+          public void visit(Node n) {
+            types.add(n.getToken() + " " + n.getTypeI());
+          }
+        });
+    return types;
+  }
+
+  private void parse(int numParallelThreads) {
+    CompilerOptions options = new CompilerOptions();
+    options.setNewTypeInference(true);
+    options.setWarningLevel(DiagnosticGroups.NEW_CHECK_TYPES_ALL_CHECKS, CheckLevel.WARNING);
+    options.setLanguageIn(LanguageMode.ECMASCRIPT5);
+    options.setNumParallelThreads(numParallelThreads);
+    compiler = new Compiler();
+    compiler.init(
+        ImmutableList.of(
+            SourceFile.fromCode("externs.js", NewTypeInferenceTestBase.DEFAULT_EXTERNS)),
+        ImmutableList.of(SourceFile.fromCode("code.js", CODE)),
+        options);
+    compiler.parseInputs();
+    assertThat(compiler.getErrors()).isEmpty();
+    new DeclaredGlobalExternsOnWindow(compiler)
+        .process(compiler.getExternsRoot(), compiler.getJsRoot());
+  }
+}
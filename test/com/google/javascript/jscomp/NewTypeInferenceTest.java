@@ -16,7 +16,10 @@
 
 package com.google.javascript.jscomp;
 
+import static com.google.common.truth.Truth.assertThat;
+
 import com.google.javascript.jscomp.newtypes.JSTypeCreatorFromJSDoc;
+import com.google.javascript.jscomp.newtypes.ObjectSubtypeCache;
 
 /**
  * Tests new type inference behavior for syntax it understands without transpilation.
@@ -22685,4 +22688,27 @@ public final class NewTypeInferenceTest extends NewTypeInferenceTestBase {
         "});"),
         NewTypeInference.MISTYPED_ASSIGN_RHS);
   }
+
+  public void testObjectSubtypeChecksAreCached() {
+    // The cache only counts its hits when the compile collects performance stats.
+    compilerOptions.setTracerMode(CompilerOptions.TracerMode.TIMING_ONLY);
+    typeCheck(LINE_JOINER.join(
+        "/** @record */ function Rec() {}",
+        "/** @type {number} */ Rec.prototype.x;",
+        "/** @param {!Rec} r */ function f(r) {}",
+        "/** @constructor */ function Foo() { /** @type {number} */ this.x = 1; }",
+        "/** @constructor */ function Bar() { /** @type {string} */ this.x = ''; }",
+        "var foo = new Foo;",
+        "var bar = new Bar;",
+        "f(foo);",
+        "f(foo);",
+        "f(bar);",
+        "f(bar);"),
+        NewTypeInference.INVALID_ARGUMENT_TYPE,
+        NewTypeInference.INVALID_ARGUMENT_TYPE);
+
+    ObjectSubtypeCache cache =
+        ((GlobalTypeInfo) compiler.getGlobalTypeInfo()).getCommonTypes().getObjectSubtypeCache();
+    assertThat(cache.getHitCount()).isGreaterThan(0L);
+  }
 }
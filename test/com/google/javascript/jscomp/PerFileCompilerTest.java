@@ -0,0 +1,120 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableList;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import junit.framework.TestCase;
+
+/** Tests for {@link PerFileCompiler}. */
+public final class PerFileCompilerTest extends TestCase {
+
+  private static final ImmutableList<SourceFile> EXTERNS =
+      ImmutableList.of(SourceFile.fromCode("externs.js", "var ext; function alert(x) {}"));
+
+  private static final Supplier<Compiler> COMPILERS =
+      new Supplier<Compiler>() {
+        @Override
+        public Compiler get() {
+          Compiler compiler = new Compiler();
+          compiler.setErrorManager(new BlackHoleErrorManager());
+          return compiler;
+        }
+      };
+
+  private final Map<String, StringBuilder> printed = new LinkedHashMap<>();
+  private final Map<String, Result> results = new LinkedHashMap<>();
+
+  private final PerFileCompiler.Output output =
+      new PerFileCompiler.Output() {
+        @Override
+        public Appendable codeFor(SourceFile input) {
+          StringBuilder sb = new StringBuilder();
+          printed.put(input.getName(), sb);
+          return sb;
+        }
+
+        @Override
+        public void done(SourceFile input, Result result) {
+          results.put(input.getName(), result);
+        }
+      };
+
+  private static CompilerOptions options() {
+    CompilerOptions options = new CompilerOptions();
+    CompilationLevel.SIMPLE_OPTIMIZATIONS.setOptionsForCompilationLevel(options);
+    options.setCheckSymbols(true);
+    return options;
+  }
+
+  public void testEachInputCompilesLikeItsOwnCompile() throws IOException {
+    ImmutableList<SourceFile> inputs =
+        ImmutableList.of(
+            SourceFile.fromCode("a.js", "function f(longName) { return longName + ext; } f(1);"),
+            SourceFile.fromCode("b.js", "(function() { var unused = 1; alert(ext); })();"));
+
+    boolean success = new PerFileCompiler(COMPILERS, options(), EXTERNS).compile(inputs, output);
+
+    assertTrue(success);
+    assertThat(printed.keySet()).containsExactly("a.js", "b.js").inOrder();
+    for (SourceFile input : inputs) {
+      Compiler compiler = COMPILERS.get();
+      compiler.compile(EXTERNS, ImmutableList.of(input), options());
+      assertEquals(compiler.toSource(), printed.get(input.getName()).toString());
+      assertTrue(results.get(input.getName()).success);
+    }
+  }
+
+  public void testErrorsDoNotStopLaterInputs() throws IOException {
+    ImmutableList<SourceFile> inputs =
+        ImmutableList.of(
+            SourceFile.fromCode("bad.js", "alert(missing);"),
+            SourceFile.fromCode("good.js", "alert(ext);"));
+
+    boolean success = new PerFileCompiler(COMPILERS, options(), EXTERNS).compile(inputs, output);
+
+    assertFalse(success);
+    assertThat(results.keySet()).containsExactly("bad.js", "good.js").inOrder();
+    assertFalse(results.get("bad.js").success);
+    assertTrue(results.get("good.js").success);
+    // Code is printed only for inputs that compiled.
+    assertThat(printed.keySet()).containsExactly("good.js");
+  }
+
+  public void testRejectsPersistentInputStore() throws IOException {
+    Supplier<Compiler> persistent =
+        new Supplier<Compiler>() {
+          @Override
+          public Compiler get() {
+            Compiler compiler = COMPILERS.get();
+            compiler.setPersistentInputStore(new PersistentInputStore());
+            return compiler;
+          }
+        };
+    PerFileCompiler perFile = new PerFileCompiler(persistent, options(), EXTERNS);
+    try {
+      perFile.compile(SourceFile.fromCode("a.js", "alert(ext);"), output);
+      fail();
+    } catch (IllegalStateException expected) {
+    }
+  }
+}
@@ -20,12 +20,19 @@ import static com.google.common.truth.Truth.assertThat;
 
 import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableMap;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
 import com.google.javascript.jscomp.CompilerOptions.TracerMode;
 import com.google.javascript.jscomp.PerformanceTracker.Stats;
+import com.google.javascript.rhino.IR;
 import com.google.javascript.rhino.Node;
 import com.google.javascript.rhino.Token;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.regex.Pattern;
 import junit.framework.TestCase;
 
@@ -102,6 +109,87 @@ public final class PerformanceTrackerTest extends TestCase {
     assertEquals(0, st.changes);
   }
 
+  public void testOnlyReportedScriptsAreMeasuredAgain() {
+    Compiler compiler = new Compiler();
+    Node script1 = IR.script(IR.exprResult(IR.number(1)), IR.exprResult(IR.number(2)));
+    Node script2 = IR.script(IR.exprResult(IR.number(3)), IR.exprResult(IR.number(4)));
+    PerformanceTracker tracker =
+        new PerformanceTracker(
+            compiler, emptyExternRoot, IR.root(script1, script2), TracerMode.ALL, null);
+    compiler.addChangeHandler(tracker.getCodeChangeHandler());
+
+    tracker.recordPassStart(PassNames.PARSE_INPUTS, true);
+    tracker.recordPassStop(PassNames.PARSE_INPUTS, 0);
+
+    tracker.recordPassStart("pass", true);
+    // A change that is not reported is not seen.
+    script1.removeFirstChild();
+    script2.removeFirstChild();
+    compiler.reportChangeToChangeScope(script2);
+    tracker.recordPassStop("pass", 0);
+
+    Stats st = tracker.getStats().get("pass");
+    assertEquals(1, st.changes);
+    assertEquals(2, st.astDiff); // EXPR_RESULT and NUMBER
+    assertEquals(9, tracker.getAstSize());
+    assertThat(st.diff).isGreaterThan(0);
+  }
+
+  public void testJvmStats() {
+    PerformanceTracker tracker =
+        new PerformanceTracker(emptyExternRoot, emptyJsRoot, TracerMode.TIMING_ONLY, null);
+
+    tracker.recordPassStart("allocates", true);
+    List<int[]> arrays = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      arrays.add(new int[100]);
+    }
+    assertThat(arrays).hasSize(1000);
+    tracker.recordPassStop("allocates", 0);
+
+    Stats st = tracker.getStats().get("allocates");
+    if (JvmMetrics.getCurrentThreadAllocatedBytes() >= 0) {
+      assertThat(st.allocBytes).isAtLeast(100000L);
+    }
+    assertThat(st.cpuTime).isAtLeast(-1L);
+    assertThat(st.gcTime).isAtLeast(-1L);
+    assertThat(st.retainedHeap).isAtLeast(-1L);
+  }
+
+  public void testTraceEvents() throws IOException {
+    PerformanceTracker tracker =
+        new PerformanceTracker(emptyExternRoot, emptyJsRoot, TracerMode.TIMING_ONLY, null);
+    tracker.recordPassStart("outer", true);
+    tracker.recordPassStart("inner \"quoted\"", true);
+    tracker.recordPassStop("inner \"quoted\"", 1);
+    tracker.recordPassStop("outer", 3);
+    tracker.recordPassStart("loop", false);
+    tracker.recordPassStop("loop", 2);
+
+    StringBuilder sb = new StringBuilder();
+    tracker.outputTraceEvents(sb);
+    JsonObject json = new Gson().fromJson(sb.toString(), JsonObject.class);
+
+    // A complete event and a heap counter event for each run, in the order they stopped.
+    JsonArray events = json.getAsJsonArray("traceEvents");
+    assertThat(events.size()).isEqualTo(6);
+    JsonObject inner = events.get(0).getAsJsonObject();
+    assertThat(inner.get("name").getAsString()).isEqualTo("inner \"quoted\"");
+    assertThat(inner.get("ph").getAsString()).isEqualTo("X");
+    assertThat(inner.get("dur").getAsLong()).isEqualTo(1000L);
+    assertThat(events.get(1).getAsJsonObject().get("ph").getAsString()).isEqualTo("C");
+    JsonObject outer = events.get(2).getAsJsonObject();
+    assertThat(outer.get("name").getAsString()).isEqualTo("outer");
+    assertThat(outer.get("ts").getAsLong()).isAtMost(inner.get("ts").getAsLong());
+    assertThat(outer.getAsJsonObject("args").get("runtime").getAsLong()).isEqualTo(3L);
+    assertThat(events.get(4).getAsJsonObject().get("cat").getAsString())
+        .isEqualTo("loopablePass");
+
+    JsonObject summary = json.getAsJsonObject("summary");
+    assertThat(summary.entrySet()).hasSize(3);
+    assertThat(summary.getAsJsonObject("loop").get("runs").getAsInt()).isEqualTo(1);
+  }
+
   public void testOutputFormat() {
     ByteArrayOutputStream output = new ByteArrayOutputStream();
     try (PrintStream outstream = new PrintStream(output)) {
@@ -17,6 +17,9 @@ package com.google.javascript.jscomp;
 
 import static com.google.common.truth.Truth.assertThat;
 
+import com.google.javascript.rhino.Node;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import junit.framework.TestCase;
 
 /** Tests for PersistentInputStore. */
@@ -53,6 +56,31 @@ public class PersistentInputStoreTest extends TestCase {
     assertThat(testStore.getCachedCompilerInput(file)).isNotSameAs(input);
   }
 
+  public void testResetInputs() {
+    Compiler compiler = new Compiler();
+    compiler.initOptions(new CompilerOptions());
+    CompilerInput input =
+        testStore.getCachedCompilerInput(SourceFile.fromCode("path/to/a.js", "var x = 1;"));
+    Node root = input.getAstRoot(compiler);
+    root.removeChildren();
+
+    // The next compile gets a fresh copy of the parsed AST.
+    testStore.resetInputs();
+    Node copy = input.getAstRoot(compiler);
+    assertThat(copy).isNotSameAs(root);
+    assertThat(copy.hasChildren()).isTrue();
+  }
+
+  public void testExternStaysExtern() {
+    SourceFile file = SourceFile.fromCode("path/to/a.js", "var x;");
+    file.setIsExtern(true);
+    assertThat(testStore.getCachedCompilerInput(file).isExtern()).isTrue();
+
+    SourceFile unknown = SourceFile.fromCode("path/to/unknown.js", "var x;");
+    unknown.setIsExtern(true);
+    assertThat(testStore.getCachedCompilerInput(unknown).isExtern()).isTrue();
+  }
+
   public void testCacheZipFiles() {
     PersistentInputStore store = new PersistentInputStore();
     store.addInput("path/to/a/zipfile.js.zip", "aaa");
@@ -81,4 +109,33 @@ public class PersistentInputStoreTest extends TestCase {
     assertThat(inputA).isNotSameAs(store.getCachedCompilerInput(zipEntryA));
     assertThat(inputB).isNotSameAs(store.getCachedCompilerInput(zipEntryB));
   }
+
+  public void testAstCacheSharedAcrossStores() throws Exception {
+    Path cacheDir = Files.createTempDirectory("ast-cache");
+    Compiler compiler = new Compiler();
+    compiler.initOptions(new CompilerOptions());
+
+    PersistentInputStore warmStore = new PersistentInputStore();
+    warmStore.setAstCacheDirectory(cacheDir);
+    warmStore.addInput("path/to/a.js", "aaa");
+    Node parsed =
+        warmStore
+            .getCachedCompilerInput(SourceFile.fromCode("path/to/a.js", "var x = 1;"))
+            .getAstRoot(compiler);
+
+    // A new store with the same digest loads the AST written by the first one instead of
+    // parsing the (here deliberately different) contents.
+    PersistentInputStore coldStore = new PersistentInputStore();
+    coldStore.setAstCacheDirectory(cacheDir);
+    coldStore.addInput("path/to/a.js", "aaa");
+    SourceFile file = SourceFile.fromCode("path/to/a.js", "var y = 2;");
+    Node loaded = coldStore.getCachedCompilerInput(file).getAstRoot(compiler);
+    assertTrue(loaded.isEquivalentTo(parsed));
+    assertThat(loaded.getStaticSourceFile()).isSameAs(file);
+
+    // A different digest misses the cache.
+    coldStore.addInput("path/to/a.js", "bbb");
+    Node reparsed = coldStore.getCachedCompilerInput(file).getAstRoot(compiler);
+    assertFalse(reparsed.isEquivalentTo(parsed));
+  }
 }
@@ -26,6 +26,7 @@ import com.google.javascript.rhino.IR;
 import com.google.javascript.rhino.Node;
 import com.google.javascript.rhino.Token;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Random;
 import junit.framework.TestCase;
@@ -201,6 +202,38 @@ public final class PhaseOptimizerTest extends TestCase {
     assertEquals(ImmutableList.copyOf(names), passesRun);
   }
 
+  public void testScriptLocalPassRunsOnEachScript() {
+    compiler.getOptions().setNumParallelThreads(4);
+    optimizer = new PhaseOptimizer(compiler, tracker);
+    dummyRoot.addChildToBack(IR.script());
+    dummyRoot.addChildToBack(IR.script());
+    final List<Node> scriptsSeen = Collections.synchronizedList(new ArrayList<Node>());
+    optimizer.addOneTimePass(
+        new PassFactory.HotSwapPassFactory("scriptLocal", true) {
+          @Override
+          protected HotSwapCompilerPass create(AbstractCompiler compiler) {
+            return new HotSwapCompilerPass() {
+              @Override
+              public void process(Node externs, Node root) {
+                fail("The whole program should not be processed at once");
+              }
+
+              @Override
+              public void hotSwapScript(Node scriptRoot, Node originalRoot) {
+                scriptsSeen.add(scriptRoot);
+              }
+            };
+          }
+
+          @Override
+          protected FeatureSet featureSet() {
+            return FeatureSet.latest();
+          }
+        });
+    optimizer.process(null, dummyRoot);
+    assertThat(scriptsSeen).containsExactlyElementsIn(dummyRoot.children());
+  }
+
   private void addOneTimePass(String name) {
     optimizer.addOneTimePass(
         createPassFactory(name, 0, true));
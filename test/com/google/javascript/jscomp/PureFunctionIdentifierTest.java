@@ -36,6 +36,7 @@ public final class PureFunctionIdentifierTest extends TypeICompilerTestCase {
   List<String> localResultCalls;
 
   boolean regExpHaveSideEffects = true;
+  int numParallelThreads = 1;
 
   private static final String TEST_EXTERNS =
       CompilerTypeTestCase.DEFAULT_EXTERNS + lines(
@@ -197,6 +198,7 @@ public final class PureFunctionIdentifierTest extends TypeICompilerTestCase {
   protected void tearDown() throws Exception {
     super.tearDown();
     regExpHaveSideEffects = true;
+    numParallelThreads = 1;
   }
 
   /**
@@ -217,6 +219,7 @@ public final class PureFunctionIdentifierTest extends TypeICompilerTestCase {
       localResultCalls = new ArrayList<>();
       compiler.setHasRegExpGlobalReferences(regExpHaveSideEffects);
       compiler.getOptions().setUseTypesForLocalOptimization(true);
+      compiler.getOptions().setNumParallelThreads(numParallelThreads);
       NameBasedDefinitionProvider defFinder = new NameBasedDefinitionProvider(compiler, true);
       defFinder.process(externs, root);
 
@@ -2055,6 +2058,34 @@ public final class PureFunctionIdentifierTest extends TypeICompilerTestCase {
         });
   }
 
+  public void testSideEffectsPropagateAroundCycles() {
+    String source =
+        lines(
+            "var x;",
+            "function f() { g(); }",
+            "function g() { h(); }",
+            "function h() { f(); x = 1; }",
+            "function a() { b(); }",
+            "function b() { a(); c(); }",
+            "function c() { return 1; }",
+            "f(); a();");
+    assertPureCallsMarked(source, ImmutableList.of("b", "a", "c", "a"));
+  }
+
+  public void testParallelPropagation() {
+    numParallelThreads = 4;
+    // Enough independent functions on each level of the call graph to use several threads.
+    StringBuilder source = new StringBuilder("var x;");
+    ImmutableList.Builder<String> expected = ImmutableList.builder();
+    for (int i = 0; i < 600; i++) {
+      source.append(
+          String.format("function p%1$d() { return 1; } function q%1$d() { p%1$d(); x = 1; }", i));
+      source.append(String.format("p%1$d(); q%1$d();", i));
+      expected.add("p" + i, "p" + i);
+    }
+    assertPureCallsMarked(source.toString(), expected.build());
+  }
+
   void assertNoPureCalls(String source) {
     assertPureCallsMarked(source, ImmutableList.<String>of(), null);
   }
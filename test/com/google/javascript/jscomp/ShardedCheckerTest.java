@@ -0,0 +1,142 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableList;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import junit.framework.TestCase;
+
+/** Tests for {@link ShardedChecker}. */
+public final class ShardedCheckerTest extends TestCase {
+
+  private static final ImmutableList<SourceFile> EXTERNS =
+      ImmutableList.of(SourceFile.fromCode("externs.js", "function alert(x) {}"));
+
+  private static final Supplier<Compiler> COMPILERS =
+      new Supplier<Compiler>() {
+        @Override
+        public Compiler get() {
+          Compiler compiler = new Compiler();
+          compiler.setErrorManager(new BlackHoleErrorManager());
+          return compiler;
+        }
+      };
+
+  private static final Supplier<CompilerOptions> OPTIONS =
+      new Supplier<CompilerOptions>() {
+        @Override
+        public CompilerOptions get() {
+          CompilerOptions options = new CompilerOptions();
+          options.setCheckSymbols(true);
+          return options;
+        }
+      };
+
+  private final List<JSModule> modules = new ArrayList<>();
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    JSModule base = new JSModule("base");
+    base.add(SourceFile.fromCode("base.js", "var base = 1; alert(missingInBase);"));
+    modules.add(base);
+    for (String name : ImmutableList.of("a", "b", "c")) {
+      JSModule leaf = new JSModule(name);
+      leaf.addDependency(base);
+      leaf.add(SourceFile.fromCode(name + ".js", "alert(base); alert(missingIn_" + name + ");"));
+      modules.add(leaf);
+    }
+  }
+
+  public void testReportsEachDiagnosticOnce() throws IOException {
+    Result result = new ShardedChecker(COMPILERS, OPTIONS, 2).check(EXTERNS, modules);
+
+    assertFalse(result.success);
+    List<String> sources = new ArrayList<>();
+    for (JSError error : result.errors) {
+      assertThat(error.getType()).isEqualTo(VarCheck.UNDEFINED_VAR_ERROR);
+      sources.add(error.sourceName);
+    }
+    assertThat(sources).containsExactly("base.js", "a.js", "b.js", "c.js");
+  }
+
+  public void testMatchesWholeProgramCheck() throws IOException {
+    Result sharded = new ShardedChecker(COMPILERS, OPTIONS, 3).check(EXTERNS, modules);
+
+    CompilerOptions options = OPTIONS.get();
+    options.setChecksOnly(true);
+    Result whole = COMPILERS.get().compileModules(EXTERNS, modules, options);
+
+    assertThat(sharded.errors).asList().containsExactlyElementsIn(whole.errors);
+    assertThat(sharded.warnings).asList().containsExactlyElementsIn(whole.warnings);
+  }
+
+  public void testMissesConflictsBetweenLeavesInDifferentShards() throws IOException {
+    modules.get(1).add(SourceFile.fromCode("dup_a.js", "var dup = 1;"));
+    modules.get(2).add(SourceFile.fromCode("dup_b.js", "var dup = 2;"));
+
+    CompilerOptions options = OPTIONS.get();
+    options.setChecksOnly(true);
+    Result whole = COMPILERS.get().compileModules(EXTERNS, modules, options);
+    assertThat(errorTypes(whole)).contains(VarCheck.VAR_MULTIPLY_DECLARED_ERROR);
+
+    // Every leaf gets a shard of its own, so a and b are never checked together.
+    Result sharded = new ShardedChecker(COMPILERS, OPTIONS, 3).check(EXTERNS, modules);
+    assertThat(errorTypes(sharded)).doesNotContain(VarCheck.VAR_MULTIPLY_DECLARED_ERROR);
+  }
+
+  public void testDoesNotReportPropertiesDefinedInLeavesOfOtherShards() throws IOException {
+    modules.get(0).add(
+        SourceFile.fromCode("foo.js", "/** @constructor */ function Foo() {} var foo = new Foo();"));
+    modules.get(1).add(SourceFile.fromCode("read_a.js", "alert(foo.bar);"));
+    modules.get(2).add(SourceFile.fromCode("define_b.js", "Foo.prototype.bar = 1;"));
+    Supplier<CompilerOptions> typeCheckingOptions =
+        new Supplier<CompilerOptions>() {
+          @Override
+          public CompilerOptions get() {
+            CompilerOptions options = OPTIONS.get();
+            options.setCheckTypes(true);
+            options.setWarningLevel(DiagnosticGroups.MISSING_PROPERTIES, CheckLevel.ERROR);
+            return options;
+          }
+        };
+
+    CompilerOptions options = typeCheckingOptions.get();
+    options.setChecksOnly(true);
+    Result whole = COMPILERS.get().compileModules(EXTERNS, modules, options);
+    assertThat(errorTypes(whole)).doesNotContain(TypeCheck.INEXISTENT_PROPERTY);
+
+    // Checked without b, a would read a property that Foo never defines.
+    Result sharded =
+        new ShardedChecker(COMPILERS, typeCheckingOptions, 3).check(EXTERNS, modules);
+    assertThat(errorTypes(sharded)).doesNotContain(TypeCheck.INEXISTENT_PROPERTY);
+    assertThat(sharded.errors).asList().containsExactlyElementsIn(whole.errors);
+  }
+
+  private static List<DiagnosticType> errorTypes(Result result) {
+    List<DiagnosticType> types = new ArrayList<>();
+    for (JSError error : result.errors) {
+      types.add(error.getType());
+    }
+    return types;
+  }
+}
@@ -136,6 +136,115 @@ public final class SourceFileTest extends TestCase {
     assertEquals(expectedContent, sourceFileFromFileCharset.getCode());
   }
 
+  public void testOffHeapFileMatchesPreloaded() throws IOException {
+    checkOffHeapFile("");
+    checkOffHeapFile("\n");
+    checkOffHeapFile("var a = 1;");
+    checkOffHeapFile("\uFEFFvar a = 1;\nvar b = 2;\n");
+    checkOffHeapFile("var \u00e9 = '\u20ac';\r\n// \ud83d\ude00\nvar b = \u00e9;\n\n\n// x");
+    checkOffHeapFile("1\n2\n3\n4\n5\n6\n7\n8\n9\n10\n");
+  }
+
+  private static void checkOffHeapFile(String content) throws IOException {
+    Path jsFile = Files.createTempFile("test", ".js");
+    MoreFiles.asCharSink(jsFile, StandardCharsets.UTF_8).write(content);
+    SourceFile expected = SourceFile.fromCode("test.js", content.replace("\uFEFF", ""));
+    SourceFile offHeap = SourceFile.builder().withOffHeapCode(true).buildFromPath(jsFile);
+    assertThat(offHeap).isInstanceOf(SourceFile.OffHeap.class);
+
+    assertEquals(expected.getCode(), offHeap.getCode());
+    assertEquals(expected.getNumLines(), offHeap.getNumLines());
+    for (int line = 1; line <= expected.getNumLines() + 3; line++) {
+      if (line <= expected.getNumLines()) {
+        assertEquals(expected.getLineOffset(line), offHeap.getLineOffset(line));
+      }
+      assertEquals(expected.getLine(line), offHeap.getLine(line));
+      Region expectedRegion = expected.getRegion(line);
+      Region region = offHeap.getRegion(line);
+      if (expectedRegion == null) {
+        assertNull(region);
+      } else {
+        assertEquals(expectedRegion.getBeginningLineNumber(), region.getBeginningLineNumber());
+        assertEquals(expectedRegion.getEndingLineNumber(), region.getEndingLineNumber());
+        assertEquals(expectedRegion.getSourceExcerpt(), region.getSourceExcerpt());
+      }
+    }
+    for (int offset = 0; offset <= expected.getCode().length(); offset++) {
+      assertEquals(expected.getLineOfOffset(offset), offHeap.getLineOfOffset(offset));
+      assertEquals(expected.getColumnOfOffset(offset), offHeap.getColumnOfOffset(offset));
+    }
+  }
+
+  public void testOffHeapFileRereadsAfterClearingCache() throws IOException {
+    Path jsFile = Files.createTempFile("test", ".js");
+    MoreFiles.asCharSink(jsFile, StandardCharsets.UTF_8).write("// content");
+    SourceFile sourceFile = SourceFile.builder().withOffHeapCode(true).buildFromPath(jsFile);
+    assertEquals("// content", sourceFile.getCode());
+
+    Files.delete(jsFile);
+    MoreFiles.asCharSink(jsFile, StandardCharsets.UTF_8).write("// new content");
+    sourceFile.clearCachedSource();
+    assertEquals("// new content", sourceFile.getCode());
+  }
+
+  public void testOffHeapFileUsesCodeSetLater() throws IOException {
+    Path jsonFile = Files.createTempFile("test", ".json");
+    MoreFiles.asCharSink(jsonFile, StandardCharsets.UTF_8).write("{\n\"a\": 1}");
+    SourceFile sourceFile = SourceFile.builder().withOffHeapCode(true).buildFromPath(jsonFile);
+    assertEquals(1, sourceFile.getLineOffset(2));
+
+    // As Compiler does for JSON inputs.
+    sourceFile.setCode("(" + sourceFile.getCode() + ")");
+
+    assertEquals("({\n\"a\": 1})", sourceFile.getCode());
+    assertEquals("({", sourceFile.getLine(1));
+    assertEquals(2, sourceFile.getLineOffset(2));
+  }
+
+  public void testOffHeapFileRereadsCodeAfterClearingIt() throws IOException {
+    Path jsFile = Files.createTempFile("test", ".js");
+    MoreFiles.asCharSink(jsFile, StandardCharsets.UTF_8).write("a;\nb;");
+    SourceFile sourceFile = SourceFile.builder().withOffHeapCode(true).buildFromPath(jsFile);
+    assertEquals("b;", sourceFile.getLine(2));
+    sourceFile.setCode("(" + sourceFile.getCode() + ")");
+
+    MoreFiles.asCharSink(jsFile, StandardCharsets.UTF_8).write("aaa;\nbbb;\nccc;");
+    sourceFile.clearCachedSource();
+
+    assertEquals("aaa;\nbbb;\nccc;", sourceFile.getCode());
+    assertEquals("bbb;", sourceFile.getLine(2));
+    assertEquals(5, sourceFile.getLineOffset(2));
+    assertEquals(10, sourceFile.getLineOffset(3));
+  }
+
+  public void testOffHeapFileRejectsMalformedUtf8() throws IOException {
+    Path jsFile = Files.createTempFile("test", ".js");
+    Files.write(jsFile, new byte[] {'a', (byte) 0xC3, '\n'});
+    SourceFile sourceFile = SourceFile.builder().withOffHeapCode(true).buildFromPath(jsFile);
+    try {
+      sourceFile.getCode();
+      fail("Expected an IOException");
+    } catch (IOException e) {
+      assertThat(e).hasMessageThat().contains("UTF-8");
+    }
+    assertNull(sourceFile.getLine(1));
+  }
+
+  public void testOffHeapZipEntry() throws IOException {
+    String expectedContent = "// <program goes here>\nvar \u00e9;";
+    Path jsZipFile = Files.createTempFile("test", ".js.zip");
+    createZipWithContent(jsZipFile, expectedContent);
+
+    SourceFile sourceFile =
+        SourceFile.builder()
+            .withOffHeapCode(true)
+            .buildFromPath(Paths.get(jsZipFile + "!/foo.js"));
+    assertThat(sourceFile).isInstanceOf(SourceFile.OffHeap.class);
+    assertEquals(jsZipFile + "!/foo.js", sourceFile.getName());
+    assertEquals(expectedContent, sourceFile.getCode());
+    assertEquals("var \u00e9;", sourceFile.getLine(2));
+  }
+
   private static void createZipWithContent(Path zipFile, String content) throws IOException {
     ZipOutputStream zos;
     if (zipFile.toFile().exists()) {
@@ -19,12 +19,16 @@ package com.google.javascript.jscomp.deps;
 
 import static com.google.common.truth.Truth.assertThat;
 import static com.google.common.truth.Truth.assertWithMessage;
+import static java.nio.charset.StandardCharsets.UTF_8;
 
 import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableList;
 import com.google.javascript.jscomp.ErrorManager;
 import com.google.javascript.jscomp.PrintStreamErrorManager;
 import com.google.javascript.jscomp.SourceFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
 import java.util.ArrayList;
 import java.util.List;
 import junit.framework.TestCase;
@@ -434,6 +438,137 @@ public final class DepsGeneratorTest extends TestCase {
         "Namespace \"b\" is required but never provided.");
   }
 
+  public void testParallelScanMatchesSequentialScan() throws Exception {
+    List<SourceFile> deps = new ArrayList<>();
+    deps.add(
+        SourceFile.fromCode(
+            "/base/my-project/deps.js", "goog.addDependency('../prescanned/a.js', ['a'], []);\n"));
+    List<SourceFile> srcs = new ArrayList<>();
+    for (int i = 0; i < 40; i++) {
+      String code;
+      if (i % 3 == 0) {
+        code = LINE_JOINER.join("goog.module('m" + i + "');", "const a = goog.require('a');");
+      } else if (i % 3 == 1) {
+        code = LINE_JOINER.join("goog.provide('p" + i + "');", "goog.require('m" + (i - 1) + "');");
+      } else {
+        code = "import '../closure/goog/array';";
+      }
+      srcs.add(SourceFile.fromCode("/base/javascript/foo/file" + i + ".js", code));
+    }
+    srcs.add(SourceFile.fromCode("/base/javascript/closure/goog/array.js", "export var array;"));
+
+    String sequential = createDepsGenerator(deps, srcs).computeDependencyCalls();
+    assertNoWarnings();
+    String parallel =
+        createDepsGenerator(deps, srcs).setNumParallelThreads(4).computeDependencyCalls();
+
+    assertNoWarnings();
+    assertThat(parallel).isEqualTo(sequential);
+  }
+
+  public void testCacheSkipsUnchangedFiles() throws Exception {
+    Path dir = Files.createTempDirectory("deps-cache");
+    Path src = dir.resolve("src.js");
+    Path cacheFile = dir.resolve("cache");
+    Files.write(src, "goog.provide('aaa');\n".getBytes(UTF_8));
+    FileTime lastModified = Files.getLastModifiedTime(src);
+
+    DependencyInfoCache cache = DependencyInfoCache.load(cacheFile);
+    String output = computeWithCache(src, cache);
+    assertThat(output).contains("['aaa']");
+    cache.save();
+
+    // The same size and modification time: the file is not read again.
+    Files.write(src, "goog.provide('bbb');\n".getBytes(UTF_8));
+    Files.setLastModifiedTime(src, lastModified);
+    cache = DependencyInfoCache.load(cacheFile);
+    assertThat(computeWithCache(src, cache)).isEqualTo(output);
+    assertThat(cache.size()).isEqualTo(1);
+
+    Files.write(src, "goog.provide('cccc');\n".getBytes(UTF_8));
+    assertThat(computeWithCache(src, cache)).contains("['cccc']");
+    assertNoWarnings();
+  }
+
+  public void testCacheIsDroppedWhenModuleLoaderChanges() throws Exception {
+    Path dir = Files.createTempDirectory("deps-cache");
+    Path src = dir.resolve("src.js");
+    Path cacheFile = dir.resolve("cache");
+    Files.write(src, "goog.provide('aaa');\n".getBytes(UTF_8));
+    FileTime lastModified = Files.getLastModifiedTime(src);
+
+    DependencyInfoCache cache = DependencyInfoCache.load(cacheFile);
+    assertThat(computeWithCache(src, cache)).contains("['aaa']");
+    cache.save();
+
+    // Unchanged as far as the cache can tell, but found with other module roots.
+    Files.write(src, "goog.provide('bbb');\n".getBytes(UTF_8));
+    Files.setLastModifiedTime(src, lastModified);
+    cache = DependencyInfoCache.load(cacheFile);
+    ModuleLoader otherRoots =
+        new ModuleLoader(
+            null,
+            ImmutableList.of("/other/"),
+            ImmutableList.<DependencyInfo>of(),
+            ModuleLoader.PathResolver.ABSOLUTE,
+            ModuleLoader.ResolutionMode.BROWSER);
+    assertThat(computeWithCache(src, cache, otherRoots)).contains("['bbb']");
+    cache.save();
+
+    cache = DependencyInfoCache.load(cacheFile);
+    assertThat(computeWithCache(src, cache, otherRoots)).contains("['bbb']");
+    assertThat(cache.size()).isEqualTo(1);
+    assertNoWarnings();
+  }
+
+  public void testUnreadableCacheIsIgnored() throws Exception {
+    Path cacheFile = Files.createTempFile("deps-cache", "");
+    Files.write(cacheFile, "not a cache".getBytes(UTF_8));
+
+    DependencyInfoCache cache = DependencyInfoCache.load(cacheFile);
+
+    assertThat(cache.size()).isEqualTo(0);
+    assertThat(cache.lookUp(cacheFile.toString()).info).isNull();
+  }
+
+  private String computeWithCache(Path src, DependencyInfoCache cache) throws Exception {
+    return computeWithCache(src, cache, createModuleLoader());
+  }
+
+  private String computeWithCache(Path src, DependencyInfoCache cache, ModuleLoader loader)
+      throws Exception {
+    return createDepsGenerator(
+            ImmutableList.<SourceFile>of(),
+            DepsGenerator.createSourceFilesFromPaths(src.toString()),
+            loader)
+        .setCache(cache)
+        .computeDependencyCalls();
+  }
+
+  private DepsGenerator createDepsGenerator(List<SourceFile> deps, List<SourceFile> srcs) {
+    return createDepsGenerator(deps, srcs, createModuleLoader());
+  }
+
+  private DepsGenerator createDepsGenerator(
+      List<SourceFile> deps, List<SourceFile> srcs, ModuleLoader loader) {
+    return new DepsGenerator(
+        deps,
+        srcs,
+        DepsGenerator.InclusionStrategy.ALWAYS,
+        "/base/javascript/closure",
+        errorManager,
+        loader);
+  }
+
+  private static ModuleLoader createModuleLoader() {
+    return new ModuleLoader(
+        null,
+        ImmutableList.of("/base/"),
+        ImmutableList.<DependencyInfo>of(),
+        ModuleLoader.PathResolver.ABSOLUTE,
+        ModuleLoader.ResolutionMode.BROWSER);
+  }
+
   public void testNoDepsInDepsFile() throws Exception {
     SourceFile dep1 = SourceFile.fromCode("dep1.js", "");
 
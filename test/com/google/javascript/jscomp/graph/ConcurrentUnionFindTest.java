@@ -0,0 +1,109 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp.graph;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import junit.framework.TestCase;
+
+/** Tests for {@link ConcurrentUnionFind}. */
+public final class ConcurrentUnionFindTest extends TestCase {
+  private ConcurrentUnionFind<String> union;
+
+  @Override
+  protected void setUp() {
+    union = new ConcurrentUnionFind<>();
+  }
+
+  public void testEmpty() {
+    assertThat(union.allEquivalenceClasses()).isEmpty();
+  }
+
+  public void testUnion() {
+    union.add("A");
+    union.add("E");
+    union.union("A", "B");
+    union.union("C", "D");
+    union.union("B", "C");
+
+    assertTrue(union.areEquivalent("A", "D"));
+    assertFalse(union.areEquivalent("A", "E"));
+    assertThat(union.findAll("C")).containsExactly("A", "B", "C", "D");
+    assertThat(union.findAll("C")).hasSize(4);
+    assertThat(union.elements()).containsExactly("A", "B", "C", "D", "E");
+    assertThat(union.allEquivalenceClasses())
+        .containsExactly(ImmutableSet.of("A", "B", "C", "D"), ImmutableSet.of("E"));
+  }
+
+  public void testRepresentativeIsFirstAdded() {
+    union.union("C", "D");
+    union.union("A", "B");
+    union.union("B", "D");
+
+    assertThat(union.find("A")).isEqualTo("C");
+    assertThat(union.union("E", "A")).isEqualTo("C");
+  }
+
+  public void testFindMissingElement() {
+    try {
+      union.find("A");
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+
+  public void testConcurrentUnions() throws Exception {
+    final int numThreads = 4;
+    final int numElements = 20000;
+    List<Callable<Void>> tasks = new ArrayList<>();
+    for (int thread = 0; thread < numThreads; thread++) {
+      final int offset = thread;
+      tasks.add(
+          new Callable<Void>() {
+            @Override
+            public Void call() {
+              // Every thread links the even and the odd elements into chains, from its own start.
+              for (int i = offset; i + 2 < numElements; i += numThreads) {
+                union.union(String.valueOf(i), String.valueOf(i + 2));
+              }
+              return null;
+            }
+          });
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+    try {
+      for (Future<Void> future : executor.invokeAll(tasks)) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    assertThat(union.elements()).hasSize(numElements);
+    assertThat(union.allEquivalenceClasses()).hasSize(2);
+    assertTrue(union.areEquivalent("0", String.valueOf(numElements - 2)));
+    assertTrue(union.areEquivalent("1", String.valueOf(numElements - 1)));
+    assertFalse(union.areEquivalent("0", "1"));
+  }
+}
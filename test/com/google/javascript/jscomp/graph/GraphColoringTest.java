@@ -21,8 +21,17 @@ import static com.google.common.truth.Truth.assertThat;
 import com.google.common.collect.Ordering;
 import com.google.javascript.jscomp.graph.Graph.GraphEdge;
 import com.google.javascript.jscomp.graph.GraphColoring.Color;
+import com.google.javascript.jscomp.graph.GraphColoring.DsaturGraphColoring;
 import com.google.javascript.jscomp.graph.GraphColoring.GreedyGraphColoring;
+import java.util.BitSet;
+import java.util.Collection;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
 import junit.framework.TestCase;
 
 /**
@@ -183,6 +192,250 @@ public final class GraphColoringTest extends TestCase {
     assertThat("A".equals(coloring.getPartitionSuperNode("C"))).isFalse();
   }
 
+  public void testGreedyColorsNeighborsLikeSubGraphs() {
+    Random random = new Random(42);
+    for (int trial = 0; trial < 20; trial++) {
+      Graph<String, String> graph = LinkedUndirectedGraph.create();
+      for (int i = 0; i < 50; i++) {
+        graph.createNode("Node " + i);
+      }
+      for (int i = 0; i < 200; i++) {
+        int a = random.nextInt(50);
+        int b = random.nextInt(50);
+        if (a != b) {
+          graph.connectIfNotFound("Node " + a, null, "Node " + b);
+        }
+      }
+
+      // Only the graph itself is a Graph, so the coloring has to ask the subgraphs.
+      int numColors =
+          new GreedyGraphColoring<>(new SubGraphsOnly<>(graph), Ordering.<String>natural())
+              .color();
+      Map<String, Color> expected = getColors(graph);
+
+      assertThat(new GreedyGraphColoring<>(graph, Ordering.<String>natural()).color())
+          .isEqualTo(numColors);
+      validateColoring(graph);
+      assertThat(getColors(graph)).isEqualTo(expected);
+    }
+  }
+
+  public void testGreedyColorsKeysLikeSubGraphs() {
+    Random random = new Random(42);
+    for (int trial = 0; trial < 20; trial++) {
+      KeyGraph graph = new KeyGraph();
+      for (int i = 0; i < 50; i++) {
+        BitSet keys = new BitSet();
+        for (int j = random.nextInt(4); j >= 0; j--) {
+          keys.set(random.nextInt(100));
+        }
+        graph.add("Node " + i, keys, random.nextInt(5));
+      }
+
+      int numColors =
+          new GreedyGraphColoring<>(new SubGraphsOnly<>(graph), Ordering.<String>natural())
+              .color();
+      Map<String, Color> expected = getColors(graph);
+
+      assertThat(new GreedyGraphColoring<>(graph, Ordering.<String>natural()).color())
+          .isEqualTo(numColors);
+      assertThat(getColors(graph)).isEqualTo(expected);
+      for (GraphNode<String, String> a : graph.getNodes()) {
+        for (GraphNode<String, String> b : graph.getNodes()) {
+          if (a != b && graph.getKeys(a.getValue()).intersects(graph.getKeys(b.getValue()))) {
+            assertThat(a.<Color>getAnnotation()).isNotEqualTo(b.<Color>getAnnotation());
+          }
+        }
+      }
+    }
+  }
+
+  public void testDsaturColorsBipartiteGraphWithTwoColors() {
+    // A crown graph: "i u" and "j v" are connected unless i == j. Greedy coloring in the order
+    // "1 u", "1 v", "2 u", "2 v", ... needs a color for each pair.
+    final int count = 6;
+    Graph<String, String> graph = LinkedUndirectedGraph.create();
+    for (int i = 0; i < count; i++) {
+      graph.createNode(i + " u");
+      graph.createNode(i + " v");
+    }
+    for (int i = 0; i < count; i++) {
+      for (int j = 0; j < count; j++) {
+        if (i != j) {
+          graph.connect(i + " u", null, j + " v");
+        }
+      }
+    }
+
+    assertThat(new GreedyGraphColoring<>(graph, Ordering.<String>natural()).color())
+        .isEqualTo(count);
+    validateColoring(graph);
+
+    GraphColoring<String, String> coloring =
+        new DsaturGraphColoring<>(graph, Ordering.<String>natural());
+    assertThat(coloring.color()).isEqualTo(2);
+    validateColoring(graph);
+    assertThat(coloring.getPartitionSuperNode("0 u")).isEqualTo("0 u");
+    assertThat(coloring.getPartitionSuperNode("5 u")).isEqualTo("0 u");
+    assertThat(coloring.getPartitionSuperNode("0 v")).isEqualTo("0 v");
+  }
+
+  public void testDsaturIsValid() {
+    Random random = new Random(42);
+    for (int trial = 0; trial < 20; trial++) {
+      Graph<String, String> graph = LinkedUndirectedGraph.create();
+      for (int i = 0; i < 50; i++) {
+        graph.createNode("Node " + i);
+      }
+      for (int i = 0; i < 300; i++) {
+        int a = random.nextInt(50);
+        int b = random.nextInt(50);
+        if (a != b) {
+          graph.connectIfNotFound("Node " + a, null, "Node " + b);
+        }
+      }
+
+      int numColors = new DsaturGraphColoring<>(graph, Ordering.<String>natural()).color();
+      validateColoring(graph);
+      Set<Color> colors = new HashSet<>(getColors(graph).values());
+      assertThat(colors).hasSize(numColors);
+    }
+  }
+
+  private static <E> Map<String, Color> getColors(AdjacencyGraph<String, E> graph) {
+    Map<String, Color> colors = new HashMap<>();
+    for (GraphNode<String, E> node : graph.getNodes()) {
+      colors.put(node.getValue(), node.<Color>getAnnotation());
+    }
+    return colors;
+  }
+
+  /** Hides what kind of graph it wraps, so that only its subgraphs tell which nodes are adjacent. */
+  private static final class SubGraphsOnly<N, E> implements AdjacencyGraph<N, E> {
+    private final AdjacencyGraph<N, E> graph;
+
+    SubGraphsOnly(AdjacencyGraph<N, E> graph) {
+      this.graph = graph;
+    }
+
+    @Override
+    public Collection<? extends GraphNode<N, E>> getNodes() {
+      return graph.getNodes();
+    }
+
+    @Override
+    public int getNodeCount() {
+      return graph.getNodeCount();
+    }
+
+    @Override
+    public GraphNode<N, E> getNode(N value) {
+      return graph.getNode(value);
+    }
+
+    @Override
+    public SubGraph<N, E> newSubGraph() {
+      return graph.newSubGraph();
+    }
+
+    @Override
+    public void clearNodeAnnotations() {
+      graph.clearNodeAnnotations();
+    }
+
+    @Override
+    public int getWeight(N value) {
+      return graph.getWeight(value);
+    }
+  }
+
+  /** A graph whose nodes are adjacent when their keys intersect. */
+  private static final class KeyGraph implements KeySetGraph<String, String> {
+    private final Map<String, KeyNode> nodes = new LinkedHashMap<>();
+
+    void add(String value, BitSet keys, int weight) {
+      nodes.put(value, new KeyNode(value, keys, weight));
+    }
+
+    @Override
+    public Collection<KeyNode> getNodes() {
+      return nodes.values();
+    }
+
+    @Override
+    public int getNodeCount() {
+      return nodes.size();
+    }
+
+    @Override
+    public GraphNode<String, String> getNode(String value) {
+      return nodes.get(value);
+    }
+
+    @Override
+    public SubGraph<String, String> newSubGraph() {
+      return new SubGraph<String, String>() {
+        private final BitSet keys = new BitSet();
+
+        @Override
+        public boolean isIndependentOf(String value) {
+          return !keys.intersects(getKeys(value));
+        }
+
+        @Override
+        public void addNode(String value) {
+          keys.or(getKeys(value));
+        }
+      };
+    }
+
+    @Override
+    public void clearNodeAnnotations() {
+      for (KeyNode node : nodes.values()) {
+        node.setAnnotation(null);
+      }
+    }
+
+    @Override
+    public int getWeight(String value) {
+      return nodes.get(value).weight;
+    }
+
+    @Override
+    public BitSet getKeys(String value) {
+      return nodes.get(value).keys;
+    }
+  }
+
+  private static final class KeyNode implements GraphNode<String, String> {
+    private final String value;
+    private final BitSet keys;
+    private final int weight;
+    private Annotation annotation;
+
+    KeyNode(String value, BitSet keys, int weight) {
+      this.value = value;
+      this.keys = keys;
+      this.weight = weight;
+    }
+
+    @Override
+    public String getValue() {
+      return value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <A extends Annotation> A getAnnotation() {
+      return (A) annotation;
+    }
+
+    @Override
+    public void setAnnotation(Annotation data) {
+      annotation = data;
+    }
+  }
+
   /**
    * Validate that each node has been colored and connected nodes have different
    * coloring.
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp.graph;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import junit.framework.TestCase;
+
+/** Tests for {@link StronglyConnectedComponents}. */
+public final class StronglyConnectedComponentsTest extends TestCase {
+
+  public void testEmpty() {
+    StronglyConnectedComponents sccs = new StronglyConnectedComponents(new int[] {0}, new int[0]);
+    assertEquals(0, sccs.getComponentCount());
+  }
+
+  public void testChainIsNumberedFromTheEnd() {
+    // 0 -> 1 -> 2
+    StronglyConnectedComponents sccs =
+        new StronglyConnectedComponents(new int[] {0, 1, 2, 2}, new int[] {1, 2});
+
+    assertEquals(3, sccs.getComponentCount());
+    assertEquals(0, sccs.getComponent(2));
+    assertEquals(1, sccs.getComponent(1));
+    assertEquals(2, sccs.getComponent(0));
+  }
+
+  public void testCycles() {
+    // 0 -> 1 -> 2 -> 0, 2 -> 3, 3 -> 3, 4 -> 0, 4 -> 3
+    StronglyConnectedComponents sccs =
+        new StronglyConnectedComponents(
+            new int[] {0, 1, 2, 4, 5, 7}, new int[] {1, 2, 0, 3, 3, 0, 3});
+
+    assertEquals(3, sccs.getComponentCount());
+    assertEquals(sccs.getComponent(0), sccs.getComponent(1));
+    assertEquals(sccs.getComponent(0), sccs.getComponent(2));
+    assertThat(sccs.getComponent(3)).isLessThan(sccs.getComponent(0));
+    assertThat(sccs.getComponent(0)).isLessThan(sccs.getComponent(4));
+  }
+
+  public void testEdgesPointToLowerComponents() {
+    int numNodes = 200;
+    int[] offsets = new int[numNodes + 1];
+    int[] targets = new int[numNodes * 3];
+    int numEdges = 0;
+    for (int node = 0; node < numNodes; node++) {
+      offsets[node] = numEdges;
+      targets[numEdges++] = (node * 7 + 3) % numNodes;
+      targets[numEdges++] = (node * node) % numNodes;
+      if (node % 10 != 0) {
+        // Rings of ten nodes.
+        targets[numEdges++] = node - 1;
+      }
+    }
+    offsets[numNodes] = numEdges;
+
+    StronglyConnectedComponents sccs = new StronglyConnectedComponents(offsets, targets);
+
+    for (int node = 0; node < numNodes; node++) {
+      for (int edge = offsets[node]; edge < offsets[node + 1]; edge++) {
+        assertThat(sccs.getComponent(targets[edge])).isAtMost(sccs.getComponent(node));
+      }
+    }
+  }
+
+  public void testLongPath() {
+    // A path longer than a recursive implementation could follow.
+    int numNodes = 1000000;
+    int[] offsets = new int[numNodes + 1];
+    int[] targets = new int[numNodes];
+    for (int node = 0; node < numNodes; node++) {
+      offsets[node] = node;
+      targets[node] = (node + 1) % numNodes;
+    }
+    offsets[numNodes] = numNodes;
+
+    StronglyConnectedComponents sccs = new StronglyConnectedComponents(offsets, targets);
+
+    assertEquals(1, sccs.getComponentCount());
+  }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.javascript.jscomp.parsing.parser;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for {@link IdentifierTable}.
+ */
+public final class IdentifierTableTest extends TestCase {
+  public void testReturnsInternedText() {
+    IdentifierTable table = new IdentifierTable();
+    String source = "var foo = bar;";
+    String foo = table.get(source, 4, 7);
+    assertEquals("foo", foo);
+    assertSame("foo".intern(), foo);
+  }
+
+  public void testRepeatedTextIsShared() {
+    IdentifierTable table = new IdentifierTable();
+    String source = "foo(foo, foox, fo)";
+    String first = table.get(source, 0, 3);
+    assertSame(first, table.get(source, 4, 7));
+    assertEquals("foox", table.get(source, 9, 13));
+    assertEquals("fo", table.get(source, 15, 17));
+    assertThat(table.size()).isEqualTo(3);
+  }
+
+  public void testGrows() {
+    IdentifierTable table = new IdentifierTable();
+    StringBuilder source = new StringBuilder();
+    for (int i = 0; i < 5000; i++) {
+      source.append("name").append(i).append(' ');
+    }
+    String contents = source.toString();
+    int start = 0;
+    for (int i = 0; i < 5000; i++) {
+      int end = contents.indexOf(' ', start);
+      assertEquals("name" + i, table.get(contents, start, end));
+      start = end + 1;
+    }
+    assertThat(table.size()).isEqualTo(5000);
+    assertSame("name1234".intern(), table.get("(name1234)", 1, 9));
+    assertThat(table.size()).isEqualTo(5000);
+  }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2017 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp.transpile;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.javascript.jscomp.bundle.TranspilationException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import junit.framework.TestCase;
+
+/** Tests for {@link BatchTranspiler}. */
+public final class BatchTranspilerTest extends TestCase {
+
+  private static final Path FOO_JS = Paths.get("foo.js");
+  private static final Path BAR_JS = Paths.get("bar.js");
+
+  private BatchTranspiler batch;
+
+  @Override
+  public void setUp() {
+    batch =
+        new BatchTranspiler(
+            new CachingTranspiler(BaseTranspiler.ES5_TRANSPILER, CacheBuilder.newBuilder()), 2);
+  }
+
+  @Override
+  public void tearDown() {
+    batch.close();
+  }
+
+  public void testResultsAreInInputOrder() {
+    Map<Path, String> sources = new LinkedHashMap<>();
+    for (int i = 0; i < 20; i++) {
+      sources.put(Paths.get("file" + i + ".js"), "const x" + i + " = () => " + i + ";");
+    }
+
+    List<TranspileResult> results = batch.transpile(sources).collect(Collectors.toList());
+
+    assertThat(results).hasSize(20);
+    Iterator<Map.Entry<Path, String>> expected = sources.entrySet().iterator();
+    for (TranspileResult result : results) {
+      Map.Entry<Path, String> source = expected.next();
+      assertThat(result)
+          .isEqualTo(BaseTranspiler.ES5_TRANSPILER.transpile(source.getKey(), source.getValue()));
+      assertThat(result.wasTranspiled()).isTrue();
+    }
+  }
+
+  public void testFailureIsThrownWhenReached() {
+    Map<Path, String> sources = new LinkedHashMap<>();
+    sources.put(FOO_JS, "var x = 42;");
+    sources.put(BAR_JS, "cons x = 42;");
+
+    Iterator<TranspileResult> results = batch.transpile(sources).iterator();
+
+    assertThat(results.next().transpiled()).isEqualTo("var x = 42;");
+    try {
+      results.next();
+      fail();
+    } catch (TranspilationException expected) {
+    }
+  }
+}
@@ -70,6 +70,26 @@ public final class CachingTranspilerTest extends TestCase {
     assertThat(transpiler.transpile(FOO_JS, "bard")).isSameAs(RESULT3);
   }
 
+  public void testWeightedCacheRecordsStats() {
+    when(delegate.transpile(FOO_JS, "bar")).thenReturn(RESULT1);
+    CachingTranspiler weighted = CachingTranspiler.weighted(delegate, 1000);
+    weighted.transpile(FOO_JS, "bar");
+    weighted.transpile(FOO_JS, "bar");
+    assertThat(weighted.stats().missCount()).isEqualTo(1);
+    assertThat(weighted.stats().hitCount()).isEqualTo(1);
+    verify(delegate, times(1)).transpile(FOO_JS, "bar");
+  }
+
+  public void testWeightedCacheEvictsByChars() {
+    when(delegate.transpile(FOO_JS, "bar")).thenReturn(RESULT1);
+    // "bar" and "baz" weigh 6 chars, more than the cache holds.
+    CachingTranspiler weighted = CachingTranspiler.weighted(delegate, 5);
+    weighted.transpile(FOO_JS, "bar");
+    weighted.transpile(FOO_JS, "bar");
+    verify(delegate, times(2)).transpile(FOO_JS, "bar");
+    assertThat(weighted.stats().evictionCount()).isEqualTo(2);
+  }
+
   public void testRuntimeDelegates() {
     when(delegate.runtime()).thenReturn("xyzzy");
     assertThat(transpiler.runtime()).isSameAs("xyzzy");
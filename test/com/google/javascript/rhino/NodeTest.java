@@ -419,20 +419,53 @@ public class NodeTest extends TestCase {
 
     n.putBooleanProp(Node.IS_CONSTANT_NAME, false);
 
-    assertNull(n.lookupProperty(Node.IS_CONSTANT_NAME));
+    assertFalse(n.hasProps());
     assertFalse(n.getBooleanProp(Node.IS_CONSTANT_NAME));
 
     n.putBooleanProp(Node.IS_CONSTANT_NAME, true);
 
-    assertNotNull(n.lookupProperty(Node.IS_CONSTANT_NAME));
+    assertTrue(n.hasProps());
     assertTrue(n.getBooleanProp(Node.IS_CONSTANT_NAME));
+    // Flags are kept in a bit set, not in the property list.
+    assertNull(n.lookupProperty(Node.IS_CONSTANT_NAME));
+    assertNull(n.getPropListHeadForTesting());
 
     n.putBooleanProp(Node.IS_CONSTANT_NAME, false);
 
-    assertNull(n.lookupProperty(Node.IS_CONSTANT_NAME));
+    assertFalse(n.hasProps());
     assertFalse(n.getBooleanProp(Node.IS_CONSTANT_NAME));
   }
 
+  public void testBooleanPropWithIntValue() {
+    Node n = getVarRef("a");
+
+    n.putIntProp(Node.QUOTED_PROP, 1);
+    assertEquals(1, n.getIntProp(Node.QUOTED_PROP));
+    assertTrue(n.getBooleanProp(Node.QUOTED_PROP));
+
+    n.putIntProp(Node.QUOTED_PROP, 2);
+    assertEquals(2, n.getIntProp(Node.QUOTED_PROP));
+    assertTrue(n.getBooleanProp(Node.QUOTED_PROP));
+    assertNotNull(n.lookupProperty(Node.QUOTED_PROP));
+
+    n.putIntProp(Node.QUOTED_PROP, 0);
+    assertEquals(0, n.getIntProp(Node.QUOTED_PROP));
+    assertFalse(n.getBooleanProp(Node.QUOTED_PROP));
+    assertNull(n.lookupProperty(Node.QUOTED_PROP));
+  }
+
+  public void testSharedBooleanProps() {
+    Node n = getVarRef("A");
+    n.putBooleanProp(Node.FREE_CALL, true);
+    Node m = new Node(Token.TRUE);
+    m.clonePropsFrom(n);
+    assertTrue(m.getBooleanProp(Node.FREE_CALL));
+
+    n.putBooleanProp(Node.FREE_CALL, false);
+    assertFalse(n.getBooleanProp(Node.FREE_CALL));
+    assertTrue(m.getBooleanProp(Node.FREE_CALL));
+  }
+
   // Verify that annotations on cloned nodes are properly handled.
   public void testCloneAnnontations2() {
     Node n = getVarRef("a");
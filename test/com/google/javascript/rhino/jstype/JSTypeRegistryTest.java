@@ -38,6 +38,7 @@
 
 package com.google.javascript.rhino.jstype;
 
+import static com.google.javascript.rhino.jstype.JSTypeNative.ARRAY_TYPE;
 import static com.google.javascript.rhino.jstype.JSTypeNative.BOOLEAN_OBJECT_FUNCTION_TYPE;
 import static com.google.javascript.rhino.jstype.JSTypeNative.BOOLEAN_OBJECT_TYPE;
 import static com.google.javascript.rhino.jstype.JSTypeNative.BOOLEAN_TYPE;
@@ -47,9 +48,12 @@ import static com.google.javascript.rhino.jstype.JSTypeNative.NUMBER_TYPE;
 import static com.google.javascript.rhino.jstype.JSTypeNative.STRING_TYPE;
 import static com.google.javascript.rhino.jstype.JSTypeNative.STRING_VALUE_OR_OBJECT_TYPE;
 
+import com.google.common.collect.ImmutableMap;
+import com.google.javascript.rhino.JSDocInfoBuilder;
 import com.google.javascript.rhino.Node;
 import com.google.javascript.rhino.Token;
 import com.google.javascript.rhino.testing.Asserts;
+import com.google.javascript.rhino.testing.MapBasedScope;
 import junit.framework.TestCase;
 
 /**
@@ -116,6 +120,74 @@ public class JSTypeRegistryTest extends TestCase {
             registry, union(registry, NUMBER_TYPE, STRING_TYPE, NULL_TYPE), true));
   }
 
+  public void testUnionTypesAreShared() {
+    JSTypeRegistry registry = new JSTypeRegistry(null);
+    JSType union = union(registry, NUMBER_TYPE, STRING_TYPE);
+
+    assertSame(union, union(registry, NUMBER_TYPE, STRING_TYPE));
+    assertSame(union, union(registry, NUMBER_TYPE, STRING_TYPE, NUMBER_TYPE));
+    // The order of the alternates shows when the union is printed.
+    assertNotSame(union, union(registry, STRING_TYPE, NUMBER_TYPE));
+    assertNotSame(union, union(registry, NUMBER_TYPE, STRING_TYPE, NULL_TYPE));
+  }
+
+  public void testUnionTypesAreNotSharedWhileNamedTypesAreUnresolved() {
+    JSTypeRegistry registry = new JSTypeRegistry(null);
+    FunctionType ctor = registry.createConstructorType("Foo", null, null, null, null, false);
+    MapBasedScope scope = new MapBasedScope(ImmutableMap.of("Foo", ctor));
+    Node name = new Node(Token.BANG, Node.newString("Foo"));
+    JSType foo = registry.createTypeFromCommentNode(name, "foo.js", scope);
+    JSType number = registry.getNativeType(NUMBER_TYPE);
+
+    assertNotSame(registry.createUnionType(foo, number), registry.createUnionType(foo, number));
+
+    registry.resolveTypesInScope(scope);
+    assertSame(registry.createUnionType(foo, number), registry.createUnionType(foo, number));
+  }
+
+  public void testRecordTypesAreNotShared() {
+    JSTypeRegistry registry = new JSTypeRegistry(null);
+    JSType number = registry.getNativeType(NUMBER_TYPE);
+    ObjectType record = registry.createRecordType(ImmutableMap.of("a", number)).toObjectType();
+    ObjectType sameRecord =
+        registry.createRecordType(ImmutableMap.of("a", number)).toObjectType();
+    assertNotSame(record, sameRecord);
+    assertTrue(record.isEquivalentTo(sameRecord));
+
+    // Annotating the property of one record, as InferJSDocInfo does, leaves the other alone.
+    JSDocInfoBuilder builder = new JSDocInfoBuilder(false);
+    builder.recordDeprecated();
+    record.setPropertyJSDocInfo("a", builder.build());
+
+    assertTrue(record.getOwnPropertyJSDocInfo("a").isDeprecated());
+    assertNull(sameRecord.getOwnPropertyJSDocInfo("a"));
+  }
+
+  public void testTemplatizedTypesAreShared() {
+    JSTypeRegistry registry = new JSTypeRegistry(null);
+    ObjectType array = registry.getNativeObjectType(ARRAY_TYPE);
+    JSType number = registry.getNativeType(NUMBER_TYPE);
+
+    TemplatizedType arrayOfNumber = registry.createTemplatizedType(array, number);
+
+    assertSame(arrayOfNumber, registry.createTemplatizedType(array, number));
+    assertNotSame(
+        arrayOfNumber,
+        registry.createTemplatizedType(array, registry.getNativeType(STRING_TYPE)));
+  }
+
+  public void testSharedTypesAreDroppedOnReset() {
+    JSTypeRegistry registry = new JSTypeRegistry(null);
+    JSType union = union(registry, NUMBER_TYPE, STRING_TYPE);
+
+    registry.resetForTypeCheck();
+
+    JSType newUnion = union(registry, NUMBER_TYPE, STRING_TYPE);
+    assertNotSame(union, newUnion);
+    assertTrue(newUnion.toMaybeUnionType().getAlternates().contains(
+        registry.getNativeType(NUMBER_TYPE)));
+  }
+
   private JSType union(JSTypeRegistry registry, JSTypeNative... types) {
     return registry.createUnionType(types);
   }